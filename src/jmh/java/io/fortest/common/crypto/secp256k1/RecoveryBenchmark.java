@@ -0,0 +1,82 @@
+package io.fortest.common.crypto.secp256k1;
+
+import io.fortest.common.crypto.ECKey;
+import io.fortest.common.crypto.ECKey.ECDSASignature;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongycastle.asn1.sec.SECNamedCurves;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.asn1.x9.X9IntegerConverter;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECPoint;
+
+/**
+ * The recovery of the public key of a transaction signature, by ECKey and by the BigInteger point
+ * arithmetic it used before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecoveryBenchmark {
+
+  private static final X9ECParameters PARAMS = SECNamedCurves.getByName("secp256k1");
+  private static final ECDomainParameters CURVE = new ECDomainParameters(PARAMS.getCurve(),
+      PARAMS.getG(), PARAMS.getN(), PARAMS.getH());
+
+  private byte[] hash;
+  private ECDSASignature signature;
+  private int recId;
+
+  @Setup
+  public void setUp() {
+    ECKey key = ECKey.fromPrivate(new BigInteger(
+        "8f3a9c0d27b1e4f55a6c7d8e9f0a1b2c3d4e5f60718293a4b5c6d7e8f9012345", 16));
+    hash = new byte[32];
+    for (int i = 0; i < hash.length; i++) {
+      hash[i] = (byte) (31 * i + 7);
+    }
+    signature = key.sign(hash);
+    recId = signature.v - 27;
+  }
+
+  @Benchmark
+  public byte[] recover() {
+    return ECKey.recoverPubBytesFromSignature(recId, signature, hash);
+  }
+
+  /**
+   * ECKey.recoverPubBytesFromSignature as it was before the dedicated implementation.
+   */
+  @Benchmark
+  public byte[] recoverBaseline() {
+    BigInteger n = CURVE.getN();
+    BigInteger x = signature.r.add(BigInteger.valueOf(recId / 2).multiply(n));
+    X9IntegerConverter x9 = new X9IntegerConverter();
+    byte[] compEnc = x9.integerToBytes(x, 1 + x9.getByteLength(CURVE.getCurve()));
+    compEnc[0] = (byte) ((recId & 1) == 1 ? 0x03 : 0x02);
+    ECPoint point = CURVE.getCurve().decodePoint(compEnc);
+    if (!point.multiply(n).isInfinity()) {
+      return null;
+    }
+    BigInteger eInv = BigInteger.ZERO.subtract(new BigInteger(1, hash)).mod(n);
+    BigInteger rInv = signature.r.modInverse(n);
+    BigInteger srInv = rInv.multiply(signature.s).mod(n);
+    BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
+    return ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, point, srInv)
+        .getEncoded(false);
+  }
+}
@@ -0,0 +1,124 @@
+package io.fortest.common.runtime.vm;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The arithmetic of the words on the stack. The operations change the word they are called on, so
+ * every one works on a copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataWordBenchmark {
+
+  private DataWord large;
+  private DataWord other;
+  private DataWord negative;
+  private DataWord small;
+  private DataWord shift;
+
+  @Setup
+  public void setUp() {
+    large = new DataWord("8f3a9c0d27b1e4f55a6c7d8e9f0a1b2c3d4e5f60718293a4b5c6d7e8f9012345");
+    other = new DataWord("00000000000000000000000000000000d1e2f30415263748596a7b8c9daebfc1");
+    negative = new DataWord("fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff85e");
+    small = new DataWord(0xff);
+    shift = new DataWord(0x47);
+  }
+
+  @Benchmark
+  public DataWord add() {
+    DataWord word = large.clone();
+    word.add(other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord sub() {
+    DataWord word = large.clone();
+    word.sub(other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord mul() {
+    DataWord word = large.clone();
+    word.mul(other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord div() {
+    DataWord word = large.clone();
+    word.div(other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord sDiv() {
+    DataWord word = negative.clone();
+    word.sDiv(small);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord mod() {
+    DataWord word = large.clone();
+    word.mod(other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord exp() {
+    DataWord word = other.clone();
+    word.exp(small);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord addmod() {
+    DataWord word = large.clone();
+    word.addmod(negative, other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord mulmod() {
+    DataWord word = large.clone();
+    word.mulmod(negative, other);
+    return word;
+  }
+
+  @Benchmark
+  public DataWord and() {
+    return large.clone().and(other);
+  }
+
+  @Benchmark
+  public DataWord shiftLeft() {
+    return large.shiftLeft(shift);
+  }
+
+  @Benchmark
+  public DataWord shiftRightSigned() {
+    return negative.shiftRightSigned(shift);
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return large.compareTo(other);
+  }
+}
@@ -0,0 +1,190 @@
+package io.fortest.common.runtime.vm;
+
+import io.fortest.common.crypto.Hash;
+import io.fortest.common.runtime.config.VMConfig;
+import io.fortest.common.runtime.utils.MUtil;
+import io.fortest.common.runtime.vm.program.InternalTransaction;
+import io.fortest.common.runtime.vm.program.Program;
+import io.fortest.common.runtime.vm.program.ProgramResult;
+import io.fortest.common.runtime.vm.program.Storage;
+import io.fortest.common.runtime.vm.program.invoke.ProgramInvokeImpl;
+import io.fortest.common.storage.Deposit;
+import io.fortest.common.storage.DepositImpl;
+import io.fortest.common.storage.Key;
+import io.fortest.core.capsule.StorageRowCapsule;
+import io.fortest.protos.Protocol.AccountType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongycastle.util.encoders.Hex;
+
+/**
+ * Whole programs through the interpreter, each a loop of 100 rounds of a typical contract body.
+ *
+ * <p>The contract runs on a root deposit without a manager, its account cached and its storage
+ * kept in memory, so no database is opened. The storage keeps the slots written by the earlier
+ * invocations, the writes after the first ones all change a slot already set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+  private static final long ENERGY_LIMIT = 1_000_000_000L;
+
+  // the rounds of every loop, the operand of its first PUSH2
+  private static final String ROUNDS = "0064";
+
+  private static final String SENDER = "1e5c8f1b0b3a9e7d6c4f2a1908e7d6c5b4a39281";
+
+  /**
+   * an erc20 transfer of one unit from the sender to the round number, with its Transfer event.
+   */
+  private static final String TRANSFER = ""
+      + "73" + SENDER           // 0    PUSH20 sender
+      + "61" + ROUNDS           // 21   PUSH2 rounds
+      + "5b"                    // 24   JUMPDEST
+      + "81" + "6000" + "52"    // 25   mstore(0, sender)
+      + "6000" + "6020" + "52"  // 29   mstore(32, 0)
+      + "6040" + "6000" + "20"  // 34   sha3(0, 64), the balance slot of the sender
+      + "80" + "54"             // 39   DUP1 SLOAD
+      + "6001" + "81" + "10"    // 41   balance < 1
+      + "61007d" + "57"         // 45   JUMPI revert
+      + "6001" + "90" + "03"    // 49   balance - 1
+      + "90" + "55"             // 53   SWAP1 SSTORE
+      + "80" + "6000" + "52"    // 55   mstore(0, round)
+      + "6040" + "6000" + "20"  // 59   sha3(0, 64), the balance slot of the receiver
+      + "80" + "54"             // 64   DUP1 SLOAD
+      + "6001" + "01"           // 66   balance + 1
+      + "90" + "55"             // 69   SWAP1 SSTORE
+      + "6001" + "6000" + "52"  // 71   mstore(0, 1)
+      + "80" + "82"             // 76   receiver, sender
+      + "7fddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef" // 78 Transfer
+      + "6020" + "6000" + "a3"  // 111  LOG3(0, 32)
+      + "6001" + "90" + "03"    // 116  round - 1
+      + "80" + "6018" + "57"    // 120  JUMPI loop
+      + "00"                    // 124  STOP
+      + "5b" + "6000" + "80" + "fd"; // 125  JUMPDEST REVERT(0, 0)
+
+  /**
+   * a hash chain, each round hashing the round number with the hash of the round before.
+   */
+  private static final String HASHING = ""
+      + "61" + ROUNDS           // 0    PUSH2 rounds
+      + "5b"                    // 3    JUMPDEST
+      + "80" + "6000" + "52"    // 4    mstore(0, round)
+      + "6040" + "6000" + "20"  // 8    sha3(0, 64)
+      + "6020" + "52"           // 13   mstore(32, hash)
+      + "6001" + "90" + "03"    // 16   round - 1
+      + "80" + "6003" + "57"    // 20   JUMPI loop
+      + "00";                   // 24   STOP
+
+  /**
+   * a mapping update, each round adding the round number to its entry in the mapping at slot 1.
+   */
+  private static final String MAPPING = ""
+      + "61" + ROUNDS           // 0    PUSH2 rounds
+      + "5b"                    // 3    JUMPDEST
+      + "80" + "6000" + "52"    // 4    mstore(0, round)
+      + "6001" + "6020" + "52"  // 8    mstore(32, 1)
+      + "6040" + "6000" + "20"  // 13   sha3(0, 64), the slot of the entry
+      + "80" + "54"             // 18   DUP1 SLOAD
+      + "82" + "01"             // 20   entry + round
+      + "90" + "55"             // 22   SWAP1 SSTORE
+      + "6001" + "90" + "03"    // 24   round - 1
+      + "80" + "6003" + "57"    // 28   JUMPI loop
+      + "00";                   // 32   STOP
+
+  @Param({"transfer", "hashing", "mapping"})
+  private String contract;
+
+  private byte[] code;
+  private byte[] codeHash;
+  private byte[] address;
+  private Deposit deposit;
+  private final VM vm = new VM();
+
+  @Setup
+  public void setUp() {
+    VMConfig.initVmHardFork(true);
+    VMConfig.initAllowTvmTransferTrc10(1);
+    VMConfig.initAllowTvmConstantinople(1);
+
+    switch (contract) {
+      case "transfer":
+        code = Hex.decode(TRANSFER);
+        break;
+      case "hashing":
+        code = Hex.decode(HASHING);
+        break;
+      case "mapping":
+        code = Hex.decode(MAPPING);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown contract " + contract);
+    }
+    codeHash = Hash.sha3(code);
+
+    address = MUtil.convertTokhcAddress(Hex.decode("471fd3ad3e9eeadeec4608b92d16ce6b500704cc"));
+    deposit = DepositImpl.createRoot(null);
+    deposit.createAccount(address, AccountType.Contract);
+    Storage storage = new MemoryStorage(address);
+    // the sender holds enough for every transfer of the run
+    byte[] senderSlot = Hex.decode("000000000000000000000000" + SENDER
+        + "0000000000000000000000000000000000000000000000000000000000000000");
+    storage.put(new DataWord(Hash.sha3(senderSlot)),
+        new DataWord("00ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"));
+    deposit.putStorage(Key.create(address), storage);
+
+    ProgramResult result = run();
+    if (result.getException() != null || result.isRevert()) {
+      throw new IllegalStateException("contract " + contract + " failed", result.getException());
+    }
+  }
+
+  @Benchmark
+  public ProgramResult execute() {
+    return run();
+  }
+
+  private ProgramResult run() {
+    ProgramInvokeImpl invoke = new ProgramInvokeImpl(address, address, address, 0, 0, 0, 0,
+        new byte[0], new byte[32], new byte[32], 0, 0, deposit, 0, Long.MAX_VALUE / 1000, false,
+        ENERGY_LIMIT);
+    InternalTransaction transaction = new InternalTransaction(new byte[32], 0, 0, address,
+        address, 0, new byte[0], "call", 0, null);
+    Program program = new Program(code, invoke, transaction);
+    // the jump destinations are analysed once, as for a deployed contract
+    program.setCodeHash(codeHash);
+    vm.play(program);
+    return program.getResult();
+  }
+
+  /**
+   * a storage with no store behind it, a row not written yet reads as unset.
+   */
+  private static class MemoryStorage extends Storage {
+
+    private MemoryStorage(byte[] address) {
+      super(address, null);
+    }
+
+    @Override
+    public DataWord getValue(DataWord key) {
+      StorageRowCapsule row = getRowCache().get(key);
+      return row == null ? null : row.getValue();
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package io.fortest.common.runtime.vm;
+
+import io.fortest.common.crypto.ECKey;
+import io.fortest.common.crypto.ECKey.ECDSASignature;
+import io.fortest.common.crypto.Hash;
+import io.fortest.common.runtime.utils.MUtil;
+import io.fortest.common.runtime.vm.PrecompiledContracts.PrecompiledContract;
+import io.fortest.common.storage.Deposit;
+import io.fortest.common.storage.DepositImpl;
+import io.fortest.common.utils.ByteArray;
+import io.fortest.common.utils.ByteUtil;
+import io.fortest.common.utils.DBConfig;
+import io.fortest.common.utils.Sha256Hash;
+import io.fortest.core.config.args.Args;
+import io.fortest.protos.Protocol.AccountType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every precompiled contract on an input it accepts, the signatures and points all valid so the
+ * whole check is done.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecompiledContractsBenchmark {
+
+  private static final int WORD_SIZE = DataWord.WORD_SIZE;
+
+  // the generator of G2, the imaginary part of each coordinate first
+  private static final String[] G2 = {
+      "11559732032986387107991004021392285783925812861821192530917403151452391805634",
+      "10857046999023057135944570762232829481370756359578518086990519993285655852781",
+      "4082367875863433681332203403145435568316851327593401208105741076214120093531",
+      "8495653923123431417604973247489272438418190587263600148770280649306958101930"};
+
+  // the y of the negated generator of G1, p - 2
+  private static final String MINUS_TWO =
+      "21888242871839275222246405745257275088696311157297823662689037894645226208581";
+
+  private static final int BATCH_SIZE = 16;
+
+  @Param({"ecRecover", "sha256", "ripempd160", "identity", "modExp", "bn128Add", "bn128Mul",
+      "bn128Pairing", "batchValidateSign", "validateMultiSign"})
+  private String contract;
+
+  private PrecompiledContract precompiled;
+  private byte[] data;
+
+  @Setup
+  public void setUp() {
+    byte[] hash = Hash.sha3("precompiled contracts benchmark".getBytes());
+    byte[] bytes = new byte[256];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+
+    switch (contract) {
+      case "ecRecover": {
+        precompiled = new PrecompiledContracts.ECRecover();
+        ECDSASignature signature = key(0).sign(hash);
+        data = ByteUtil.merge(hash, new DataWord(signature.v).getData(),
+            word(signature.r), word(signature.s));
+        break;
+      }
+      case "sha256":
+        precompiled = new PrecompiledContracts.Sha256();
+        data = bytes;
+        break;
+      case "ripempd160":
+        precompiled = new PrecompiledContracts.Ripempd160();
+        data = bytes;
+        break;
+      case "identity":
+        precompiled = new PrecompiledContracts.Identity();
+        data = bytes;
+        break;
+      case "modExp":
+        precompiled = new PrecompiledContracts.ModExp();
+        data = ByteUtil.merge(new DataWord(WORD_SIZE).getData(),
+            new DataWord(WORD_SIZE).getData(), new DataWord(WORD_SIZE).getData(),
+            Hash.sha3(bytes), hash,
+            new DataWord("c2f1a3b4d5e6f708192a3b4c5d6e7f8091a2b3c4d5e6f708192a3b4c5d6e7f81")
+                .getData());
+        break;
+      case "bn128Add":
+        precompiled = new PrecompiledContracts.BN128Addition();
+        data = ByteUtil.merge(word("1"), word("2"), word("1"), word("2"));
+        break;
+      case "bn128Mul":
+        precompiled = new PrecompiledContracts.BN128Multiplication();
+        data = ByteUtil.merge(word("1"), word("2"), hash);
+        break;
+      case "bn128Pairing":
+        // e(g1, g2) * e(-g1, g2), the check holds
+        precompiled = new PrecompiledContracts.BN128Pairing();
+        data = ByteUtil.merge(word("1"), word("2"), word(G2[0]), word(G2[1]), word(G2[2]),
+            word(G2[3]), word("1"), word(MINUS_TWO), word(G2[0]), word(G2[1]), word(G2[2]),
+            word(G2[3]));
+        break;
+      case "batchValidateSign":
+        precompiled = new PrecompiledContracts.BatchValidateSign();
+        data = batchValidateSignData(hash);
+        break;
+      case "validateMultiSign":
+        precompiled = new PrecompiledContracts.ValidateMultiSign();
+        data = validateMultiSignData(hash);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown contract " + contract);
+    }
+
+    Pair<Boolean, byte[]> result = precompiled.execute(data);
+    // a rejected signature or pairing answers a zero word
+    if (!result.getLeft() || DataWord.isZero(result.getRight())) {
+      throw new IllegalStateException("contract " + contract + " rejected its input");
+    }
+  }
+
+  @Benchmark
+  public Pair<Boolean, byte[]> execute() {
+    return precompiled.execute(data);
+  }
+
+  private byte[] batchValidateSignData(byte[] hash) {
+    // the signatures are checked on the shared pool, as in a transaction
+    Args.getInstance().setValidateSignThreadNum(Runtime.getRuntime().availableProcessors());
+    precompiled.setVmShouldEndInUs(Long.MAX_VALUE / VMConstant.ONE_THOUSAND);
+
+    List<byte[]> signatures = new ArrayList<>();
+    List<byte[]> addresses = new ArrayList<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      ECKey key = key(i);
+      signatures.add(key.sign(hash).toByteArray());
+      addresses.add(new DataWord(key.getAddress()).getData());
+    }
+    byte[] signatureArray = bytesArray(signatures);
+    // hash, the offset of the signatures, the offset of the addresses
+    return ByteUtil.merge(hash, new DataWord(3 * WORD_SIZE).getData(),
+        new DataWord(3 * WORD_SIZE + signatureArray.length).getData(), signatureArray,
+        new DataWord(addresses.size()).getData(),
+        ByteUtil.merge(addresses.toArray(new byte[0][])));
+  }
+
+  private byte[] validateMultiSignData(byte[] hash) {
+    // an account with the default owner permission, its own key the only one
+    ECKey key = key(0);
+    Deposit deposit = DepositImpl.createRoot(null);
+    deposit.createAccount(key.getAddress(), AccountType.Normal);
+    precompiled.setDeposit(deposit);
+
+    byte[] address = new DataWord(key.getAddress()).getData();
+    int permissionId = 0;
+    byte[] signed = Sha256Hash.hash(DBConfig.isECKeyCryptoEngine(), ByteUtil.merge(
+        MUtil.convertTokhcAddress(new DataWord(address).getLast20Bytes()),
+        ByteArray.fromInt(permissionId), hash));
+    List<byte[]> signatures = new ArrayList<>();
+    signatures.add(key.sign(signed).toByteArray());
+    // address, permission, data, the offset of the signatures
+    return ByteUtil.merge(address, new DataWord(permissionId).getData(), hash,
+        new DataWord(4 * WORD_SIZE).getData(), bytesArray(signatures));
+  }
+
+  private static ECKey key(int index) {
+    return ECKey.fromPrivate(Hash.sha3(("benchmark key " + index).getBytes()));
+  }
+
+  private static byte[] word(String decimal) {
+    return word(new BigInteger(decimal));
+  }
+
+  private static byte[] word(BigInteger value) {
+    return ByteUtil.bigIntegerToBytes(value, WORD_SIZE);
+  }
+
+  /**
+   * the abi encoding of a bytes[], its length, the offsets of the elements and the elements each
+   * with its length and padded to words.
+   */
+  private static byte[] bytesArray(List<byte[]> elements) {
+    List<byte[]> heads = new ArrayList<>();
+    List<byte[]> tails = new ArrayList<>();
+    heads.add(new DataWord(elements.size()).getData());
+    int offset = elements.size() * WORD_SIZE;
+    for (byte[] element : elements) {
+      byte[] padded = new byte[(element.length + WORD_SIZE - 1) / WORD_SIZE * WORD_SIZE];
+      System.arraycopy(element, 0, padded, 0, element.length);
+      heads.add(new DataWord(offset).getData());
+      tails.add(new DataWord(element.length).getData());
+      tails.add(padded);
+      offset += WORD_SIZE + padded.length;
+    }
+    heads.addAll(tails);
+    return ByteUtil.merge(heads.toArray(new byte[0][]));
+  }
+}
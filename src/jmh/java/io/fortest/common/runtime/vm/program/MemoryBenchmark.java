@@ -0,0 +1,88 @@
+package io.fortest.common.runtime.vm.program;
+
+import io.fortest.common.runtime.vm.DataWord;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The memory operations behind MSTORE, MLOAD, SHA3 and the copies, on a memory already extended
+ * to the given size, and the growth of a fresh memory to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+
+  @Param({"1024", "65536"})
+  private int size;
+
+  private Memory memory;
+  private byte[] word;
+  private byte[] chunk;
+  private int address;
+
+  @Setup
+  public void setUp() {
+    memory = new Memory();
+    memory.extend(0, size);
+    word = new DataWord("8f3a9c0d27b1e4f55a6c7d8e9f0a1b2c3d4e5f60718293a4b5c6d7e8f9012345")
+        .getData();
+    chunk = new byte[size / 2];
+    for (int i = 0; i < chunk.length; i++) {
+      chunk[i] = (byte) i;
+    }
+  }
+
+  /**
+   * the next word aligned address, walking the memory.
+   */
+  private int nextAddress() {
+    address = (address + DataWord.WORD_SIZE) % size;
+    return address;
+  }
+
+  @Benchmark
+  public void writeWord() {
+    memory.write(nextAddress(), word, word.length, false);
+  }
+
+  @Benchmark
+  public DataWord readWord() {
+    return memory.readWord(nextAddress());
+  }
+
+  @Benchmark
+  public void writeChunk() {
+    memory.write(0, chunk, chunk.length, false);
+  }
+
+  @Benchmark
+  public byte[] readChunk() {
+    return memory.read(size / 2, chunk.length);
+  }
+
+  @Benchmark
+  public byte[] sha3() {
+    return memory.sha3(0, size);
+  }
+
+  @Benchmark
+  public Memory extend() {
+    Memory fresh = new Memory();
+    fresh.extend(0, size);
+    return fresh;
+  }
+}
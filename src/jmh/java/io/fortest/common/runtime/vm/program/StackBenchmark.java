@@ -0,0 +1,69 @@
+package io.fortest.common.runtime.vm.program;
+
+import io.fortest.common.runtime.vm.DataWord;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The stack operations as the interpreter does them, on a stack holding a few words more than the
+ * deepest DUP and SWAP reach.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackBenchmark {
+
+  private static final int DEPTH = 32;
+
+  private Stack stack;
+  private DataWord word;
+
+  @Setup
+  public void setUp() {
+    stack = new Stack();
+    for (int i = 0; i < DEPTH; i++) {
+      stack.push(new DataWord(i));
+    }
+    word = new DataWord(0xff);
+  }
+
+  @Benchmark
+  public DataWord pushPop() {
+    stack.push(word);
+    return stack.pop();
+  }
+
+  @Benchmark
+  public DataWord dup16() {
+    stack.push(stack.get(stack.size() - 16).clone());
+    return stack.pop();
+  }
+
+  @Benchmark
+  public void swap16() {
+    stack.swap(stack.size() - 1, stack.size() - 17);
+  }
+
+  @Benchmark
+  public DataWord binaryOperation() {
+    // ADD: two words popped, the first changed and pushed back, the stack back to its depth after
+    DataWord word1 = stack.pop();
+    DataWord word2 = stack.pop();
+    word1.add(word2);
+    stack.push(word1);
+    stack.push(word2);
+    return word1;
+  }
+}
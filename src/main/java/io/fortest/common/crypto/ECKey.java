@@ -40,6 +40,7 @@ import java.util.Arrays;
 import javax.annotation.Nullable;
 import javax.crypto.KeyAgreement;
 
+import io.fortest.common.crypto.secp256k1.Secp256k1;
 import io.fortest.common.crypto.sm2.SM2;
 import io.fortest.common.utils.BIUtil;
 import io.fortest.common.utils.ByteUtil;
@@ -49,7 +50,6 @@ import org.spongycastle.asn1.ASN1Integer;
 import org.spongycastle.asn1.DLSequence;
 import org.spongycastle.asn1.sec.SECNamedCurves;
 import org.spongycastle.asn1.x9.X9ECParameters;
-import org.spongycastle.asn1.x9.X9IntegerConverter;
 import org.spongycastle.crypto.agreement.ECDHBasicAgreement;
 import org.spongycastle.crypto.digests.SHA256Digest;
 import org.spongycastle.crypto.engines.AESEngine;
@@ -66,7 +66,6 @@ import org.spongycastle.jcajce.provider.asymmetric.ec.BCECPublicKey;
 import org.spongycastle.jce.spec.ECParameterSpec;
 import org.spongycastle.jce.spec.ECPrivateKeySpec;
 import org.spongycastle.jce.spec.ECPublicKeySpec;
-import org.spongycastle.math.ec.ECAlgorithms;
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECPoint;
 import org.spongycastle.util.BigIntegers;
@@ -630,39 +629,19 @@ public class ECKey implements Serializable, SignInterface {
     // Compressed allKeys require you to know an extra bit of data about the
     // y-coord as there are two possibilities.
     // So it's encoded in the recId.
-    ECPoint R = decompressKey(x, (recId & 1) == 1);
-    //   1.4. If nR != point at infinity, then do another iteration of
-    // Step 1 (callers responsibility).
-    if (!R.multiply(n).isInfinity()) {
-      return null;
-    }
+    //   1.4. nR is the point at infinity for every point on the curve,
+    // the cofactor of secp256k1 being 1, R is checked to be on it.
     //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature
     // verification.
-    BigInteger e = new BigInteger(1, messageHash);
     //   1.6. For k from 1 to 2 do the following.   (loop is outside this
     // function via iterating recId)
     //   1.6.1. Compute a candidate public key as:
     //               Q = mi(r) * (sR - eG)
     //
-    // Where mi(x) is the modular multiplicative inverse. We transform
-    // this into the following:
-    //               Q = (mi(r) * s ** R) + (mi(r) * -e ** G)
-    // Where -e is the modular additive inverse of e, that is z such that
-    // z + e = 0 (mod n). In the above equation
-    // ** is point multiplication and + is point addition (the EC group
-    // operator).
-    //
-    // We can find the additive inverse by subtracting e from zero then
-    // taking the mod. For example the additive
-    // inverse of 3 modulo 11 is 8 because 3 + 8 mod 11 = 0, and -3 mod
-    // 11 = 8.
-    BigInteger eInv = BigInteger.ZERO.subtract(e).mod(n);
-    BigInteger rInv = sig.r.modInverse(n);
-    BigInteger srInv = rInv.multiply(sig.s).mod(n);
-    BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-    ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE
-        .getG(), eInvrInv, R, srInv);
-    return q.getEncoded(/* compressed */ false);
+    // Where mi(x) is the modular multiplicative inverse, Q being computed
+    // as (mi(r) * s ** R) + (mi(r) * -e ** G) with the precomputed tables
+    // of G and the endomorphism of the curve.
+    return Secp256k1.recoverPublicKey(x, (recId & 1) == 1, sig.r, sig.s, messageHash);
   }
 
   /**
@@ -702,22 +681,6 @@ public class ECKey implements Serializable, SignInterface {
     }
   }
 
-  /**
-   * Decompress a compressed public key (x co-ord and low-bit of y-coord).
-   *
-   * @param xBN -
-   * @param yBit -
-   * @return -
-   */
-
-  private static ECPoint decompressKey(BigInteger xBN, boolean yBit) {
-    X9IntegerConverter x9 = new X9IntegerConverter();
-    byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(CURVE
-        .getCurve()));
-    compEnc[0] = (byte) (yBit ? 0x03 : 0x02);
-    return CURVE.getCurve().decodePoint(compEnc);
-  }
-
   private static void check(boolean test, String message) {
     if (!test) {
       throw new IllegalArgumentException(message);
@@ -20,11 +20,12 @@ package io.fortest.common.crypto;
 
 import static java.util.Arrays.copyOfRange;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.Provider;
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
 
+import io.fortest.common.crypto.cryptohash.Keccak256;
+import io.fortest.common.crypto.cryptohash.Keccak512;
 import io.fortest.common.utils.ByteUtil;
 import io.fortest.core.capsule.utils.RLP;
 import lombok.extern.slf4j.Slf4j;
@@ -34,47 +35,35 @@ import io.fortest.core.Wallet;
 @Slf4j(topic = "crypto")
 public class Hash {
 
-  private static final Provider CRYPTO_PROVIDER;
+  // a digest resets itself after each hash, so one per thread serves every call
+  private static final ThreadLocal<Keccak256> KECCAK_256 = ThreadLocal.withInitial(Keccak256::new);
+  private static final ThreadLocal<Keccak512> KECCAK_512 = ThreadLocal.withInitial(Keccak512::new);
 
-  private static final String HASH_256_ALGORITHM_NAME;
-  private static final String HASH_512_ALGORITHM_NAME;
+  public static final int HASH_LENGTH = 32;
 
   public static final byte[] EMPTY_TRIE_HASH;
 
   static {
     Security.addProvider(khcCastleProvider.getInstance());
-    CRYPTO_PROVIDER = Security.getProvider("SC");
-    HASH_256_ALGORITHM_NAME = "khc-KECCAK-256";
-    HASH_512_ALGORITHM_NAME = "khc-KECCAK-512";
     EMPTY_TRIE_HASH = sha3(RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY));
   }
 
-  public static byte[] sha3(byte[] input) {
-    MessageDigest digest;
-    try {
-      digest = MessageDigest.getInstance(HASH_256_ALGORITHM_NAME,
-          CRYPTO_PROVIDER);
-      digest.update(input);
-      return digest.digest();
-    } catch (NoSuchAlgorithmException e) {
-      logger.error("Can't find such algorithm", e);
-      throw new RuntimeException(e);
-    }
+  private static Keccak256 keccak256() {
+    Keccak256 digest = KECCAK_256.get();
+    // a hash that failed half way leaves its input behind
+    digest.reset();
+    return digest;
+  }
 
+  public static byte[] sha3(byte[] input) {
+    return sha3(input, 0, input.length);
   }
 
   public static byte[] sha3(byte[] input1, byte[] input2) {
-    MessageDigest digest;
-    try {
-      digest = MessageDigest.getInstance(HASH_256_ALGORITHM_NAME,
-          CRYPTO_PROVIDER);
-      digest.update(input1, 0, input1.length);
-      digest.update(input2, 0, input2.length);
-      return digest.digest();
-    } catch (NoSuchAlgorithmException e) {
-      logger.error("Can't find such algorithm", e);
-      throw new RuntimeException(e);
-    }
+    Keccak256 digest = keccak256();
+    digest.update(input1, 0, input1.length);
+    digest.update(input2, 0, input2.length);
+    return digest.digest();
   }
 
   /**
@@ -86,29 +75,42 @@ public class Hash {
    * @return - keccak hash of the chunk
    */
   public static byte[] sha3(byte[] input, int start, int length) {
-    MessageDigest digest;
-    try {
-      digest = MessageDigest.getInstance(HASH_256_ALGORITHM_NAME,
-          CRYPTO_PROVIDER);
-      digest.update(input, start, length);
-      return digest.digest();
-    } catch (NoSuchAlgorithmException e) {
-      logger.error("Can't find such algorithm", e);
-      throw new RuntimeException(e);
+    byte[] hash = new byte[HASH_LENGTH];
+    sha3(input, start, length, hash, 0);
+    return hash;
+  }
+
+  /**
+   * hashing chunk of the data into the given buffer, without allocating.
+   *
+   * @param out - buffer the 32 bytes of the hash are written to
+   * @param off - offset of the hash in the buffer
+   */
+  public static void sha3(byte[] input, int start, int length, byte[] out, int off) {
+    Keccak256 digest = keccak256();
+    digest.update(input, start, length);
+    digest.digest(out, off, HASH_LENGTH);
+  }
+
+  /**
+   * keccak hashes of each of the inputs, in order.
+   */
+  public static List<byte[]> sha3(List<byte[]> inputs) {
+    Keccak256 digest = keccak256();
+    List<byte[]> hashes = new ArrayList<>(inputs.size());
+    for (byte[] input : inputs) {
+      byte[] hash = new byte[HASH_LENGTH];
+      digest.update(input, 0, input.length);
+      digest.digest(hash, 0, HASH_LENGTH);
+      hashes.add(hash);
     }
+    return hashes;
   }
 
   public static byte[] sha512(byte[] input) {
-    MessageDigest digest;
-    try {
-      digest = MessageDigest.getInstance(HASH_512_ALGORITHM_NAME,
-          CRYPTO_PROVIDER);
-      digest.update(input);
-      return digest.digest();
-    } catch (NoSuchAlgorithmException e) {
-      logger.error("Can't find such algorithm", e);
-      throw new RuntimeException(e);
-    }
+    Keccak512 digest = KECCAK_512.get();
+    digest.reset();
+    return digest.digest(input);
   }
 
   /**
@@ -0,0 +1,150 @@
+package io.fortest.common.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import io.fortest.core.config.args.Args;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The one pool signatures are checked on, shared by block validation, contract calls and gossip.
+ *
+ * <p>A batch is split into one chunk per worker and the chunks wait in the queue of their lane.
+ * Whenever a worker is free it takes the oldest chunk of the highest lane with work, so a block
+ * being validated goes ahead of any gossip still queued. The pool steals work, a worker never
+ * idles while another lane has chunks left.
+ */
+@Slf4j(topic = "crypto")
+public class SignatureVerifier {
+
+  /**
+   * the lanes in priority order.
+   */
+  public enum Lane {
+    BLOCK,
+    CONTRACT,
+    GOSSIP
+  }
+
+  @FunctionalInterface
+  public interface Check<T, R> {
+
+    R apply(T item) throws Exception;
+  }
+
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  private final List<Queue<Chunk<?, ?>>> lanes = new ArrayList<>();
+
+  private SignatureVerifier(int parallelism) {
+    this.parallelism = Math.max(parallelism, 1);
+    AtomicInteger threads = new AtomicInteger();
+    this.pool = new ForkJoinPool(this.parallelism, p -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+      thread.setName("verify-sign-" + threads.incrementAndGet());
+      return thread;
+    }, (t, e) -> logger.error("Verify sign worker failed.", e), true);
+    for (int i = 0; i < Lane.values().length; i++) {
+      lanes.add(new ConcurrentLinkedQueue<>());
+    }
+  }
+
+  public static SignatureVerifier instance() {
+    return SignatureVerifierEnum.INSTANCE.getInstance();
+  }
+
+  /**
+   * runs the check of every item, the results in the order of the items. The future fails with
+   * the first exception of a check, the checks not started by then are skipped, as they are once
+   * the future is cancelled.
+   */
+  public <T, R> CompletableFuture<List<R>> submit(Lane lane, List<T> items, Check<T, R> check) {
+    if (items.isEmpty()) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+    Batch<T, R> batch = new Batch<>(items, check);
+    int size = (items.size() + parallelism - 1) / parallelism;
+    int chunks = (items.size() + size - 1) / size;
+    batch.remaining.set(chunks);
+    Queue<Chunk<?, ?>> queue = lanes.get(lane.ordinal());
+    for (int from = 0; from < items.size(); from += size) {
+      queue.add(new Chunk<>(batch, from, Math.min(from + size, items.size())));
+      // every task runs one chunk, not necessarily the one queued with it
+      pool.execute(this::runNext);
+    }
+    return batch.future;
+  }
+
+  private void runNext() {
+    for (Queue<Chunk<?, ?>> lane : lanes) {
+      Chunk<?, ?> chunk = lane.poll();
+      if (chunk != null) {
+        chunk.run();
+        return;
+      }
+    }
+  }
+
+  private static class Batch<T, R> {
+
+    private final List<T> items;
+    private final Check<T, R> check;
+    private final Object[] results;
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final CompletableFuture<List<R>> future = new CompletableFuture<>();
+
+    private Batch(List<T> items, Check<T, R> check) {
+      this.items = items;
+      this.check = check;
+      this.results = new Object[items.size()];
+    }
+  }
+
+  private static class Chunk<T, R> {
+
+    private final Batch<T, R> batch;
+    private final int from;
+    private final int to;
+
+    private Chunk(Batch<T, R> batch, int from, int to) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run() {
+      try {
+        for (int i = from; i < to && !batch.future.isDone(); i++) {
+          batch.results[i] = batch.check.apply(batch.items.get(i));
+        }
+      } catch (Throwable t) {
+        batch.future.completeExceptionally(t);
+      }
+      if (batch.remaining.decrementAndGet() == 0) {
+        batch.future.complete((List<R>) Arrays.asList(batch.results));
+      }
+    }
+  }
+
+  private enum SignatureVerifierEnum {
+    INSTANCE;
+
+    private SignatureVerifier instance;
+
+    SignatureVerifierEnum() {
+      instance = new SignatureVerifier(Args.getInstance().getValidateSignThreadNum());
+    }
+
+    private SignatureVerifier getInstance() {
+      return instance;
+    }
+  }
+}
@@ -0,0 +1,338 @@
+package io.fortest.common.crypto.secp256k1;
+
+/**
+ * Arithmetic in F_p, p = 2^256 - 2^32 - 977, on elements of ten 26 bit limbs, the last one for the
+ * bits from 2^234 up. Every operation returns a new element with its limbs below 2^26, so the sums
+ * of products of a multiplication fit a long. Only {@link #normalize} brings an element below p,
+ * which comparing and encoding need.
+ */
+final class Field {
+
+  static final int LIMBS = 10;
+
+  private static final long M26 = 0x3FFFFFFL;
+  private static final long M22 = 0x3FFFFFL;
+
+  // 2^256 = 2^32 + 0x3D1 and 2^260 = 2^36 + 0x3D10 (mod p)
+  private static final long R256 = 0x3D1L;
+  private static final long R260 = 0x3D10L;
+
+  // 32 * p, every limb above any limb of an element
+  private static final long[] P32 = {
+      32 * 0x3FFFC2FL, 32 * 0x3FFFFBFL, 32 * M26, 32 * M26, 32 * M26,
+      32 * M26, 32 * M26, 32 * M26, 32 * M26, 32 * M22};
+
+  private Field() {
+  }
+
+  static long[] of(long v) {
+    long[] r = new long[LIMBS];
+    r[0] = v & M26;
+    r[1] = v >>> 26 & M26;
+    r[2] = v >>> 52;
+    return r;
+  }
+
+  /**
+   * the element of the big-endian bytes of a value below 2^256, leading zero bytes allowed.
+   */
+  static long[] of(byte[] bytes) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < bytes.length; i++) {
+      int bit = 8 * (bytes.length - 1 - i);
+      if (bit >= 256) {
+        continue;
+      }
+      long b = bytes[i] & 0xFFL;
+      int limb = bit / 26;
+      int shift = bit % 26;
+      r[limb] |= (b << shift) & M26;
+      if (shift > 18) {
+        r[limb + 1] |= b >>> (26 - shift);
+      }
+    }
+    return r;
+  }
+
+  /**
+   * writes the 32 big-endian bytes of the element.
+   */
+  static void write(long[] a, byte[] out, int offset) {
+    long[] r = normalize(a);
+    for (int i = 0; i < 32; i++) {
+      int bit = 8 * i;
+      int limb = bit / 26;
+      int shift = bit % 26;
+      long b = r[limb] >>> shift;
+      if (shift > 18 && limb + 1 < LIMBS) {
+        b |= r[limb + 1] << (26 - shift);
+      }
+      out[offset + 31 - i] = (byte) b;
+    }
+  }
+
+  static long[] add(long[] a, long[] b) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      r[i] = a[i] + b[i];
+    }
+    return carry(r);
+  }
+
+  static long[] sub(long[] a, long[] b) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      r[i] = a[i] + P32[i] - b[i];
+    }
+    return carry(r);
+  }
+
+  static long[] negate(long[] a) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      r[i] = P32[i] - a[i];
+    }
+    return carry(r);
+  }
+
+  static long[] mul(long[] a, int k) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      r[i] = a[i] * k;
+    }
+    return carry(r);
+  }
+
+  static long[] mul(long[] a, long[] b) {
+    long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4];
+    long a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+    long b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], b4 = b[4];
+    long b5 = b[5], b6 = b[6], b7 = b[7], b8 = b[8], b9 = b[9];
+    long t0 = a0 * b0;
+    long t1 = a0 * b1 + a1 * b0;
+    long t2 = a0 * b2 + a1 * b1 + a2 * b0;
+    long t3 = a0 * b3 + a1 * b2 + a2 * b1 + a3 * b0;
+    long t4 = a0 * b4 + a1 * b3 + a2 * b2 + a3 * b1 + a4 * b0;
+    long t5 = a0 * b5 + a1 * b4 + a2 * b3 + a3 * b2 + a4 * b1 + a5 * b0;
+    long t6 = a0 * b6 + a1 * b5 + a2 * b4 + a3 * b3 + a4 * b2 + a5 * b1 + a6 * b0;
+    long t7 = a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+    long t8 = a0 * b8 + a1 * b7 + a2 * b6 + a3 * b5 + a4 * b4 + a5 * b3 + a6 * b2 + a7 * b1 +
+        a8 * b0;
+    long t9 = a0 * b9 + a1 * b8 + a2 * b7 + a3 * b6 + a4 * b5 + a5 * b4 + a6 * b3 + a7 * b2 +
+        a8 * b1 + a9 * b0;
+    long t10 = a1 * b9 + a2 * b8 + a3 * b7 + a4 * b6 + a5 * b5 + a6 * b4 + a7 * b3 + a8 * b2 +
+        a9 * b1;
+    long t11 = a2 * b9 + a3 * b8 + a4 * b7 + a5 * b6 + a6 * b5 + a7 * b4 + a8 * b3 + a9 * b2;
+    long t12 = a3 * b9 + a4 * b8 + a5 * b7 + a6 * b6 + a7 * b5 + a8 * b4 + a9 * b3;
+    long t13 = a4 * b9 + a5 * b8 + a6 * b7 + a7 * b6 + a8 * b5 + a9 * b4;
+    long t14 = a5 * b9 + a6 * b8 + a7 * b7 + a8 * b6 + a9 * b5;
+    long t15 = a6 * b9 + a7 * b8 + a8 * b7 + a9 * b6;
+    long t16 = a7 * b9 + a8 * b8 + a9 * b7;
+    long t17 = a8 * b9 + a9 * b8;
+    long t18 = a9 * b9;
+    return reduce(t0, t1, t2, t3, t4, t5, t6, t7, t8, t9, t10, t11, t12, t13, t14, t15, t16,
+        t17, t18);
+  }
+
+  static long[] sqr(long[] a) {
+    long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4];
+    long a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+    long a02 = a0 << 1, a12 = a1 << 1, a22 = a2 << 1, a32 = a3 << 1, a42 = a4 << 1;
+    long a52 = a5 << 1, a62 = a6 << 1, a72 = a7 << 1, a82 = a8 << 1;
+    long t0 = a0 * a0;
+    long t1 = a02 * a1;
+    long t2 = a02 * a2 + a1 * a1;
+    long t3 = a02 * a3 + a12 * a2;
+    long t4 = a02 * a4 + a12 * a3 + a2 * a2;
+    long t5 = a02 * a5 + a12 * a4 + a22 * a3;
+    long t6 = a02 * a6 + a12 * a5 + a22 * a4 + a3 * a3;
+    long t7 = a02 * a7 + a12 * a6 + a22 * a5 + a32 * a4;
+    long t8 = a02 * a8 + a12 * a7 + a22 * a6 + a32 * a5 + a4 * a4;
+    long t9 = a02 * a9 + a12 * a8 + a22 * a7 + a32 * a6 + a42 * a5;
+    long t10 = a12 * a9 + a22 * a8 + a32 * a7 + a42 * a6 + a5 * a5;
+    long t11 = a22 * a9 + a32 * a8 + a42 * a7 + a52 * a6;
+    long t12 = a32 * a9 + a42 * a8 + a52 * a7 + a6 * a6;
+    long t13 = a42 * a9 + a52 * a8 + a62 * a7;
+    long t14 = a52 * a9 + a62 * a8 + a7 * a7;
+    long t15 = a62 * a9 + a72 * a8;
+    long t16 = a72 * a9 + a8 * a8;
+    long t17 = a82 * a9;
+    long t18 = a9 * a9;
+    return reduce(t0, t1, t2, t3, t4, t5, t6, t7, t8, t9, t10, t11, t12, t13, t14, t15, t16,
+        t17, t18);
+  }
+
+  private static long[] sqr(long[] a, int times) {
+    long[] r = a;
+    for (int i = 0; i < times; i++) {
+      r = sqr(r);
+    }
+    return r;
+  }
+
+  /**
+   * a^(p - 2), the inverse of a non-zero element.
+   */
+  static long[] inv(long[] a) {
+    long[][] x = powers(a);
+    long[] t = mul(sqr(x[223], 23), x[22]);
+    t = mul(sqr(t, 5), a);
+    t = mul(sqr(t, 3), x[2]);
+    return mul(sqr(t, 2), a);
+  }
+
+  /**
+   * a square root of a, null if a is not a square.
+   */
+  static long[] sqrt(long[] a) {
+    // p = 3 (mod 4), so a^((p + 1) / 4) is a root when there is one
+    long[][] x = powers(a);
+    long[] t = mul(sqr(x[223], 23), x[22]);
+    t = mul(sqr(t, 6), x[2]);
+    long[] r = sqr(t, 2);
+    return equal(sqr(r), a) ? r : null;
+  }
+
+  /**
+   * a^(2^k - 1) for the k the exponents of inv and sqrt are built from.
+   */
+  private static long[][] powers(long[] a) {
+    long[][] x = new long[224][];
+    x[2] = mul(sqr(a), a);
+    x[3] = mul(sqr(x[2]), a);
+    x[6] = mul(sqr(x[3], 3), x[3]);
+    x[9] = mul(sqr(x[6], 3), x[3]);
+    x[11] = mul(sqr(x[9], 2), x[2]);
+    x[22] = mul(sqr(x[11], 11), x[11]);
+    x[44] = mul(sqr(x[22], 22), x[22]);
+    x[88] = mul(sqr(x[44], 44), x[44]);
+    x[176] = mul(sqr(x[88], 88), x[88]);
+    x[220] = mul(sqr(x[176], 44), x[44]);
+    x[223] = mul(sqr(x[220], 3), x[3]);
+    return x;
+  }
+
+  /**
+   * inverts every element at the cost of one inversion, none of them may be zero.
+   */
+  static long[][] invAll(long[][] a) {
+    int n = a.length;
+    long[][] r = new long[n][];
+    if (n == 0) {
+      return r;
+    }
+    // r[i] holds a[0] * ... * a[i] until the walk back replaces it
+    r[0] = a[0];
+    for (int i = 1; i < n; i++) {
+      r[i] = mul(r[i - 1], a[i]);
+    }
+    long[] inv = inv(r[n - 1]);
+    for (int i = n - 1; i > 0; i--) {
+      r[i] = mul(inv, r[i - 1]);
+      inv = mul(inv, a[i]);
+    }
+    r[0] = inv;
+    return r;
+  }
+
+  static boolean isZero(long[] a) {
+    long[] r = normalize(a);
+    long bits = 0;
+    for (long limb : r) {
+      bits |= limb;
+    }
+    return bits == 0;
+  }
+
+  static boolean equal(long[] a, long[] b) {
+    return isZero(sub(a, b));
+  }
+
+  static boolean isOdd(long[] a) {
+    return (normalize(a)[0] & 1) == 1;
+  }
+
+  /**
+   * the element below p.
+   */
+  static long[] normalize(long[] a) {
+    long[] r = a.clone();
+    while ((r[LIMBS - 1] >> 22) != 0) {
+      foldTop(r);
+      carryLow(r);
+    }
+    // r >= p exactly when r + 2^256 - p carries out of 2^256
+    long[] t = r.clone();
+    t[0] += R256;
+    t[1] += 1 << 6;
+    carryLow(t);
+    if ((t[LIMBS - 1] >> 22) != 0) {
+      t[LIMBS - 1] &= M22;
+      return t;
+    }
+    return r;
+  }
+
+  /**
+   * folds the 19 limbs of a product back into ten.
+   */
+  private static long[] reduce(long t0, long t1, long t2, long t3, long t4, long t5, long t6,
+      long t7, long t8, long t9, long t10, long t11, long t12, long t13,
+      long t14, long t15, long t16, long t17, long t18) {
+    t11 += t10 >> 26;
+    t10 &= M26;
+    t12 += t11 >> 26;
+    t11 &= M26;
+    t13 += t12 >> 26;
+    t12 &= M26;
+    t14 += t13 >> 26;
+    t13 &= M26;
+    t15 += t14 >> 26;
+    t14 &= M26;
+    t16 += t15 >> 26;
+    t15 &= M26;
+    t17 += t16 >> 26;
+    t16 &= M26;
+    t18 += t17 >> 26;
+    t17 &= M26;
+    long t19 = t18 >> 26;
+    t18 &= M26;
+
+    // limb i + 10 is 2^260 = 2^36 + 0x3D10 times limb i, folding onto limbs i and i + 1
+    t9 += t19 * R260;
+    t10 += t19 << 10;
+    long[] r = new long[LIMBS];
+    r[0] = t0 + t10 * R260;
+    r[1] = t1 + t11 * R260 + (t10 << 10);
+    r[2] = t2 + t12 * R260 + (t11 << 10);
+    r[3] = t3 + t13 * R260 + (t12 << 10);
+    r[4] = t4 + t14 * R260 + (t13 << 10);
+    r[5] = t5 + t15 * R260 + (t14 << 10);
+    r[6] = t6 + t16 * R260 + (t15 << 10);
+    r[7] = t7 + t17 * R260 + (t16 << 10);
+    r[8] = t8 + t18 * R260 + (t17 << 10);
+    r[9] = t9 + (t18 << 10);
+    return carry(r);
+  }
+
+  private static long[] carry(long[] r) {
+    carryLow(r);
+    foldTop(r);
+    carryLow(r);
+    return r;
+  }
+
+  private static void carryLow(long[] r) {
+    for (int i = 0; i < LIMBS - 1; i++) {
+      r[i + 1] += r[i] >> 26;
+      r[i] &= M26;
+    }
+  }
+
+  private static void foldTop(long[] r) {
+    long c = r[LIMBS - 1] >> 22;
+    r[LIMBS - 1] &= M22;
+    r[0] += c * R256;
+    r[1] += c << 6;
+  }
+}
@@ -0,0 +1,335 @@
+package io.fortest.common.crypto.secp256k1;
+
+import java.math.BigInteger;
+import org.spongycastle.util.encoders.Hex;
+
+/**
+ * Point arithmetic on secp256k1, y^2 = x^3 + 7, specialised for recovering the public key of a
+ * signature, u1 * G + u2 * R.
+ *
+ * <p>u1 * G adds one entry per 4 bit window of u1 from tables of G precomputed once. u2 * R splits
+ * u2 with the curve endomorphism into two scalars of half the length and walks their wNAF forms
+ * together, so only about 128 doublings are needed. Points are kept in Jacobian coordinates and the
+ * odd multiples of R are brought to affine coordinates with a single inversion, so every addition is
+ * a mixed one.
+ */
+public final class Secp256k1 {
+
+  public static final BigInteger P = new BigInteger(
+      "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+  public static final BigInteger N = new BigInteger(
+      "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+  private static final long[] B = Field.of(7);
+
+  private static final Affine G = new Affine(
+      Field.of(Hex.decode("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798")),
+      Field.of(Hex.decode("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8")));
+
+  // (x, y) -> (beta * x, y) is multiplying by
+  // lambda = 0x5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72
+  private static final long[] BETA = Field.of(
+      Hex.decode("7AE96A2B657C07106E64479EAC3434E99CF0497512F58995C1396C28719501EE"));
+
+  // a short basis (a1, b1), (a2, b2) of the lattice of (k1, k2) with k1 + k2 * lambda = 0 (mod n)
+  private static final BigInteger A1 = new BigInteger("3086D221A7D46BCDE86C90E49284EB15", 16);
+  private static final BigInteger B1 = new BigInteger("-E4437ED6010E88286F547FA90ABFE4C3", 16);
+  private static final BigInteger A2 = new BigInteger("114CA50F7A8E2F3F657C1108D9D44CFD8", 16);
+  private static final BigInteger B2 = A1;
+  private static final BigInteger HALF_N = N.shiftRight(1);
+
+  private static final int WINDOW = 5;
+
+  private static final int G_WINDOW = 4;
+  private static final int G_WINDOWS = 256 / G_WINDOW;
+  private static final int G_ENTRIES = (1 << G_WINDOW) - 1;
+
+  // G_TABLE[i][j - 1] = j * 2^(4 * i) * G
+  private static final Affine[][] G_TABLE = buildGTable();
+
+  private Secp256k1() {
+  }
+
+  /**
+   * the uncompressed encoding of the public key recovered from a signature, r^-1 * (s * R - e * G),
+   * R being the point with the x coordinate and the y parity given and e the message hash. The
+   * point at infinity is encoded as the single byte 0.
+   *
+   * @return null if x is not below p.
+   * @throws IllegalArgumentException if no point has the x coordinate.
+   * @throws ArithmeticException if r is a multiple of n.
+   */
+  public static byte[] recoverPublicKey(BigInteger x, boolean yOdd, BigInteger r, BigInteger s,
+      byte[] messageHash) {
+    if (x.signum() < 0 || x.compareTo(P) >= 0) {
+      return null;
+    }
+    // R on the curve is all SEC1 4.1.6 step 1.4 asks for, n * R is the point at infinity for
+    // every point of the curve since its cofactor is 1
+    Affine point = decompress(x, yOdd);
+    Affine[] odd = oddMultiples(point);
+    BigInteger e = new BigInteger(1, messageHash);
+    BigInteger rInv = r.modInverse(N);
+    BigInteger u1 = e.negate().mod(N).multiply(rInv).mod(N);
+    BigInteger u2 = s.multiply(rInv).mod(N);
+
+    Jacobian q = multiply(odd, u2);
+    addMultipleOfG(q, u1);
+    return q.encode();
+  }
+
+  private static Affine decompress(BigInteger x, boolean yOdd) {
+    long[] fx = Field.of(x.toByteArray());
+    // sqrt checks its root, so a point is only returned if it is on the curve
+    long[] y = Field.sqrt(Field.add(Field.mul(Field.sqr(fx), fx), B));
+    if (y == null) {
+      throw new IllegalArgumentException("Invalid point compression");
+    }
+    if (Field.isOdd(y) != yOdd) {
+      y = Field.negate(y);
+    }
+    return new Affine(fx, y);
+  }
+
+  /**
+   * k * point, from the odd multiples of the point, as k1 * point + k2 * lambda * point.
+   */
+  private static Jacobian multiply(Affine[] odd, BigInteger k) {
+    BigInteger c1 = B2.multiply(k).add(HALF_N).divide(N);
+    BigInteger c2 = B1.negate().multiply(k).add(HALF_N).divide(N);
+    BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+    BigInteger k2 = c1.multiply(B1).add(c2.multiply(B2)).negate();
+
+    Affine[] oddLambda = new Affine[odd.length];
+    for (int i = 0; i < odd.length; i++) {
+      oddLambda[i] = new Affine(Field.mul(odd[i].x, BETA), odd[i].y);
+    }
+    int[] wnaf1 = wnaf(k1.abs());
+    int[] wnaf2 = wnaf(k2.abs());
+    boolean negate1 = k1.signum() < 0;
+    boolean negate2 = k2.signum() < 0;
+
+    Jacobian q = new Jacobian();
+    for (int bit = Math.max(wnaf1.length, wnaf2.length) - 1; bit >= 0; bit--) {
+      q.twice();
+      if (bit < wnaf1.length && wnaf1[bit] != 0) {
+        q.add(select(odd, wnaf1[bit], negate1));
+      }
+      if (bit < wnaf2.length && wnaf2[bit] != 0) {
+        q.add(select(oddLambda, wnaf2[bit], negate2));
+      }
+    }
+    return q;
+  }
+
+  private static Affine select(Affine[] odd, int digit, boolean negate) {
+    Affine point = odd[Math.abs(digit) >> 1];
+    return (digit < 0) != negate ? point.negate() : point;
+  }
+
+  /**
+   * point, 3 * point, ..., (2^(WINDOW - 1) - 1) * point.
+   */
+  private static Affine[] oddMultiples(Affine point) {
+    Jacobian twice = Jacobian.of(point);
+    twice.twice();
+    Affine step = twice.toAffine();
+
+    Jacobian[] multiples = new Jacobian[1 << (WINDOW - 2)];
+    Jacobian q = Jacobian.of(point);
+    multiples[0] = q.copy();
+    for (int i = 1; i < multiples.length; i++) {
+      q.add(step);
+      multiples[i] = q.copy();
+    }
+    return toAffine(multiples);
+  }
+
+  /**
+   * the width-WINDOW non-adjacent form of k, least significant digit first.
+   */
+  private static int[] wnaf(BigInteger k) {
+    int length = k.bitLength() + 1;
+    int[] digits = new int[length];
+    int carry = 0;
+    int bit = 0;
+    while (bit < length) {
+      if ((k.testBit(bit) ? 1 : 0) == carry) {
+        bit++;
+        continue;
+      }
+      int width = Math.min(WINDOW, length - bit);
+      int word = carry;
+      for (int i = 0; i < width; i++) {
+        word += k.testBit(bit + i) ? 1 << i : 0;
+      }
+      carry = (word >> (WINDOW - 1)) & 1;
+      digits[bit] = word - (carry << WINDOW);
+      bit += width;
+    }
+    return digits;
+  }
+
+  private static void addMultipleOfG(Jacobian q, BigInteger k) {
+    for (int i = 0; i < G_WINDOWS; i++) {
+      int nibble = 0;
+      for (int j = 0; j < G_WINDOW; j++) {
+        nibble |= k.testBit(i * G_WINDOW + j) ? 1 << j : 0;
+      }
+      if (nibble != 0) {
+        q.add(G_TABLE[i][nibble - 1]);
+      }
+    }
+  }
+
+  private static Affine[][] buildGTable() {
+    Jacobian[] points = new Jacobian[G_WINDOWS * G_ENTRIES];
+    Affine base = G;
+    for (int i = 0; i < G_WINDOWS; i++) {
+      Jacobian q = Jacobian.of(base);
+      points[i * G_ENTRIES] = q.copy();
+      for (int j = 1; j < G_ENTRIES; j++) {
+        q.add(base);
+        points[i * G_ENTRIES + j] = q.copy();
+      }
+      if (i + 1 < G_WINDOWS) {
+        q.add(base);
+        base = q.toAffine();
+      }
+    }
+
+    Affine[] affine = toAffine(points);
+    Affine[][] table = new Affine[G_WINDOWS][G_ENTRIES];
+    for (int i = 0; i < G_WINDOWS; i++) {
+      System.arraycopy(affine, i * G_ENTRIES, table[i], 0, G_ENTRIES);
+    }
+    return table;
+  }
+
+  /**
+   * the affine forms of finite points, with one inversion for all of them.
+   */
+  private static Affine[] toAffine(Jacobian[] points) {
+    long[][] z = new long[points.length][];
+    for (int i = 0; i < points.length; i++) {
+      z[i] = points[i].z;
+    }
+    long[][] zInv = Field.invAll(z);
+    Affine[] affine = new Affine[points.length];
+    for (int i = 0; i < points.length; i++) {
+      affine[i] = points[i].toAffine(zInv[i]);
+    }
+    return affine;
+  }
+
+  private static final class Affine {
+
+    private final long[] x;
+    private final long[] y;
+
+    private Affine(long[] x, long[] y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    private Affine negate() {
+      return new Affine(x, Field.negate(y));
+    }
+  }
+
+  /**
+   * (X, Y, Z) standing for (X / Z^2, Y / Z^3), mutable.
+   */
+  private static final class Jacobian {
+
+    private long[] x;
+    private long[] y;
+    private long[] z;
+    private boolean infinity = true;
+
+    private static Jacobian of(Affine point) {
+      Jacobian q = new Jacobian();
+      q.set(point);
+      return q;
+    }
+
+    private Jacobian copy() {
+      Jacobian q = new Jacobian();
+      q.x = x;
+      q.y = y;
+      q.z = z;
+      q.infinity = infinity;
+      return q;
+    }
+
+    private void set(Affine point) {
+      x = point.x;
+      y = point.y;
+      z = Field.of(1);
+      infinity = false;
+    }
+
+    private void twice() {
+      if (infinity) {
+        return;
+      }
+      long[] a = Field.sqr(x);
+      long[] b = Field.sqr(y);
+      long[] c = Field.sqr(b);
+      long[] d = Field.mul(Field.sub(Field.sub(Field.sqr(Field.add(x, b)), a), c), 2);
+      long[] e = Field.mul(a, 3);
+      long[] x3 = Field.sub(Field.sqr(e), Field.mul(d, 2));
+      long[] y3 = Field.sub(Field.mul(e, Field.sub(d, x3)), Field.mul(c, 8));
+      z = Field.mul(Field.mul(y, z), 2);
+      x = x3;
+      y = y3;
+    }
+
+    private void add(Affine point) {
+      if (infinity) {
+        set(point);
+        return;
+      }
+      long[] zz = Field.sqr(z);
+      long[] h = Field.sub(Field.mul(point.x, zz), x);
+      long[] r = Field.sub(Field.mul(point.y, Field.mul(z, zz)), y);
+      if (Field.isZero(h)) {
+        if (Field.isZero(r)) {
+          twice();
+        } else {
+          infinity = true;
+        }
+        return;
+      }
+      long[] hh = Field.sqr(h);
+      long[] hhh = Field.mul(h, hh);
+      long[] v = Field.mul(x, hh);
+      long[] x3 = Field.sub(Field.sub(Field.sqr(r), hhh), Field.mul(v, 2));
+      long[] y3 = Field.sub(Field.mul(r, Field.sub(v, x3)), Field.mul(y, hhh));
+      z = Field.mul(z, h);
+      x = x3;
+      y = y3;
+    }
+
+    private Affine toAffine() {
+      return toAffine(Field.inv(z));
+    }
+
+    private Affine toAffine(long[] zInv) {
+      long[] zInv2 = Field.sqr(zInv);
+      return new Affine(Field.mul(x, zInv2), Field.mul(y, Field.mul(zInv2, zInv)));
+    }
+
+    private byte[] encode() {
+      if (infinity) {
+        return new byte[1];
+      }
+      Affine point = toAffine();
+      byte[] encoded = new byte[65];
+      encoded[0] = 0x04;
+      Field.write(point.x, encoded, 1);
+      Field.write(point.y, encoded, 33);
+      return encoded;
+    }
+  }
+}
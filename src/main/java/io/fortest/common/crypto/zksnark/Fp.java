@@ -18,68 +18,120 @@
 package io.fortest.common.crypto.zksnark;
 
 import java.math.BigInteger;
-
-import static io.fortest.common.crypto.zksnark.Params.P;
+import java.util.Arrays;
 
 /**
  * Arithmetic in F_p, p = 21888242871839275222246405745257275088696311157297823662689037894645226208583
  *
+ * <p>Elements are kept in Montgomery form, v * 2^256 mod p, as eight 32 bit limbs, least
+ * significant first, and multiplied with the CIOS method. As p is below 2^254 no limb above the
+ * eighth is ever needed.
+ *
  * @author Mikhail Kalinin
  * @since 01.09.2017
  */
 public class Fp implements Field<Fp> {
 
+  private static final int LIMBS = 8;
+  private static final long MASK = 0xFFFFFFFFL;
+
+  // Params.P, spelled out as Params creates Fp values while it is initialised
+  private static final BigInteger P = new BigInteger(
+      "21888242871839275222246405745257275088696311157297823662689037894645226208583");
+  private static final long[] MODULUS = toLimbs(P);
+  // -p^-1 mod 2^32
+  private static final long INV = BigInteger.ONE.shiftLeft(32)
+      .subtract(P.modInverse(BigInteger.ONE.shiftLeft(32))).longValue();
+  // 2^512 mod p, multiplying by it brings a value into Montgomery form
+  private static final long[] R2 = toLimbs(BigInteger.ONE.shiftLeft(512).mod(P));
+  private static final long[] ONE = toLimbs(BigInteger.ONE);
+
   static final Fp ZERO = new Fp(BigInteger.ZERO);
   static final Fp _1 = new Fp(BigInteger.ONE);
-  static final Fp NON_RESIDUE = new Fp(new BigInteger(
-      "21888242871839275222246405745257275088696311157297823662689037894645226208582"));
 
   static final Fp _2_INV = new Fp(BigInteger.valueOf(2).modInverse(P));
 
-  BigInteger v;
+  private final long[] v;
+  // false for a value decoded from outside [0, p), kept as its residue
+  private final boolean valid;
 
   Fp(BigInteger v) {
+    this.valid = v.signum() >= 0 && v.compareTo(P) < 0;
+    this.v = montMul(toLimbs(valid ? v : v.mod(P)), R2);
+  }
+
+  private Fp(long[] v) {
     this.v = v;
+    this.valid = true;
   }
 
   @Override
   public Fp add(Fp o) {
-    return new Fp(this.v.add(o.v).mod(P));
+    long[] r = new long[LIMBS];
+    long carry = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      long s = v[i] + o.v[i] + carry;
+      r[i] = s & MASK;
+      carry = s >>> 32;
+    }
+    return new Fp(reduce(r));
   }
 
   @Override
   public Fp mul(Fp o) {
-    return new Fp(this.v.multiply(o.v).mod(P));
+    return new Fp(montMul(v, o.v));
   }
 
   @Override
   public Fp sub(Fp o) {
-    return new Fp(this.v.subtract(o.v).mod(P));
+    long[] r = new long[LIMBS];
+    long borrow = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      long d = v[i] - o.v[i] - borrow;
+      r[i] = d & MASK;
+      borrow = d >>> 63;
+    }
+    if (borrow != 0) {
+      long carry = 0;
+      for (int i = 0; i < LIMBS; i++) {
+        long s = r[i] + MODULUS[i] + carry;
+        r[i] = s & MASK;
+        carry = s >>> 32;
+      }
+    }
+    return new Fp(r);
   }
 
   @Override
   public Fp squared() {
-    return new Fp(v.multiply(v).mod(P));
+    return new Fp(montMul(v, v));
   }
 
   @Override
   public Fp dbl() {
-    return new Fp(v.add(v).mod(P));
+    return add(this);
   }
 
   @Override
   public Fp inverse() {
-    return new Fp(v.modInverse(P));
+    return new Fp(toBigInteger().modInverse(P));
   }
 
   @Override
   public Fp negate() {
-    return new Fp(v.negate().mod(P));
+    return ZERO.sub(this);
   }
 
   @Override
   public boolean isZero() {
-    return v.compareTo(BigInteger.ZERO) == 0;
+    if (!valid) {
+      return false;
+    }
+    long bits = 0;
+    for (long limb : v) {
+      bits |= limb;
+    }
+    return bits == 0;
   }
 
   /**
@@ -87,7 +139,7 @@ public class Fp implements Field<Fp> {
    */
   @Override
   public boolean isValid() {
-    return v.compareTo(P) < 0;
+    return valid;
   }
 
   Fp2 mul(Fp2 o) {
@@ -103,7 +155,78 @@ public class Fp implements Field<Fp> {
   }
 
   public byte[] bytes() {
-    return v.toByteArray();
+    return toBigInteger().toByteArray();
+  }
+
+  BigInteger toBigInteger() {
+    long[] r = montMul(v, ONE);
+    BigInteger value = BigInteger.ZERO;
+    for (int i = LIMBS - 1; i >= 0; i--) {
+      value = value.shiftLeft(32).or(BigInteger.valueOf(r[i]));
+    }
+    return value;
+  }
+
+  private static long[] toLimbs(BigInteger value) {
+    long[] r = new long[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      r[i] = value.shiftRight(32 * i).longValue() & MASK;
+    }
+    return r;
+  }
+
+  /**
+   * a * b / 2^256 mod p.
+   */
+  private static long[] montMul(long[] a, long[] b) {
+    long[] t = new long[LIMBS + 1];
+    for (int i = 0; i < LIMBS; i++) {
+      // t += a * b[i], the limb products and carries fit 64 unsigned bits
+      long bi = b[i];
+      long carry = 0;
+      for (int j = 0; j < LIMBS; j++) {
+        long s = t[j] + a[j] * bi + carry;
+        t[j] = s & MASK;
+        carry = s >>> 32;
+      }
+      long top = t[LIMBS] + carry;
+
+      // t = (t + m * p) / 2^32 with m making the lowest limb zero
+      long m = (t[0] * INV) & MASK;
+      carry = (t[0] + m * MODULUS[0]) >>> 32;
+      for (int j = 1; j < LIMBS; j++) {
+        long s = t[j] + m * MODULUS[j] + carry;
+        t[j - 1] = s & MASK;
+        carry = s >>> 32;
+      }
+      top += carry;
+      t[LIMBS - 1] = top & MASK;
+      t[LIMBS] = top >>> 32;
+    }
+    long[] r = new long[LIMBS];
+    System.arraycopy(t, 0, r, 0, LIMBS);
+    return reduce(r);
+  }
+
+  /**
+   * subtracts p from a value below 2p once if it is not below p.
+   */
+  private static long[] reduce(long[] r) {
+    for (int i = LIMBS - 1; i >= 0; i--) {
+      if (r[i] != MODULUS[i]) {
+        if (r[i] < MODULUS[i]) {
+          return r;
+        }
+        break;
+      }
+    }
+    long borrow = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      long d = r[i] - MODULUS[i] - borrow;
+      r[i] = d & MASK;
+      borrow = d >>> 63;
+    }
+    return r;
   }
 
   @Override
@@ -117,16 +240,16 @@ public class Fp implements Field<Fp> {
 
     Fp fp = (Fp) o;
 
-    return !(v != null ? v.compareTo(fp.v) != 0 : fp.v != null);
+    return valid == fp.valid && Arrays.equals(v, fp.v);
   }
 
   @Override
   public int hashCode() {
-    return v.hashCode();
+    return Arrays.hashCode(v);
   }
 
   @Override
   public String toString() {
-    return v.toString();
+    return toBigInteger().toString();
   }
 }
@@ -0,0 +1,225 @@
+package io.fortest.common.runtime;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.ByteString;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import io.fortest.common.runtime.vm.program.ProgramResult;
+import io.fortest.common.runtime.vm.program.invoke.ProgramInvokeFactoryImpl;
+import io.fortest.common.storage.DepositImpl;
+import io.fortest.core.Constant;
+import io.fortest.core.capsule.BlockCapsule;
+import io.fortest.core.capsule.TransactionCapsule;
+import io.fortest.core.config.args.Args;
+import io.fortest.core.db.BlockExecutionContext;
+import io.fortest.core.db.Manager;
+import io.fortest.core.exception.BadItemException;
+import io.fortest.core.exception.ContractExeException;
+import io.fortest.core.exception.ContractValidateException;
+import io.fortest.core.exception.HeaderNotFound;
+import io.fortest.core.exception.ItemNotFoundException;
+import io.fortest.core.exception.VMIllegalException;
+import io.fortest.protos.Protocol.Transaction;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the constant calls of the api on a bounded pool of its own, against the state of the head
+ * block and the pending transactions and without changing it.
+ *
+ * <p>The head block and the fork flags are resolved once per head. Every call reads through a read
+ * only deposit, so nothing is buffered for a commit that never comes. A call is capped in time and
+ * energy, and with a result cache configured a call repeated on the same state is answered from
+ * it. The state is told apart by the version of the revoking store, which any block or pending
+ * transaction changes.
+ */
+@Slf4j(topic = "VM")
+@Component
+public class ConstantCallEngine {
+
+  @Autowired
+  private Manager dbManager;
+
+  private final ExecutorService executor;
+  private final long timeoutInMs;
+  private final long energyLimit;
+  // successful results by state version and contract, null if not configured
+  private final Cache<ByteString, Result> results;
+
+  private volatile Head head;
+
+  public ConstantCallEngine() {
+    Args args = Args.getInstance();
+    int threads = Math.max(args.getConstantCallThreadNum(), 1);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(args.getConstantCallQueueSize(), 1)),
+        new ThreadFactoryBuilder().setNameFormat("constant-call-%d").build());
+    this.timeoutInMs = args.getConstantCallTimeoutInMs();
+    this.energyLimit = args.getConstantCallEnergyLimit() > 0 ? args.getConstantCallEnergyLimit()
+        : Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+    this.results = args.getConstantCallCacheSize() > 0 ? CacheBuilder.newBuilder()
+        .maximumSize(args.getConstantCallCacheSize()).build() : null;
+  }
+
+  /**
+   * the result of the constant call on top of the head block.
+   */
+  public Result call(TransactionCapsule khtCap)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    Head current = head();
+    Transaction kht = khtCap.getInstance();
+    Transaction.Contract contract = kht.getRawData().getContract(0);
+    if (TransactionCapsule.getCallValue(contract) > 0
+        || TransactionCapsule.getCallTokenValue(contract) > 0) {
+      throw new ContractValidateException("constant cannot set call value or call token value.");
+    }
+
+    ByteString key = null;
+    long version = -1;
+    if (results != null) {
+      version = dbManager.getRevokingStore().getStateVersion();
+    }
+    if (version >= 0) {
+      key = ByteString.copyFrom(Longs.toByteArray(version)).concat(contract.toByteString());
+      Result result = results.getIfPresent(key);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    Future<Result> future;
+    try {
+      future = executor.submit(() -> execute(kht, current));
+    } catch (RejectedExecutionException e) {
+      throw new ContractValidateException("too many constant calls, try again later");
+    }
+    Result result = await(future);
+    // a result read while the state changed may mix two states, a reverted one may be a
+    // transient failure, neither is kept
+    if (key != null && !result.isRevert() && StringUtils.isEmpty(result.getRuntimeError())
+        && dbManager.getRevokingStore().getStateVersion() == version) {
+      results.put(key, result);
+    }
+    return result;
+  }
+
+  private Result execute(Transaction kht, Head head)
+      throws ContractValidateException, ContractExeException, VMIllegalException {
+    head.context.applyVmConfig();
+    RuntimeImpl runtime = new RuntimeImpl(kht, head.block,
+        DepositImpl.createReadOnlyRoot(dbManager), new ProgramInvokeFactoryImpl(), true);
+    runtime.setConstantEnergyLimit(energyLimit);
+    if (timeoutInMs > 0) {
+      runtime.setConstantCpuLimitInUs(timeoutInMs * Constant.ONE_THOUSAND);
+    }
+    runtime.execute();
+    runtime.go();
+    runtime.finalization();
+
+    ProgramResult result = runtime.getResult();
+    if (result.getException() != null) {
+      logger.warn("Constant call has error {}", result.getException().getMessage());
+      throw result.getException();
+    }
+    return new Result(result.getHReturn(), runtime.getRuntimeError(), result.isRevert());
+  }
+
+  private Result await(Future<Result> future)
+      throws ContractValidateException, ContractExeException, VMIllegalException {
+    try {
+      return timeoutInMs > 0 ? future.get(timeoutInMs, TimeUnit.MILLISECONDS) : future.get();
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new ContractExeException("constant call timeout");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ContractExeException("constant call interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ContractValidateException) {
+        throw (ContractValidateException) cause;
+      }
+      if (cause instanceof ContractExeException) {
+        throw (ContractExeException) cause;
+      }
+      if (cause instanceof VMIllegalException) {
+        throw (VMIllegalException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ContractExeException(cause.getMessage());
+    }
+  }
+
+  /**
+   * the head block, loaded again only when the head changes.
+   */
+  private Head head() throws HeaderNotFound {
+    BlockExecutionContext context = dbManager.getExecutionContext();
+    Head current = head;
+    if (current == null || current.context != context) {
+      BlockCapsule block;
+      try {
+        block = dbManager.getBlockById(context.getParentHash());
+      } catch (BadItemException | ItemNotFoundException e) {
+        block = dbManager.getHead();
+      }
+      current = new Head(context, block);
+      head = current;
+      if (results != null) {
+        results.invalidateAll();
+      }
+    }
+    return current;
+  }
+
+  @PreDestroy
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private static class Head {
+
+    private final BlockExecutionContext context;
+    private final BlockCapsule block;
+
+    private Head(BlockExecutionContext context, BlockCapsule block) {
+      this.context = context;
+      this.block = block;
+    }
+  }
+
+  public static class Result {
+
+    @Getter
+    private final byte[] hReturn;
+    @Getter
+    private final String runtimeError;
+    @Getter
+    private final boolean revert;
+
+    private Result(byte[] hReturn, String runtimeError, boolean revert) {
+      this.hReturn = hReturn;
+      this.runtimeError = runtimeError;
+      this.revert = revert;
+    }
+  }
+}
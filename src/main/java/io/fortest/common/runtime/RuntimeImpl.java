@@ -49,6 +49,7 @@ import io.fortest.common.runtime.vm.program.ProgramPrecompile;
 import io.fortest.common.runtime.vm.program.ProgramResult;
 import io.fortest.common.runtime.vm.program.invoke.ProgramInvoke;
 import io.fortest.common.runtime.vm.program.invoke.ProgramInvokeFactory;
+import io.fortest.common.runtime.vm.trace.StreamingProgramTrace;
 import io.fortest.common.storage.Deposit;
 import io.fortest.common.storage.DepositImpl;
 import io.fortest.core.Constant;
@@ -91,10 +92,19 @@ public class RuntimeImpl implements Runtime {
   //tx trace
   private TransactionTrace trace;
 
+  // the vm trace when it is streamed
+  private StreamingProgramTrace streamingTrace;
+
   @Getter
   @Setter
   private boolean isStaticCall = false;
 
+  // the caps of a constant call
+  @Setter
+  private long constantEnergyLimit = Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+  @Setter
+  private long constantCpuLimitInUs = Long.MAX_VALUE;
+
   @Setter
   private boolean enableEventLinstener;
 
@@ -117,7 +127,7 @@ public class RuntimeImpl implements Runtime {
     }
     this.deposit = deposit;
     this.programInvokeFactory = programInvokeFactory;
-    this.energyProcessor = new EnergyProcessor(deposit.getDbManager());
+    this.energyProcessor = trace.getEnergyProcessor();
 
     ContractType contractType = this.kht.getRawData().getContract(0).getType();
     switch (contractType.getNumber()) {
@@ -557,7 +567,7 @@ public class RuntimeImpl implements Runtime {
       AccountCapsule caller = this.deposit.getAccount(callerAddress);
       long energyLimit;
       if (isStaticCall) {
-        energyLimit = Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+        energyLimit = constantEnergyLimit;
       } else {
         AccountCapsule creator = this.deposit
             .getAccount(deployedContract.getInstance().getOriginAddress().toByteArray());
@@ -568,6 +578,9 @@ public class RuntimeImpl implements Runtime {
           .getMaxCpuTimeOfOneTx() * Constant.ONE_THOUSAND;
       long thisTxCPULimitInUs =
           (long) (maxCpuTimeOfOneTx * getCpuLimitInUsRatio());
+      if (isStaticCall) {
+        thisTxCPULimitInUs = min(thisTxCPULimitInUs, constantCpuLimitInUs);
+      }
       long vmStartInUs = System.nanoTime() / Constant.ONE_THOUSAND;
       long vmShouldEndInUs = vmStartInUs + thisTxCPULimitInUs;
       ProgramInvoke programInvoke = programInvokeFactory
@@ -576,11 +589,13 @@ public class RuntimeImpl implements Runtime {
               vmShouldEndInUs, energyLimit);
       if (isStaticCall) {
         programInvoke.setStaticCall();
+        programInvoke.setConstantCall();
       }
       this.vm = new VM(config);
       rootInternalTransaction = new InternalTransaction(kht, khtType);
       this.program = new Program(code, programInvoke, rootInternalTransaction, config,
           this.blockCap);
+      this.program.setCodeHash(deployedContract.getCodeHash());
       byte[] txId = new TransactionCapsule(kht).getTransactionId().getBytes();
       this.program.setRootTransactionId(txId);
 
@@ -610,6 +625,7 @@ public class RuntimeImpl implements Runtime {
   }
 
   public void go() {
+    openStreamingTrace();
     try {
       if (vm != null) {
         TransactionCapsule khtCap = new TransactionCapsule(kht);
@@ -712,6 +728,8 @@ public class RuntimeImpl implements Runtime {
         runtimeError = result.getException().getMessage();
       }
       logger.info("runtime result is :{}", result.getException().getMessage());
+    } finally {
+      closeStreamingTrace();
     }
     if (!isStaticCall) {
       trace.setBill(result.getEnergyUsed());
@@ -734,7 +752,7 @@ public class RuntimeImpl implements Runtime {
       }
     }
 
-    if (config.vmTrace() && program != null) {
+    if (config.vmTrace() && config.vmTraceLevel() == null && program != null) {
       String traceContent = program.getTrace()
           .result(result.getHReturn())
           .error(result.getException())
@@ -750,6 +768,26 @@ public class RuntimeImpl implements Runtime {
 
   }
 
+  /**
+   * opened and closed within go(), so the file is not left open when the transaction fails
+   * validation first or is never finalized.
+   */
+  private void openStreamingTrace() {
+    if (program != null && config.vmTrace() && config.vmTraceLevel() != null) {
+      streamingTrace = VMUtils
+          .openProgramTraceStream(config, Hex.toHexString(rootInternalTransaction.getHash()));
+      program.setStreamingTrace(streamingTrace);
+    }
+  }
+
+  private void closeStreamingTrace() {
+    if (streamingTrace != null) {
+      ProgramResult programResult = program.getResult();
+      streamingTrace.finish(programResult.getHReturn(), programResult.getException());
+      streamingTrace = null;
+    }
+  }
+
   public void checkTokenValueAndId(long tokenValue, long tokenId) throws ContractValidateException {
     if (VMConfig.allowTvmTransferTrc10()) {
       if (VMConfig.allowMultiSign()) { //allowMultiSigns
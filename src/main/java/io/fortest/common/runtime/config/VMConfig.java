@@ -17,6 +17,7 @@
  */
 package io.fortest.common.runtime.config;
 
+import io.fortest.common.runtime.vm.trace.TraceLevel;
 import io.fortest.common.utils.ForkController;
 import io.fortest.core.config.Parameter;
 import io.fortest.core.config.args.Args;
@@ -33,6 +34,7 @@ public class VMConfig {
 
   private boolean vmTraceCompressed = false;
   private boolean vmTrace = Args.getInstance().isVmTrace();
+  private TraceLevel vmTraceLevel = Args.getInstance().getVmTraceLevel();
 
   //Odyssey3.2 hard fork -- ForkBlockVersionConsts.ENERGY_LIMIT
   @Setter
@@ -67,6 +69,13 @@ public class VMConfig {
     return vmTrace;
   }
 
+  /**
+   * the level of the streaming trace, null when the whole trace is written at the end.
+   */
+  public TraceLevel vmTraceLevel() {
+    return vmTraceLevel;
+  }
+
   public boolean vmTraceCompressed() {
     return vmTraceCompressed;
   }
@@ -76,6 +85,10 @@ public class VMConfig {
     //VERSION_3_5_HARD_FORK = ForkController.instance().pass(ForkBlockVersionEnum.VERSION_3_5);
   }
 
+  public static void initVmHardFork(boolean pass) {
+    ENERGY_LIMIT_HARD_FORK = pass;
+  }
+
   public static void initAllowMultiSign(long allow) {
     ALLOW_MULTI_SIGN = allow == 1;
   }
@@ -26,7 +26,6 @@ import org.spongycastle.util.encoders.Hex;
 import io.fortest.core.db.ByteArrayWrapper;
 
 import java.math.BigInteger;
-import java.nio.ByteBuffer;
 
 /**
  * DataWord is the 32-byte array representation of a 256-bit number
@@ -57,18 +56,15 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public DataWord(int num) {
-    this(ByteBuffer.allocate(4).putInt(num));
+    for (int i = 0; i < 4; i++) {
+      this.data[WORD_SIZE - 1 - i] = (byte) (num >>> (i << 3));
+    }
   }
 
   public DataWord(long num) {
-    this(ByteBuffer.allocate(8).putLong(num));
-  }
-
-  private DataWord(ByteBuffer buffer) {
-    final ByteBuffer targetByteBuffer = ByteBuffer.allocate(WORD_SIZE);
-    final byte[] array = buffer.array();
-    System.arraycopy(array, 0, targetByteBuffer.array(), WORD_SIZE - array.length, array.length);
-    this.data = targetByteBuffer.array();
+    for (int i = 0; i < 8; i++) {
+      this.data[WORD_SIZE - 1 - i] = (byte) (num >>> (i << 3));
+    }
   }
 
   public static DataWord of(byte num) {
@@ -255,23 +251,21 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public void bnot() {
-    if (this.isZero()) {
-      this.data = ByteUtil.copyToArray(MAX_VALUE);
-      return;
+    byte[] result = buffer();
+    for (int i = 0; i < WORD_SIZE; i++) {
+      result[i] = (byte) ~result[i];
     }
-    this.data = ByteUtil.copyToArray(MAX_VALUE.subtract(this.value()));
   }
 
   // By   : Holger
   // From : http://stackoverflow.com/a/24023466/459349
   public void add(DataWord word) {
-    byte[] result = new byte[32];
+    byte[] result = buffer();
     for (int i = 31, overflow = 0; i >= 0; i--) {
-      int v = (this.data[i] & 0xff) + (word.data[i] & 0xff) + overflow;
+      int v = (result[i] & 0xff) + (word.data[i] & 0xff) + overflow;
       result[i] = (byte) v;
       overflow = v >>> 8;
     }
-    this.data = result;
   }
 
   // old add-method with BigInteger quick hack
@@ -280,15 +274,10 @@ public class DataWord implements Comparable<DataWord> {
     this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
   }
 
-  // TODO: mul can be done in more efficient way
-  // TODO:     with shift left shift right trick
-  // TODO      without BigInteger quick hack
   public void mul(DataWord word) {
-    BigInteger result = value().multiply(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    WordMath.toBytes(WordMath.mul(words(), word.words()), buffer());
   }
 
-  // TODO: improve with no BigInteger
   public void div(DataWord word) {
 
     if (word.isZero()) {
@@ -296,11 +285,9 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().divide(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    WordMath.toBytes(WordMath.div(words(), word.words()), buffer());
   }
 
-  // TODO: improve with no BigInteger
   public void sDiv(DataWord word) {
 
     if (word.isZero()) {
@@ -308,23 +295,28 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = sValue().divide(word.sValue());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    int[] dividend = words();
+    int[] divisor = word.words();
+    int[] result = WordMath.div(WordMath.abs(dividend), WordMath.abs(divisor));
+    if (WordMath.isNegative(dividend) != WordMath.isNegative(divisor)) {
+      WordMath.negate(result);
+    }
+    WordMath.toBytes(result, buffer());
   }
 
-  // TODO: improve with no BigInteger
   public void sub(DataWord word) {
-    BigInteger result = value().subtract(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    byte[] result = buffer();
+    for (int i = 31, borrow = 0; i >= 0; i--) {
+      int v = (result[i] & 0xff) - (word.data[i] & 0xff) - borrow;
+      result[i] = (byte) v;
+      borrow = v < 0 ? 1 : 0;
+    }
   }
 
-  // TODO: improve with no BigInteger
   public void exp(DataWord word) {
-    BigInteger result = value().modPow(word.value(), _2_256);
-    this.data = ByteUtil.copyToArray(result);
+    WordMath.toBytes(WordMath.exp(words(), word.words()), buffer());
   }
 
-  // TODO: improve with no BigInteger
   public void mod(DataWord word) {
 
     if (word.isZero()) {
@@ -332,8 +324,7 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().mod(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    WordMath.toBytes(WordMath.mod(words(), word.words()), buffer());
   }
 
   public void sMod(DataWord word) {
@@ -343,31 +334,46 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = sValue().abs().mod(word.sValue().abs());
-    result = (sValue().signum() == -1) ? result.negate() : result;
-
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    int[] dividend = words();
+    int[] result = WordMath.mod(WordMath.abs(dividend), WordMath.abs(word.words()));
+    if (WordMath.isNegative(dividend)) {
+      WordMath.negate(result);
+    }
+    WordMath.toBytes(result, buffer());
   }
 
   public void addmod(DataWord word1, DataWord word2) {
     if (word2.isZero()) {
-      this.data = new byte[32];
+      java.util.Arrays.fill(buffer(), (byte) 0);
       return;
     }
 
-    BigInteger result = value().add(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    WordMath.toBytes(WordMath.addMod(words(), word1.words(), word2.words()), buffer());
   }
 
   public void mulmod(DataWord word1, DataWord word2) {
 
     if (this.isZero() || word1.isZero() || word2.isZero()) {
-      this.data = new byte[32];
+      java.util.Arrays.fill(buffer(), (byte) 0);
       return;
     }
 
-    BigInteger result = value().multiply(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    WordMath.toBytes(WordMath.mulMod(words(), word1.words(), word2.words()), buffer());
+  }
+
+  private int[] words() {
+    return WordMath.toWords(data);
+  }
+
+  /**
+   * the backing array the result is written into, results are computed in place.
+   */
+  private byte[] buffer() {
+    if (data.length != WORD_SIZE) {
+      // only an empty word, its value is zero
+      data = new byte[WORD_SIZE];
+    }
+    return data;
   }
 
   @JsonValue
@@ -443,7 +449,7 @@ public class DataWord implements Comparable<DataWord> {
   public void signExtend(byte k) {
     if (0 > k || k > 31)
       throw new IndexOutOfBoundsException();
-    byte mask = this.sValue().testBit((k * 8) + 7) ? (byte) 0xff : 0;
+    byte mask = (this.data[31 - k] & 0x80) != 0 ? (byte) 0xff : 0;
     for (int i = 31; i > k; i--) {
       this.data[31 - i] = mask;
     }
@@ -473,12 +479,12 @@ public class DataWord implements Comparable<DataWord> {
    * @return this << arg
    */
   public DataWord shiftLeft(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
+    int shift = arg.intValueSafe();
+    if (shift >= MAX_POW) {
       return DataWord.ZERO();
     }
 
-    BigInteger result = value().shiftLeft(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+    return new DataWord(WordMath.toBytes(WordMath.shiftLeft(words(), shift)));
   }
 
   /**
@@ -487,12 +493,12 @@ public class DataWord implements Comparable<DataWord> {
    * @return this >> arg
    */
   public DataWord shiftRight(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
+    int shift = arg.intValueSafe();
+    if (shift >= MAX_POW) {
       return DataWord.ZERO();
     }
 
-    BigInteger result = value().shiftRight(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+    return new DataWord(WordMath.toBytes(WordMath.shiftRight(words(), shift, false)));
   }
 
   /**
@@ -501,7 +507,8 @@ public class DataWord implements Comparable<DataWord> {
    * @return this >> arg
    */
   public DataWord shiftRightSigned(DataWord arg) {
-    if (arg.value().compareTo(BigInteger.valueOf(MAX_POW)) >= 0) {
+    int shift = arg.intValueSafe();
+    if (shift >= MAX_POW) {
       if (this.isNegative()) {
         DataWord result = ONE();
         result.negate();
@@ -511,8 +518,7 @@ public class DataWord implements Comparable<DataWord> {
       }
     }
 
-    BigInteger result = sValue().shiftRight(arg.intValueSafe());
-    return new DataWord(ByteUtil.copyToArray(result.and(MAX_VALUE)));
+    return new DataWord(WordMath.toBytes(WordMath.shiftRight(words(), shift, isNegative())));
   }
 
   public static boolean equalAddressByteArray(byte[] arr1, byte[] arr2) {
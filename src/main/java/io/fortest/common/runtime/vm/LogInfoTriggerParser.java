@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import io.fortest.core.capsule.AbiCapsule;
 import io.fortest.core.capsule.ContractCapsule;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -61,7 +62,14 @@ public class LogInfoTriggerParser {
         abiMap.put(strContractAddr, ABI.getDefaultInstance());
         continue;
       }
+      // the abi of a contract created by this transaction is not stored yet
       ABI abi = contract.getInstance().getAbi();
+      if (abi.getEntrysCount() == 0) {
+        AbiCapsule abiCapsule = deposit.getDbManager().getAbiStore().get(contractAddress);
+        if (abiCapsule != null) {
+          abi = abiCapsule.getInstance();
+        }
+      }
       String creatorAddr = Wallet.encode58Check(
           MUtil.convertTokhcAddress(contract.getInstance().getOriginAddress().toByteArray()));
       addrMap.put(strContractAddr, creatorAddr);
@@ -30,13 +30,14 @@ import java.util.concurrent.*;
 
 import io.fortest.common.crypto.ECKey;
 import io.fortest.common.crypto.SignatureInterface;
+import io.fortest.common.crypto.SignatureVerifier;
+import io.fortest.common.crypto.SignatureVerifier.Lane;
 import io.fortest.common.utils.*;
 import io.fortest.core.capsule.AccountCapsule;
 import io.fortest.core.capsule.TransactionCapsule;
 import io.fortest.core.exception.ContractExeException;
 import io.fortest.core.exception.ContractValidateException;
 import io.fortest.protos.Protocol;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -1495,14 +1496,9 @@ public class PrecompiledContracts {
 
   public static class BatchValidateSign extends PrecompiledContract {
 
-    private static final ExecutorService workers;
     private static final int ENGERYPERSIGN = 1500;
     private static final int MAX_SIZE = 16;
 
-    static {
-      workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() / 2);
-    }
-
     @Override
     public long getEnergyForData(byte[] data) {
       int cnt = (data.length / WORD_SIZE - 5) / 6;
@@ -1541,57 +1537,24 @@ public class PrecompiledContracts {
           }
         }
       } else {
-        // add check
-        CountDownLatch countDownLatch = new CountDownLatch(cnt);
-        List<Future<RecoverAddrResult>> futures = new ArrayList<>(cnt);
-
-        for (int i = 0; i < cnt; i++) {
-          Future<RecoverAddrResult> future = workers
-                  .submit(new RecoverAddrTask(countDownLatch, hash, signatures[i], i));
-          futures.add(future);
-        }
-        boolean withNoTimeout = countDownLatch
-                .await(getCPUTimeLeftInNanoSecond(), TimeUnit.NANOSECONDS);
-
-        if (!withNoTimeout) {
+        Future<List<byte[]>> future = SignatureVerifier.instance().submit(Lane.CONTRACT,
+            Arrays.asList(signatures), signature -> recoverAddrBySign(signature, hash));
+        List<byte[]> recovered;
+        try {
+          recovered = future.get(getCPUTimeLeftInNanoSecond(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          future.cancel(false);
           logger.info("BatchValidateSign timeout");
           throw Program.Exception.notEnoughTime("call BatchValidateSign precompile method");
         }
 
-        for (Future<RecoverAddrResult> future : futures) {
-          RecoverAddrResult result = future.get();
-          int index = result.nonce;
-          if (DataWord.equalAddressByteArray(result.addr, addresses[index])) {
-            res[index] = 1;
+        for (int i = 0; i < cnt; i++) {
+          if (DataWord.equalAddressByteArray(recovered.get(i), addresses[i])) {
+            res[i] = 1;
           }
         }
       }
       return Pair.of(true, res);
     }
-
-    @AllArgsConstructor
-    private static class RecoverAddrTask implements Callable<RecoverAddrResult> {
-
-      private CountDownLatch countDownLatch;
-      private byte[] hash;
-      private byte[] signature;
-      private int nonce;
-
-      @Override
-      public RecoverAddrResult call() {
-        try {
-          return new RecoverAddrResult(recoverAddrBySign(this.signature, this.hash), nonce);
-        } finally {
-          countDownLatch.countDown();
-        }
-      }
-    }
-
-    @AllArgsConstructor
-    private static class RecoverAddrResult {
-
-      private byte[] addr;
-      private int nonce;
-    }
   }
 }
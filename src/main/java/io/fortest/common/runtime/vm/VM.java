@@ -1,6 +1,5 @@
 package io.fortest.common.runtime.vm;
 
-import static io.fortest.common.crypto.Hash.sha3;
 import static io.fortest.common.runtime.utils.MUtil.convertTokhcAddress;
 import static io.fortest.common.runtime.vm.OpCode.*;
 import static io.fortest.common.utils.ByteArray.EMPTY_BYTE_ARRAY;
@@ -9,7 +8,6 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
-import io.fortest.common.utils.ByteArray;
 import lombok.extern.slf4j.Slf4j;
 import org.spongycastle.util.encoders.Hex;
 import org.springframework.util.StringUtils;
@@ -21,6 +19,11 @@ import io.fortest.common.runtime.vm.program.Program.OutOfTimeException;
 import io.fortest.common.runtime.vm.program.Program.TransferException;
 import io.fortest.common.runtime.vm.program.Stack;
 
+/**
+ * The interpreter. Every opcode has an entry in a table of operations, opcodes with a fixed energy
+ * cost have it in a table of costs and only the others compute it from the stack and the memory,
+ * so a step is two array lookups and small methods the JIT can inline.
+ */
 @Slf4j(topic = "VM")
 public class VM {
 
@@ -29,8 +32,19 @@ public class VM {
   private static final String ENERGY_LOG_FORMATE = "{} Op:[{}]  Energy:[{}] Deep:[{}] Hint:[{}]";
   // 3MB
   private static final BigInteger MEM_LIMIT = BigInteger.valueOf(3L * 1024 * 1024);
+  // a constant call checks its time left every this many instructions
+  private static final int CPU_TIME_CHECK_INTERVAL = 1024;
+
+  private static final Operation[] OPERATIONS = new Operation[OpCode.values().length];
+  private static final long[] STATIC_ENERGY = new long[OpCode.values().length];
+  private static final EnergyCalculator[] DYNAMIC_ENERGY =
+      new EnergyCalculator[OpCode.values().length];
+
   private final VMConfig config;
 
+  // the energy a call passes on, from its energy calculation to its execution
+  private DataWord adjustedCallEnergy;
+
   public VM() {
     config = VMConfig.getInstance();
   }
@@ -39,6 +53,18 @@ public class VM {
     this.config = config;
   }
 
+  @FunctionalInterface
+  private interface Operation {
+
+    void execute(VM vm, Program program, OpCode op);
+  }
+
+  @FunctionalInterface
+  private interface EnergyCalculator {
+
+    long energy(VM vm, Program program, OpCode op, EnergyCost energyCosts, long oldMemSize);
+  }
+
   /**
    * Utility to calculate new total memory size needed for an operation. <br/> Basically just offset
    * + size, unless size is 0, in which case the result is also 0.
@@ -51,14 +77,14 @@ public class VM {
     return size.isZero() ? BigInteger.ZERO : offset.value().add(size.value());
   }
 
-  private void checkMemorySize(OpCode op, BigInteger newMemSize) {
+  private static void checkMemorySize(OpCode op, BigInteger newMemSize) {
     if (newMemSize.compareTo(MEM_LIMIT) > 0) {
       throw Program.Exception.memoryOverflow(op);
     }
   }
 
-  private long calcMemEnergy(EnergyCost energyCosts, long oldMemSize, BigInteger newMemSize,
-                             long copySize, OpCode op) {
+  private static long calcMemEnergy(EnergyCost energyCosts, long oldMemSize,
+      BigInteger newMemSize, long copySize, OpCode op) {
     long energyCost = 0;
 
     checkMemorySize(op, newMemSize);
@@ -108,2809 +134,916 @@ public class VM {
       program.verifyStackSize(op.require());
       program.verifyStackOverflow(op.require(), op.ret()); //Check not exceeding stack limits
 
-      long oldMemSize = program.getMemSize();
-      Stack stack = program.getStack();
-
-      String hint = "";
-      long energyCost = op.getTier().asInt();
-      EnergyCost energyCosts = EnergyCost.getInstance();
-      DataWord adjustedCallEnergy = null;
-
       // Calculate fees and spend energy
-      switch (op) {
-        case STOP:
-          energyCost = energyCosts.getSTOP();
-          break;
-        case SUICIDE:
-          energyCost = energyCosts.getSUICIDE();
-          DataWord suicideAddressWord = stack.get(stack.size() - 1);
-          if (isDeadAccount(program, suicideAddressWord)
-                  && !program.getBalance(program.getContractAddress()).isZero()) {
-            energyCost += energyCosts.getNEW_ACCT_SUICIDE();
-          }
-          break;
-        case SSTORE:
-          // todo: check the reset to 0, refund or not
-          DataWord newValue = stack.get(stack.size() - 2);
-          DataWord oldValue = program.storageLoad(stack.peek());
-          if (oldValue == null && !newValue.isZero()) {
-            // set a new not-zero value
-            energyCost = energyCosts.getSET_SSTORE();
-          } else if (oldValue != null && newValue.isZero()) {
-            // set zero to an old value
-            program.futureRefundEnergy(energyCosts.getREFUND_SSTORE());
-            energyCost = energyCosts.getCLEAR_SSTORE();
-          } else {
-            // include:
-            // [1] oldValue == null && newValue == 0
-            // [2] oldValue != null && newValue != 0
-            energyCost = energyCosts.getRESET_SSTORE();
-          }
-          break;
-        case SLOAD:
-          energyCost = energyCosts.getSLOAD();
-          break;
-        case TOKENBALANCE:
-        case BALANCE:
-        case ISCONTRACT:
-          energyCost = energyCosts.getBALANCE();
-          break;
-
-        // These all operate on memory and therefore potentially expand it:
-        case MSTORE:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), new DataWord(32)),
-                  0, op);
-          break;
-        case MSTORE8:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), new DataWord(1)),
-                  0, op);
-          break;
-        case MLOAD:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), new DataWord(32)),
-                  0, op);
-          break;
-        case RETURN:
-        case REVERT:
-          energyCost = energyCosts.getSTOP() + calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-          break;
-        case SHA3:
-          energyCost = energyCosts.getSHA3() + calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-          DataWord size = stack.get(stack.size() - 2);
-          long chunkUsed = (size.longValueSafe() + 31) / 32;
-          energyCost += chunkUsed * energyCosts.getSHA3_WORD();
-          break;
-        case CALLDATACOPY:
-        case RETURNDATACOPY:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-                  stack.get(stack.size() - 3).longValueSafe(), op);
-          break;
-        case CODECOPY:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-                  stack.get(stack.size() - 3).longValueSafe(), op);
-          break;
-        case EXTCODESIZE:
-          energyCost = energyCosts.getEXT_CODE_SIZE();
-          break;
-        case EXTCODECOPY:
-          energyCost = energyCosts.getEXT_CODE_COPY() + calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 4)),
-                  stack.get(stack.size() - 4).longValueSafe(), op);
-          break;
-        case EXTCODEHASH:
-          energyCost = energyCosts.getEXT_CODE_HASH();
-          break;
-        case CALL:
-        case CALLCODE:
-        case DELEGATECALL:
-        case STATICCALL:
-        case CALLTOKEN:
-          // here, contract call an other contract, or a library, and so on
-          energyCost = energyCosts.getCALL();
-          DataWord callEnergyWord = stack.get(stack.size() - 1);
-          DataWord callAddressWord = stack.get(stack.size() - 2);
-          DataWord value = op.callHasValue() ? stack.get(stack.size() - 3) : DataWord.ZERO;
-
-          //check to see if account does not exist and is not a precompiled contract
-          if (op == CALL || op == CALLTOKEN) {
-            if (isDeadAccount(program, callAddressWord) && !value.isZero()) {
-              energyCost += energyCosts.getNEW_ACCT_CALL();
-            }
-          }
-
-          // TODO #POC9 Make sure this is converted to BigInteger (256num support)
-          if (!value.isZero()) {
-            energyCost += energyCosts.getVT_CALL();
-          }
-
-          int opOff = op.callHasValue() ? 4 : 3;
-          if (op == CALLTOKEN) {
-            opOff++;
-          }
-          BigInteger in = memNeeded(stack.get(stack.size() - opOff),
-                  stack.get(stack.size() - opOff - 1)); // in offset+size
-          BigInteger out = memNeeded(stack.get(stack.size() - opOff - 2),
-                  stack.get(stack.size() - opOff - 3)); // out offset+size
-          energyCost += calcMemEnergy(energyCosts, oldMemSize, in.max(out), 0, op);
-          checkMemorySize(op, in.max(out));
-
-          if (energyCost > program.getEnergyLimitLeft().longValueSafe()) {
-            throw new OutOfEnergyException(
-                    "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-                    op.name(),
-                    energyCost, program.getEnergyLimitLeft().longValueSafe());
-          }
-          DataWord getEnergyLimitLeft = program.getEnergyLimitLeft().clone();
-          getEnergyLimitLeft.sub(new DataWord(energyCost));
-
-          adjustedCallEnergy = program.getCallEnergy(op, callEnergyWord, getEnergyLimitLeft);
-          energyCost += adjustedCallEnergy.longValueSafe();
-          break;
-        case CREATE:
-          energyCost = energyCosts.getCREATE() + calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-          break;
-        case CREATE2:
-          DataWord codeSize = stack.get(stack.size() - 3);
-          energyCost = energyCosts.getCREATE();
-          energyCost += calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-          energyCost += DataWord.sizeInWords(codeSize.intValueSafe()) * energyCosts.getSHA3_WORD();
-
-          break;
-        case LOG0:
-        case LOG1:
-        case LOG2:
-        case LOG3:
-        case LOG4:
-          int nTopics = op.val() - OpCode.LOG0.val();
-          BigInteger dataSize = stack.get(stack.size() - 2).value();
-          BigInteger dataCost = dataSize
-                  .multiply(BigInteger.valueOf(energyCosts.getLOG_DATA_ENERGY()));
-          if (program.getEnergyLimitLeft().value().compareTo(dataCost) < 0) {
-            throw new OutOfEnergyException(
-                    "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-                    op.name(),
-                    dataCost.longValueExact(), program.getEnergyLimitLeft().longValueSafe());
-          }
-          energyCost = energyCosts.getLOG_ENERGY()
-                  + energyCosts.getLOG_TOPIC_ENERGY() * nTopics
-                  + energyCosts.getLOG_DATA_ENERGY() * stack.get(stack.size() - 2).longValue()
-                  + calcMemEnergy(energyCosts, oldMemSize,
-                  memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-
-          checkMemorySize(op, memNeeded(stack.peek(), stack.get(stack.size() - 2)));
-          break;
-        case EXP:
-
-          DataWord exp = stack.get(stack.size() - 2);
-          int bytesOccupied = exp.bytesOccupied();
-          energyCost =
-                  (long) energyCosts.getEXP_ENERGY() + energyCosts.getEXP_BYTE_ENERGY() * bytesOccupied;
-          break;
-        default:
-          break;
-      }
-
+      EnergyCalculator calculator = DYNAMIC_ENERGY[op.ordinal()];
+      long energyCost = calculator == null ? STATIC_ENERGY[op.ordinal()]
+          : calculator.energy(this, program, op, EnergyCost.getInstance(), program.getMemSize());
       program.spendEnergy(energyCost, op.name());
-//      program.checkCPUTimeLimit(op.name());
 
       // Execute operation
-      switch (op) {
-        /**
-         * Stop and Arithmetic Operations
-         */
-        case STOP: {
-          program.setHReturn(EMPTY_BYTE_ARRAY);
-          program.stop();
-        }
-        break;
-        case ADD: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " + " + word2.value();
-          }
-
-          word1.add(word2);
-          program.stackPush(word1);
-          program.step();
-
-        }
-        break;
-        case MUL: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " * " + word2.value();
-          }
-
-          word1.mul(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SUB: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " - " + word2.value();
-          }
-
-          word1.sub(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case DIV: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " / " + word2.value();
-          }
-
-          word1.div(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SDIV: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.sValue() + " / " + word2.sValue();
-          }
-
-          word1.sDiv(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case MOD: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " % " + word2.value();
-          }
-
-          word1.mod(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SMOD: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.sValue() + " #% " + word2.sValue();
-          }
-
-          word1.sMod(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case EXP: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " ** " + word2.value();
-          }
-
-          word1.exp(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SIGNEXTEND: {
-          DataWord word1 = program.stackPop();
-          BigInteger k = word1.value();
-
-          if (k.compareTo(_32_) < 0) {
-            DataWord word2 = program.stackPop();
-            if (logger.isDebugEnabled()) {
-              hint = word1 + "  " + word2.value();
-            }
-            word2.signExtend(k.byteValue());
-            program.stackPush(word2);
-          }
-          program.step();
-        }
-        break;
-        case NOT: {
-          DataWord word1 = program.stackPop();
-          word1.bnot();
-
-          if (logger.isDebugEnabled()) {
-            hint = "" + word1.value();
-          }
-
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case LT: {
-          // TODO: can be improved by not using BigInteger
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " < " + word2.value();
-          }
-
-          if (word1.value().compareTo(word2.value()) < 0) {
-            word1.and(DataWord.ZERO);
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SLT: {
-          // TODO: can be improved by not using BigInteger
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.sValue() + " < " + word2.sValue();
-          }
-
-          if (word1.sValue().compareTo(word2.sValue()) < 0) {
-            word1.and(DataWord.ZERO);
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case SGT: {
-          // TODO: can be improved by not using BigInteger
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.sValue() + " > " + word2.sValue();
-          }
-
-          if (word1.sValue().compareTo(word2.sValue()) > 0) {
-            word1.and(DataWord.ZERO);
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case GT: {
-          // TODO: can be improved by not using BigInteger
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " > " + word2.value();
-          }
-
-          if (word1.value().compareTo(word2.value()) > 0) {
-            word1.and(DataWord.ZERO);
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case EQ: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " == " + word2.value();
-          }
-
-          if (word1.xor(word2).isZero()) {
-            word1.and(DataWord.ZERO);
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case ISZERO: {
-          DataWord word1 = program.stackPop();
-          if (word1.isZero()) {
-            word1.getData()[31] = 1;
-          } else {
-            word1.and(DataWord.ZERO);
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = "" + word1.value();
-          }
-
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-
-        /**
-         * Bitwise Logic Operations
-         */
-        case AND: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " && " + word2.value();
-          }
-
-          word1.and(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case OR: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " || " + word2.value();
-          }
-
-          word1.or(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case XOR: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = word1.value() + " ^ " + word2.value();
-          }
-
-          word1.xor(word2);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case BYTE: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          final DataWord result;
-          if (word1.value().compareTo(_32_) < 0) {
-            byte tmp = word2.getData()[word1.intValue()];
-            word2.and(DataWord.ZERO);
-            word2.getData()[31] = tmp;
-            result = word2;
-          } else {
-            result = new DataWord();
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = "" + result.value();
-          }
-
-          program.stackPush(result);
-          program.step();
-        }
-        break;
-        case SHL: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          final DataWord result = word2.shiftLeft(word1);
-
-          if (logger.isInfoEnabled()) {
-            hint = "" + result.value();
-          }
-
-          program.stackPush(result);
-          program.step();
-        }
-        break;
-        case SHR: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          final DataWord result = word2.shiftRight(word1);
-
-          if (logger.isInfoEnabled()) {
-            hint = "" + result.value();
-          }
-
-          program.stackPush(result);
-          program.step();
-        }
-        break;
-        case SAR: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          final DataWord result = word2.shiftRightSigned(word1);
-
-          if (logger.isInfoEnabled()) {
-            hint = "" + result.value();
-          }
-
-          program.stackPush(result);
-          program.step();
-        }
-        break;
-        case ADDMOD: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          DataWord word3 = program.stackPop();
-          word1.addmod(word2, word3);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-        case MULMOD: {
-          DataWord word1 = program.stackPop();
-          DataWord word2 = program.stackPop();
-          DataWord word3 = program.stackPop();
-          word1.mulmod(word2, word3);
-          program.stackPush(word1);
-          program.step();
-        }
-        break;
-
-        /**
-         * SHA3
-         */
-        case SHA3: {
-          DataWord memOffsetData = program.stackPop();
-          DataWord lengthData = program.stackPop();
-          byte[] buffer = program
-                  .memoryChunk(memOffsetData.intValueSafe(), lengthData.intValueSafe());
-
-          byte[] encoded = sha3(buffer);
-          DataWord word = new DataWord(encoded);
-
-          if (logger.isDebugEnabled()) {
-            hint = word.toString();
-          }
-
-          program.stackPush(word);
-          program.step();
-        }
-        break;
-
-        /**
-         * Environmental Information
-         */
-        case ADDRESS: {
-          DataWord address = program.getContractAddress();
-          if (VMConfig.allowMultiSign()) { // allowMultiSigns proposal
-            address = new DataWord(address.getLast20Bytes());
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = ADDRESS_LOG + Hex.toHexString(address.getLast20Bytes());
-          }
-
-          program.stackPush(address);
-          program.step();
-        }
-        break;
-        case BALANCE: {
-          DataWord address = program.stackPop();
-          DataWord balance = program.getBalance(address);
-
-          if (logger.isDebugEnabled()) {
-            hint = ADDRESS_LOG
-                    + Hex.toHexString(address.getLast20Bytes())
-                    + " balance: " + balance.toString();
-          }
-
-          program.stackPush(balance);
-          program.step();
-        }
-        break;
-        case ISCONTRACT: {
-          DataWord address = program.stackPop();
-          DataWord isContract = program.isContract(address);
-
-          program.stackPush(isContract);
-          program.step();
-        }
-        break;
-        case ORIGIN: {
-          DataWord originAddress = program.getOriginAddress();
-
-          if (VMConfig.allowMultiSign()) { //allowMultiSign proposal
-            originAddress = new DataWord(originAddress.getLast20Bytes());
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = ADDRESS_LOG + Hex.toHexString(originAddress.getLast20Bytes());
-          }
-
-          program.stackPush(originAddress);
-          program.step();
-        }
-        break;
-        case CALLER: {
-          DataWord callerAddress = program.getCallerAddress();
-          /**
-           since we use 21 bytes address instead of 20 as etherum, we need to make sure
-           the address length in vm is matching with 20
-           */
-          callerAddress = new DataWord(callerAddress.getLast20Bytes());
-          if (logger.isDebugEnabled()) {
-            hint = ADDRESS_LOG + Hex.toHexString(callerAddress.getLast20Bytes());
-          }
-
-          program.stackPush(callerAddress);
-          program.step();
-        }
-        break;
-        case CALLVALUE: {
-          DataWord callValue = program.getCallValue();
-
-          if (logger.isDebugEnabled()) {
-            hint = "value: " + callValue;
-          }
-
-          program.stackPush(callValue);
-          program.step();
-        }
-        break;
-        case CALLTOKENVALUE:
-          DataWord tokenValue = program.getTokenValue();
-
-          if (logger.isDebugEnabled()) {
-            hint = "tokenValue: " + tokenValue;
-          }
-
-          program.stackPush(tokenValue);
-          program.step();
-          break;
-        case CALLTOKENID:
-          DataWord _tokenId = program.getTokenId();
-
-          if (logger.isDebugEnabled()) {
-            hint = "tokenId: " + _tokenId;
-          }
-
-          program.stackPush(_tokenId);
-          program.step();
-          break;
-        case CALLDATALOAD: {
-          DataWord dataOffs = program.stackPop();
-          DataWord value = program.getDataValue(dataOffs);
-
-          System.err.println(ByteArray.toHexString(value.getClonedData()));
-          if (logger.isDebugEnabled()) {
-            hint = "data: " + value;
-          }
-
-          program.stackPush(value);
-          program.step();
-        }
-        break;
-        case CALLDATASIZE: {
-          DataWord dataSize = program.getDataSize();
-
-          if (logger.isDebugEnabled()) {
-            hint = "size: " + dataSize.value();
-          }
-
-          program.stackPush(dataSize);
-          program.step();
-        }
-        break;
-        case CALLDATACOPY: {
-          DataWord memOffsetData = program.stackPop();
-          DataWord dataOffsetData = program.stackPop();
-          DataWord lengthData = program.stackPop();
-
-          byte[] msgData = program.getDataCopy(dataOffsetData, lengthData);
-
-          if (logger.isDebugEnabled()) {
-            hint = "data: " + Hex.toHexString(msgData);
-          }
-
-          program.memorySave(memOffsetData.intValueSafe(), msgData);
-          program.step();
-        }
-        break;
-        case RETURNDATASIZE: {
-          DataWord dataSize = program.getReturnDataBufferSize();
-
-          if (logger.isDebugEnabled()) {
-            hint = "size: " + dataSize.value();
-          }
-
-          program.stackPush(dataSize);
-          program.step();
-        }
-        break;
-        case RETURNDATACOPY: {
-          DataWord memOffsetData = program.stackPop();
-          DataWord dataOffsetData = program.stackPop();
-          DataWord lengthData = program.stackPop();
-
-          byte[] msgData = program.getReturnDataBufferData(dataOffsetData, lengthData);
-
-          if (msgData == null) {
-            throw new Program.ReturnDataCopyIllegalBoundsException(dataOffsetData, lengthData,
-                    program.getReturnDataBufferSize().longValueSafe());
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = "data: " + Hex.toHexString(msgData);
-          }
-
-          program.memorySave(memOffsetData.intValueSafe(), msgData);
-          program.step();
-        }
-        break;
-        case CODESIZE:
-        case EXTCODESIZE: {
-
-          int length;
-          if (op == OpCode.CODESIZE) {
-            length = program.getCode().length;
-          } else {
-            DataWord address = program.stackPop();
-            length = program.getCodeAt(address).length;
-          }
-          DataWord codeLength = new DataWord(length);
-
-          if (logger.isDebugEnabled()) {
-            hint = "size: " + length;
-          }
-
-          program.stackPush(codeLength);
-          program.step();
-          break;
-        }
-        case CODECOPY:
-        case EXTCODECOPY: {
-
-          byte[] fullCode = EMPTY_BYTE_ARRAY;
-          if (op == OpCode.CODECOPY) {
-            fullCode = program.getCode();
-          }
-
-          if (op == OpCode.EXTCODECOPY) {
-            DataWord address = program.stackPop();
-            fullCode = program.getCodeAt(address);
-          }
-
-          int memOffset = program.stackPop().intValueSafe();
-          int codeOffset = program.stackPop().intValueSafe();
-          int lengthData = program.stackPop().intValueSafe();
-
-          int sizeToBeCopied =
-                  (long) codeOffset + lengthData > fullCode.length
-                          ? (fullCode.length < codeOffset ? 0 : fullCode.length - codeOffset)
-                          : lengthData;
-
-          byte[] codeCopy = new byte[lengthData];
-
-          if (codeOffset < fullCode.length) {
-            System.arraycopy(fullCode, codeOffset, codeCopy, 0, sizeToBeCopied);
-          }
-
-          if (logger.isDebugEnabled()) {
-            hint = "code: " + Hex.toHexString(codeCopy);
-          }
-
-          program.memorySave(memOffset, codeCopy);
-          program.step();
-          break;
-        }
-        case EXTCODEHASH: {
-          DataWord address = program.stackPop();
-          byte[] codeHash = program.getCodeHashAt(address);
-          program.stackPush(codeHash);
-          program.step();
-        }
-        break;
-        case GASPRICE: {
-          DataWord energyPrice = new DataWord(0);
-
-          if (logger.isDebugEnabled()) {
-            hint = "price: " + energyPrice.toString();
-          }
-
-          program.stackPush(energyPrice);
-          program.step();
-        }
-        break;
-
-        /**
-         * Block Information
-         */
-        case BLOCKHASH: {
-
-          int blockIndex = program.stackPop().intValueSafe();
+      Operation operation = OPERATIONS[op.ordinal()];
+      if (operation != null) {
+        operation.execute(this, program, op);
+      }
 
-          DataWord blockHash = program.getBlockHash(blockIndex);
+      program.setPreviouslyExecutedOp(op.val());
+    } catch (RuntimeException e) {
+      logger.info("VM halted: [{}]", e.getMessage());
+      if (!(e instanceof TransferException)) {
+        program.spendAllEnergy();
+      }
+      program.resetFutureRefund();
+      program.stop();
+      throw e;
+    } finally {
+      program.fullTrace();
+    }
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "blockHash: " + blockHash;
-          }
+  public void play(Program program) {
+    try {
+      if (program.byTestingSuite()) {
+        return;
+      }
 
-          program.stackPush(blockHash);
-          program.step();
+      // only a constant call is held to its time, the time of a transaction is not checked
+      boolean checkTime = program.isConstantCall();
+      int steps = 0;
+      while (!program.isStopped()) {
+        this.step(program);
+        if (checkTime && ++steps % CPU_TIME_CHECK_INTERVAL == 0) {
+          program.checkCPUTimeLimit(OpCode.code(program.getPreviouslyExecutedOp()).name());
         }
-        break;
-        case COINBASE: {
-          DataWord coinbase = program.getCoinbase();
-
-          if (logger.isDebugEnabled()) {
-            hint = "coinbase: " + Hex.toHexString(coinbase.getLast20Bytes());
-          }
+      }
 
-          program.stackPush(coinbase);
-          program.step();
-        }
-        break;
-        case TIMESTAMP: {
-          DataWord timestamp = program.getTimestamp();
+    } catch (JVMStackOverFlowException | OutOfTimeException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      if (StringUtils.isEmpty(e.getMessage())) {
+        logger.warn("Unknown Exception occurred, tx id: {}",
+                Hex.toHexString(program.getRootTransactionId()), e);
+        program.setRuntimeFailure(new RuntimeException("Unknown Exception"));
+      } else {
+        program.setRuntimeFailure(e);
+      }
+    } catch (StackOverflowError soe) {
+      logger
+              .info("\n !!! StackOverflowError: update your java run command with -Xss !!!\n", soe);
+      throw new JVMStackOverFlowException();
+    }
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "timestamp: " + timestamp.value();
-          }
+  private static boolean isDeadAccount(Program program, DataWord address) {
+    return program.getContractState().getAccount(convertTokhcAddress(address.getLast20Bytes()))
+            == null;
+  }
 
-          program.stackPush(timestamp);
-          program.step();
-        }
-        break;
-        case NUMBER: {
-          DataWord number = program.getNumber();
+  private static void operation(OpCode op, Operation operation) {
+    OPERATIONS[op.ordinal()] = operation;
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "number: " + number.value();
-          }
+  private static void energy(OpCode op, long energy) {
+    STATIC_ENERGY[op.ordinal()] = energy;
+  }
 
-          program.stackPush(number);
-          program.step();
-        }
-        break;
-        case DIFFICULTY: {
-          DataWord difficulty = program.getDifficulty();
+  private static void energy(OpCode op, EnergyCalculator calculator) {
+    DYNAMIC_ENERGY[op.ordinal()] = calculator;
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "difficulty: " + difficulty;
-          }
+  static {
+    EnergyCost energyCosts = EnergyCost.getInstance();
+    for (OpCode op : OpCode.values()) {
+      STATIC_ENERGY[op.ordinal()] = op.getTier().asInt();
+    }
 
-          program.stackPush(difficulty);
-          program.step();
-        }
-        break;
-        case GASLIMIT: {
-          // todo: this energylimit is the block's energy limit
-          DataWord energyLimit = new DataWord(0);
+    energy(STOP, energyCosts.getSTOP());
+    energy(SLOAD, energyCosts.getSLOAD());
+    energy(TOKENBALANCE, energyCosts.getBALANCE());
+    energy(BALANCE, energyCosts.getBALANCE());
+    energy(ISCONTRACT, energyCosts.getBALANCE());
+    energy(EXTCODESIZE, energyCosts.getEXT_CODE_SIZE());
+    energy(EXTCODEHASH, energyCosts.getEXT_CODE_HASH());
+
+    energy(SUICIDE, VM::suicideEnergy);
+    energy(SSTORE, VM::sstoreEnergy);
+    // These all operate on memory and therefore potentially expand it:
+    energy(MSTORE, (vm, program, op, costs, oldMemSize) -> calcMemEnergy(costs, oldMemSize,
+        memNeeded(program.getStack().peek(), new DataWord(32)), 0, op));
+    energy(MSTORE8, (vm, program, op, costs, oldMemSize) -> calcMemEnergy(costs, oldMemSize,
+        memNeeded(program.getStack().peek(), new DataWord(1)), 0, op));
+    energy(MLOAD, (vm, program, op, costs, oldMemSize) -> calcMemEnergy(costs, oldMemSize,
+        memNeeded(program.getStack().peek(), new DataWord(32)), 0, op));
+    energy(RETURN, VM::returnEnergy);
+    energy(REVERT, VM::returnEnergy);
+    energy(SHA3, VM::sha3Energy);
+    energy(CALLDATACOPY, VM::copyEnergy);
+    energy(RETURNDATACOPY, VM::copyEnergy);
+    energy(CODECOPY, VM::copyEnergy);
+    energy(EXTCODECOPY, VM::extCodeCopyEnergy);
+    energy(CALL, VM::callEnergy);
+    energy(CALLCODE, VM::callEnergy);
+    energy(DELEGATECALL, VM::callEnergy);
+    energy(STATICCALL, VM::callEnergy);
+    energy(CALLTOKEN, VM::callEnergy);
+    energy(CREATE, VM::createEnergy);
+    energy(CREATE2, VM::create2Energy);
+    for (OpCode op : new OpCode[]{LOG0, LOG1, LOG2, LOG3, LOG4}) {
+      energy(op, VM::logEnergy);
+    }
+    energy(EXP, VM::expEnergy);
 
-          if (logger.isDebugEnabled()) {
-            hint = "energylimit: " + energyLimit;
-          }
+    /**
+     * Stop and Arithmetic Operations
+     */
+    operation(STOP, (vm, program, op) -> {
+      program.setHReturn(EMPTY_BYTE_ARRAY);
+      program.stop();
+    });
+    operation(ADD, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.add(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(MUL, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.mul(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(SUB, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.sub(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(DIV, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.div(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(SDIV, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.sDiv(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(MOD, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.mod(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(SMOD, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.sMod(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(EXP, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.exp(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(SIGNEXTEND, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      BigInteger k = word1.value();
+
+      if (k.compareTo(_32_) < 0) {
+        DataWord word2 = program.stackPop();
+        word2.signExtend(k.byteValue());
+        program.stackPush(word2);
+      }
+      program.step();
+    });
+    operation(NOT, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      word1.bnot();
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(LT, (vm, program, op) -> {
+      // TODO: can be improved by not using BigInteger
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      pushFlag(program, word1, word1.value().compareTo(word2.value()) < 0);
+    });
+    operation(SLT, (vm, program, op) -> {
+      // TODO: can be improved by not using BigInteger
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      pushFlag(program, word1, word1.sValue().compareTo(word2.sValue()) < 0);
+    });
+    operation(SGT, (vm, program, op) -> {
+      // TODO: can be improved by not using BigInteger
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      pushFlag(program, word1, word1.sValue().compareTo(word2.sValue()) > 0);
+    });
+    operation(GT, (vm, program, op) -> {
+      // TODO: can be improved by not using BigInteger
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      pushFlag(program, word1, word1.value().compareTo(word2.value()) > 0);
+    });
+    operation(EQ, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      pushFlag(program, word1, word1.xor(word2).isZero());
+    });
+    operation(ISZERO, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      if (word1.isZero()) {
+        word1.getData()[31] = 1;
+      } else {
+        word1.and(DataWord.ZERO);
+      }
+      program.stackPush(word1);
+      program.step();
+    });
+
+    /**
+     * Bitwise Logic Operations
+     */
+    operation(AND, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.and(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(OR, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.or(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(XOR, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      word1.xor(word2);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(BYTE, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      final DataWord result;
+      if (word1.value().compareTo(_32_) < 0) {
+        byte tmp = word2.getData()[word1.intValue()];
+        word2.and(DataWord.ZERO);
+        word2.getData()[31] = tmp;
+        result = word2;
+      } else {
+        result = new DataWord();
+      }
+      program.stackPush(result);
+      program.step();
+    });
+    operation(SHL, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      program.stackPush(word2.shiftLeft(word1));
+      program.step();
+    });
+    operation(SHR, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      program.stackPush(word2.shiftRight(word1));
+      program.step();
+    });
+    operation(SAR, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      program.stackPush(word2.shiftRightSigned(word1));
+      program.step();
+    });
+    operation(ADDMOD, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      DataWord word3 = program.stackPop();
+      word1.addmod(word2, word3);
+      program.stackPush(word1);
+      program.step();
+    });
+    operation(MULMOD, (vm, program, op) -> {
+      DataWord word1 = program.stackPop();
+      DataWord word2 = program.stackPop();
+      DataWord word3 = program.stackPop();
+      word1.mulmod(word2, word3);
+      program.stackPush(word1);
+      program.step();
+    });
+
+    /**
+     * SHA3
+     */
+    operation(SHA3, (vm, program, op) -> {
+      DataWord memOffsetData = program.stackPop();
+      DataWord lengthData = program.stackPop();
+      byte[] encoded = program
+              .memorySha3(memOffsetData.intValueSafe(), lengthData.intValueSafe());
+      program.stackPush(new DataWord(encoded));
+      program.step();
+    });
+
+    /**
+     * Environmental Information
+     */
+    operation(ADDRESS, (vm, program, op) -> {
+      DataWord address = program.getContractAddress();
+      if (VMConfig.allowMultiSign()) { // allowMultiSigns proposal
+        address = new DataWord(address.getLast20Bytes());
+      }
+      program.stackPush(address);
+      program.step();
+    });
+    operation(BALANCE, (vm, program, op) -> {
+      DataWord address = program.stackPop();
+      program.stackPush(program.getBalance(address));
+      program.step();
+    });
+    operation(ISCONTRACT, (vm, program, op) -> {
+      DataWord address = program.stackPop();
+      program.stackPush(program.isContract(address));
+      program.step();
+    });
+    operation(ORIGIN, (vm, program, op) -> {
+      DataWord originAddress = program.getOriginAddress();
+      if (VMConfig.allowMultiSign()) { //allowMultiSign proposal
+        originAddress = new DataWord(originAddress.getLast20Bytes());
+      }
+      program.stackPush(originAddress);
+      program.step();
+    });
+    operation(CALLER, (vm, program, op) -> {
+      DataWord callerAddress = program.getCallerAddress();
+      /**
+       since we use 21 bytes address instead of 20 as etherum, we need to make sure
+       the address length in vm is matching with 20
+       */
+      callerAddress = new DataWord(callerAddress.getLast20Bytes());
+      program.stackPush(callerAddress);
+      program.step();
+    });
+    operation(CALLVALUE, (vm, program, op) -> {
+      program.stackPush(program.getCallValue());
+      program.step();
+    });
+    operation(CALLTOKENVALUE, (vm, program, op) -> {
+      program.stackPush(program.getTokenValue());
+      program.step();
+    });
+    operation(CALLTOKENID, (vm, program, op) -> {
+      program.stackPush(program.getTokenId());
+      program.step();
+    });
+    operation(CALLDATALOAD, (vm, program, op) -> {
+      DataWord dataOffs = program.stackPop();
+      program.stackPush(program.getDataValue(dataOffs));
+      program.step();
+    });
+    operation(CALLDATASIZE, (vm, program, op) -> {
+      program.stackPush(program.getDataSize());
+      program.step();
+    });
+    operation(CALLDATACOPY, (vm, program, op) -> {
+      DataWord memOffsetData = program.stackPop();
+      DataWord dataOffsetData = program.stackPop();
+      DataWord lengthData = program.stackPop();
+
+      byte[] msgData = program.getDataCopy(dataOffsetData, lengthData);
+      program.memorySave(memOffsetData.intValueSafe(), msgData);
+      program.step();
+    });
+    operation(RETURNDATASIZE, (vm, program, op) -> {
+      program.stackPush(program.getReturnDataBufferSize());
+      program.step();
+    });
+    operation(RETURNDATACOPY, (vm, program, op) -> {
+      DataWord memOffsetData = program.stackPop();
+      DataWord dataOffsetData = program.stackPop();
+      DataWord lengthData = program.stackPop();
+
+      byte[] msgData = program.getReturnDataBufferData(dataOffsetData, lengthData);
+
+      if (msgData == null) {
+        throw new Program.ReturnDataCopyIllegalBoundsException(dataOffsetData, lengthData,
+                program.getReturnDataBufferSize().longValueSafe());
+      }
 
-          program.stackPush(energyLimit);
-          program.step();
-        }
-        break;
-        case POP: {
-          program.stackPop();
-          program.step();
-        }
-        break;
-        case DUP1:
-        case DUP2:
-        case DUP3:
-        case DUP4:
-        case DUP5:
-        case DUP6:
-        case DUP7:
-        case DUP8:
-        case DUP9:
-        case DUP10:
-        case DUP11:
-        case DUP12:
-        case DUP13:
-        case DUP14:
-        case DUP15:
-        case DUP16: {
-
-          int n = op.val() - OpCode.DUP1.val() + 1;
+      program.memorySave(memOffsetData.intValueSafe(), msgData);
+      program.step();
+    });
+    operation(CODESIZE, (vm, program, op) -> {
+      program.stackPush(new DataWord(program.getCode().length));
+      program.step();
+    });
+    operation(EXTCODESIZE, (vm, program, op) -> {
+      DataWord address = program.stackPop();
+      program.stackPush(new DataWord(program.getCodeAt(address).length));
+      program.step();
+    });
+    operation(CODECOPY, (vm, program, op) -> codeCopy(program, program.getCode()));
+    operation(EXTCODECOPY, (vm, program, op) -> {
+      DataWord address = program.stackPop();
+      codeCopy(program, program.getCodeAt(address));
+    });
+    operation(EXTCODEHASH, (vm, program, op) -> {
+      DataWord address = program.stackPop();
+      byte[] codeHash = program.getCodeHashAt(address);
+      program.stackPush(codeHash);
+      program.step();
+    });
+    operation(GASPRICE, (vm, program, op) -> {
+      program.stackPush(new DataWord(0));
+      program.step();
+    });
+
+    /**
+     * Block Information
+     */
+    operation(BLOCKHASH, (vm, program, op) -> {
+      int blockIndex = program.stackPop().intValueSafe();
+      program.stackPush(program.getBlockHash(blockIndex));
+      program.step();
+    });
+    operation(COINBASE, (vm, program, op) -> {
+      program.stackPush(program.getCoinbase());
+      program.step();
+    });
+    operation(TIMESTAMP, (vm, program, op) -> {
+      program.stackPush(program.getTimestamp());
+      program.step();
+    });
+    operation(NUMBER, (vm, program, op) -> {
+      program.stackPush(program.getNumber());
+      program.step();
+    });
+    operation(DIFFICULTY, (vm, program, op) -> {
+      program.stackPush(program.getDifficulty());
+      program.step();
+    });
+    operation(GASLIMIT, (vm, program, op) -> {
+      // todo: this energylimit is the block's energy limit
+      program.stackPush(new DataWord(0));
+      program.step();
+    });
+
+    /**
+     * Stack, Memory, Storage and Flow Operations
+     */
+    operation(POP, (vm, program, op) -> {
+      program.stackPop();
+      program.step();
+    });
+    for (OpCode op : OpCode.values()) {
+      if (op.val() >= DUP1.val() && op.val() <= DUP16.val()) {
+        int n = op.val() - DUP1.val() + 1;
+        operation(op, (vm, program, code) -> {
+          Stack stack = program.getStack();
           DataWord word_1 = stack.get(stack.size() - n);
           program.stackPush(word_1.clone());
           program.step();
-
-          break;
-        }
-        case SWAP1:
-        case SWAP2:
-        case SWAP3:
-        case SWAP4:
-        case SWAP5:
-        case SWAP6:
-        case SWAP7:
-        case SWAP8:
-        case SWAP9:
-        case SWAP10:
-        case SWAP11:
-        case SWAP12:
-        case SWAP13:
-        case SWAP14:
-        case SWAP15:
-        case SWAP16: {
-
-          int n = op.val() - OpCode.SWAP1.val() + 2;
+        });
+      } else if (op.val() >= SWAP1.val() && op.val() <= SWAP16.val()) {
+        int n = op.val() - SWAP1.val() + 2;
+        operation(op, (vm, program, code) -> {
+          Stack stack = program.getStack();
           stack.swap(stack.size() - 1, stack.size() - n);
           program.step();
-          break;
-        }
-        case LOG0:
-        case LOG1:
-        case LOG2:
-        case LOG3:
-        case LOG4: {
-
-          if (program.isStaticCall()) {
-            throw new Program.StaticCallModificationException();
-          }
-          DataWord address = program.getContractAddress();
+        });
+      } else if (op.val() >= LOG0.val() && op.val() <= LOG4.val()) {
+        int nTopics = op.val() - LOG0.val();
+        operation(op, (vm, program, code) -> log(program, nTopics));
+      } else if (op.val() >= PUSH1.val() && op.val() <= PUSH32.val()) {
+        int nPush = op.val() - PUSH1.val() + 1;
+        operation(op, (vm, program, code) -> {
+          program.step();
+          program.stackPush(program.sweep(nPush));
+        });
+      }
+    }
+    operation(MLOAD, (vm, program, op) -> {
+      DataWord addr = program.stackPop();
+      program.stackPush(program.memoryLoad(addr));
+      program.step();
+    });
+    operation(MSTORE, (vm, program, op) -> {
+      DataWord addr = program.stackPop();
+      DataWord value = program.stackPop();
+      program.memorySave(addr, value);
+      program.step();
+    });
+    operation(MSTORE8, (vm, program, op) -> {
+      DataWord addr = program.stackPop();
+      DataWord value = program.stackPop();
+      byte[] byteVal = {value.getData()[31]};
+      program.memorySave(addr.intValueSafe(), byteVal);
+      program.step();
+    });
+    operation(SLOAD, (vm, program, op) -> {
+      DataWord key = program.stackPop();
+      DataWord val = program.storageLoad(key);
+      if (val == null) {
+        val = key.and(DataWord.ZERO);
+      }
+      program.stackPush(val);
+      program.step();
+    });
+    operation(SSTORE, (vm, program, op) -> {
+      if (program.isStaticCall()) {
+        throw new Program.StaticCallModificationException();
+      }
 
-          DataWord memStart = stack.pop();
-          DataWord memOffset = stack.pop();
+      DataWord addr = program.stackPop();
+      DataWord value = program.stackPop();
+      program.storageSave(addr, value);
+      program.step();
+    });
+    operation(JUMP, (vm, program, op) -> {
+      DataWord pos = program.stackPop();
+      program.setPC(program.verifyJumpDest(pos));
+    });
+    operation(JUMPI, (vm, program, op) -> {
+      DataWord pos = program.stackPop();
+      DataWord cond = program.stackPop();
+      if (!cond.isZero()) {
+        program.setPC(program.verifyJumpDest(pos));
+      } else {
+        program.step();
+      }
+    });
+    operation(PC, (vm, program, op) -> {
+      program.stackPush(new DataWord(program.getPC()));
+      program.step();
+    });
+    operation(MSIZE, (vm, program, op) -> {
+      program.stackPush(new DataWord(program.getMemSize()));
+      program.step();
+    });
+    operation(GAS, (vm, program, op) -> {
+      program.stackPush(program.getEnergyLimitLeft());
+      program.step();
+    });
+    operation(JUMPDEST, (vm, program, op) -> program.step());
+
+    /**
+     * System Operations
+     */
+    operation(CREATE, (vm, program, op) -> {
+      if (program.isStaticCall()) {
+        throw new Program.StaticCallModificationException();
+      }
+      DataWord value = program.stackPop();
+      DataWord inOffset = program.stackPop();
+      DataWord inSize = program.stackPop();
+      program.createContract(value, inOffset, inSize);
+      program.step();
+    });
+    operation(CREATE2, (vm, program, op) -> {
+      if (program.isStaticCall()) {
+        throw new Program.StaticCallModificationException();
+      }
+      DataWord value = program.stackPop();
+      DataWord inOffset = program.stackPop();
+      DataWord inSize = program.stackPop();
+      DataWord salt = program.stackPop();
+      program.createContract2(value, inOffset, inSize, salt);
+      program.step();
+    });
+    operation(TOKENBALANCE, (vm, program, op) -> {
+      DataWord tokenId = program.stackPop();
+      DataWord address = program.stackPop();
+      program.stackPush(program.getTokenBalance(address, tokenId));
+      program.step();
+    });
+    operation(CALL, VM::call);
+    operation(CALLCODE, VM::call);
+    operation(CALLTOKEN, VM::call);
+    operation(DELEGATECALL, VM::call);
+    operation(STATICCALL, VM::call);
+    operation(RETURN, VM::doReturn);
+    operation(REVERT, VM::doReturn);
+    operation(SUICIDE, (vm, program, op) -> {
+      if (program.isStaticCall()) {
+        throw new Program.StaticCallModificationException();
+      }
 
-          int nTopics = op.val() - OpCode.LOG0.val();
+      DataWord address = program.stackPop();
+      program.suicide(address);
+      program.getResult().addTouchAccount(address.getLast20Bytes());
+      program.stop();
+    });
+  }
 
-          List<DataWord> topics = new ArrayList<>();
-          for (int i = 0; i < nTopics; ++i) {
-            DataWord topic = stack.pop();
-            topics.add(topic);
-          }
+  private static void pushFlag(Program program, DataWord word, boolean flag) {
+    word.and(DataWord.ZERO);
+    if (flag) {
+      word.getData()[31] = 1;
+    }
+    program.stackPush(word);
+    program.step();
+  }
 
-          byte[] data = program.memoryChunk(memStart.intValueSafe(), memOffset.intValueSafe());
+  private static void codeCopy(Program program, byte[] fullCode) {
+    int memOffset = program.stackPop().intValueSafe();
+    int codeOffset = program.stackPop().intValueSafe();
+    int lengthData = program.stackPop().intValueSafe();
 
-          LogInfo logInfo =
-                  new LogInfo(address.getLast20Bytes(), topics, data);
+    int sizeToBeCopied =
+            (long) codeOffset + lengthData > fullCode.length
+                    ? (fullCode.length < codeOffset ? 0 : fullCode.length - codeOffset)
+                    : lengthData;
 
-          if (logger.isDebugEnabled()) {
-            hint = logInfo.toString();
-          }
+    byte[] codeCopy = new byte[lengthData];
 
-          program.getResult().addLogInfo(logInfo);
-          program.step();
-          break;
-        }
-        case MLOAD: {
-          DataWord addr = program.stackPop();
-          DataWord data = program.memoryLoad(addr);
+    if (codeOffset < fullCode.length) {
+      System.arraycopy(fullCode, codeOffset, codeCopy, 0, sizeToBeCopied);
+    }
 
-          if (logger.isDebugEnabled()) {
-            hint = "data: " + data;
-          }
+    program.memorySave(memOffset, codeCopy);
+    program.step();
+  }
 
-          program.stackPush(data);
-          program.step();
-        }
-        break;
-        case MSTORE: {
-          DataWord addr = program.stackPop();
-          DataWord value = program.stackPop();
+  private static void log(Program program, int nTopics) {
+    if (program.isStaticCall()) {
+      throw new Program.StaticCallModificationException();
+    }
+    Stack stack = program.getStack();
+    DataWord address = program.getContractAddress();
 
-          if (logger.isDebugEnabled()) {
-            hint = "addr: " + addr + " value: " + value;
-          }
+    DataWord memStart = stack.pop();
+    DataWord memOffset = stack.pop();
 
-          program.memorySave(addr, value);
-          program.step();
-        }
-        break;
-        case MSTORE8: {
-          DataWord addr = program.stackPop();
-          DataWord value = program.stackPop();
-          byte[] byteVal = {value.getData()[31]};
-          program.memorySave(addr.intValueSafe(), byteVal);
-          program.step();
-        }
-        break;
-        case SLOAD: {
-          DataWord key = program.stackPop();
-          DataWord val = program.storageLoad(key);
+    List<DataWord> topics = new ArrayList<>();
+    for (int i = 0; i < nTopics; ++i) {
+      DataWord topic = stack.pop();
+      topics.add(topic);
+    }
 
-          if (logger.isDebugEnabled()) {
-            hint = "key: " + key + " value: " + val;
-          }
+    byte[] data = program.memoryChunk(memStart.intValueSafe(), memOffset.intValueSafe());
 
-          if (val == null) {
-            val = key.and(DataWord.ZERO);
-          }
+    LogInfo logInfo =
+            new LogInfo(address.getLast20Bytes(), topics, data);
 
-          program.stackPush(val);
-          program.step();
-        }
-        break;
-        case SSTORE: {
-          if (program.isStaticCall()) {
-            throw new Program.StaticCallModificationException();
-          }
-
-          DataWord addr = program.stackPop();
-          DataWord value = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint =
-                    "[" + program.getContractAddress().toPrefixString() + "] key: " + addr + " value: "
-                            + value;
-          }
-
-          program.storageSave(addr, value);
-          program.step();
-        }
-        break;
-        case JUMP: {
-          DataWord pos = program.stackPop();
-          int nextPC = program.verifyJumpDest(pos);
+    program.getResult().addLogInfo(logInfo);
+    program.step();
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "~> " + nextPC;
-          }
+  private static void call(VM vm, Program program, OpCode op) {
+    DataWord adjustedCallEnergy = vm.adjustedCallEnergy;
+    vm.adjustedCallEnergy = null;
 
-          program.setPC(nextPC);
+    program.stackPop(); // use adjustedCallEnergy instead of requested
+    DataWord codeAddress = program.stackPop();
 
-        }
-        break;
-        case JUMPI: {
-          DataWord pos = program.stackPop();
-          DataWord cond = program.stackPop();
+    DataWord value;
+    if (op.callHasValue()) {
+      value = program.stackPop();
+    } else {
+      value = DataWord.ZERO;
+    }
 
-          if (!cond.isZero()) {
-            int nextPC = program.verifyJumpDest(pos);
+    if (program.isStaticCall() && (op == CALL || op == CALLTOKEN) && !value.isZero()) {
+      throw new Program.StaticCallModificationException();
+    }
 
-            if (logger.isDebugEnabled()) {
-              hint = "~> " + nextPC;
-            }
+    if (!value.isZero()) {
+      adjustedCallEnergy.add(new DataWord(EnergyCost.getInstance().getSTIPEND_CALL()));
+    }
 
-            program.setPC(nextPC);
-          } else {
-            program.step();
-          }
+    DataWord tokenId = new DataWord(0);
+    boolean isTokenTransferMsg = false;
+    if (op == CALLTOKEN) {
+      tokenId = program.stackPop();
+      if (VMConfig.allowMultiSign()) { // allowMultiSign proposal
+        isTokenTransferMsg = true;
+      }
+    }
 
-        }
-        break;
-        case PC: {
-          int pc = program.getPC();
-          DataWord pcWord = new DataWord(pc);
+    DataWord inDataOffs = program.stackPop();
+    DataWord inDataSize = program.stackPop();
+
+    DataWord outDataOffs = program.stackPop();
+    DataWord outDataSize = program.stackPop();
+
+    if (logger.isDebugEnabled()) {
+      String hint = "addr: " + Hex.toHexString(codeAddress.getLast20Bytes())
+              + " energy: " + adjustedCallEnergy.shortHex()
+              + " inOff: " + inDataOffs.shortHex()
+              + " inSize: " + inDataSize.shortHex();
+      logger.debug(ENERGY_LOG_FORMATE, String.format("%5s", "[" + program.getPC() + "]"),
+              String.format("%-12s", op.name()),
+              program.getEnergyLimitLeft().value(),
+              program.getCallDeep(), hint);
+    }
 
-          if (logger.isDebugEnabled()) {
-            hint = pcWord.toString();
-          }
+    program.memoryExpand(outDataOffs, outDataSize);
 
-          program.stackPush(pcWord);
-          program.step();
-        }
-        break;
-        case MSIZE: {
-          int memSize = program.getMemSize();
-          DataWord wordMemSize = new DataWord(memSize);
+    MessageCall msg = new MessageCall(
+            op, adjustedCallEnergy, codeAddress, value, inDataOffs, inDataSize,
+            outDataOffs, outDataSize, tokenId, isTokenTransferMsg);
 
-          if (logger.isDebugEnabled()) {
-            hint = "" + memSize;
-          }
+    PrecompiledContracts.PrecompiledContract contract =
+            PrecompiledContracts.getContractForAddress(codeAddress);
 
-          program.stackPush(wordMemSize);
-          program.step();
-        }
-        break;
-        case GAS: {
-          DataWord energy = program.getEnergyLimitLeft();
-          if (logger.isDebugEnabled()) {
-            hint = "" + energy;
-          }
-
-          program.stackPush(energy);
-          program.step();
-        }
-        break;
-
-        case PUSH1:
-        case PUSH2:
-        case PUSH3:
-        case PUSH4:
-        case PUSH5:
-        case PUSH6:
-        case PUSH7:
-        case PUSH8:
-        case PUSH9:
-        case PUSH10:
-        case PUSH11:
-        case PUSH12:
-        case PUSH13:
-        case PUSH14:
-        case PUSH15:
-        case PUSH16:
-        case PUSH17:
-        case PUSH18:
-        case PUSH19:
-        case PUSH20:
-        case PUSH21:
-        case PUSH22:
-        case PUSH23:
-        case PUSH24:
-        case PUSH25:
-        case PUSH26:
-        case PUSH27:
-        case PUSH28:
-        case PUSH29:
-        case PUSH30:
-        case PUSH31:
-        case PUSH32: {
-          program.step();
-          int nPush = op.val() - PUSH1.val() + 1;
+    if (!op.callIsStateless()) {
+      program.getResult().addTouchAccount(codeAddress.getLast20Bytes());
+    }
 
-          byte[] data = program.sweep(nPush);
+    if (contract != null) {
+      program.callToPrecompiledAddress(msg, contract);
+    } else {
+      program.callToAddress(msg);
+    }
 
-          if (logger.isDebugEnabled()) {
-            hint = "" + Hex.toHexString(data);
-          }
+    program.step();
+  }
 
-          program.stackPush(data);
-          break;
-        }
-        case JUMPDEST: {
-          program.step();
-        }
-        break;
-        case CREATE: {
-          if (program.isStaticCall()) {
-            throw new Program.StaticCallModificationException();
-          }
-          DataWord value = program.stackPop();
-          DataWord inOffset = program.stackPop();
-          DataWord inSize = program.stackPop();
-          program.createContract(value, inOffset, inSize);
+  private static void doReturn(VM vm, Program program, OpCode op) {
+    DataWord offset = program.stackPop();
+    DataWord size = program.stackPop();
 
-          program.step();
-        }
-        break;
-        case CREATE2: {
-          if (program.isStaticCall()) {
-            throw new Program.StaticCallModificationException();
-          }
-          DataWord value = program.stackPop();
-          DataWord inOffset = program.stackPop();
-          DataWord inSize = program.stackPop();
-          DataWord salt = program.stackPop();
-          program.createContract2(value, inOffset, inSize, salt);
-          program.step();
-        }
-        break;
-        case TOKENBALANCE: {
-          DataWord tokenId = program.stackPop();
-          DataWord address = program.stackPop();
-          DataWord tokenBalance = program.getTokenBalance(address, tokenId);
-          program.stackPush(tokenBalance);
+    byte[] hReturn = program.memoryChunk(offset.intValueSafe(), size.intValueSafe());
+    program.setHReturn(hReturn);
 
-          program.step();
-        }
-        break;
-        case CALL:
-        case CALLCODE:
-        case CALLTOKEN:
-        case DELEGATECALL:
-        case STATICCALL: {
-          program.stackPop(); // use adjustedCallEnergy instead of requested
-          DataWord codeAddress = program.stackPop();
-
-          DataWord value;
-          if (op.callHasValue()) {
-            value = program.stackPop();
-          } else {
-            value = DataWord.ZERO;
-          }
-
-          if (program.isStaticCall() && (op == CALL || op == CALLTOKEN) && !value.isZero()) {
-            throw new Program.StaticCallModificationException();
-          }
-
-          if (!value.isZero()) {
-            adjustedCallEnergy.add(new DataWord(energyCosts.getSTIPEND_CALL()));
-          }
-
-          DataWord tokenId = new DataWord(0);
-          boolean isTokenTransferMsg = false;
-          if (op == CALLTOKEN) {
-            tokenId = program.stackPop();
-            if (VMConfig.allowMultiSign()) { // allowMultiSign proposal
-              isTokenTransferMsg = true;
-            }
-          }
-
-          DataWord inDataOffs = program.stackPop();
-          DataWord inDataSize = program.stackPop();
-
-          DataWord outDataOffs = program.stackPop();
-          DataWord outDataSize = program.stackPop();
-
-          if (logger.isDebugEnabled()) {
-            hint = "addr: " + Hex.toHexString(codeAddress.getLast20Bytes())
-                    + " energy: " + adjustedCallEnergy.shortHex()
-                    + " inOff: " + inDataOffs.shortHex()
-                    + " inSize: " + inDataSize.shortHex();
-            logger.debug(ENERGY_LOG_FORMATE, String.format("%5s", "[" + program.getPC() + "]"),
-                    String.format("%-12s", op.name()),
-                    program.getEnergyLimitLeft().value(),
-                    program.getCallDeep(), hint);
-          }
-
-          program.memoryExpand(outDataOffs, outDataSize);
-
-          MessageCall msg = new MessageCall(
-                  op, adjustedCallEnergy, codeAddress, value, inDataOffs, inDataSize,
-                  outDataOffs, outDataSize, tokenId, isTokenTransferMsg);
-
-          PrecompiledContracts.PrecompiledContract contract =
-                  PrecompiledContracts.getContractForAddress(codeAddress);
-
-          if (!op.callIsStateless()) {
-            program.getResult().addTouchAccount(codeAddress.getLast20Bytes());
-          }
-
-          if (contract != null) {
-            program.callToPrecompiledAddress(msg, contract);
-          } else {
-            program.callToAddress(msg);
-          }
+    program.step();
+    program.stop();
 
-          program.step();
-          break;
-        }
-        case RETURN:
-        case REVERT: {
-          DataWord offset = program.stackPop();
-          DataWord size = program.stackPop();
+    if (op == REVERT) {
+      program.getResult().setRevert();
+    }
+  }
 
-          byte[] hReturn = program.memoryChunk(offset.intValueSafe(), size.intValueSafe());
-          program.setHReturn(hReturn);
+  private static long suicideEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    long energyCost = energyCosts.getSUICIDE();
+    DataWord suicideAddressWord = stack.get(stack.size() - 1);
+    if (isDeadAccount(program, suicideAddressWord)
+            && !program.getBalance(program.getContractAddress()).isZero()) {
+      energyCost += energyCosts.getNEW_ACCT_SUICIDE();
+    }
+    return energyCost;
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = "data: " + Hex.toHexString(hReturn)
-                    + " offset: " + offset.value()
-                    + " size: " + size.value();
-          }
+  private static long sstoreEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    // todo: check the reset to 0, refund or not
+    DataWord newValue = stack.get(stack.size() - 2);
+    DataWord oldValue = program.storageLoad(stack.peek());
+    if (oldValue == null && !newValue.isZero()) {
+      // set a new not-zero value
+      return energyCosts.getSET_SSTORE();
+    } else if (oldValue != null && newValue.isZero()) {
+      // set zero to an old value
+      program.futureRefundEnergy(energyCosts.getREFUND_SSTORE());
+      return energyCosts.getCLEAR_SSTORE();
+    } else {
+      // include:
+      // [1] oldValue == null && newValue == 0
+      // [2] oldValue != null && newValue != 0
+      return energyCosts.getRESET_SSTORE();
+    }
+  }
 
-          program.step();
-          program.stop();
+  private static long returnEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    return energyCosts.getSTOP() + calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+  }
 
-          if (op == REVERT) {
-            program.getResult().setRevert();
-          }
-          break;
-        }
-        case SUICIDE: {
-          if (program.isStaticCall()) {
-            throw new Program.StaticCallModificationException();
-          }
+  private static long sha3Energy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    long energyCost = energyCosts.getSHA3() + calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+    DataWord size = stack.get(stack.size() - 2);
+    long chunkUsed = (size.longValueSafe() + 31) / 32;
+    energyCost += chunkUsed * energyCosts.getSHA3_WORD();
+    return energyCost;
+  }
 
-          DataWord address = program.stackPop();
-          program.suicide(address);
-          program.getResult().addTouchAccount(address.getLast20Bytes());
+  private static long copyEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    return calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.peek(), stack.get(stack.size() - 3)),
+            stack.get(stack.size() - 3).longValueSafe(), op);
+  }
 
-          if (logger.isDebugEnabled()) {
-            hint = ADDRESS_LOG + Hex.toHexString(program.getContractAddress().getLast20Bytes());
-          }
+  private static long extCodeCopyEnergy(VM vm, Program program, OpCode op,
+      EnergyCost energyCosts, long oldMemSize) {
+    Stack stack = program.getStack();
+    return energyCosts.getEXT_CODE_COPY() + calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 4)),
+            stack.get(stack.size() - 4).longValueSafe(), op);
+  }
 
-          program.stop();
-        }
-        break;
-        default:
-          break;
+  private static long callEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    // here, contract call an other contract, or a library, and so on
+    long energyCost = energyCosts.getCALL();
+    DataWord callEnergyWord = stack.get(stack.size() - 1);
+    DataWord callAddressWord = stack.get(stack.size() - 2);
+    DataWord value = op.callHasValue() ? stack.get(stack.size() - 3) : DataWord.ZERO;
+
+    //check to see if account does not exist and is not a precompiled contract
+    if (op == CALL || op == CALLTOKEN) {
+      if (isDeadAccount(program, callAddressWord) && !value.isZero()) {
+        energyCost += energyCosts.getNEW_ACCT_CALL();
       }
+    }
 
-      program.setPreviouslyExecutedOp(op.val());
-    } catch (RuntimeException e) {
-      logger.info("VM halted: [{}]", e.getMessage());
-      if (!(e instanceof TransferException)) {
-        program.spendAllEnergy();
-      }
-      program.resetFutureRefund();
-      program.stop();
-      throw e;
-    } finally {
-      program.fullTrace();
+    // TODO #POC9 Make sure this is converted to BigInteger (256num support)
+    if (!value.isZero()) {
+      energyCost += energyCosts.getVT_CALL();
     }
+
+    int opOff = op.callHasValue() ? 4 : 3;
+    if (op == CALLTOKEN) {
+      opOff++;
+    }
+    BigInteger in = memNeeded(stack.get(stack.size() - opOff),
+            stack.get(stack.size() - opOff - 1)); // in offset+size
+    BigInteger out = memNeeded(stack.get(stack.size() - opOff - 2),
+            stack.get(stack.size() - opOff - 3)); // out offset+size
+    energyCost += calcMemEnergy(energyCosts, oldMemSize, in.max(out), 0, op);
+    checkMemorySize(op, in.max(out));
+
+    if (energyCost > program.getEnergyLimitLeft().longValueSafe()) {
+      throw new OutOfEnergyException(
+              "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
+              op.name(),
+              energyCost, program.getEnergyLimitLeft().longValueSafe());
+    }
+    DataWord getEnergyLimitLeft = program.getEnergyLimitLeft().clone();
+    getEnergyLimitLeft.sub(new DataWord(energyCost));
+
+    vm.adjustedCallEnergy = program.getCallEnergy(op, callEnergyWord, getEnergyLimitLeft);
+    return energyCost + vm.adjustedCallEnergy.longValueSafe();
   }
 
-  public void play(Program program) {
-    try {
-      if (program.byTestingSuite()) {
-        return;
-      }
+  private static long createEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    return energyCosts.getCREATE() + calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
+  }
 
-      while (!program.isStopped()) {
-        this.step(program);
-      }
+  private static long create2Energy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    DataWord codeSize = stack.get(stack.size() - 3);
+    long energyCost = energyCosts.getCREATE();
+    energyCost += calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
+    energyCost += DataWord.sizeInWords(codeSize.intValueSafe()) * energyCosts.getSHA3_WORD();
+    return energyCost;
+  }
 
-    } catch (JVMStackOverFlowException | OutOfTimeException e) {
-      throw e;
-    } catch (RuntimeException e) {
-      if (StringUtils.isEmpty(e.getMessage())) {
-        logger.warn("Unknown Exception occurred, tx id: {}",
-                Hex.toHexString(program.getRootTransactionId()), e);
-        program.setRuntimeFailure(new RuntimeException("Unknown Exception"));
-      } else {
-        program.setRuntimeFailure(e);
-      }
-    } catch (StackOverflowError soe) {
-      logger
-              .info("\n !!! StackOverflowError: update your java run command with -Xss !!!\n", soe);
-      throw new JVMStackOverFlowException();
+  private static long logEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    Stack stack = program.getStack();
+    int nTopics = op.val() - OpCode.LOG0.val();
+    BigInteger dataSize = stack.get(stack.size() - 2).value();
+    BigInteger dataCost = dataSize
+            .multiply(BigInteger.valueOf(energyCosts.getLOG_DATA_ENERGY()));
+    if (program.getEnergyLimitLeft().value().compareTo(dataCost) < 0) {
+      throw new OutOfEnergyException(
+              "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
+              op.name(),
+              dataCost.longValueExact(), program.getEnergyLimitLeft().longValueSafe());
     }
+    long energyCost = energyCosts.getLOG_ENERGY()
+            + energyCosts.getLOG_TOPIC_ENERGY() * nTopics
+            + energyCosts.getLOG_DATA_ENERGY() * stack.get(stack.size() - 2).longValue()
+            + calcMemEnergy(energyCosts, oldMemSize,
+            memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+
+    checkMemorySize(op, memNeeded(stack.peek(), stack.get(stack.size() - 2)));
+    return energyCost;
   }
 
-  private boolean isDeadAccount(Program program, DataWord address) {
-    return program.getContractState().getAccount(convertTokhcAddress(address.getLast20Bytes()))
-            == null;
+  private static long expEnergy(VM vm, Program program, OpCode op, EnergyCost energyCosts,
+      long oldMemSize) {
+    DataWord exp = program.getStack().get(program.getStack().size() - 2);
+    int bytesOccupied = exp.bytesOccupied();
+    return (long) energyCosts.getEXP_ENERGY() + energyCosts.getEXP_BYTE_ENERGY() * bytesOccupied;
   }
 }
-
-//@Slf4j(topic = "VM")
-//public class VM {
-//
-//  private static final BigInteger _32_ = BigInteger.valueOf(32);
-//  private static final String ENERGY_LOG_FORMATE = "{} Op:[{}]  Energy:[{}] Deep:[{}] Hint:[{}]";
-//
-//  // 3MB
-//  private static final BigInteger MEM_LIMIT = BigInteger.valueOf(3L * 1024 * 1024);
-//  public static final String ADDRESS_LOG = "address: ";
-//
-//  private final VMConfig config;
-//
-//  public VM() {
-//    config = VMConfig.getInstance();
-//  }
-//
-//  public VM(VMConfig config) {
-//    this.config = config;
-//  }
-//
-//  private void checkMemorySize(OpCode op, BigInteger newMemSize) {
-//    if (newMemSize.compareTo(MEM_LIMIT) > 0) {
-//      throw Program.Exception.memoryOverflow(op);
-//    }
-//  }
-//
-//  private long calcMemEnergy(EnergyCost energyCosts, long oldMemSize, BigInteger newMemSize,
-//      long copySize, OpCode op) {
-//    long energyCost = 0;
-//
-//    checkMemorySize(op, newMemSize);
-//
-//    // memory drop consume calc
-//    long memoryUsage = (newMemSize.longValueExact() + 31) / 32 * 32;
-//    if (memoryUsage > oldMemSize) {
-//      long memWords = (memoryUsage / 32);
-//      long memWordsOld = (oldMemSize / 32);
-//      //TODO #POC9 c_quadCoeffDiv = 512, this should be a constant, not magic number
-//      long memEnergy = (energyCosts.getMEMORY() * memWords + memWords * memWords / 512)
-//          - (energyCosts.getMEMORY() * memWordsOld + memWordsOld * memWordsOld / 512);
-//      energyCost += memEnergy;
-//    }
-//
-//    if (copySize > 0) {
-//      long copyEnergy = energyCosts.getCOPY_ENERGY() * ((copySize + 31) / 32);
-//      energyCost += copyEnergy;
-//    }
-//    return energyCost;
-//  }
-//
-//  public void step(Program program) {
-//    if (config.vmTrace()) {
-//      program.saveOpTrace();
-//    }
-//
-//    try {
-//      OpCode op = OpCode.code(program.getCurrentOp());
-//      if (op == null) {
-//        throw Program.Exception.invalidOpCode(program.getCurrentOp());
-//      }
-//
-//      // hard fork for 3.2
-//      if (!VMConfig.allowTvmTransferTrc10()) {
-//        if (op == OpCode.CALLTOKEN || op == OpCode.TOKENBALANCE || op == OpCode.CALLTOKENVALUE || op == OpCode.CALLTOKENID) {
-//          throw Program.Exception.invalidOpCode(program.getCurrentOp());
-//        }
-//      }
-//
-//      if (!VMConfig.allowTvmConstantinople()) {
-//        if (op == OpCode.SHL || op == OpCode.SHR || op == OpCode.SAR || op == OpCode.CREATE2 || op == OpCode.EXTCODEHASH) {
-//          throw Program.Exception.invalidOpCode(program.getCurrentOp());
-//        }
-//      }
-//      program.setLastOp(op.val());
-//      program.verifyStackSize(op.require());
-//      program.verifyStackOverflow(op.require(), op.ret()); //Check not exceeding stack limits
-//
-//      long oldMemSize = program.getMemSize();
-//      Stack stack = program.getStack();
-//
-//      String hint = "";
-//      long energyCost = op.getTier().asInt();
-//      EnergyCost energyCosts = EnergyCost.getInstance();
-//      DataWord adjustedCallEnergy = null;
-//
-//      // Calculate fees and spend energy
-//      switch (op) {
-//        case STOP:
-//          energyCost = energyCosts.getSTOP();
-//          break;
-//        case SUICIDE:
-//          energyCost = energyCosts.getSUICIDE();
-//          DataWord suicideAddressWord = stack.get(stack.size() - 1);
-//          if (isDeadAccount(program, suicideAddressWord)
-//              && !program.getBalance(program.getContractAddress()).isZero()) {
-//            energyCost += energyCosts.getNEW_ACCT_SUICIDE();
-//          }
-//          break;
-//        case SSTORE:
-//          // todo: check the reset to 0, refund or not
-//          DataWord newValue = stack.get(stack.size() - 2);
-//          DataWord oldValue = program.storageLoad(stack.peek());
-//          if (oldValue == null && !newValue.isZero()) {
-//            // set a new not-zero value
-//            energyCost = energyCosts.getSET_SSTORE();
-//          } else if (oldValue != null && newValue.isZero()) {
-//            // set zero to an old value
-//            program.futureRefundEnergy(energyCosts.getREFUND_SSTORE());
-//            energyCost = energyCosts.getCLEAR_SSTORE();
-//          } else {
-//            // include:
-//            // [1] oldValue == null && newValue == 0
-//            // [2] oldValue != null && newValue != 0
-//            energyCost = energyCosts.getRESET_SSTORE();
-//          }
-//          break;
-//        case SLOAD:
-//          energyCost = energyCosts.getSLOAD();
-//          break;
-//        case TOKENBALANCE:
-//        case BALANCE:
-//          energyCost = energyCosts.getBALANCE();
-//          break;
-//
-//        // These all operate on memory and therefore potentially expand it:
-//        case MSTORE:
-//          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), new DataWord(32)),
-//              0, op);
-//          break;
-//        case MSTORE8:
-//          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), new DataWord(1)),
-//              0, op);
-//          break;
-//        case MLOAD:
-//          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), new DataWord(32)),
-//              0, op);
-//          break;
-//        case RETURN:
-//        case REVERT:
-//          energyCost = energyCosts.getSTOP() + calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-//          break;
-//        case SHA3:
-//          energyCost = energyCosts.getSHA3() + calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-//          DataWord size = stack.get(stack.size() - 2);
-//          long chunkUsed = (size.longValueSafe() + 31) / 32;
-//          energyCost += chunkUsed * energyCosts.getSHA3_WORD();
-//          break;
-//        case CALLDATACOPY:
-//        case RETURNDATACOPY:
-//          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-//              stack.get(stack.size() - 3).longValueSafe(), op);
-//          break;
-//        case CODECOPY:
-//          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-//              stack.get(stack.size() - 3).longValueSafe(), op);
-//          break;
-//        case EXTCODESIZE:
-//          energyCost = energyCosts.getEXT_CODE_SIZE();
-//          break;
-//        case EXTCODECOPY:
-//          energyCost = energyCosts.getEXT_CODE_COPY() + calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 4)),
-//              stack.get(stack.size() - 4).longValueSafe(), op);
-//          break;
-//        case EXTCODEHASH:
-//          energyCost = energyCosts.getEXT_CODE_HASH();
-//          break;
-//        case CALL:
-//        case CALLCODE:
-//        case DELEGATECALL:
-//        case STATICCALL:
-//        case CALLTOKEN:
-//          // here, contract call an other contract, or a library, and so on
-//          energyCost = energyCosts.getCALL();
-//          DataWord callEnergyWord = stack.get(stack.size() - 1);
-//          DataWord callAddressWord = stack.get(stack.size() - 2);
-//          DataWord value = op.callHasValue() ? stack.get(stack.size() - 3) : DataWord.ZERO;
-//
-//          //check to see if account does not exist and is not a precompiled contract
-//          if (op == OpCode.CALL || op == OpCode.CALLTOKEN) {
-//            if (isDeadAccount(program, callAddressWord) && !value.isZero()) {
-//              energyCost += energyCosts.getNEW_ACCT_CALL();
-//            }
-//          }
-//
-//          // TODO #POC9 Make sure this is converted to BigInteger (256num support)
-//          if (!value.isZero()) {
-//            energyCost += energyCosts.getVT_CALL();
-//          }
-//
-//          int opOff = op.callHasValue() ? 4 : 3;
-//          if (op == OpCode.CALLTOKEN) {
-//            opOff++;
-//          }
-//          BigInteger in = memNeeded(stack.get(stack.size() - opOff),
-//              stack.get(stack.size() - opOff - 1)); // in offset+size
-//          BigInteger out = memNeeded(stack.get(stack.size() - opOff - 2),
-//              stack.get(stack.size() - opOff - 3)); // out offset+size
-//          energyCost += calcMemEnergy(energyCosts, oldMemSize, in.max(out), 0, op);
-//          checkMemorySize(op, in.max(out));
-//
-//          if (energyCost > program.getEnergyLimitLeft().longValueSafe()) {
-//            throw new OutOfEnergyException(
-//                "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-//                op.name(),
-//                energyCost, program.getEnergyLimitLeft().longValueSafe());
-//          }
-//          DataWord getEnergyLimitLeft = program.getEnergyLimitLeft().clone();
-//          getEnergyLimitLeft.sub(new DataWord(energyCost));
-//
-//          adjustedCallEnergy = program.getCallEnergy(op, callEnergyWord, getEnergyLimitLeft);
-//          energyCost += adjustedCallEnergy.longValueSafe();
-//          break;
-//        case CREATE:
-//          energyCost = energyCosts.getCREATE() + calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-//          break;
-//        case CREATE2:
-//          DataWord codeSize = stack.get(stack.size() - 3);
-//          energyCost = energyCosts.getCREATE();
-//          energyCost += calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-//          energyCost += DataWord.sizeInWords(codeSize.intValueSafe()) * energyCosts.getSHA3_WORD();
-//
-//          break;
-//        case LOG0:
-//        case LOG1:
-//        case LOG2:
-//        case LOG3:
-//        case LOG4:
-//          int nTopics = op.val() - OpCode.LOG0.val();
-//          BigInteger dataSize = stack.get(stack.size() - 2).value();
-//          BigInteger dataCost = dataSize
-//              .multiply(BigInteger.valueOf(energyCosts.getLOG_DATA_ENERGY()));
-//          if (program.getEnergyLimitLeft().value().compareTo(dataCost) < 0) {
-//            throw new OutOfEnergyException(
-//                "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-//                op.name(),
-//                dataCost.longValueExact(), program.getEnergyLimitLeft().longValueSafe());
-//          }
-//          energyCost = energyCosts.getLOG_ENERGY()
-//              + energyCosts.getLOG_TOPIC_ENERGY() * nTopics
-//              + energyCosts.getLOG_DATA_ENERGY() * stack.get(stack.size() - 2).longValue()
-//              + calcMemEnergy(energyCosts, oldMemSize,
-//              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-//
-//          checkMemorySize(op, memNeeded(stack.peek(), stack.get(stack.size() - 2)));
-//          break;
-//        case EXP:
-//
-//          DataWord exp = stack.get(stack.size() - 2);
-//          int bytesOccupied = exp.bytesOccupied();
-//          energyCost =
-//              (long) energyCosts.getEXP_ENERGY() + energyCosts.getEXP_BYTE_ENERGY() * bytesOccupied;
-//          break;
-//        default:
-//          break;
-//      }
-//
-//      program.spendEnergy(energyCost, op.name());
-//      program.checkCPUTimeLimit(op.name());
-//
-//      // Execute operation
-//      switch (op) {
-//        /**
-//         * Stop and Arithmetic Operations
-//         */
-//        case STOP: {
-//          program.setHReturn(ByteUtil.EMPTY_BYTE_ARRAY);
-//          program.stop();
-//        }
-//        break;
-//        case ADD: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " + " + word2.value();
-//          }
-//
-//          word1.add(word2);
-//          program.stackPush(word1);
-//          program.step();
-//
-//        }
-//        break;
-//        case MUL: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " * " + word2.value();
-//          }
-//
-//          word1.mul(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SUB: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " - " + word2.value();
-//          }
-//
-//          word1.sub(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case DIV: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " / " + word2.value();
-//          }
-//
-//          word1.div(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SDIV: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.sValue() + " / " + word2.sValue();
-//          }
-//
-//          word1.sDiv(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case MOD: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " % " + word2.value();
-//          }
-//
-//          word1.mod(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SMOD: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.sValue() + " #% " + word2.sValue();
-//          }
-//
-//          word1.sMod(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case EXP: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " ** " + word2.value();
-//          }
-//
-//          word1.exp(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SIGNEXTEND: {
-//          DataWord word1 = program.stackPop();
-//          BigInteger k = word1.value();
-//
-//          if (k.compareTo(_32_) < 0) {
-//            DataWord word2 = program.stackPop();
-//            if (logger.isDebugEnabled()) {
-//              hint = word1 + "  " + word2.value();
-//            }
-//            word2.signExtend(k.byteValue());
-//            program.stackPush(word2);
-//          }
-//          program.step();
-//        }
-//        break;
-//        case NOT: {
-//          DataWord word1 = program.stackPop();
-//          word1.bnot();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + word1.value();
-//          }
-//
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case LT: {
-//          // TODO: can be improved by not using BigInteger
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " < " + word2.value();
-//          }
-//
-//          if (word1.value().compareTo(word2.value()) < 0) {
-//            word1.and(DataWord.ZERO);
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SLT: {
-//          // TODO: can be improved by not using BigInteger
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.sValue() + " < " + word2.sValue();
-//          }
-//
-//          if (word1.sValue().compareTo(word2.sValue()) < 0) {
-//            word1.and(DataWord.ZERO);
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case SGT: {
-//          // TODO: can be improved by not using BigInteger
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.sValue() + " > " + word2.sValue();
-//          }
-//
-//          if (word1.sValue().compareTo(word2.sValue()) > 0) {
-//            word1.and(DataWord.ZERO);
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case GT: {
-//          // TODO: can be improved by not using BigInteger
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " > " + word2.value();
-//          }
-//
-//          if (word1.value().compareTo(word2.value()) > 0) {
-//            word1.and(DataWord.ZERO);
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case EQ: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " == " + word2.value();
-//          }
-//
-//          if (word1.xor(word2).isZero()) {
-//            word1.and(DataWord.ZERO);
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case ISZERO: {
-//          DataWord word1 = program.stackPop();
-//          if (word1.isZero()) {
-//            word1.getData()[31] = 1;
-//          } else {
-//            word1.and(DataWord.ZERO);
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + word1.value();
-//          }
-//
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//
-//        /**
-//         * Bitwise Logic Operations
-//         */
-//        case AND: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " && " + word2.value();
-//          }
-//
-//          word1.and(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case OR: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " || " + word2.value();
-//          }
-//
-//          word1.or(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case XOR: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word1.value() + " ^ " + word2.value();
-//          }
-//
-//          word1.xor(word2);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case BYTE: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          final DataWord result;
-//          if (word1.value().compareTo(_32_) < 0) {
-//            byte tmp = word2.getData()[word1.intValue()];
-//            word2.and(DataWord.ZERO);
-//            word2.getData()[31] = tmp;
-//            result = word2;
-//          } else {
-//            result = new DataWord();
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + result.value();
-//          }
-//
-//          program.stackPush(result);
-//          program.step();
-//        }
-//        break;
-//        case SHL: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          final DataWord result = word2.shiftLeft(word1);
-//
-//          if (logger.isInfoEnabled()) {
-//            hint = "" + result.value();
-//          }
-//
-//          program.stackPush(result);
-//          program.step();
-//        }
-//        break;
-//        case SHR: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          final DataWord result = word2.shiftRight(word1);
-//
-//          if (logger.isInfoEnabled()) {
-//            hint = "" + result.value();
-//          }
-//
-//          program.stackPush(result);
-//          program.step();
-//        }
-//        break;
-//        case SAR: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          final DataWord result = word2.shiftRightSigned(word1);
-//
-//          if (logger.isInfoEnabled()) {
-//            hint = "" + result.value();
-//          }
-//
-//          program.stackPush(result);
-//          program.step();
-//        }
-//        break;
-//        case ADDMOD: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          DataWord word3 = program.stackPop();
-//          word1.addmod(word2, word3);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//        case MULMOD: {
-//          DataWord word1 = program.stackPop();
-//          DataWord word2 = program.stackPop();
-//          DataWord word3 = program.stackPop();
-//          word1.mulmod(word2, word3);
-//          program.stackPush(word1);
-//          program.step();
-//        }
-//        break;
-//
-//        /**
-//         * SHA3
-//         */
-//        case SHA3: {
-//          DataWord memOffsetData = program.stackPop();
-//          DataWord lengthData = program.stackPop();
-//          byte[] buffer = program
-//              .memoryChunk(memOffsetData.intValueSafe(), lengthData.intValueSafe());
-//
-//          byte[] encoded = Hash.sha3(buffer);
-//          DataWord word = new DataWord(encoded);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = word.toString();
-//          }
-//
-//          program.stackPush(word);
-//          program.step();
-//        }
-//        break;
-//
-//        /**
-//         * Environmental Information
-//         */
-//        case ADDRESS: {
-//          DataWord address = program.getContractAddress();
-//          if (VMConfig.allowMultiSign()) { // allowMultiSigns proposal
-//            address = new DataWord(address.getLast20Bytes());
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = ADDRESS_LOG + Hex.toHexString(address.getLast20Bytes());
-//          }
-//
-//          program.stackPush(address);
-//          program.step();
-//        }
-//        break;
-//        case BALANCE: {
-//          DataWord address = program.stackPop();
-//          DataWord balance = program.getBalance(address);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = ADDRESS_LOG
-//                + Hex.toHexString(address.getLast20Bytes())
-//                + " balance: " + balance.toString();
-//          }
-//
-//          program.stackPush(balance);
-//          program.step();
-//        }
-//        break;
-//        case ORIGIN: {
-//          DataWord originAddress = program.getOriginAddress();
-//
-//          if (VMConfig.allowMultiSign()) { //allowMultiSign proposal
-//            originAddress = new DataWord(originAddress.getLast20Bytes());
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = ADDRESS_LOG + Hex.toHexString(originAddress.getLast20Bytes());
-//          }
-//
-//          program.stackPush(originAddress);
-//          program.step();
-//        }
-//        break;
-//        case CALLER: {
-//          DataWord callerAddress = program.getCallerAddress();
-//          /**
-//           since we use 21 bytes address instead of 20 as etherum, we need to make sure
-//           the address length in vm is matching with 20
-//           */
-//          callerAddress = new DataWord(callerAddress.getLast20Bytes());
-//          if (logger.isDebugEnabled()) {
-//            hint = ADDRESS_LOG + Hex.toHexString(callerAddress.getLast20Bytes());
-//          }
-//
-//          program.stackPush(callerAddress);
-//          program.step();
-//        }
-//        break;
-//        case CALLVALUE: {
-//          DataWord callValue = program.getCallValue();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "value: " + callValue;
-//          }
-//
-//          program.stackPush(callValue);
-//          program.step();
-//        }
-//        break;
-//        case CALLTOKENVALUE:
-//          DataWord tokenValue = program.getTokenValue();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "tokenValue: " + tokenValue;
-//          }
-//
-//          program.stackPush(tokenValue);
-//          program.step();
-//          break;
-//        case CALLTOKENID:
-//          DataWord _tokenId = program.getTokenId();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "tokenId: " + _tokenId;
-//          }
-//
-//          program.stackPush(_tokenId);
-//          program.step();
-//          break;
-//        case CALLDATALOAD: {
-//          DataWord dataOffs = program.stackPop();
-//          DataWord value = program.getDataValue(dataOffs);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "data: " + value;
-//          }
-//
-//          program.stackPush(value);
-//          program.step();
-//        }
-//        break;
-//        case CALLDATASIZE: {
-//          DataWord dataSize = program.getDataSize();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "size: " + dataSize.value();
-//          }
-//
-//          program.stackPush(dataSize);
-//          program.step();
-//        }
-//        break;
-//        case CALLDATACOPY: {
-//          DataWord memOffsetData = program.stackPop();
-//          DataWord dataOffsetData = program.stackPop();
-//          DataWord lengthData = program.stackPop();
-//
-//          byte[] msgData = program.getDataCopy(dataOffsetData, lengthData);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "data: " + Hex.toHexString(msgData);
-//          }
-//
-//          program.memorySave(memOffsetData.intValueSafe(), msgData);
-//          program.step();
-//        }
-//        break;
-//        case RETURNDATASIZE: {
-//          DataWord dataSize = program.getReturnDataBufferSize();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "size: " + dataSize.value();
-//          }
-//
-//          program.stackPush(dataSize);
-//          program.step();
-//        }
-//        break;
-//        case RETURNDATACOPY: {
-//          DataWord memOffsetData = program.stackPop();
-//          DataWord dataOffsetData = program.stackPop();
-//          DataWord lengthData = program.stackPop();
-//
-//          byte[] msgData = program.getReturnDataBufferData(dataOffsetData, lengthData);
-//
-//          if (msgData == null) {
-//            throw new Program.ReturnDataCopyIllegalBoundsException(dataOffsetData, lengthData,
-//                program.getReturnDataBufferSize().longValueSafe());
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "data: " + Hex.toHexString(msgData);
-//          }
-//
-//          program.memorySave(memOffsetData.intValueSafe(), msgData);
-//          program.step();
-//        }
-//        break;
-//        case CODESIZE:
-//        case EXTCODESIZE: {
-//
-//          int length;
-//          if (op == OpCode.CODESIZE) {
-//            length = program.getCode().length;
-//          } else {
-//            DataWord address = program.stackPop();
-//            length = program.getCodeAt(address).length;
-//          }
-//          DataWord codeLength = new DataWord(length);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "size: " + length;
-//          }
-//
-//          program.stackPush(codeLength);
-//          program.step();
-//          break;
-//        }
-//        case CODECOPY:
-//        case EXTCODECOPY: {
-//
-//          byte[] fullCode = ByteUtil.EMPTY_BYTE_ARRAY;
-//          if (op == OpCode.CODECOPY) {
-//            fullCode = program.getCode();
-//          }
-//
-//          if (op == OpCode.EXTCODECOPY) {
-//            DataWord address = program.stackPop();
-//            fullCode = program.getCodeAt(address);
-//          }
-//
-//          int memOffset = program.stackPop().intValueSafe();
-//          int codeOffset = program.stackPop().intValueSafe();
-//          int lengthData = program.stackPop().intValueSafe();
-//
-//          int sizeToBeCopied =
-//              (long) codeOffset + lengthData > fullCode.length
-//                  ? (fullCode.length < codeOffset ? 0 : fullCode.length - codeOffset)
-//                  : lengthData;
-//
-//          byte[] codeCopy = new byte[lengthData];
-//
-//          if (codeOffset < fullCode.length) {
-//            System.arraycopy(fullCode, codeOffset, codeCopy, 0, sizeToBeCopied);
-//          }
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "code: " + Hex.toHexString(codeCopy);
-//          }
-//
-//          program.memorySave(memOffset, codeCopy);
-//          program.step();
-//          break;
-//        }
-//        case EXTCODEHASH: {
-//          DataWord address = program.stackPop();
-//          byte[] codeHash = program.getCodeHashAt(address);
-//          program.stackPush(codeHash);
-//          program.step();
-//        }
-//        break;
-//        case GASPRICE: {
-//          DataWord energyPrice = new DataWord(0);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "price: " + energyPrice.toString();
-//          }
-//
-//          program.stackPush(energyPrice);
-//          program.step();
-//        }
-//        break;
-//
-//        /**
-//         * Block Information
-//         */
-//        case BLOCKHASH: {
-//
-//          int blockIndex = program.stackPop().intValueSafe();
-//
-//          DataWord blockHash = program.getBlockHash(blockIndex);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "blockHash: " + blockHash;
-//          }
-//
-//          program.stackPush(blockHash);
-//          program.step();
-//        }
-//        break;
-//        case COINBASE: {
-//          DataWord coinbase = program.getCoinbase();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "coinbase: " + Hex.toHexString(coinbase.getLast20Bytes());
-//          }
-//
-//          program.stackPush(coinbase);
-//          program.step();
-//        }
-//        break;
-//        case TIMESTAMP: {
-//          DataWord timestamp = program.getTimestamp();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "timestamp: " + timestamp.value();
-//          }
-//
-//          program.stackPush(timestamp);
-//          program.step();
-//        }
-//        break;
-//        case NUMBER: {
-//          DataWord number = program.getNumber();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "number: " + number.value();
-//          }
-//
-//          program.stackPush(number);
-//          program.step();
-//        }
-//        break;
-//        case DIFFICULTY: {
-//          DataWord difficulty = program.getDifficulty();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "difficulty: " + difficulty;
-//          }
-//
-//          program.stackPush(difficulty);
-//          program.step();
-//        }
-//        break;
-//        case GASLIMIT: {
-//          // todo: this energylimit is the block's energy limit
-//          DataWord energyLimit = new DataWord(0);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "energylimit: " + energyLimit;
-//          }
-//
-//          program.stackPush(energyLimit);
-//          program.step();
-//        }
-//        break;
-//        case POP: {
-//          program.stackPop();
-//          program.step();
-//        }
-//        break;
-//        case DUP1:
-//        case DUP2:
-//        case DUP3:
-//        case DUP4:
-//        case DUP5:
-//        case DUP6:
-//        case DUP7:
-//        case DUP8:
-//        case DUP9:
-//        case DUP10:
-//        case DUP11:
-//        case DUP12:
-//        case DUP13:
-//        case DUP14:
-//        case DUP15:
-//        case DUP16: {
-//
-//          int n = op.val() - OpCode.DUP1.val() + 1;
-//          DataWord word_1 = stack.get(stack.size() - n);
-//          program.stackPush(word_1.clone());
-//          program.step();
-//
-//          break;
-//        }
-//        case SWAP1:
-//        case SWAP2:
-//        case SWAP3:
-//        case SWAP4:
-//        case SWAP5:
-//        case SWAP6:
-//        case SWAP7:
-//        case SWAP8:
-//        case SWAP9:
-//        case SWAP10:
-//        case SWAP11:
-//        case SWAP12:
-//        case SWAP13:
-//        case SWAP14:
-//        case SWAP15:
-//        case SWAP16: {
-//
-//          int n = op.val() - OpCode.SWAP1.val() + 2;
-//          stack.swap(stack.size() - 1, stack.size() - n);
-//          program.step();
-//          break;
-//        }
-//        case LOG0:
-//        case LOG1:
-//        case LOG2:
-//        case LOG3:
-//        case LOG4: {
-//
-//          if (program.isStaticCall()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//          DataWord address = program.getContractAddress();
-//
-//          DataWord memStart = stack.pop();
-//          DataWord memOffset = stack.pop();
-//
-//          int nTopics = op.val() - OpCode.LOG0.val();
-//
-//          List<DataWord> topics = new ArrayList<>();
-//          for (int i = 0; i < nTopics; ++i) {
-//            DataWord topic = stack.pop();
-//            topics.add(topic);
-//          }
-//
-//          byte[] data = program.memoryChunk(memStart.intValueSafe(), memOffset.intValueSafe());
-//
-//          LogInfo logInfo =
-//              new LogInfo(address.getLast20Bytes(), topics, data);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = logInfo.toString();
-//          }
-//
-//          program.getResult().addLogInfo(logInfo);
-//          program.step();
-//          break;
-//        }
-//        case MLOAD: {
-//          DataWord addr = program.stackPop();
-//          DataWord data = program.memoryLoad(addr);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "data: " + data;
-//          }
-//
-//          program.stackPush(data);
-//          program.step();
-//        }
-//        break;
-//        case MSTORE: {
-//          DataWord addr = program.stackPop();
-//          DataWord value = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "addr: " + addr + " value: " + value;
-//          }
-//
-//          program.memorySave(addr, value);
-//          program.step();
-//        }
-//        break;
-//        case MSTORE8: {
-//          DataWord addr = program.stackPop();
-//          DataWord value = program.stackPop();
-//          byte[] byteVal = {value.getData()[31]};
-//          program.memorySave(addr.intValueSafe(), byteVal);
-//          program.step();
-//        }
-//        break;
-//        case SLOAD: {
-//          DataWord key = program.stackPop();
-//          DataWord val = program.storageLoad(key);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "key: " + key + " value: " + val;
-//          }
-//
-//          if (val == null) {
-//            val = key.and(DataWord.ZERO);
-//          }
-//
-//          program.stackPush(val);
-//          program.step();
-//        }
-//        break;
-//        case SSTORE: {
-//          if (program.isStaticCall()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//
-//          DataWord addr = program.stackPop();
-//          DataWord value = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint =
-//                "[" + program.getContractAddress().toPrefixString() + "] key: " + addr + " value: "
-//                    + value;
-//          }
-//
-//          program.storageSave(addr, value);
-//          program.step();
-//        }
-//        break;
-//        case JUMP: {
-//          DataWord pos = program.stackPop();
-//          int nextPC = program.verifyJumpDest(pos);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "~> " + nextPC;
-//          }
-//
-//          program.setPC(nextPC);
-//
-//        }
-//        break;
-//        case JUMPI: {
-//          DataWord pos = program.stackPop();
-//          DataWord cond = program.stackPop();
-//
-//          if (!cond.isZero()) {
-//            int nextPC = program.verifyJumpDest(pos);
-//
-//            if (logger.isDebugEnabled()) {
-//              hint = "~> " + nextPC;
-//            }
-//
-//            program.setPC(nextPC);
-//          } else {
-//            program.step();
-//          }
-//
-//        }
-//        break;
-//        case PC: {
-//          int pc = program.getPC();
-//          DataWord pcWord = new DataWord(pc);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = pcWord.toString();
-//          }
-//
-//          program.stackPush(pcWord);
-//          program.step();
-//        }
-//        break;
-//        case MSIZE: {
-//          int memSize = program.getMemSize();
-//          DataWord wordMemSize = new DataWord(memSize);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + memSize;
-//          }
-//
-//          program.stackPush(wordMemSize);
-//          program.step();
-//        }
-//        break;
-//        case GAS: {
-//          DataWord energy = program.getEnergyLimitLeft();
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + energy;
-//          }
-//
-//          program.stackPush(energy);
-//          program.step();
-//        }
-//        break;
-//
-//        case PUSH1:
-//        case PUSH2:
-//        case PUSH3:
-//        case PUSH4:
-//        case PUSH5:
-//        case PUSH6:
-//        case PUSH7:
-//        case PUSH8:
-//        case PUSH9:
-//        case PUSH10:
-//        case PUSH11:
-//        case PUSH12:
-//        case PUSH13:
-//        case PUSH14:
-//        case PUSH15:
-//        case PUSH16:
-//        case PUSH17:
-//        case PUSH18:
-//        case PUSH19:
-//        case PUSH20:
-//        case PUSH21:
-//        case PUSH22:
-//        case PUSH23:
-//        case PUSH24:
-//        case PUSH25:
-//        case PUSH26:
-//        case PUSH27:
-//        case PUSH28:
-//        case PUSH29:
-//        case PUSH30:
-//        case PUSH31:
-//        case PUSH32: {
-//          program.step();
-//          int nPush = op.val() - OpCode.PUSH1.val() + 1;
-//
-//          byte[] data = program.sweep(nPush);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "" + Hex.toHexString(data);
-//          }
-//
-//          program.stackPush(data);
-//          break;
-//        }
-//        case JUMPDEST: {
-//          program.step();
-//        }
-//        break;
-//        case CREATE: {
-//          if (program.isStaticCall()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//          DataWord value = program.stackPop();
-//          DataWord inOffset = program.stackPop();
-//          DataWord inSize = program.stackPop();
-//          program.createContract(value, inOffset, inSize);
-//
-//          program.step();
-//        }
-//        break;
-//        case CREATE2: {
-//          if (program.isStaticCall()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//          DataWord value = program.stackPop();
-//          DataWord inOffset = program.stackPop();
-//          DataWord inSize = program.stackPop();
-//          DataWord salt = program.stackPop();
-//          program.createContract2(value, inOffset, inSize, salt);
-//          program.step();
-//        }
-//        break;
-//        case TOKENBALANCE: {
-//          DataWord tokenId = program.stackPop();
-//          DataWord address = program.stackPop();
-//          DataWord tokenBalance = program.getTokenBalance(address, tokenId);
-//          program.stackPush(tokenBalance);
-//
-//          program.step();
-//        }
-//        break;
-//        case CALL:
-//        case CALLCODE:
-//        case CALLTOKEN:
-//        case DELEGATECALL:
-//        case STATICCALL: {
-//          program.stackPop(); // use adjustedCallEnergy instead of requested
-//          DataWord codeAddress = program.stackPop();
-//
-//          DataWord value;
-//          if (op.callHasValue()) {
-//            value = program.stackPop();
-//          } else {
-//            value = DataWord.ZERO;
-//          }
-//
-//          if (program.isStaticCall() && (op == OpCode.CALL || op == OpCode.CALLTOKEN) && !value.isZero()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//
-//          if (!value.isZero()) {
-//            adjustedCallEnergy.add(new DataWord(energyCosts.getSTIPEND_CALL()));
-//          }
-//
-//          DataWord tokenId = new DataWord(0);
-//          boolean isTokenTransferMsg = false;
-//          if (op == OpCode.CALLTOKEN) {
-//            tokenId = program.stackPop();
-//            if (VMConfig.allowMultiSign()) { // allowMultiSign proposal
-//              isTokenTransferMsg = true;
-//            }
-//          }
-//
-//          DataWord inDataOffs = program.stackPop();
-//          DataWord inDataSize = program.stackPop();
-//
-//          DataWord outDataOffs = program.stackPop();
-//          DataWord outDataSize = program.stackPop();
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "addr: " + Hex.toHexString(codeAddress.getLast20Bytes())
-//                + " energy: " + adjustedCallEnergy.shortHex()
-//                + " inOff: " + inDataOffs.shortHex()
-//                + " inSize: " + inDataSize.shortHex();
-//            logger.debug(ENERGY_LOG_FORMATE, String.format("%5s", "[" + program.getPC() + "]"),
-//                String.format("%-12s", op.name()),
-//                program.getEnergyLimitLeft().value(),
-//                program.getCallDeep(), hint);
-//          }
-//
-//          program.memoryExpand(outDataOffs, outDataSize);
-//
-//          MessageCall msg = new MessageCall(
-//              op, adjustedCallEnergy, codeAddress, value, inDataOffs, inDataSize,
-//              outDataOffs, outDataSize, tokenId, isTokenTransferMsg);
-//
-//          PrecompiledContracts.PrecompiledContract contract =
-//              PrecompiledContracts.getContractForAddress(codeAddress);
-//
-//          if (!op.callIsStateless()) {
-//            program.getResult().addTouchAccount(codeAddress.getLast20Bytes());
-//          }
-//
-//          if (contract != null) {
-//            program.callToPrecompiledAddress(msg, contract);
-//          } else {
-//            program.callToAddress(msg);
-//          }
-//
-//          program.step();
-//          break;
-//        }
-//        case RETURN:
-//        case REVERT: {
-//          DataWord offset = program.stackPop();
-//          DataWord size = program.stackPop();
-//
-//          byte[] hReturn = program.memoryChunk(offset.intValueSafe(), size.intValueSafe());
-//          program.setHReturn(hReturn);
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = "data: " + Hex.toHexString(hReturn)
-//                + " offset: " + offset.value()
-//                + " size: " + size.value();
-//          }
-//
-//          program.step();
-//          program.stop();
-//
-//          if (op == OpCode.REVERT) {
-//            program.getResult().setRevert();
-//          }
-//          break;
-//        }
-//        case SUICIDE: {
-//          if (program.isStaticCall()) {
-//            throw new Program.StaticCallModificationException();
-//          }
-//
-//          DataWord address = program.stackPop();
-//          program.suicide(address);
-//          program.getResult().addTouchAccount(address.getLast20Bytes());
-//
-//          if (logger.isDebugEnabled()) {
-//            hint = ADDRESS_LOG + Hex.toHexString(program.getContractAddress().getLast20Bytes());
-//          }
-//
-//          program.stop();
-//        }
-//        break;
-//        default:
-//          break;
-//      }
-//
-//      program.setPreviouslyExecutedOp(op.val());
-//    } catch (RuntimeException e) {
-//      logger.info("VM halted: [{}]", e.getMessage());
-//      if (!(e instanceof TransferException)) {
-//        program.spendAllEnergy();
-//      }
-//      program.resetFutureRefund();
-//      program.stop();
-//      throw e;
-//    } finally {
-//      program.fullTrace();
-//    }
-//  }
-//
-//  public void play(Program program) {
-//    try {
-//      if (program.byTestingSuite()) {
-//        return;
-//      }
-//
-//      while (!program.isStopped()) {
-//        this.step(program);
-//      }
-//
-//    } catch (JVMStackOverFlowException | OutOfTimeException e) {
-//      throw e;
-//    } catch (RuntimeException e) {
-//      if (StringUtils.isEmpty(e.getMessage())) {
-//        logger.warn("Unknown Exception occurred, tx id: {}",
-//            Hex.toHexString(program.getRootTransactionId()), e);
-//        program.setRuntimeFailure(new RuntimeException("Unknown Exception"));
-//      } else {
-//        program.setRuntimeFailure(e);
-//      }
-//    } catch (StackOverflowError soe) {
-//      logger
-//          .info("\n !!! StackOverflowError: update your java run command with -Xss !!!\n", soe);
-//      throw new JVMStackOverFlowException();
-//    }
-//  }
-//
-//  private boolean isDeadAccount(Program program, DataWord address) {
-//    return program.getContractState().getAccount(convertTokhcAddress(address.getLast20Bytes()))
-//        == null;
-//  }
-//
-//  /**
-//   * Utility to calculate new total memory size needed for an operation. <br/> Basically just offset
-//   * + size, unless size is 0, in which case the result is also 0.
-//   *
-//   * @param offset starting position of the memory
-//   * @param size number of bytes needed
-//   * @return offset + size, unless size is 0. In that case memNeeded is also 0.
-//   */
-//  private static BigInteger memNeeded(DataWord offset, DataWord size) {
-//    return size.isZero() ? BigInteger.ZERO : offset.value().add(size.value());
-//  }
-//}
@@ -35,6 +35,7 @@ import java.util.zip.Inflater;
 import java.util.zip.InflaterOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import io.fortest.common.runtime.config.VMConfig;
+import io.fortest.common.runtime.vm.trace.StreamingProgramTrace;
 
 @Slf4j(topic = "VM")
 public final class VMUtils {
@@ -52,12 +53,12 @@ public final class VMUtils {
     }
   }
 
-  private static File createProgramTraceFile(VMConfig config, String txHash) {
+  private static File createProgramTraceFile(VMConfig config, String txHash, String extension) {
     File result = null;
 
     if (config.vmTrace()) {
 
-      File file = new File(new File("./", "vm_trace"), txHash + ".json");
+      File file = new File(new File("./", "vm_trace"), txHash + extension);
 
       if (file.exists()) {
         if (file.isFile() && file.canWrite()) {
@@ -92,12 +93,29 @@ public final class VMUtils {
   }
 
   public static void saveProgramTraceFile(VMConfig config, String txHash, String content) {
-    File file = createProgramTraceFile(config, txHash);
+    File file = createProgramTraceFile(config, txHash, ".json");
     if (file != null) {
       writeStringToFile(file, content);
     }
   }
 
+  /**
+   * the streaming trace of the transaction in a file of its own, null if the file can not be
+   * written.
+   */
+  public static StreamingProgramTrace openProgramTraceStream(VMConfig config, String txHash) {
+    File file = createProgramTraceFile(config, txHash, ".ndjson");
+    if (file == null) {
+      return null;
+    }
+    try {
+      return StreamingProgramTrace.toFile(config.vmTraceLevel(), file);
+    } catch (IOException e) {
+      logger.error(format("Cannot write to file '%s': ", file.getAbsolutePath()), e);
+      return null;
+    }
+  }
+
   private static final int BUF_SIZE = 4096;
 
   private static void write(InputStream in, OutputStream out, int bufSize) throws IOException {
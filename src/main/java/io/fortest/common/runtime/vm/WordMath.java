@@ -0,0 +1,336 @@
+package io.fortest.common.runtime.vm;
+
+/**
+ * 256-bit unsigned arithmetic on eight 32-bit limbs, least significant limb first, for the
+ * {@link DataWord} operations. Results wrap modulo 2^256 unless noted otherwise.
+ */
+final class WordMath {
+
+  static final int WORDS = 8;
+  private static final long MASK = 0xFFFFFFFFL;
+
+  private WordMath() {
+  }
+
+  static int[] toWords(byte[] data) {
+    int[] words = new int[WORDS];
+    int length = Math.min(data.length, DataWord.WORD_SIZE);
+    for (int i = 0; i < length; i++) {
+      int pos = length - 1 - i;
+      words[i >>> 2] |= (data[pos] & 0xff) << ((i & 3) << 3);
+    }
+    return words;
+  }
+
+  static byte[] toBytes(int[] words) {
+    return toBytes(words, new byte[DataWord.WORD_SIZE]);
+  }
+
+  static byte[] toBytes(int[] words, byte[] data) {
+    for (int i = 0; i < WORDS; i++) {
+      int word = words[i];
+      int pos = DataWord.WORD_SIZE - 4 - (i << 2);
+      data[pos] = (byte) (word >>> 24);
+      data[pos + 1] = (byte) (word >>> 16);
+      data[pos + 2] = (byte) (word >>> 8);
+      data[pos + 3] = (byte) word;
+    }
+    return data;
+  }
+
+  static boolean isZero(int[] a) {
+    for (int word : a) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isNegative(int[] a) {
+    return a[WORDS - 1] < 0;
+  }
+
+  static int compare(int[] a, int[] b) {
+    for (int i = WORDS - 1; i >= 0; i--) {
+      if (a[i] != b[i]) {
+        return Integer.compareUnsigned(a[i], b[i]);
+      }
+    }
+    return 0;
+  }
+
+  static int[] add(int[] a, int[] b) {
+    int[] r = new int[WORDS];
+    long carry = 0;
+    for (int i = 0; i < WORDS; i++) {
+      long t = (a[i] & MASK) + (b[i] & MASK) + carry;
+      r[i] = (int) t;
+      carry = t >>> 32;
+    }
+    return r;
+  }
+
+  static int[] sub(int[] a, int[] b) {
+    int[] r = new int[WORDS];
+    long borrow = 0;
+    for (int i = 0; i < WORDS; i++) {
+      long t = (a[i] & MASK) - (b[i] & MASK) - borrow;
+      r[i] = (int) t;
+      borrow = t < 0 ? 1 : 0;
+    }
+    return r;
+  }
+
+  /**
+   * two's complement negation, in place.
+   */
+  static int[] negate(int[] a) {
+    long carry = 1;
+    for (int i = 0; i < WORDS; i++) {
+      long t = (~a[i] & MASK) + carry;
+      a[i] = (int) t;
+      carry = t >>> 32;
+    }
+    return a;
+  }
+
+  static int[] abs(int[] a) {
+    return isNegative(a) ? negate(a.clone()) : a;
+  }
+
+  static int[] mul(int[] a, int[] b) {
+    int[] r = new int[WORDS];
+    for (int i = 0; i < WORDS; i++) {
+      long ai = a[i] & MASK;
+      if (ai == 0) {
+        continue;
+      }
+      long carry = 0;
+      for (int j = 0; i + j < WORDS; j++) {
+        long t = ai * (b[j] & MASK) + (r[i + j] & MASK) + carry;
+        r[i + j] = (int) t;
+        carry = t >>> 32;
+      }
+    }
+    return r;
+  }
+
+  /**
+   * the full 512-bit product.
+   */
+  static int[] mulFull(int[] a, int[] b) {
+    int[] r = new int[WORDS * 2];
+    for (int i = 0; i < WORDS; i++) {
+      long ai = a[i] & MASK;
+      if (ai == 0) {
+        continue;
+      }
+      long carry = 0;
+      for (int j = 0; j < WORDS; j++) {
+        long t = ai * (b[j] & MASK) + (r[i + j] & MASK) + carry;
+        r[i + j] = (int) t;
+        carry = t >>> 32;
+      }
+      r[i + WORDS] = (int) carry;
+    }
+    return r;
+  }
+
+  static int[] exp(int[] base, int[] exponent) {
+    int[] result = new int[WORDS];
+    result[0] = 1;
+    int[] power = base;
+    int top = bitLength(exponent);
+    for (int bit = 0; bit < top; bit++) {
+      if ((exponent[bit >>> 5] & (1 << (bit & 31))) != 0) {
+        result = mul(result, power);
+      }
+      if (bit + 1 < top) {
+        power = mul(power, power);
+      }
+    }
+    return result;
+  }
+
+  static int[] div(int[] a, int[] b) {
+    int[] q = new int[WORDS];
+    divmod(a, b, q, null);
+    return q;
+  }
+
+  static int[] mod(int[] a, int[] b) {
+    int[] r = new int[WORDS];
+    divmod(a, b, null, r);
+    return r;
+  }
+
+  /**
+   * (a + b) mod m, the sum is not truncated to 256 bits.
+   */
+  static int[] addMod(int[] a, int[] b, int[] m) {
+    int[] sum = new int[WORDS + 1];
+    long carry = 0;
+    for (int i = 0; i < WORDS; i++) {
+      long t = (a[i] & MASK) + (b[i] & MASK) + carry;
+      sum[i] = (int) t;
+      carry = t >>> 32;
+    }
+    sum[WORDS] = (int) carry;
+    int[] r = new int[WORDS];
+    divmod(sum, m, null, r);
+    return r;
+  }
+
+  /**
+   * (a * b) mod m, the product is not truncated to 256 bits.
+   */
+  static int[] mulMod(int[] a, int[] b, int[] m) {
+    int[] r = new int[WORDS];
+    divmod(mulFull(a, b), m, null, r);
+    return r;
+  }
+
+  static int[] shiftLeft(int[] a, int n) {
+    int[] r = new int[WORDS];
+    int words = n >>> 5;
+    int bits = n & 31;
+    for (int i = WORDS - 1; i >= words; i--) {
+      long t = (a[i - words] & MASK) << bits;
+      if (bits != 0 && i - words - 1 >= 0) {
+        t |= (a[i - words - 1] & MASK) >>> (32 - bits);
+      }
+      r[i] = (int) t;
+    }
+    return r;
+  }
+
+  /**
+   * shift right, filling with ones if the fill is set.
+   */
+  static int[] shiftRight(int[] a, int n, boolean fill) {
+    int[] r = new int[WORDS];
+    int words = n >>> 5;
+    int bits = n & 31;
+    int fillWord = fill ? -1 : 0;
+    for (int i = 0; i < WORDS; i++) {
+      int src = i + words;
+      long low = src < WORDS ? a[src] & MASK : fillWord & MASK;
+      long high = src + 1 < WORDS ? a[src + 1] & MASK : fillWord & MASK;
+      r[i] = bits == 0 ? (int) low : (int) ((low >>> bits) | (high << (32 - bits)));
+    }
+    return r;
+  }
+
+  private static int bitLength(int[] a) {
+    for (int i = a.length - 1; i >= 0; i--) {
+      if (a[i] != 0) {
+        return (i << 5) + 32 - Integer.numberOfLeadingZeros(a[i]);
+      }
+    }
+    return 0;
+  }
+
+  private static int length(int[] a) {
+    int n = a.length;
+    while (n > 0 && a[n - 1] == 0) {
+      n--;
+    }
+    return n;
+  }
+
+  /**
+   * unsigned division of u by a non zero v (Knuth, algorithm D), the quotient and the remainder
+   * are written to q and r if they are given.
+   */
+  static void divmod(int[] u, int[] v, int[] q, int[] r) {
+    int m = length(u);
+    int n = length(v);
+    if (m < n) {
+      if (r != null) {
+        System.arraycopy(u, 0, r, 0, Math.min(m, r.length));
+      }
+      return;
+    }
+
+    if (n == 1) {
+      long divisor = v[0] & MASK;
+      long rem = 0;
+      for (int j = m - 1; j >= 0; j--) {
+        long num = (rem << 32) | (u[j] & MASK);
+        long digit = Long.divideUnsigned(num, divisor);
+        if (q != null && j < q.length) {
+          q[j] = (int) digit;
+        }
+        rem = Long.remainderUnsigned(num, divisor);
+      }
+      if (r != null) {
+        r[0] = (int) rem;
+      }
+      return;
+    }
+
+    // normalize so the top limb of the divisor has its high bit set
+    int s = Integer.numberOfLeadingZeros(v[n - 1]);
+    int[] vn = new int[n];
+    for (int i = n - 1; i > 0; i--) {
+      vn[i] = s == 0 ? v[i] : (v[i] << s) | (v[i - 1] >>> (32 - s));
+    }
+    vn[0] = v[0] << s;
+    int[] un = new int[m + 1];
+    un[m] = s == 0 ? 0 : u[m - 1] >>> (32 - s);
+    for (int i = m - 1; i > 0; i--) {
+      un[i] = s == 0 ? u[i] : (u[i] << s) | (u[i - 1] >>> (32 - s));
+    }
+    un[0] = u[0] << s;
+
+    long vTop = vn[n - 1] & MASK;
+    long vNext = vn[n - 2] & MASK;
+    for (int j = m - n; j >= 0; j--) {
+      long num = ((un[j + n] & MASK) << 32) | (un[j + n - 1] & MASK);
+      long qhat = Long.divideUnsigned(num, vTop);
+      long rhat = Long.remainderUnsigned(num, vTop);
+      while (qhat > MASK || Long.compareUnsigned(qhat * vNext,
+          (rhat << 32) | (un[j + n - 2] & MASK)) > 0) {
+        qhat--;
+        rhat += vTop;
+        if (rhat > MASK) {
+          break;
+        }
+      }
+
+      // multiply and subtract
+      long borrow = 0;
+      long t;
+      for (int i = 0; i < n; i++) {
+        long p = qhat * (vn[i] & MASK);
+        t = (un[i + j] & MASK) - borrow - (p & MASK);
+        un[i + j] = (int) t;
+        borrow = (p >>> 32) - (t >> 32);
+      }
+      t = (un[j + n] & MASK) - borrow;
+      un[j + n] = (int) t;
+
+      if (t < 0) {
+        // qhat was one too large, add the divisor back
+        qhat--;
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+          t = (un[i + j] & MASK) + (vn[i] & MASK) + carry;
+          un[i + j] = (int) t;
+          carry = t >>> 32;
+        }
+        un[j + n] += (int) carry;
+      }
+      if (q != null && j < q.length) {
+        q[j] = (int) qhat;
+      }
+    }
+
+    if (r != null) {
+      for (int i = 0; i < n && i < r.length; i++) {
+        r[i] = s == 0 ? un[i] : (un[i] >>> s) | (un[i + 1] << (32 - s));
+      }
+    }
+  }
+}
@@ -167,6 +167,11 @@ public class ContractState implements Deposit, ProgramListenerAware {
     deposit.commit();
   }
 
+  @Override
+  public void revert() {
+    deposit.revert();
+  }
+
   @Override
   public Storage getStorage(byte[] address) {
     return deposit.getStorage(address);
@@ -41,6 +41,8 @@ public class InternalTransaction {
   private Transaction transaction;
   private byte[] hash;
   private byte[] parentHash;
+  // the parent of a child, until its hash is asked for
+  private InternalTransaction parent;
   /* the amount of kht to transfer (calculated as sun) */
   private long value;
 
@@ -132,7 +134,19 @@ public class InternalTransaction {
   public InternalTransaction(byte[] parentHash, int deep, int index,
       byte[] sendAddress, byte[] transferToAddress, long value, byte[] data, String note,
       long nonce, Map<String, Long> tokenInfo) {
+    this((InternalTransaction) null, deep, index, sendAddress, transferToAddress, value, data,
+        note, nonce, tokenInfo);
     this.parentHash = parentHash.clone();
+  }
+
+  /**
+   * Construct a child InternalTransaction of the parent. The hashes of both are only computed
+   * when the hash of the child is read, most children are never read at all.
+   */
+  public InternalTransaction(InternalTransaction parent, int deep, int index,
+      byte[] sendAddress, byte[] transferToAddress, long value, byte[] data, String note,
+      long nonce, Map<String, Long> tokenInfo) {
+    this.parent = parent;
     this.deep = deep;
     this.index = index;
     this.note = note;
@@ -147,7 +161,6 @@ public class InternalTransaction {
     this.value = value;
     this.data = ArrayUtils.nullToEmpty(data);
     this.nonce = nonce;
-    this.hash = getHash();
     // in a contract call contract case, only one value should be used. kht or a token. can't be both. We should avoid using
     // tokenValue in this case.
     if (tokenInfo != null) {
@@ -201,10 +214,18 @@ public class InternalTransaction {
   }
 
   public byte[] getParentHash() {
+    return parentHash().clone();
+  }
+
+  private byte[] parentHash() {
+    if (parent != null) {
+      parentHash = parent.getHash();
+      parent = null;
+    }
     if (parentHash == null) {
       return ByteUtil.EMPTY_BYTE_ARRAY;
     }
-    return parentHash.clone();
+    return parentHash;
   }
 
   public long getValue() {
@@ -242,11 +263,7 @@ public class InternalTransaction {
     if (protoEncoded != null) {
       return protoEncoded.clone();
     }
-    byte[] parentHashArray = parentHash.clone();
-
-    if (parentHashArray == null) {
-      parentHashArray = ByteUtil.EMPTY_BYTE_ARRAY;
-    }
+    byte[] parentHashArray = parentHash();
     byte[] valueByte = Longs.toByteArray(this.value);
     byte[] raw = new byte[parentHashArray.length + this.receiveAddress.length + this.data.length
         + valueByte.length];
@@ -17,24 +17,26 @@
  */
 package io.fortest.common.runtime.vm.program;
 
-import static java.lang.Math.ceil;
-import static java.lang.Math.min;
 import static java.lang.String.format;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
+import io.fortest.common.crypto.Hash;
 import io.fortest.common.runtime.vm.DataWord;
 import io.fortest.common.utils.ByteUtil;
 import io.fortest.common.runtime.vm.program.listener.ProgramListener;
 import io.fortest.common.runtime.vm.program.listener.ProgramListenerAware;
 
+/**
+ * The memory of a program, one contiguous buffer that at least doubles whenever it has to grow.
+ */
 public class Memory implements ProgramListenerAware {
 
-  private static final int CHUNK_SIZE = 1024;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
   private static final int WORD_SIZE = 32;
 
-  private List<byte[]> chunks = new LinkedList<>();
+  private byte[] buffer = ByteUtil.EMPTY_BYTE_ARRAY;
   private int softSize;
   private ProgramListener programListener;
 
@@ -49,27 +51,19 @@ public class Memory implements ProgramListenerAware {
     }
 
     extend(address, size);
-    byte[] data = new byte[size];
-
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
-    int toGrab = data.length;
-    int start = 0;
-
-    while (toGrab > 0) {
-      int copied = grabMax(chunkIndex, chunkOffset, toGrab, data, start);
-
-      // read next chunk from the start
-      ++chunkIndex;
-      chunkOffset = 0;
+    return Arrays.copyOfRange(buffer, address, address + size);
+  }
 
-      // mark remind
-      toGrab -= copied;
-      start += copied;
+  /**
+   * the sha3 of a range of the memory, hashed in place.
+   */
+  public byte[] sha3(int address, int size) {
+    if (size <= 0) {
+      return Hash.sha3(ByteUtil.EMPTY_BYTE_ARRAY);
     }
 
-    return data;
+    extend(address, size);
+    return Hash.sha3(buffer, address, size);
   }
 
   public void write(int address, byte[] data, int dataSize, boolean limited) {
@@ -82,9 +76,6 @@ public class Memory implements ProgramListenerAware {
       extend(address, dataSize);
     }
 
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
     int toCapture = 0;
     if (limited) {
       toCapture = (address + dataSize > softSize) ? softSize - address : dataSize;
@@ -92,17 +83,8 @@ public class Memory implements ProgramListenerAware {
       toCapture = dataSize;
     }
 
-    int start = 0;
-    while (toCapture > 0) {
-      int captured = captureMax(chunkIndex, chunkOffset, toCapture, data, start);
-
-      // capture next chunk
-      ++chunkIndex;
-      chunkOffset = 0;
-
-      // mark remind
-      toCapture -= captured;
-      start += captured;
+    if (toCapture > 0) {
+      System.arraycopy(data, 0, buffer, address, toCapture);
     }
 
     if (programListener != null) {
@@ -122,14 +104,13 @@ public class Memory implements ProgramListenerAware {
     }
 
     final int newSize = Math.addExact(address, size);
-    int toAllocate = newSize - internalSize();
-    if (toAllocate > 0) {
-      addChunks((int) ceil((double) toAllocate / CHUNK_SIZE));
+    if (newSize > buffer.length) {
+      grow(newSize);
     }
 
-    toAllocate = newSize - softSize;
+    int toAllocate = newSize - softSize;
     if (toAllocate > 0) {
-      toAllocate = (int) ceil((double) toAllocate / WORD_SIZE) * WORD_SIZE;
+      toAllocate = (int) DataWord.sizeInWords(toAllocate) * WORD_SIZE;
       softSize = Math.addExact(softSize, toAllocate);
 
       if (programListener != null) {
@@ -144,13 +125,7 @@ public class Memory implements ProgramListenerAware {
 
   // just access expecting all data valid
   public byte readByte(int address) {
-
-    int chunkIndex = address / CHUNK_SIZE;
-    int chunkOffset = address % CHUNK_SIZE;
-
-    byte[] chunk = chunks.get(chunkIndex);
-
-    return chunk[chunkOffset];
+    return buffer[address];
   }
 
   @Override
@@ -191,35 +166,16 @@ public class Memory implements ProgramListenerAware {
   }
 
   public int internalSize() {
-    return chunks.size() * CHUNK_SIZE;
-  }
-
-  public List<byte[]> getChunks() {
-    return new LinkedList<>(chunks);
-  }
-
-  private int captureMax(int chunkIndex, int chunkOffset, int size, byte[] src, int srcPos) {
-
-    byte[] chunk = chunks.get(chunkIndex);
-    int toCapture = min(size, chunk.length - chunkOffset);
-
-    System.arraycopy(src, srcPos, chunk, chunkOffset, toCapture);
-    return toCapture;
-  }
-
-  private int grabMax(int chunkIndex, int chunkOffset, int size, byte[] dest, int destPos) {
-
-    byte[] chunk = chunks.get(chunkIndex);
-    int toGrab = min(size, chunk.length - chunkOffset);
-
-    System.arraycopy(chunk, chunkOffset, dest, destPos, toGrab);
-
-    return toGrab;
+    return buffer.length;
   }
 
-  private void addChunks(int num) {
-    for (int i = 0; i < num; ++i) {
-      chunks.add(new byte[CHUNK_SIZE]);
+  private void grow(int minCapacity) {
+    // the soft size is rounded up to words, the buffer always covers it
+    long needed = DataWord.sizeInWords(minCapacity) * WORD_SIZE;
+    long capacity = Math.max(Math.max(needed, (long) buffer.length * 2), INITIAL_CAPACITY);
+    if (capacity > MAX_CAPACITY) {
+      capacity = Math.max(needed, MAX_CAPACITY);
     }
+    buffer = Arrays.copyOf(buffer, Math.toIntExact(capacity));
   }
 }
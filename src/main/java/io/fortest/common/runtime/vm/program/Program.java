@@ -75,6 +75,7 @@ import io.fortest.common.runtime.vm.program.listener.ProgramListenerAware;
 import io.fortest.common.runtime.vm.program.listener.ProgramStorageChangeListener;
 import io.fortest.common.runtime.vm.trace.ProgramTrace;
 import io.fortest.common.runtime.vm.trace.ProgramTraceListener;
+import io.fortest.common.runtime.vm.trace.StreamingProgramTrace;
 import io.fortest.common.storage.Deposit;
 import io.fortest.core.Wallet;
 import io.fortest.protos.Protocol;
@@ -119,6 +120,8 @@ public class Program {
 
   private ProgramResult result = new ProgramResult();
   private ProgramTrace trace = new ProgramTrace();
+  // set instead of the trace above being filled when the trace is streamed
+  private StreamingProgramTrace streamingTrace;
 
   private byte[] ops;
   private int pc;
@@ -127,6 +130,8 @@ public class Program {
   private boolean stopped;
 
   private ProgramPrecompile programPrecompile;
+  // the hash of deployed code, empty while running init code
+  private byte[] codeHash;
 
   private final VMConfig config;
 
@@ -146,7 +151,7 @@ public class Program {
     this.blockCap = blockCap;
     this.ops = nullToEmpty(ops);
 
-    traceListener = new ProgramTraceListener(config.vmTrace());
+    traceListener = new ProgramTraceListener(config.vmTrace() && config.vmTraceLevel() == null);
     this.memory = setupProgramListener(new Memory());
     this.stack = setupProgramListener(new Stack());
     this.contractState = setupProgramListener(new ContractState(programInvoke));
@@ -170,9 +175,13 @@ public class Program {
     nonce = nonceValue;
   }
 
+  public void setCodeHash(byte[] codeHash) {
+    this.codeHash = codeHash;
+  }
+
   public ProgramPrecompile getProgramPrecompile() {
     if (programPrecompile == null) {
-      programPrecompile = ProgramPrecompile.compile(ops);
+      programPrecompile = ProgramPrecompile.getOrCompile(codeHash, ops);
     }
     return programPrecompile;
   }
@@ -192,7 +201,7 @@ public class Program {
     InternalTransaction addedInternalTx = null;
     if (internalTransaction != null) {
       addedInternalTx = getResult()
-          .addInternalTransaction(internalTransaction.getHash(), getCallDeep(),
+          .addInternalTransaction(internalTransaction, getCallDeep(),
               senderAddress, transferAddress, value, data, note, nonce, tokenInfo);
     }
 
@@ -253,12 +262,11 @@ public class Program {
   }
 
   public void stackPushZero() {
-    stackPush(new DataWord(0));
+    stackPush(new DataWord());
   }
 
   public void stackPushOne() {
-    DataWord stackWord = new DataWord(1);
-    stackPush(stackWord);
+    stackPush(DataWord.ONE());
   }
 
   public Stack getStack() {
@@ -380,6 +388,10 @@ public class Program {
     return memory.read(offset, size);
   }
 
+  public byte[] memorySha3(int offset, int size) {
+    return memory.sha3(offset, size);
+  }
+
   /**
    * . Allocates extra memory in the program for a specified size, calculated from a given offset
    *
@@ -540,6 +552,9 @@ public class Program {
         new DataWord(0),
         newBalance, null, deposit, false, byTestingSuite(), vmStartInUs,
         getVmShouldEndInUs(), energyLimit.longValueSafe());
+    if (isConstantCall()) {
+      programInvoke.setConstantCall();
+    }
 
     ProgramResult createResult = ProgramResult.createEmpty();
 
@@ -551,7 +566,9 @@ public class Program {
       VM vm = new VM(config);
       Program program = new Program(programCode, programInvoke, internalTx, config, this.blockCap);
       program.setRootTransactionId(this.rootTransactionId);
+      program.setStreamingTrace(streamingTrace);
       vm.play(program);
+      resumeStreamingTrace();
       createResult = program.getResult();
       getTrace().merge(program.getTrace());
       // always commit nonce
@@ -584,6 +601,7 @@ public class Program {
           Hex.toHexString(newAddress),
           createResult.getException());
 
+      deposit.revert();
       internalTx.reject();
       createResult.rejectInternalTransactions();
 
@@ -597,6 +615,8 @@ public class Program {
     } else {
       if (!byTestingSuite()) {
         deposit.commit();
+      } else {
+        deposit.revert();
       }
 
       // IN SUCCESS PUSH THE ADDRESS INTO THE STACK
@@ -675,6 +695,7 @@ public class Program {
     if (!isTokenTransfer) {
       long senderBalance = deposit.getBalance(senderAddress);
       if (senderBalance < endowment) {
+        deposit.revert();
         stackPushZero();
         refundEnergy(msg.getEnergy().longValue(), "refund energy from message call");
         return;
@@ -684,6 +705,7 @@ public class Program {
       tokenId = String.valueOf(msg.getTokenId().longValue()).getBytes();
       long senderBalance = deposit.getTokenBalance(senderAddress, tokenId);
       if (senderBalance < endowment) {
+        deposit.revert();
         stackPushZero();
         refundEnergy(msg.getEnergy().longValue(), "refund energy from message call");
         return;
@@ -756,11 +778,20 @@ public class Program {
           !isTokenTransfer ? new DataWord(0) : msg.getTokenId(),
           contextBalance, data, deposit, msg.getType().callIsStatic() || isStaticCall(),
           byTestingSuite(), vmStartInUs, getVmShouldEndInUs(), msg.getEnergy().longValueSafe());
+      if (isConstantCall()) {
+        programInvoke.setConstantCall();
+      }
       VM vm = new VM(config);
       Program program = new Program(programCode, programInvoke, internalTx, config,
           this.blockCap);
       program.setRootTransactionId(this.rootTransactionId);
+      program.setStreamingTrace(streamingTrace);
+      ContractCapsule codeContract = getContractState().getContract(codeAddress);
+      if (codeContract != null) {
+        program.setCodeHash(codeContract.getCodeHash());
+      }
       vm.play(program);
+      resumeStreamingTrace();
       callResult = program.getResult();
 
       getTrace().merge(program.getTrace());
@@ -773,6 +804,7 @@ public class Program {
             Hex.toHexString(contextAddress),
             callResult.getException());
 
+        deposit.revert();
         internalTx.reject();
         callResult.rejectInternalTransactions();
 
@@ -932,7 +964,8 @@ public class Program {
       BlockCapsule blockCapsule = this.invoke.getBlockByNum(index);
 
       if (Objects.nonNull(blockCapsule)) {
-        return new DataWord(blockCapsule.getBlockId().getBytes());
+        // the id is the cached one of the block, the word on the stack is changed in place
+        return new DataWord(blockCapsule.getBlockId().getBytes().clone());
       } else {
         return DataWord.ZERO.clone();
       }
@@ -1049,6 +1082,13 @@ public class Program {
     return invoke.isStaticCall();
   }
 
+  /**
+   * a call of the api, not part of a transaction.
+   */
+  public boolean isConstantCall() {
+    return invoke.isConstantCall();
+  }
+
   public DataWord isContract(DataWord address) {
     ContractCapsule contract = getContractState()
             .getContract(MUtil.convertTokhcAddress(address.getLast20Bytes()));
@@ -1174,7 +1214,28 @@ public class Program {
 
   public void saveOpTrace() {
     if (this.pc < ops.length) {
-      trace.addOp(ops[pc], pc, getCallDeep(), getEnergyLimitLeft(), traceListener.resetActions());
+      if (streamingTrace != null) {
+        streamingTrace.op(pc, ops[pc], getCallDeep(), getEnergylimitLeftLong());
+      } else {
+        trace.addOp(ops[pc], pc, getCallDeep(), getEnergyLimitLeft(),
+            traceListener.resetActions());
+      }
+    }
+  }
+
+  /**
+   * streams the trace of this program and of the calls it makes, null for none.
+   */
+  public void setStreamingTrace(StreamingProgramTrace streamingTrace) {
+    this.streamingTrace = streamingTrace;
+    if (streamingTrace != null) {
+      programListener.addListener(streamingTrace);
+    }
+  }
+
+  private void resumeStreamingTrace() {
+    if (streamingTrace != null && this.pc < ops.length) {
+      streamingTrace.resume(pc, ops[pc], getCallDeep(), getEnergylimitLeftLong());
     }
   }
 
@@ -1416,6 +1477,7 @@ public class Program {
       senderBalance = deposit.getTokenBalance(senderAddress, tokenId);
     }
     if (senderBalance < endowment) {
+      deposit.revert();
       stackPushZero();
       refundEnergy(msg.getEnergy().longValue(), "refund energy from message call");
       return;
@@ -1449,6 +1511,7 @@ public class Program {
     if (requiredEnergy > msg.getEnergy().longValue()) {
       // Not need to throw an exception, method caller needn't know that
       // regard as consumed the energy
+      deposit.revert();
       this.refundEnergy(0, "call pre-compiled"); //matches cpp logic
       this.stackPushZero();
     } else {
@@ -1469,6 +1532,7 @@ public class Program {
         deposit.commit();
       } else {
         // spend all energy on failure, push zero and revert state changes
+        deposit.revert();
         this.refundEnergy(0, "call pre-compiled");
         this.stackPushZero();
         if (Objects.nonNull(this.result.getException())) {
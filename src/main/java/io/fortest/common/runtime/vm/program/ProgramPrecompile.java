@@ -17,11 +17,14 @@
  */
 package io.fortest.common.runtime.vm.program;
 
-import java.util.HashSet;
-import java.util.Set;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.BitSet;
 
 import io.fortest.common.runtime.vm.DataWord;
 import io.fortest.common.runtime.vm.OpCode;
+import io.fortest.common.utils.ByteUtil;
+import io.fortest.core.db.ByteArrayWrapper;
 import lombok.extern.slf4j.Slf4j;
 import io.fortest.common.runtime.config.VMConfig;
 
@@ -32,7 +35,41 @@ import io.fortest.common.runtime.config.VMConfig;
  */
 public class ProgramPrecompile {
 
-  private Set<Integer> jumpdest = new HashSet<>();
+  // the bytes of jumpdest bitmaps kept across programs, threads and blocks
+  private static final long MAX_CACHED_BYTES = 32 * 1024 * 1024L;
+
+  private static final Cache<ByteArrayWrapper, ProgramPrecompile> CACHE = CacheBuilder
+      .newBuilder()
+      .maximumWeight(MAX_CACHED_BYTES)
+      .weigher((ByteArrayWrapper k, ProgramPrecompile v) -> v.jumpdest.size() / 8 + 64)
+      .build();
+
+  private final BitSet jumpdest = new BitSet();
+
+  /**
+   * the analysis of deployed code, shared by every program running the code with this hash.
+   *
+   * @param codeHash the sha3 of the code, the code is analysed without caching if it is empty.
+   */
+  public static ProgramPrecompile getOrCompile(byte[] codeHash, byte[] ops) {
+    if (ByteUtil.isNullOrZeroArray(codeHash)) {
+      return compile(ops);
+    }
+
+    ByteArrayWrapper key = new ByteArrayWrapper(codeHash);
+    ProgramPrecompile ret = CACHE.getIfPresent(key);
+    if (ret == null) {
+      ret = compile(ops);
+      CACHE.put(key, ret);
+    }
+    return ret;
+  }
+
+  public static void cache(byte[] codeHash, byte[] ops) {
+    if (!ByteUtil.isNullOrZeroArray(codeHash)) {
+      CACHE.put(new ByteArrayWrapper(codeHash), compile(ops));
+    }
+  }
 
   public static ProgramPrecompile compile(byte[] ops) {
     ProgramPrecompile ret = new ProgramPrecompile();
@@ -44,8 +81,7 @@ public class ProgramPrecompile {
       }
 
       if (op.equals(OpCode.JUMPDEST)) {
-        logger.debug("JUMPDEST:" + i);
-        ret.jumpdest.add(i);
+        ret.jumpdest.set(i);
       }
 
       if (op.asInt() >= OpCode.PUSH1.asInt() && op.asInt() <= OpCode.PUSH32.asInt()) {
@@ -89,6 +125,6 @@ public class ProgramPrecompile {
   }
 
   public boolean hasJumpDest(int pc) {
-    return jumpdest.contains(pc);
+    return pc >= 0 && jumpdest.get(pc);
   }
 }
@@ -164,10 +164,13 @@ public class ProgramResult {
     return internalTransactions;
   }
 
-  public InternalTransaction addInternalTransaction(byte[] parentHash, int deep,
+  /**
+   * records a child of the parent, its hash left to the first reader of it.
+   */
+  public InternalTransaction addInternalTransaction(InternalTransaction parent, int deep,
       byte[] senderAddress, byte[] transferAddress, long value, byte[] data, String note,
       long nonce, Map<String, Long> token) {
-    InternalTransaction transaction = new InternalTransaction(parentHash, deep,
+    InternalTransaction transaction = new InternalTransaction(parent, deep,
         size(internalTransactions), senderAddress, transferAddress, value, data, note, nonce,
         token);
     getInternalTransactions().add(transaction);
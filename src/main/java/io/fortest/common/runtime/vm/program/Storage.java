@@ -70,6 +70,25 @@ public class Storage {
     }
   }
 
+  /**
+   * a copy of the cached row of the key, null if the row is not cached.
+   */
+  public StorageRowCapsule copyRow(DataWord key) {
+    StorageRowCapsule row = rowCache.get(key);
+    return row == null ? null : new StorageRowCapsule(row);
+  }
+
+  /**
+   * put back a row taken by copyRow.
+   */
+  public void restoreRow(DataWord key, StorageRowCapsule row) {
+    if (row == null) {
+      rowCache.remove(key);
+    } else {
+      rowCache.put(key, row);
+    }
+  }
+
   private static byte[] compose(byte[] key, byte[] addrHash) {
     byte[] result = new byte[key.length];
     arraycopy(addrHash, 0, result, 0, PREFIX_BYTES);
@@ -86,7 +105,7 @@ public class Storage {
     if (ByteUtil.isNullOrZeroArray(khtHash)) {
       return Hash.sha3(address);
     }
-    return Hash.sha3(ByteUtil.merge(address, khtHash));
+    return Hash.sha3(address, khtHash);
   }
 
   public void commit() {
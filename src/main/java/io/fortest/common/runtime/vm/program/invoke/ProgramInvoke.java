@@ -73,5 +73,9 @@ public interface ProgramInvoke {
 
   void setStaticCall();
 
+  boolean isConstantCall();
+
+  void setConstantCall();
+
   BlockCapsule getBlockByNum(int index);
 }
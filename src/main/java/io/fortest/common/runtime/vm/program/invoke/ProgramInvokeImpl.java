@@ -22,7 +22,6 @@ import java.util.Arrays;
 import java.util.Objects;
 
 import io.fortest.common.runtime.vm.DataWord;
-import io.fortest.common.utils.ByteArray;
 import io.fortest.core.capsule.BlockCapsule;
 import io.fortest.core.exception.StoreException;
 import lombok.extern.slf4j.Slf4j;
@@ -58,6 +57,7 @@ public class ProgramInvokeImpl implements ProgramInvoke {
   private boolean byTestingSuite = false;
   private int callDeep = 0;
   private boolean isStaticCall = false;
+  private boolean isConstantCall = false;
 
   public ProgramInvokeImpl(DataWord address, DataWord origin, DataWord caller, DataWord balance,
       DataWord callValue, DataWord tokenValue, DataWord tokenId, byte[] msgData,
@@ -117,7 +117,6 @@ public class ProgramInvokeImpl implements ProgramInvoke {
     this.tokenValue = new DataWord(tokenValue);
     this.tokenId = new DataWord(tokenId);
     this.msgData = Arrays.copyOf(msgData, msgData.length);
-    System.err.println(ByteArray.toHexString(this.msgData));
     // last Block env
     this.prevHash = new DataWord(lastHash);
     this.coinbase = new DataWord(coinbase);
@@ -378,6 +377,16 @@ public class ProgramInvokeImpl implements ProgramInvoke {
     isStaticCall = true;
   }
 
+  @Override
+  public boolean isConstantCall() {
+    return isConstantCall;
+  }
+
+  @Override
+  public void setConstantCall() {
+    isConstantCall = true;
+  }
+
   @Override
   public BlockCapsule getBlockByNum(int index) {
     try {
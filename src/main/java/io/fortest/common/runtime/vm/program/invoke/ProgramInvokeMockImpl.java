@@ -50,6 +50,8 @@ public class ProgramInvokeMockImpl implements ProgramInvoke {
 
   private boolean isStaticCall;
 
+  private boolean isConstantCall;
+
   public ProgramInvokeMockImpl(byte[] msgDataRaw) {
     this();
     this.msgData = Arrays.clone(msgDataRaw);
@@ -247,6 +249,16 @@ public class ProgramInvokeMockImpl implements ProgramInvoke {
     isStaticCall = true;
   }
 
+  @Override
+  public boolean isConstantCall() {
+    return isConstantCall;
+  }
+
+  @Override
+  public void setConstantCall() {
+    isConstantCall = true;
+  }
+
   @Override
   public BlockCapsule getBlockByNum(int index) {
     try {
@@ -0,0 +1,221 @@
+package io.fortest.common.runtime.vm.trace;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.fortest.common.runtime.vm.DataWord;
+import io.fortest.common.runtime.vm.OpCode;
+import io.fortest.common.runtime.vm.program.listener.ProgramListenerAdaptor;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.spongycastle.util.encoders.Hex;
+
+/**
+ * A trace written op by op while the program runs, one json object per line, instead of kept
+ * whole in memory until the end.
+ *
+ * <p>Only the line of the current op is held. A line has the pc, the op, the call depth and the
+ * energy left before the op and, as far as the level asks, the actions of the op on the stack, the
+ * memory and the storage in the order they happened. Nested calls write to the trace of their
+ * caller; once a call returns, the actions of the calling op go on a line of their own marked as
+ * resumed. The last line has the result or the error of the whole execution.
+ */
+@Slf4j(topic = "VM")
+public class StreamingProgramTrace extends ProgramListenerAdaptor implements Closeable {
+
+  private final TraceLevel level;
+  private final Writer out;
+  private final Consumer<String> callback;
+  private final StringBuilder line = new StringBuilder();
+  private boolean hasActions;
+  private boolean failed;
+
+  /**
+   * a trace appending its lines to the writer, closed with the trace.
+   */
+  public StreamingProgramTrace(TraceLevel level, Writer out) {
+    this.level = level;
+    this.out = out;
+    this.callback = null;
+  }
+
+  /**
+   * a trace handing every line to the callback, without the line separator.
+   */
+  public StreamingProgramTrace(TraceLevel level, Consumer<String> callback) {
+    this.level = level;
+    this.out = null;
+    this.callback = callback;
+  }
+
+  public static StreamingProgramTrace toFile(TraceLevel level, File file) throws IOException {
+    return new StreamingProgramTrace(level, new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+  }
+
+  public void op(int pc, byte code, int deep, long energy) {
+    startLine(pc, code, deep, energy);
+  }
+
+  /**
+   * the calling op again, after the call it made has returned.
+   */
+  public void resume(int pc, byte code, int deep, long energy) {
+    startLine(pc, code, deep, energy);
+    line.append(",\"resumed\":true");
+  }
+
+  /**
+   * writes the result line and closes the trace.
+   */
+  public void finish(byte[] result, Exception error) {
+    endLine();
+    line.append("{\"result\":\"").append(result == null ? "" : Hex.toHexString(result))
+        .append('"');
+    if (error != null) {
+      line.append(",\"error\":\"")
+          .append(JsonStringEncoder.getInstance()
+              .quoteAsString(error.getClass().getName() + ": " + error.getMessage()))
+          .append('"');
+    }
+    line.append('}');
+    flushLine();
+    close();
+  }
+
+  @Override
+  public void onStackPop() {
+    if (level.includes(TraceLevel.STACK) && action("pop")) {
+      line.append('}');
+    }
+  }
+
+  @Override
+  public void onStackPush(DataWord value) {
+    if (level.includes(TraceLevel.STACK) && action("push")) {
+      word("value", value);
+      line.append('}');
+    }
+  }
+
+  @Override
+  public void onStackSwap(int from, int to) {
+    if (level.includes(TraceLevel.STACK) && action("swap")) {
+      line.append(",\"from\":").append(from).append(",\"to\":").append(to).append('}');
+    }
+  }
+
+  @Override
+  public void onMemoryExtend(int delta) {
+    if (level.includes(TraceLevel.MEMORY) && action("extend")) {
+      line.append(",\"delta\":").append(delta).append('}');
+    }
+  }
+
+  @Override
+  public void onMemoryWrite(int address, byte[] data, int size) {
+    if (level.includes(TraceLevel.MEMORY) && action("write")) {
+      line.append(",\"address\":").append(address).append(",\"data\":\"")
+          .append(Hex.toHexString(data, 0, Math.min(size, data.length))).append("\"}");
+    }
+  }
+
+  @Override
+  public void onStoragePut(DataWord key, DataWord value) {
+    if (!level.includes(TraceLevel.STORAGE)) {
+      return;
+    }
+    if (value.isZero()) {
+      if (action("remove")) {
+        word("key", key);
+        line.append('}');
+      }
+    } else if (action("put")) {
+      word("key", key);
+      word("value", value);
+      line.append('}');
+    }
+  }
+
+  @Override
+  public void onStorageClear() {
+    if (level.includes(TraceLevel.STORAGE) && action("clear")) {
+      line.append('}');
+    }
+  }
+
+  @Override
+  public void close() {
+    endLine();
+    try {
+      if (out != null) {
+        out.close();
+      }
+    } catch (IOException e) {
+      logger.warn("Cannot close the vm trace: {}", e.getMessage());
+    }
+  }
+
+  private void startLine(int pc, byte code, int deep, long energy) {
+    endLine();
+    OpCode op = OpCode.code(code);
+    line.append("{\"pc\":").append(pc)
+        .append(",\"op\":\"").append(op == null ? Hex.toHexString(new byte[]{code}) : op.name())
+        .append("\",\"deep\":").append(deep)
+        .append(",\"energy\":").append(energy);
+  }
+
+  /**
+   * opens the action on the current line, false if there is no op to add it to.
+   */
+  private boolean action(String name) {
+    if (line.length() == 0) {
+      return false;
+    }
+    line.append(hasActions ? "," : ",\"actions\":[").append("{\"name\":\"").append(name)
+        .append('"');
+    hasActions = true;
+    return true;
+  }
+
+  private void word(String name, DataWord value) {
+    line.append(",\"").append(name).append("\":\"").append(Hex.toHexString(value.getData()))
+        .append('"');
+  }
+
+  private void endLine() {
+    if (line.length() == 0) {
+      return;
+    }
+    if (hasActions) {
+      line.append(']');
+    }
+    line.append('}');
+    flushLine();
+  }
+
+  private void flushLine() {
+    try {
+      if (!failed) {
+        if (callback != null) {
+          callback.accept(line.toString());
+        } else {
+          out.append(line).append('\n');
+        }
+      }
+    } catch (IOException e) {
+      // the execution goes on untraced
+      failed = true;
+      logger.warn("Cannot write the vm trace: {}", e.getMessage());
+    } finally {
+      line.setLength(0);
+      hasActions = false;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package io.fortest.common.runtime.vm.trace;
+
+/**
+ * What a streaming trace writes of every op, each level all of the one before and more.
+ */
+public enum TraceLevel {
+  // the pc, the op, the call depth and the energy left
+  OPS,
+  // the pushes, pops and swaps of the stack
+  STACK,
+  // the growth of and the writes to the memory
+  MEMORY,
+  // the changes of the storage
+  STORAGE;
+
+  public boolean includes(TraceLevel level) {
+    return compareTo(level) >= 0;
+  }
+}
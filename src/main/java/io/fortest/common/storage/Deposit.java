@@ -62,6 +62,8 @@ public interface Deposit {
 
   void commit();
 
+  void revert();
+
   void putAccount(Key key, Value value);
 
   void putTransaction(Key key, Value value);
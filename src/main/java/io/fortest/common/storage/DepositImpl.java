@@ -2,12 +2,16 @@ package io.fortest.common.storage;
 
 import com.google.common.primitives.Longs;
 import com.google.protobuf.ByteString;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import io.fortest.common.crypto.Hash;
 import io.fortest.common.runtime.config.VMConfig;
 import io.fortest.common.runtime.utils.MUtil;
 import io.fortest.common.runtime.vm.DataWord;
+import io.fortest.common.runtime.vm.program.ProgramPrecompile;
 import io.fortest.common.runtime.vm.program.Storage;
 import io.fortest.common.utils.ByteArray;
 import io.fortest.common.utils.ByteUtil;
@@ -21,8 +25,10 @@ import io.fortest.core.capsule.AccountCapsule;
 import io.fortest.core.capsule.AssetIssueCapsule;
 import io.fortest.core.capsule.BlockCapsule;
 import io.fortest.core.capsule.BytesCapsule;
+import io.fortest.core.capsule.CodeCapsule;
 import io.fortest.core.capsule.ContractCapsule;
 import io.fortest.core.capsule.ProposalCapsule;
+import io.fortest.core.capsule.StorageRowCapsule;
 import io.fortest.core.capsule.TransactionCapsule;
 import io.fortest.core.capsule.VotesCapsule;
 import io.fortest.core.capsule.WitnessCapsule;
@@ -40,6 +46,11 @@ import io.fortest.core.db.WitnessStore;
 import io.fortest.protos.Protocol;
 import io.fortest.protos.Protocol.AccountType;
 
+/**
+ * The state changes of one transaction. A child opened for a call shares the caches of the root
+ * and records how to undo each change in a journal, so opening and committing a child cost
+ * nothing and a failed child is rolled back to the journal size it was opened at.
+ */
 @Slf4j(topic = "deposit")
 public class DepositImpl implements Deposit {
 
@@ -50,20 +61,27 @@ public class DepositImpl implements Deposit {
   private static final byte[] NEXT_MAINTENANCE_TIME = "NEXT_MAINTENANCE_TIME".getBytes();
 
   private Manager dbManager;
-  private Deposit parent = null;
-
-  private HashMap<Key, Value> accountCache = new HashMap<>();
-  private HashMap<Key, Value> transactionCache = new HashMap<>();
-  private HashMap<Key, Value> blockCache = new HashMap<>();
-  private HashMap<Key, Value> witnessCache = new HashMap<>();
-  private HashMap<Key, Value> codeCache = new HashMap<>();
-  private HashMap<Key, Value> contractCache = new HashMap<>();
-
-  private HashMap<Key, Value> votesCache = new HashMap<>();
-  private HashMap<Key, Value> proposalCache = new HashMap<>();
-  private HashMap<Key, Value> dynamicPropertiesCache = new HashMap<>();
-  private HashMap<Key, Storage> storageCache = new HashMap<>();
-  private HashMap<Key, Value> assetIssueCache = new HashMap<>();
+  private DepositImpl parent = null;
+
+  private HashMap<Key, Value> accountCache;
+  private HashMap<Key, Value> transactionCache;
+  private HashMap<Key, Value> blockCache;
+  private HashMap<Key, Value> witnessCache;
+  private HashMap<Key, Value> codeCache;
+  private HashMap<Key, Value> contractCache;
+
+  private HashMap<Key, Value> votesCache;
+  private HashMap<Key, Value> proposalCache;
+  private HashMap<Key, Value> dynamicPropertiesCache;
+  private HashMap<Key, Storage> storageCache;
+  private HashMap<Key, Value> assetIssueCache;
+
+  // undo actions of the changes made in children, oldest first
+  private List<Runnable> journal;
+  // the journal size when this child was opened
+  private int checkpoint;
+  // set for constant calls, the children of a read only root refuse every change as well
+  private boolean readOnly;
 
   private DepositImpl(Manager dbManager, DepositImpl parent) {
     init(dbManager, parent);
@@ -72,6 +90,54 @@ public class DepositImpl implements Deposit {
   protected void init(Manager dbManager, DepositImpl parent) {
     this.dbManager = dbManager;
     this.parent = parent;
+    if (parent == null) {
+      accountCache = new HashMap<>();
+      transactionCache = new HashMap<>();
+      blockCache = new HashMap<>();
+      witnessCache = new HashMap<>();
+      codeCache = new HashMap<>();
+      contractCache = new HashMap<>();
+      votesCache = new HashMap<>();
+      proposalCache = new HashMap<>();
+      dynamicPropertiesCache = new HashMap<>();
+      storageCache = new HashMap<>();
+      assetIssueCache = new HashMap<>();
+      journal = new ArrayList<>();
+      checkpoint = 0;
+    } else {
+      readOnly = parent.readOnly;
+      accountCache = parent.accountCache;
+      transactionCache = parent.transactionCache;
+      blockCache = parent.blockCache;
+      witnessCache = parent.witnessCache;
+      codeCache = parent.codeCache;
+      contractCache = parent.contractCache;
+      votesCache = parent.votesCache;
+      proposalCache = parent.proposalCache;
+      dynamicPropertiesCache = parent.dynamicPropertiesCache;
+      storageCache = parent.storageCache;
+      assetIssueCache = parent.assetIssueCache;
+      journal = parent.journal;
+      checkpoint = journal.size();
+    }
+  }
+
+  /**
+   * change a cached entry, a child journals the previous one. Cached values are never changed in
+   * place.
+   */
+  private <V> void put(Map<Key, V> cache, Key key, V value) {
+    checkWritable();
+    V previous = cache.put(key, value);
+    if (parent != null) {
+      journal.add(previous == null ? () -> cache.remove(key) : () -> cache.put(key, previous));
+    }
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("read only deposit can not be changed");
+    }
   }
 
   @Override
@@ -128,7 +194,7 @@ public class DepositImpl implements Deposit {
   public synchronized AccountCapsule createAccount(byte[] address, Protocol.AccountType type) {
     Key key = new Key(address);
     AccountCapsule account = new AccountCapsule(ByteString.copyFrom(address), type);
-    accountCache.put(key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
+    put(accountCache, key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
     return account;
   }
 
@@ -139,7 +205,7 @@ public class DepositImpl implements Deposit {
         ByteString.copyFromUtf8(accountName),
         type);
 
-    accountCache.put(key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
+    put(accountCache, key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
     return account;
   }
 
@@ -150,13 +216,8 @@ public class DepositImpl implements Deposit {
       return accountCache.get(key).getAccount();
     }
 
-    AccountCapsule accountCapsule;
-    if (parent != null) {
-      accountCapsule = parent.getAccount(address);
-    } else {
-      accountCapsule = getAccountStore().get(address);
-    }
-
+    // a value read from a store is the same in every child, it needs no undo
+    AccountCapsule accountCapsule = getAccountStore().get(address);
     if (accountCapsule != null) {
       accountCache.put(key, Value.create(accountCapsule.getData()));
     }
@@ -177,13 +238,7 @@ public class DepositImpl implements Deposit {
       return witnessCache.get(key).getWitness();
     }
 
-    WitnessCapsule witnessCapsule;
-    if (parent != null) {
-      witnessCapsule = parent.getWitness(address);
-    } else {
-      witnessCapsule = getWitnessStore().get(address);
-    }
-
+    WitnessCapsule witnessCapsule = getWitnessStore().get(address);
     if (witnessCapsule != null) {
       witnessCache.put(key, Value.create(witnessCapsule.getData()));
     }
@@ -198,13 +253,7 @@ public class DepositImpl implements Deposit {
       return votesCache.get(key).getVotes();
     }
 
-    VotesCapsule votesCapsule;
-    if (parent != null) {
-      votesCapsule = parent.getVotesCapsule(address);
-    } else {
-      votesCapsule = getVotesStore().get(address);
-    }
-
+    VotesCapsule votesCapsule = getVotesStore().get(address);
     if (votesCapsule != null) {
       votesCache.put(key, Value.create(votesCapsule.getData()));
     }
@@ -220,15 +269,11 @@ public class DepositImpl implements Deposit {
     }
 
     ProposalCapsule proposalCapsule;
-    if (parent != null) {
-      proposalCapsule = parent.getProposalCapsule(id);
-    } else {
-      try {
-        proposalCapsule = getProposalStore().get(id);
-      } catch (ItemNotFoundException e) {
-        logger.warn("Not found proposal, id:" + Hex.toHexString(id));
-        proposalCapsule = null;
-      }
+    try {
+      proposalCapsule = getProposalStore().get(id);
+    } catch (ItemNotFoundException e) {
+      logger.warn("Not found proposal, id:" + Hex.toHexString(id));
+      proposalCapsule = null;
     }
 
     if (proposalCapsule != null) {
@@ -240,6 +285,7 @@ public class DepositImpl implements Deposit {
   // just for depositRoot
   @Override
   public void deleteContract(byte[] address) {
+    checkWritable();
     getCodeStore().delete(address);
     getAccountStore().delete(address);
     getContractStore().delete(address);
@@ -249,21 +295,21 @@ public class DepositImpl implements Deposit {
   public synchronized void createContract(byte[] address, ContractCapsule contractCapsule) {
     Key key = Key.create(address);
     Value value = Value.create(contractCapsule.getData(), Type.VALUE_TYPE_CREATE);
-    contractCache.put(key, value);
+    put(contractCache, key, value);
   }
 
   @Override
   public void updateContract(byte[] address, ContractCapsule contractCapsule) {
     Key key = Key.create(address);
     Value value = Value.create(contractCapsule.getData(), Type.VALUE_TYPE_DIRTY);
-    contractCache.put(key, value);
+    put(contractCache, key, value);
   }
 
   @Override
   public void updateAccount(byte[] address, AccountCapsule accountCapsule) {
     Key key = Key.create(address);
     Value value = Value.create(accountCapsule.getData(), Type.VALUE_TYPE_DIRTY);
-    accountCache.put(key, value);
+    put(accountCache, key, value);
   }
 
   @Override
@@ -273,13 +319,7 @@ public class DepositImpl implements Deposit {
       return contractCache.get(key).getContract();
     }
 
-    ContractCapsule contractCapsule;
-    if (parent != null) {
-      contractCapsule = parent.getContract(address);
-    } else {
-      contractCapsule = getContractStore().get(address);
-    }
-
+    ContractCapsule contractCapsule = getContractStore().get(address);
     if (contractCapsule != null) {
       contractCache.put(key, Value.create(contractCapsule.getData()));
     }
@@ -290,13 +330,14 @@ public class DepositImpl implements Deposit {
   public synchronized void saveCode(byte[] address, byte[] code) {
     Key key = Key.create(address);
     Value value = Value.create(code, Type.VALUE_TYPE_CREATE);
-    codeCache.put(key, value);
+    put(codeCache, key, value);
 
     if (VMConfig.allowTvmConstantinople()) {
       ContractCapsule contract = getContract(address);
       byte[] codeHash = Hash.sha3(code);
       contract.setCodeHash(codeHash);
       updateContract(address, contract);
+      ProgramPrecompile.cache(codeHash, code);
     }
   }
 
@@ -307,16 +348,8 @@ public class DepositImpl implements Deposit {
       return codeCache.get(key).getCode().getData();
     }
 
-    byte[] code;
-    if (parent != null) {
-      code = parent.getCode(address);
-    } else {
-      if (null == getCodeStore().get(address)) {
-        code = null;
-      } else {
-        code = getCodeStore().get(address).getData();
-      }
-    }
+    CodeCapsule codeCapsule = getCodeStore().get(address);
+    byte[] code = codeCapsule == null ? null : codeCapsule.getData();
     if (code != null) {
       codeCache.put(key, Value.create(code));
     }
@@ -326,25 +359,22 @@ public class DepositImpl implements Deposit {
   @Override
   public synchronized Storage getStorage(byte[] address) {
     Key key = Key.create(address);
-    if (storageCache.containsKey(key)) {
-      return storageCache.get(key);
-    }
-    Storage storage;
-    if (this.parent != null) {
-      Storage parentStorage = parent.getStorage(address);
-      if (VMConfig.getEnergyLimitHardFork()) {
-        // deep copy
-        storage = new Storage(parentStorage);
-      } else {
-        storage = parentStorage;
-      }
-    } else {
-      storage = new Storage(address, dbManager.getStorageRowStore());
+    Storage storage = storageCache.get(key);
+    if (storage != null) {
+      return storage;
     }
+    // a storage opened by a child is dropped with the rows it wrote if the child fails
+    storage = new Storage(address, dbManager.getStorageRowStore());
     ContractCapsule contract = getContract(address);
     if (contract != null && !ByteUtil.isNullOrZeroArray(contract.getkhtHash())) {
       storage.generateAddrHash(contract.getkhtHash());
     }
+    if (readOnly) {
+      // nothing is written to it, there is nothing to undo
+      storageCache.put(key, storage);
+    } else {
+      put(storageCache, key, storage);
+    }
     return storage;
   }
 
@@ -356,12 +386,8 @@ public class DepositImpl implements Deposit {
       return assetIssueCache.get(key).getAssetIssue();
     }
 
-    AssetIssueCapsule assetIssueCapsule;
-    if (this.parent != null) {
-      assetIssueCapsule = parent.getAssetIssue(tokenIdWithoutLeadingZero);
-    } else {
-      assetIssueCapsule = this.dbManager.getAssetIssueStoreFinal().get(tokenIdWithoutLeadingZero);
-    }
+    AssetIssueCapsule assetIssueCapsule = this.dbManager.getAssetIssueStoreFinal()
+        .get(tokenIdWithoutLeadingZero);
     if (assetIssueCapsule != null) {
       assetIssueCache.put(key, Value.create(assetIssueCapsule.getData()));
     }
@@ -370,17 +396,17 @@ public class DepositImpl implements Deposit {
 
   @Override
   public synchronized void putStorageValue(byte[] address, DataWord key, DataWord value) {
+    checkWritable();
     address = MUtil.convertTokhcAddress(address);
     if (getAccount(address) == null) {
       return;
     }
-    Key addressKey = Key.create(address);
-    Storage storage;
-    if (storageCache.containsKey(addressKey)) {
-      storage = storageCache.get(addressKey);
-    } else {
-      storage = getStorage(address);
-      storageCache.put(addressKey, storage);
+    Storage storage = getStorage(address);
+    // before the energy limit fork a child wrote to the storage its parent had already opened,
+    // those writes were kept when the child failed
+    if (parent != null && VMConfig.getEnergyLimitHardFork()) {
+      StorageRowCapsule row = storage.copyRow(key);
+      journal.add(() -> storage.restoreRow(key, row));
     }
     storage.put(key, value);
   }
@@ -391,15 +417,7 @@ public class DepositImpl implements Deposit {
     if (getAccount(address) == null) {
       return null;
     }
-    Key addressKey = Key.create(address);
-    Storage storage;
-    if (storageCache.containsKey(addressKey)) {
-      storage = storageCache.get(addressKey);
-    } else {
-      storage = getStorage(address);
-      storageCache.put(addressKey, storage);
-    }
-    return storage.getValue(key);
+    return getStorage(address).getValue(key);
   }
 
   @Override
@@ -435,7 +453,7 @@ public class DepositImpl implements Deposit {
     Key key = Key.create(address);
     Value V = Value.create(accountCapsule.getData(),
         Type.VALUE_TYPE_DIRTY | accountCache.get(key).getType().getType());
-    accountCache.put(key, V);
+    put(accountCache, key, V);
 //    accountCapsule.addAssetAmount(tokenIdWithoutLeadingZero, value);
     return accountCapsule.getAssetMapV2().get(new String(tokenIdWithoutLeadingZero));
   }
@@ -461,7 +479,7 @@ public class DepositImpl implements Deposit {
     Key key = Key.create(address);
     Value val = Value.create(accountCapsule.getData(),
         Type.VALUE_TYPE_DIRTY | accountCache.get(key).getType().getType());
-    accountCache.put(key, val);
+    put(accountCache, key, val);
     return accountCapsule.getBalance();
   }
 
@@ -489,14 +507,10 @@ public class DepositImpl implements Deposit {
     }
 
     TransactionCapsule transactionCapsule;
-    if (parent != null) {
-      transactionCapsule = parent.getTransaction(khtHash);
-    } else {
-      try {
-        transactionCapsule = getTransactionStore().get(khtHash);
-      } catch (BadItemException e) {
-        transactionCapsule = null;
-      }
+    try {
+      transactionCapsule = getTransactionStore().get(khtHash);
+    } catch (BadItemException e) {
+      transactionCapsule = null;
     }
 
     if (transactionCapsule != null) {
@@ -514,11 +528,7 @@ public class DepositImpl implements Deposit {
 
     BlockCapsule ret;
     try {
-      if (parent != null) {
-        ret = parent.getBlock(blockHash);
-      } else {
-        ret = getBlockStore().get(blockHash);
-      }
+      ret = getBlockStore().get(blockHash);
     } catch (Exception e) {
       ret = null;
     }
@@ -531,52 +541,52 @@ public class DepositImpl implements Deposit {
 
   @Override
   public void putAccount(Key key, Value value) {
-    accountCache.put(key, value);
+    put(accountCache, key, value);
   }
 
   @Override
   public void putTransaction(Key key, Value value) {
-    transactionCache.put(key, value);
+    put(transactionCache, key, value);
   }
 
   @Override
   public void putBlock(Key key, Value value) {
-    blockCache.put(key, value);
+    put(blockCache, key, value);
   }
 
   @Override
   public void putWitness(Key key, Value value) {
-    witnessCache.put(key, value);
+    put(witnessCache, key, value);
   }
 
   @Override
   public void putCode(Key key, Value value) {
-    codeCache.put(key, value);
+    put(codeCache, key, value);
   }
 
   @Override
   public void putContract(Key key, Value value) {
-    contractCache.put(key, value);
+    put(contractCache, key, value);
   }
 
   @Override
   public void putStorage(Key key, Storage cache) {
-    storageCache.put(key, cache);
+    put(storageCache, key, cache);
   }
 
   @Override
   public void putVotes(Key key, Value value) {
-    votesCache.put(key, value);
+    put(votesCache, key, value);
   }
 
   @Override
   public void putProposal(Key key, Value value) {
-    proposalCache.put(key, value);
+    put(proposalCache, key, value);
   }
 
   @Override
   public void putDynamicProperties(Key key, Value value) {
-    dynamicPropertiesCache.put(key, value);
+    put(dynamicPropertiesCache, key, value);
   }
 
   @Override
@@ -614,15 +624,11 @@ public class DepositImpl implements Deposit {
     }
 
     BytesCapsule bytesCapsule;
-    if (parent != null) {
-      bytesCapsule = parent.getDynamic(word);
-    } else {
-      try {
-        bytesCapsule = getDynamicPropertiesStore().get(word);
-      } catch (BadItemException | ItemNotFoundException e) {
-        logger.warn("Not found dynamic property:" + Strings.fromUTF8ByteArray(word));
-        bytesCapsule = null;
-      }
+    try {
+      bytesCapsule = getDynamicPropertiesStore().get(word);
+    } catch (BadItemException | ItemNotFoundException e) {
+      logger.warn("Not found dynamic property:" + Strings.fromUTF8ByteArray(word));
+      bytesCapsule = null;
     }
 
     if (bytesCapsule != null) {
@@ -631,123 +637,78 @@ public class DepositImpl implements Deposit {
     return bytesCapsule;
   }
 
-  private void commitAccountCache(Deposit deposit) {
+  private void commitAccountCache() {
     accountCache.forEach((key, value) -> {
       if (value.getType().isCreate() || value.getType().isDirty()) {
-        if (deposit != null) {
-          deposit.putAccount(key, value);
-        } else {
-          getAccountStore().put(key.getData(), value.getAccount());
-        }
+        getAccountStore().put(key.getData(), value.getAccount());
       }
     });
   }
 
-  private void commitTransactionCache(Deposit deposit) {
+  private void commitTransactionCache() {
     transactionCache.forEach((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putTransaction(key, value);
-        } else {
-          getTransactionStore().put(key.getData(), value.getTransaction());
-        }
+        getTransactionStore().put(key.getData(), value.getTransaction());
       }
     });
   }
 
-  private void commitBlockCache(Deposit deposit) {
+  private void commitBlockCache() {
     blockCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putBlock(key, value);
-        } else {
-          getBlockStore().put(key.getData(), value.getBlock());
-        }
+        getBlockStore().put(key.getData(), value.getBlock());
       }
     }));
   }
 
-  private void commitWitnessCache(Deposit deposit) {
+  private void commitWitnessCache() {
     witnessCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putWitness(key, value);
-        } else {
-          getWitnessStore().put(key.getData(), value.getWitness());
-        }
+        getWitnessStore().put(key.getData(), value.getWitness());
       }
     }));
   }
 
-  private void commitCodeCache(Deposit deposit) {
+  private void commitCodeCache() {
     codeCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putCode(key, value);
-        } else {
-          getCodeStore().put(key.getData(), value.getCode());
-        }
+        getCodeStore().put(key.getData(), value.getCode());
       }
     }));
   }
 
-  private void commitContractCache(Deposit deposit) {
+  private void commitContractCache() {
     contractCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putContract(key, value);
-        } else {
-          getContractStore().put(key.getData(), value.getContract());
-        }
+        getContractStore().put(key.getData(), value.getContract());
       }
     }));
   }
 
-  private void commitStorageCache(Deposit deposit) {
-    storageCache.forEach((Key address, Storage storage) -> {
-      if (deposit != null) {
-        // write to parent cache
-        deposit.putStorage(address, storage);
-      } else {
-        // persistence
-        storage.commit();
-      }
-    });
-
+  private void commitStorageCache() {
+    storageCache.forEach((Key address, Storage storage) -> storage.commit());
   }
 
-  private void commitVoteCache(Deposit deposit) {
+  private void commitVoteCache() {
     votesCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putVotes(key, value);
-        } else {
-          getVotesStore().put(key.getData(), value.getVotes());
-        }
+        getVotesStore().put(key.getData(), value.getVotes());
       }
     }));
   }
 
-  private void commitProposalCache(Deposit deposit) {
+  private void commitProposalCache() {
     proposalCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putProposal(key, value);
-        } else {
-          getProposalStore().put(key.getData(), value.getProposal());
-        }
+        getProposalStore().put(key.getData(), value.getProposal());
       }
     }));
   }
 
-  private void commitDynamicPropertiesCache(Deposit deposit) {
+  private void commitDynamicPropertiesCache() {
     dynamicPropertiesCache.forEach(((key, value) -> {
       if (value.getType().isDirty() || value.getType().isCreate()) {
-        if (deposit != null) {
-          deposit.putDynamicProperties(key, value);
-        } else {
-          getDynamicPropertiesStore().put(key.getData(), value.getDynamicProperties());
-        }
+        getDynamicPropertiesStore().put(key.getData(), value.getDynamicProperties());
       }
     }));
   }
@@ -756,57 +717,90 @@ public class DepositImpl implements Deposit {
   @Override
   public void putAccountValue(byte[] address, AccountCapsule accountCapsule) {
     Key key = new Key(address);
-    accountCache.put(key, new Value(accountCapsule.getData(), Type.VALUE_TYPE_CREATE));
+    put(accountCache, key, new Value(accountCapsule.getData(), Type.VALUE_TYPE_CREATE));
   }
 
   @Override
   public void putVoteValue(byte[] address, VotesCapsule votesCapsule) {
     Key key = new Key(address);
-    votesCache.put(key, new Value(votesCapsule.getData(), Type.VALUE_TYPE_CREATE));
+    put(votesCache, key, new Value(votesCapsule.getData(), Type.VALUE_TYPE_CREATE));
   }
 
   @Override
   public void putProposalValue(byte[] address, ProposalCapsule proposalCapsule) {
     Key key = new Key(address);
-    proposalCache.put(key, new Value(proposalCapsule.getData(), Type.VALUE_TYPE_CREATE));
+    put(proposalCache, key, new Value(proposalCapsule.getData(), Type.VALUE_TYPE_CREATE));
   }
 
   @Override
   public void putDynamicPropertiesWithLatestProposalNum(long num) {
     Key key = new Key(LATEST_PROPOSAL_NUM);
-    dynamicPropertiesCache.put(key,
+    put(dynamicPropertiesCache, key,
         new Value(new BytesCapsule(ByteArray.fromLong(num)).getData(), Type.VALUE_TYPE_CREATE));
   }
 
+  /**
+   * a child keeps its changes in the shared caches, the root writes them to the stores.
+   */
   @Override
   public synchronized void commit() {
-    Deposit deposit = null;
     if (parent != null) {
-      deposit = parent;
+      if (parent.parent == null) {
+        // the root never reverts, the undo actions are not needed any more
+        journal.clear();
+      }
+      return;
+    }
+    if (readOnly) {
+      // every change was refused, the caches only hold what was read
+      return;
     }
 
-    commitAccountCache(deposit);
-    commitTransactionCache(deposit);
-    commitBlockCache(deposit);
-    commitWitnessCache(deposit);
-    commitCodeCache(deposit);
-    commitContractCache(deposit);
-    commitStorageCache(deposit);
-    commitVoteCache(deposit);
-    commitProposalCache(deposit);
-    commitDynamicPropertiesCache(deposit);
+    commitAccountCache();
+    commitTransactionCache();
+    commitBlockCache();
+    commitWitnessCache();
+    commitCodeCache();
+    commitContractCache();
+    commitStorageCache();
+    commitVoteCache();
+    commitProposalCache();
+    commitDynamicPropertiesCache();
   }
 
+  /**
+   * undo the changes made since the child was opened, the root drops all its changes.
+   */
+  @Override
+  public synchronized void revert() {
+    if (parent == null) {
+      init(dbManager, null);
+      return;
+    }
+    for (int i = journal.size() - 1; i >= checkpoint; i--) {
+      journal.remove(i).run();
+    }
+  }
 
   @Override
   public void setParent(Deposit deposit) {
-    parent = deposit;
+    init(dbManager, (DepositImpl) deposit);
   }
 
   public static DepositImpl createRoot(Manager dbManager) {
     return new DepositImpl(dbManager, null);
   }
 
+  /**
+   * a root for constant calls, reading through to the stores and refusing any change instead of
+   * buffering it.
+   */
+  public static DepositImpl createReadOnlyRoot(Manager dbManager) {
+    DepositImpl deposit = new DepositImpl(dbManager, null);
+    deposit.readOnly = true;
+    return deposit;
+  }
+
   @Override
   public AccountCapsule createNormalAccount(byte[] address) {
     boolean withDefaultPermission =
@@ -816,7 +810,7 @@ public class DepositImpl implements Deposit {
             getDynamicPropertiesStore().getLatestBlockHeaderTimestamp(), withDefaultPermission,
             dbManager);
 
-    accountCache.put(key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
+    put(accountCache, key, new Value(account.getData(), Type.VALUE_TYPE_CREATE));
     return account;
   }
 }
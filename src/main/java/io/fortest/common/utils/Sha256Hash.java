@@ -30,9 +30,12 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 
 /**
@@ -45,6 +48,12 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
   public static final int LENGTH = 32; // bytes
   public static final Sha256Hash ZERO_HASH = wrap(new byte[LENGTH]);
 
+  // a digest resets itself after each hash, so one per thread serves every call
+  private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal
+      .withInitial(Sha256Hash::newDigest);
+  private static final ThreadLocal<SM3Digest> SM3_DIGEST = ThreadLocal
+      .withInitial(Sha256Hash::newSM3Digest);
+
   private final byte[] bytes;
 
   private byte[] generateBlockId(long blockNum, Sha256Hash blockHash) {
@@ -118,6 +127,28 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
     return wrap(hash(contents));
   }
 
+  /**
+   * Creates a new instance containing the hash of the two byte arrays one after the other.
+   */
+  public static Sha256Hash of(byte[] first, byte[] second) {
+    MessageDigest digest = digest();
+    digest.update(first);
+    digest.update(second);
+    return wrap(digest.digest());
+  }
+
+  /**
+   * Creates new instances containing the hash of each of the contents, in order.
+   */
+  public static List<Sha256Hash> of(List<byte[]> contents) {
+    MessageDigest digest = digest();
+    List<Sha256Hash> hashes = new ArrayList<>(contents.size());
+    for (byte[] content : contents) {
+      hashes.add(wrap(digest.digest(content)));
+    }
+    return hashes;
+  }
+
   /**
    * Creates a new instance containing the calculated (one-time) hash of the given file's contents.
    * The file contents are read fully into memory, so this method should only be used with small
@@ -196,11 +227,10 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    */
   public static byte[] hash(boolean isSha256, byte[] input, int offset, int length) {
     if (isSha256) {
-      MessageDigest digest = newDigest();
-      digest.update(input, offset, length);
-      return digest.digest();
+      return hash(input, offset, length);
     } else {
-      SM3Digest digest = newSM3Digest();
+      SM3Digest digest = SM3_DIGEST.get();
+      digest.reset();
       digest.update(input, offset, length);
       byte[] eHash = new byte[digest.getDigestSize()];
       digest.doFinal(eHash, 0);
@@ -219,9 +249,33 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    * @return the hash (in big-endian order)
    */
   public static byte[] hash(byte[] input, int offset, int length) {
-    MessageDigest digest = newDigest();
+    byte[] hash = new byte[LENGTH];
+    hashInto(input, offset, length, hash, 0);
+    return hash;
+  }
+
+  /**
+   * Calculates the SHA-256 hash of the given byte range into the given buffer, without
+   * allocating.
+   *
+   * @param out the buffer the {@link #LENGTH} bytes of the hash are written to
+   * @param outOffset the offset of the hash in the buffer
+   */
+  public static void hashInto(byte[] input, int offset, int length, byte[] out, int outOffset) {
+    MessageDigest digest = digest();
     digest.update(input, offset, length);
-    return digest.digest();
+    try {
+      digest.digest(out, outOffset, LENGTH);
+    } catch (DigestException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static MessageDigest digest() {
+    MessageDigest digest = DIGEST.get();
+    // a hash that failed half way leaves its input behind
+    digest.reset();
+    return digest;
   }
 
   /**
@@ -253,7 +307,7 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    * @return the double-hash (in big-endian order)
    */
   public static byte[] hashTwice(byte[] input, int offset, int length) {
-    MessageDigest digest = newDigest();
+    MessageDigest digest = digest();
     digest.update(input, offset, length);
     return digest.digest(digest.digest());
   }
@@ -264,7 +318,7 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    */
   public static byte[] hashTwice(byte[] input1, int offset1, int length1,
       byte[] input2, int offset2, int length2) {
-    MessageDigest digest = newDigest();
+    MessageDigest digest = digest();
     digest.update(input1, offset1, length1);
     digest.update(input2, offset2, length2);
     return digest.digest(digest.digest());
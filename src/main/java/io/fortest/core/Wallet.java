@@ -40,12 +40,7 @@ import io.fortest.common.overlay.discover.node.Node;
 import io.fortest.common.overlay.discover.node.NodeHandler;
 import io.fortest.common.overlay.discover.node.NodeManager;
 import io.fortest.common.overlay.message.Message;
-import io.fortest.common.runtime.Runtime;
-import io.fortest.common.runtime.RuntimeImpl;
-import io.fortest.common.runtime.config.VMConfig;
-import io.fortest.common.runtime.vm.program.ProgramResult;
-import io.fortest.common.runtime.vm.program.invoke.ProgramInvokeFactoryImpl;
-import io.fortest.common.storage.DepositImpl;
+import io.fortest.common.runtime.ConstantCallEngine;
 import io.fortest.core.actuator.Actuator;
 import io.fortest.core.actuator.ActuatorFactory;
 import io.fortest.core.config.Parameter;
@@ -117,6 +112,8 @@ public class Wallet {
   private Manager dbManager;
   @Autowired
   private NodeManager nodeManager;
+  @Autowired
+  private ConstantCallEngine constantCallEngine;
   private static String addressPreFixString = Constant.ADD_PRE_FIX_STRING_MAINNET;//default testnet
   private static byte addressPreFixByte = Constant.ADD_PRE_FIX_BYTE_MAINNET;
 
@@ -410,7 +407,7 @@ public class Wallet {
         }
       }
 
-      if (dbManager.isTooManyPending()) {
+      if (dbManager.isTooManyPending(kht)) {
         logger.warn("Broadcast transaction {} failed, too many pending.", kht.getTransactionId());
         return builder.setResult(false).setCode(GrpcAPI.Return.response_code.SERVER_BUSY).build();
       }
@@ -1322,42 +1319,16 @@ public class Wallet {
     if (!Args.getInstance().isSupportConstant()) {
       throw new ContractValidateException("this node don't support constant");
     }
-    DepositImpl deposit = DepositImpl.createRoot(dbManager);
-
-    Protocol.Block headBlock;
-    List<BlockCapsule> blockCapsuleList = dbManager.getBlockStore().getBlockByLatestNum(1);
-    if (CollectionUtils.isEmpty(blockCapsuleList)) {
-      throw new HeaderNotFound("latest block not found");
-    } else {
-      headBlock = blockCapsuleList.get(0).getInstance();
-    }
-
-    Runtime runtime = new RuntimeImpl(khtCap.getInstance(), new BlockCapsule(headBlock), deposit,
-        new ProgramInvokeFactoryImpl(), true);
-    VMConfig.initVmHardFork();
-    VMConfig.initAllowTvmTransferTrc10(
-        dbManager.getDynamicPropertiesStore().getAllowTvmTransferTrc10());
-    VMConfig.initAllowMultiSign(dbManager.getDynamicPropertiesStore().getAllowMultiSign());
-    runtime.execute();
-    runtime.go();
-    runtime.finalization();
-    // TODO exception
-    if (runtime.getResult().getException() != null) {
-      RuntimeException e = runtime.getResult().getException();
-      logger.warn("Constant call has error {}", e.getMessage());
-      throw e;
-    }
-
-    ProgramResult result = runtime.getResult();
+    ConstantCallEngine.Result result = constantCallEngine.call(khtCap);
     TransactionResultCapsule ret = new TransactionResultCapsule();
 
     builder.addConstantResult(ByteString.copyFrom(result.getHReturn()));
     ret.setStatus(0, Protocol.Transaction.Result.code.SUCESS);
-    if (StringUtils.isNoneEmpty(runtime.getRuntimeError())) {
+    if (StringUtils.isNoneEmpty(result.getRuntimeError())) {
       ret.setStatus(0, Protocol.Transaction.Result.code.FAILED);
-      retBuilder.setMessage(ByteString.copyFromUtf8(runtime.getRuntimeError())).build();
+      retBuilder.setMessage(ByteString.copyFromUtf8(result.getRuntimeError())).build();
     }
-    if (runtime.getResult().isRevert()) {
+    if (result.isRevert()) {
       ret.setStatus(0, Protocol.Transaction.Result.code.FAILED);
       retBuilder.setMessage(ByteString.copyFromUtf8("REVERT opcode executed")).build();
     }
@@ -1377,7 +1348,8 @@ public class Wallet {
     ContractCapsule contractCapsule = dbManager.getContractStore()
         .get(bytesMessage.getValue().toByteArray());
     if (Objects.nonNull(contractCapsule)) {
-      return contractCapsule.getInstance();
+      Protocol.SmartContract.ABI abi = dbManager.getContractStore().getABI(address);
+      return contractCapsule.getInstance().toBuilder().setAbi(abi).build();
     }
     return null;
   }
@@ -37,6 +37,7 @@ public class ClearABIContractActuator extends AbstractActuator {
 
       deployedContract.clearABI();
       dbManager.getContractStore().put(contractAddress, deployedContract);
+      dbManager.getAbiStore().delete(contractAddress);
 
       ret.setStatus(fee, code.SUCESS);
     } catch (InvalidProtocolBufferException e) {
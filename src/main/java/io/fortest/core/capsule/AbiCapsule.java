@@ -0,0 +1,38 @@
+package io.fortest.core.capsule;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.fortest.protos.Protocol.SmartContract.ABI;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j(topic = "capsule")
+public class AbiCapsule implements ProtoCapsule<ABI> {
+
+  private ABI abi;
+
+  public AbiCapsule(ABI abi) {
+    this.abi = abi;
+  }
+
+  public AbiCapsule(byte[] data) {
+    try {
+      this.abi = ABI.parseFrom(data);
+    } catch (InvalidProtocolBufferException e) {
+      // logger.debug(e.getMessage());
+    }
+  }
+
+  @Override
+  public byte[] getData() {
+    return this.abi.toByteArray();
+  }
+
+  @Override
+  public ABI getInstance() {
+    return this.abi;
+  }
+
+  @Override
+  public String toString() {
+    return this.abi.toString();
+  }
+}
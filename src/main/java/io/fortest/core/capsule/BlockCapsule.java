@@ -23,7 +23,6 @@ import java.security.SignatureException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Vector;
 import java.util.stream.Collectors;
 
 import io.fortest.core.config.Parameter;
@@ -263,10 +262,9 @@ public class BlockCapsule implements ProtoCapsule<Block> {
       return Sha256Hash.ZERO_HASH;
     }
 
-    Vector<Sha256Hash> ids = transactionsList.stream()
-        .map(TransactionCapsule::new)
-        .map(TransactionCapsule::getMerkleHash)
-        .collect(Collectors.toCollection(Vector::new));
+    List<Sha256Hash> ids = Sha256Hash.of(transactionsList.stream()
+        .map(Transaction::toByteArray)
+        .collect(Collectors.toList()));
 
     return MerkleTree.getInstance().createTree(ids).getRoot().getHash();
   }
@@ -64,6 +64,7 @@ import io.fortest.core.Wallet;
 import io.fortest.core.db.AccountStore;
 import io.fortest.core.db.Manager;
 import io.fortest.core.db.TransactionTrace;
+import io.fortest.core.db2.core.StateDiff;
 import io.fortest.core.exception.BadItemException;
 import io.fortest.core.exception.P2pException;
 import io.fortest.core.exception.PermissionException;
@@ -118,6 +119,13 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   @Setter
   private TransactionTrace khtTrace;
 
+  /**
+   * the writes of this transaction while it stays in the pending pool.
+   */
+  @Getter
+  @Setter
+  private StateDiff pendingDiff;
+
   private static final ExecutorService executorService = Executors
       .newFixedThreadPool(Args.getInstance().getValidContractProtoThreadNum());
 
@@ -32,7 +32,12 @@ public class Parameter {
     public static final long MAX_BLOCKS_ALREADY_FETCHED = 800;
     public static final long MAX_BLOCKS_SYNC_FROM_ONE_PEER = 1000;
     public static final long SYNC_CHAIN_LIMIT_NUM = 500;
-    public static final int MAX_TRANSACTION_PENDING = 2000;
+    public static final long MAX_PENDING_BYTES = 16 * 1_024 * 1_024L;
+    public static final long MAX_PENDING_BYTES_PER_ACCOUNT = 1_024 * 1_024L;
+    public static final long MAX_KHAOS_DB_BYTES = 512 * 1_024 * 1_024L;
+    public static final long MAX_CODE_CACHE_BYTES = 64 * 1_024 * 1_024L;
+    public static final long MAX_CONTRACT_CACHE_BYTES = 32 * 1_024 * 1_024L;
+    public static final long MAX_STORAGE_CACHE_BYTES = 64 * 1_024 * 1_024L;
     public static final int MAX_HTTP_CONNECT_NUMBER = 50;
   }
 
@@ -42,6 +42,7 @@ import io.fortest.common.logsfilter.EventPluginConfig;
 import io.fortest.common.logsfilter.FilterQuery;
 import io.fortest.common.logsfilter.TriggerConfig;
 import io.fortest.common.overlay.discover.node.Node;
+import io.fortest.common.runtime.vm.trace.TraceLevel;
 import io.fortest.common.storage.RocksDbSettings;
 import io.fortest.common.utils.ByteArray;
 import io.fortest.core.Constant;
@@ -104,6 +105,26 @@ public class Args {
   @Parameter(names = {"--long-running-time"})
   private int longRunningTime = 10;
 
+  @Getter
+  @Setter
+  private int constantCallThreadNum;
+
+  @Getter
+  @Setter
+  private int constantCallQueueSize;
+
+  @Getter
+  @Setter
+  private long constantCallTimeoutInMs;
+
+  @Getter
+  @Setter
+  private long constantCallEnergyLimit;
+
+  @Getter
+  @Setter
+  private int constantCallCacheSize;
+
   @Getter
   @Setter
   @Parameter(names = {"--max-connect-number"})
@@ -178,6 +199,14 @@ public class Args {
   @Setter
   private boolean needSyncCheck;
 
+  @Getter
+  @Setter
+  private boolean blockTemplateEnable;
+
+  @Getter
+  @Setter
+  private boolean voteTallyVerify;
+
   @Getter
   @Setter
   private boolean nodeDiscoveryEnable;
@@ -425,6 +454,11 @@ public class Args {
   @Setter
   private boolean vmTrace;
 
+  // a streaming trace of this level instead of the whole trace written at the end, null for none
+  @Getter
+  @Setter
+  private TraceLevel vmTraceLevel;
+
   @Getter
   @Setter
   private boolean needToUpdateAsset;
@@ -501,6 +535,8 @@ public class Args {
     INSTANCE.chainId = null;
     INSTANCE.localWitnesses = null;
     INSTANCE.needSyncCheck = false;
+    INSTANCE.blockTemplateEnable = false;
+    INSTANCE.voteTallyVerify = false;
     INSTANCE.nodeDiscoveryEnable = false;
     INSTANCE.nodeDiscoveryPersist = false;
     INSTANCE.nodeConnectionTimeout = 0;
@@ -550,6 +586,11 @@ public class Args {
     INSTANCE.minTimeRatio = 0.0;
     INSTANCE.maxTimeRatio = 5.0;
     INSTANCE.longRunningTime = 10;
+    INSTANCE.constantCallThreadNum = 0;
+    INSTANCE.constantCallQueueSize = 0;
+    INSTANCE.constantCallTimeoutInMs = 0;
+    INSTANCE.constantCallEnergyLimit = 0;
+    INSTANCE.constantCallCacheSize = 0;
     INSTANCE.maxHttpConnectNumber = 50;
     INSTANCE.allowMultiSign = 0;
     INSTANCE.khtExpirationTimeInMilliseconds = 0;
@@ -671,6 +712,21 @@ public class Args {
       INSTANCE.longRunningTime = config.getInt("vm.longRunningTime");
     }
 
+    INSTANCE.constantCallThreadNum = config.hasPath("vm.constantCall.threadNum") ? config
+        .getInt("vm.constantCall.threadNum") : Runtime.getRuntime().availableProcessors();
+
+    INSTANCE.constantCallQueueSize = config.hasPath("vm.constantCall.queueSize") ? config
+        .getInt("vm.constantCall.queueSize") : 1024;
+
+    INSTANCE.constantCallTimeoutInMs = config.hasPath("vm.constantCall.timeoutInMs") ? config
+        .getLong("vm.constantCall.timeoutInMs") : 3000;
+
+    INSTANCE.constantCallEnergyLimit = config.hasPath("vm.constantCall.energyLimit") ? config
+        .getLong("vm.constantCall.energyLimit") : Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+
+    INSTANCE.constantCallCacheSize = config.hasPath("vm.constantCall.cacheSize") ? config
+        .getInt("vm.constantCall.cacheSize") : 0;
+
     INSTANCE.storage = new Storage();
     INSTANCE.storage.setDbVersion(Optional.ofNullable(INSTANCE.storageDbVersion)
         .filter(StringUtils::isNotEmpty)
@@ -741,6 +797,12 @@ public class Args {
     INSTANCE.needSyncCheck =
         config.hasPath("block.needSyncCheck") && config.getBoolean("block.needSyncCheck");
 
+    INSTANCE.blockTemplateEnable =
+        config.hasPath("block.templateEnable") && config.getBoolean("block.templateEnable");
+
+    INSTANCE.voteTallyVerify =
+        config.hasPath("vote.tallyVerify") && config.getBoolean("vote.tallyVerify");
+
     INSTANCE.nodeDiscoveryEnable =
         config.hasPath("node.discovery.enable") && config.getBoolean("node.discovery.enable");
 
@@ -898,7 +960,7 @@ public class Args {
     }
 
     INSTANCE.validateSignThreadNum = config.hasPath("node.validateSignThreadNum") ? config
-        .getInt("node.validateSignThreadNum") : Runtime.getRuntime().availableProcessors() / 2;
+        .getInt("node.validateSignThreadNum") : Runtime.getRuntime().availableProcessors();
 
     INSTANCE.walletExtensionApi =
         config.hasPath("node.walletExtensionApi") && config.getBoolean("node.walletExtensionApi");
@@ -940,6 +1002,9 @@ public class Args {
         config.hasPath("vm.vmTrace") ? config
             .getBoolean("vm.vmTrace") : false;
 
+    INSTANCE.vmTraceLevel = config.hasPath("vm.vmTraceLevel") ? TraceLevel
+        .valueOf(config.getString("vm.vmTraceLevel").toUpperCase()) : null;
+
     INSTANCE.saveInternalTx =
         config.hasPath("vm.saveInternalTx") && config.getBoolean("vm.saveInternalTx");
 
@@ -0,0 +1,28 @@
+package io.fortest.core.db;
+
+import io.fortest.core.capsule.AbiCapsule;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The abi of every contract, kept apart from the contract store so execution, which only needs the
+ * few settings of a contract, never reads or decodes an abi.
+ */
+@Slf4j(topic = "DB")
+@Component
+public class AbiStore extends khcStoreWithRevoking<AbiCapsule> {
+
+  @Autowired
+  private AbiStore(@Value("abi") String dbName) {
+    super(dbName);
+  }
+
+  @Override
+  public AbiCapsule get(byte[] key) {
+    byte[] value = revokingDB.getUnchecked(key);
+    return ArrayUtils.isEmpty(value) ? null : new AbiCapsule(value);
+  }
+}
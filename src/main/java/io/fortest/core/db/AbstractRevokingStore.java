@@ -28,9 +28,11 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ArrayUtils;
 import io.fortest.core.db2.common.IRevokingDB;
 import io.fortest.core.db2.core.ISession;
 import io.fortest.core.db2.core.RevokingDBWithCachingOldValue;
+import io.fortest.core.db2.core.StateDiff;
 
 @Slf4j(topic = "DB")
 @Getter // only for unit test
@@ -322,6 +324,59 @@ public abstract class AbstractRevokingStore implements RevokingDatabase {
   public void setMaxFlushCount(int maxFlushCount) {
   }
 
+  /**
+   * the reads of a transaction are not recorded here, a diff without them would let a pending
+   * transaction be rebased over a block that changed what it read. Rebase and replay of blocks
+   * are left to db version 2.
+   */
+  @Override
+  public StateDiff getHeadDiff() {
+    return null;
+  }
+
+  /**
+   * write the diff through to the stores, the newest dialog keeps the values it replaces.
+   */
+  @Override
+  public synchronized void applyDiff(StateDiff diff) {
+    if (disabled || stack.isEmpty()) {
+      throw new RevokingStoreIllegalStateException("state diff can not be applied without dialog");
+    }
+
+    for (LevelDbDataSourceImpl db : dbs) {
+      diff.getWrites(db.getDBName()).forEach((k, v) -> {
+        byte[] key = k.getBytes();
+        byte[] value = v.getBytes();
+        byte[] oldValue = db.getData(key);
+        RevokingTuple tuple = new RevokingTuple(db, key);
+        if (value == null) {
+          if (oldValue != null) {
+            onRemove(tuple, oldValue);
+          }
+          db.deleteData(key);
+          return;
+        }
+
+        if (ArrayUtils.isNotEmpty(oldValue)) {
+          onModify(tuple, oldValue);
+        }
+        db.putData(key, value);
+        if (ArrayUtils.isEmpty(oldValue)) {
+          onCreate(tuple, null);
+        }
+      });
+    }
+  }
+
+  @Override
+  public void recordReads(StateDiff reads) {
+  }
+
+  @Override
+  public long getStateVersion() {
+    return -1;
+  }
+
   public synchronized void shutdown() {
     System.err.println("******** begin to pop revokingDb ********");
     System.err.println("******** before revokingDb size:" + size());
@@ -0,0 +1,54 @@
+package io.fortest.core.db;
+
+import io.fortest.common.runtime.config.VMConfig;
+import io.fortest.common.utils.ForkController;
+import io.fortest.common.utils.Sha256Hash;
+import io.fortest.core.config.Parameter.ForkBlockVersionConsts;
+import lombok.Getter;
+
+/**
+ * The chain parameters and processors the transactions on top of one head block share. Parameters
+ * only change with a new head, proposals take effect in the maintenance at the end of a block, so
+ * the context is resolved once per head instead of once per transaction.
+ */
+public class BlockExecutionContext {
+
+  @Getter
+  private final Sha256Hash parentHash;
+  @Getter
+  private final boolean energyLimitHardFork;
+  @Getter
+  private final long allowMultiSign;
+  @Getter
+  private final long allowTvmTransferTrc10;
+  @Getter
+  private final long allowTvmConstantinople;
+  @Getter
+  private final boolean supportVM;
+  @Getter
+  private final BandwidthProcessor bandwidthProcessor;
+  @Getter
+  private final EnergyProcessor energyProcessor;
+
+  public BlockExecutionContext(Manager manager) {
+    DynamicPropertiesStore store = manager.getDynamicPropertiesStore();
+    this.parentHash = store.getLatestBlockHeaderHash();
+    this.energyLimitHardFork = ForkController.instance().pass(ForkBlockVersionConsts.ENERGY_LIMIT);
+    this.allowMultiSign = store.getAllowMultiSign();
+    this.allowTvmTransferTrc10 = store.getAllowTvmTransferTrc10();
+    this.allowTvmConstantinople = store.getAllowTvmConstantinople();
+    this.supportVM = store.supportVM();
+    this.bandwidthProcessor = new BandwidthProcessor(manager);
+    this.energyProcessor = new EnergyProcessor(manager);
+  }
+
+  /**
+   * the VM reads the fork flags from VMConfig.
+   */
+  public void applyVmConfig() {
+    VMConfig.initVmHardFork(energyLimitHardFork);
+    VMConfig.initAllowMultiSign(allowMultiSign);
+    VMConfig.initAllowTvmTransferTrc10(allowTvmTransferTrc10);
+    VMConfig.initAllowTvmConstantinople(allowTvmConstantinople);
+  }
+}
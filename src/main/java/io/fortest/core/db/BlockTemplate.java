@@ -0,0 +1,72 @@
+package io.fortest.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import io.fortest.common.utils.Sha256Hash;
+import io.fortest.core.capsule.BlockCapsule;
+import io.fortest.core.capsule.TransactionCapsule;
+import io.fortest.core.capsule.TransactionRetCapsule;
+import io.fortest.core.config.Parameter.ChainConstant;
+import io.fortest.protos.Protocol.TransactionInfo;
+import lombok.Getter;
+
+/**
+ * A block filled with pending transactions ahead of its production slot. Its transactions are
+ * executed on the pending session, so at slot time it only has to be signed and pushed.
+ */
+public class BlockTemplate {
+
+  @Getter
+  private final BlockCapsule block;
+  @Getter
+  private final TransactionRetCapsule result;
+  // owners of the multi-sign transactions in the block
+  @Getter
+  private final Set<String> accountSet = new HashSet<>();
+  private final Set<Sha256Hash> transactionIds = new HashSet<>();
+  @Getter
+  private volatile boolean full = false;
+
+  public BlockTemplate(BlockCapsule block) {
+    this.block = block;
+    this.block.generatedByMyself = true;
+    this.result = new TransactionRetCapsule(block);
+  }
+
+  public boolean matches(Sha256Hash parentHash, long when, ByteString witnessAddress) {
+    return Objects.equals(block.getParentHash(), parentHash)
+        && block.getTimeStamp() == when
+        && block.getWitnessAddress().equals(witnessAddress);
+  }
+
+  /**
+   * whether the transaction still fits in the block, the template is full once one does not.
+   */
+  public boolean fits(TransactionCapsule kht) {
+    if (block.getInstance().getSerializedSize() + kht.getSerializedSize() + 3
+        > ChainConstant.BLOCK_SIZE) {
+      full = true;
+      return false;
+    }
+    return true;
+  }
+
+  public boolean contains(TransactionCapsule kht) {
+    return transactionIds.contains(kht.getTransactionId());
+  }
+
+  public int size() {
+    return transactionIds.size();
+  }
+
+  public void addTransaction(TransactionCapsule kht, TransactionInfo info) {
+    block.addTransaction(kht);
+    if (Objects.nonNull(info)) {
+      result.addTransactionInfo(info);
+    }
+    transactionIds.add(kht.getTransactionId());
+  }
+}
@@ -1,7 +1,9 @@
 package io.fortest.core.db;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Streams;
 import io.fortest.core.capsule.CodeCapsule;
+import io.fortest.core.config.Parameter.NodeConstant;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +13,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class CodeStore extends khcStoreWithRevoking<CodeCapsule> {
 
+  // deployed code never changes, it is shared by every transaction calling the contract
+  private final StoreCache<byte[]> cache = new StoreCache<>(revokingDB,
+      NodeConstant.MAX_CODE_CACHE_BYTES, code -> code.length);
+
   @Autowired
   private CodeStore(@Value("code") String dbName) {
     super(dbName);
@@ -18,7 +24,12 @@ public class CodeStore extends khcStoreWithRevoking<CodeCapsule> {
 
   @Override
   public CodeCapsule get(byte[] key) {
-    return getUnchecked(key);
+    byte[] code = cache.get(key, revokingDB::getUnchecked);
+    return code == null ? null : new CodeCapsule(code.clone());
+  }
+
+  public CacheStats getCacheStats() {
+    return cache.stats();
   }
 
   public long getTotalCodes() {
@@ -1,8 +1,19 @@
 package io.fortest.core.db;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Streams;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import io.fortest.core.capsule.AbiCapsule;
 import io.fortest.core.capsule.ContractCapsule;
+import io.fortest.core.config.Parameter.NodeConstant;
 import io.fortest.protos.Protocol;
+import io.fortest.protos.Protocol.SmartContract;
+import io.fortest.protos.Protocol.SmartContract.ABI;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,14 +24,64 @@ import org.springframework.stereotype.Component;
 @Component
 public class ContractStore extends khcStoreWithRevoking<ContractCapsule> {
 
+  // the decoded contracts, the abi included, shared by every transaction calling them
+  private final StoreCache<SmartContract> cache = new StoreCache<>(revokingDB,
+      NodeConstant.MAX_CONTRACT_CACHE_BYTES, SmartContract::getSerializedSize);
+
+  @Autowired
+  private AbiStore abiStore;
+
   @Autowired
   private ContractStore(@Value("contract") String dbName) {
     super(dbName);
   }
 
+  /**
+   * the contract is stored without its abi, a non empty abi goes to the abi store. A contract
+   * read back has an empty abi, putting it again keeps the stored abi.
+   */
+  @Override
+  public void put(byte[] key, ContractCapsule item) {
+    if (Objects.isNull(key) || Objects.isNull(item)) {
+      return;
+    }
+
+    SmartContract smartContract = item.getInstance();
+    if (!smartContract.getAbi().equals(ABI.getDefaultInstance())) {
+      abiStore.put(key, new AbiCapsule(smartContract.getAbi()));
+      item = new ContractCapsule(smartContract.toBuilder().clearAbi().build());
+    }
+    super.put(key, item);
+  }
+
+  @Override
+  public void delete(byte[] key) {
+    super.delete(key);
+    abiStore.delete(key);
+  }
+
   @Override
   public ContractCapsule get(byte[] key) {
-    return getUnchecked(key);
+    SmartContract smartContract = getSmartContract(key);
+    return smartContract == null ? null : new ContractCapsule(smartContract);
+  }
+
+  private SmartContract getSmartContract(byte[] key) {
+    return cache.get(key, k -> {
+      byte[] value = revokingDB.getUnchecked(k);
+      if (ArrayUtils.isEmpty(value)) {
+        return null;
+      }
+      try {
+        return SmartContract.parseFrom(value);
+      } catch (InvalidProtocolBufferException e) {
+        return null;
+      }
+    });
+  }
+
+  public CacheStats getCacheStats() {
+    return cache.stats();
   }
 
   /**
@@ -43,18 +104,34 @@ public class ContractStore extends khcStoreWithRevoking<ContractCapsule> {
    * @return
    */
   public Protocol.SmartContract.ABI getABI(byte[] contractAddress) {
-    byte[] value = revokingDB.getUnchecked(contractAddress);
-    if (ArrayUtils.isEmpty(value)) {
+    SmartContract smartContract = getSmartContract(contractAddress);
+    if (smartContract == null) {
       return null;
     }
 
-    ContractCapsule contractCapsule = new ContractCapsule(value);
-    Protocol.SmartContract smartContract = contractCapsule.getInstance();
-    if (smartContract == null) {
-      return null;
+    AbiCapsule abiCapsule = abiStore.get(contractAddress);
+    return abiCapsule == null ? smartContract.getAbi() : abiCapsule.getInstance();
+  }
+
+  /**
+   * move the abi of the contracts stored before the abi store existed to the abi store.
+   *
+   * @return the number of moved abis.
+   */
+  public int moveAbi() {
+    List<byte[]> keys = new ArrayList<>();
+    for (Map.Entry<byte[], byte[]> entry : revokingDB) {
+      try {
+        if (SmartContract.parseFrom(entry.getValue()).getAbi().getEntrysCount() > 0) {
+          keys.add(entry.getKey());
+        }
+      } catch (InvalidProtocolBufferException e) {
+        logger.warn("skip a bad contract: {}", e.getMessage());
+      }
     }
 
-    return smartContract.getAbi();
+    keys.forEach(key -> put(key, get(key)));
+    return keys.size();
   }
 
 }
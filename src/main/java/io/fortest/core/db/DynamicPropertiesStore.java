@@ -171,6 +171,9 @@ public class DynamicPropertiesStore extends khcStoreWithRevoking<BytesCapsule> {
   private static final byte[] ALLOW_TVM_TRANSFER_TRC10 = "ALLOW_TVM_TRANSFER_TRC10".getBytes();
   private static final byte[] ALLOW_TVM_CONSTANTINOPLE = "ALLOW_TVM_CONSTANTINOPLE".getBytes();
 
+  //Used only for moving abis out of the contract store, once，value is {0,1}
+  private static final byte[] ABI_MOVE_DONE = "ABI_MOVE_DONE".getBytes();
+
   //Used only for protobuf data filter , once，value is 0,1
   private static final byte[] ALLOW_PROTO_FILTER_NUM = "ALLOW_PROTO_FILTER_NUM"
       .getBytes();
@@ -256,6 +259,12 @@ public class DynamicPropertiesStore extends khcStoreWithRevoking<BytesCapsule> {
       this.saveTokenUpdateDone(0);
     }
 
+    try {
+      this.getAbiMoveDone();
+    } catch (IllegalArgumentException e) {
+      this.saveAbiMoveDone(0);
+    }
+
     try {
       this.getMaxFrozenTime();
     } catch (IllegalArgumentException e) {
@@ -664,6 +673,19 @@ public class DynamicPropertiesStore extends khcStoreWithRevoking<BytesCapsule> {
             () -> new IllegalArgumentException("not found TOKEN_UPDATE_DONE"));
   }
 
+  public void saveAbiMoveDone(long num) {
+    this.put(ABI_MOVE_DONE,
+        new BytesCapsule(ByteArray.fromLong(num)));
+  }
+
+  public long getAbiMoveDone() {
+    return Optional.ofNullable(getUnchecked(ABI_MOVE_DONE))
+        .map(BytesCapsule::getData)
+        .map(ByteArray::toLong)
+        .orElseThrow(
+            () -> new IllegalArgumentException("not found ABI_MOVE_DONE"));
+  }
+
 
   public void saveBlockFilledSlotsIndex(int blockFilledSlotsIndex) {
     logger.debug("blockFilledSlotsIndex:" + blockFilledSlotsIndex);
@@ -1592,6 +1614,15 @@ public class DynamicPropertiesStore extends khcStoreWithRevoking<BytesCapsule> {
     return Sha256Hash.wrap(blockHash);
   }
 
+  /**
+   * whether the key is one of the header of the latest block, written by every block.
+   */
+  public static boolean isLatestBlockHeaderKey(byte[] key) {
+    return Arrays.equals(key, LATEST_BLOCK_HEADER_TIMESTAMP)
+        || Arrays.equals(key, LATEST_BLOCK_HEADER_NUMBER)
+        || Arrays.equals(key, LATEST_BLOCK_HEADER_HASH);
+  }
+
   /**
    * save timestamp of creating global latest block.
    */
@@ -3,28 +3,29 @@ package io.fortest.core.db;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 
 import io.fortest.common.utils.Sha256Hash;
 import io.fortest.core.capsule.BlockCapsule;
+import io.fortest.core.config.Parameter.NodeConstant;
+import io.fortest.core.db2.core.StateDiff;
 import io.fortest.core.exception.BadNumberBlockException;
 import io.fortest.core.exception.NonCommonBlockException;
 import io.fortest.core.exception.UnLinkedBlockException;
 import javafx.util.Pair;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+@Slf4j(topic = "DB")
 @Component
 public class KhaosDatabase extends khcDatabase {
 
@@ -43,9 +44,15 @@ public class KhaosDatabase extends khcDatabase {
     @Getter
     private BlockCapsule blk;
     private Reference<KhaosBlock> parent = new WeakReference<>(null);
+    // an ancestor further down, to find ancestors in O(log n) hops
+    private Reference<KhaosBlock> skip = new WeakReference<>(null);
     private BlockCapsule.BlockId id;
     private Boolean invalid;
     private long num;
+    // the writes of the block when it was applied, valid only on the same parent state
+    private StateDiff stateDiff;
+    private long stateDiffBytes;
+    private Sha256Hash stateParentHash;
 
     public KhaosBlock getParent() {
       return parent == null ? null : parent.get();
@@ -53,6 +60,70 @@ public class KhaosDatabase extends khcDatabase {
 
     public void setParent(KhaosBlock parent) {
       this.parent = new WeakReference<>(parent);
+      this.skip = new WeakReference<>(parent.getAncestor(getSkipNum(num)));
+    }
+
+    private KhaosBlock getSkip() {
+      return skip == null ? null : skip.get();
+    }
+
+    /**
+     * the ancestor with the number, null if it is not linked or no longer in memory.
+     */
+    public KhaosBlock getAncestor(long ancestorNum) {
+      if (ancestorNum > num || ancestorNum < 0) {
+        return null;
+      }
+
+      KhaosBlock walk = this;
+      long walkNum = num;
+      while (walk != null && walkNum > ancestorNum) {
+        long skipNum = getSkipNum(walkNum);
+        long skipNumPrev = getSkipNum(walkNum - 1);
+        KhaosBlock walkSkip = walk.getSkip();
+        // only jump if the skip of the parent is not a better jump
+        if (walkSkip != null && (skipNum == ancestorNum
+            || (skipNum > ancestorNum
+            && !(skipNumPrev < skipNum - 2 && skipNumPrev >= ancestorNum)))) {
+          walk = walkSkip;
+          walkNum = skipNum;
+        } else {
+          walk = walk.getParent();
+          walkNum--;
+        }
+      }
+      return walk;
+    }
+
+    // the number the skip pointer of a block points to, spread so any ancestor is
+    // reachable in O(log n) jumps
+    private static long getSkipNum(long num) {
+      if (num < 2) {
+        return 0;
+      }
+      return (num & 1) == 1 ? invertLowestOne(invertLowestOne(num - 1)) + 1
+          : invertLowestOne(num);
+    }
+
+    private static long invertLowestOne(long n) {
+      return n & (n - 1);
+    }
+
+    private long getSize() {
+      return blk.getInstance().getSerializedSize() + stateDiffBytes;
+    }
+
+    private void setStateDiff(Sha256Hash parentHash, StateDiff diff) {
+      this.stateParentHash = parentHash;
+      this.stateDiff = diff;
+      this.stateDiffBytes = diff == null ? 0 : diff.getBytes();
+    }
+
+    /**
+     * the writes of the block if it was applied before on the given parent, otherwise null.
+     */
+    public StateDiff getStateDiff(Sha256Hash parentHash) {
+      return Objects.equals(stateParentHash, parentHash) ? stateDiff : null;
     }
 
     @Override
@@ -77,44 +148,91 @@ public class KhaosDatabase extends khcDatabase {
   public class KhaosStore {
 
     private HashMap<BlockCapsule.BlockId, KhaosBlock> hashKblkMap = new HashMap<>();
-    // private HashMap<Sha256Hash, KhaosBlock> parentHashKblkMap = new HashMap<>();
     private int maxCapcity = 1024;
+    private long maxBytes = NodeConstant.MAX_KHAOS_DB_BYTES;
+    @Getter
+    private long bytes = 0;
 
     @Getter
-    private LinkedHashMap<Long, ArrayList<KhaosBlock>> numKblkMap =
-        new LinkedHashMap<Long, ArrayList<KhaosBlock>>() {
-
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<Long, ArrayList<KhaosBlock>> entry) {
-            long minNum = Long.max(0L, head.num - maxCapcity);
-            Map<Long, ArrayList<KhaosBlock>> minNumMap = numKblkMap.entrySet().stream()
-                .filter(e -> e.getKey() < minNum)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-            minNumMap.forEach((k, v) -> {
-              numKblkMap.remove(k);
-              v.forEach(b -> hashKblkMap.remove(b.id));
-            });
-
-            return false;
-          }
-        };
+    private TreeMap<Long, ArrayList<KhaosBlock>> numKblkMap = new TreeMap<>();
 
     public void setMaxCapcity(int maxCapcity) {
       this.maxCapcity = maxCapcity;
+      evict();
     }
 
     public void insert(KhaosBlock block) {
       hashKblkMap.put(block.id, block);
       numKblkMap.computeIfAbsent(block.num, listBlk -> new ArrayList<>()).add(block);
+      bytes += block.getSize();
+      evict();
+      evictOverBudget();
+    }
+
+    /**
+     * drop the blocks below the solidified height, head - maxCapcity.
+     */
+    private void evict() {
+      if (head == null) {
+        return;
+      }
+
+      long minNum = Long.max(0L, head.num - maxCapcity);
+      while (!numKblkMap.isEmpty() && numKblkMap.firstKey() < minNum) {
+        numKblkMap.pollFirstEntry().getValue().forEach(b -> {
+          hashKblkMap.remove(b.id);
+          bytes -= b.getSize();
+        });
+      }
+    }
+
+    /**
+     * while over the byte budget, drop the recorded writes of the lowest blocks, those blocks are
+     * executed again if a fork switch needs them. Blocks themselves are only dropped below the
+     * solidified height, any block above may still become part of the head chain.
+     */
+    private void evictOverBudget() {
+      if (bytes <= maxBytes) {
+        return;
+      }
+
+      for (ArrayList<KhaosBlock> height : numKblkMap.values()) {
+        for (KhaosBlock b : height) {
+          if (bytes <= maxBytes) {
+            return;
+          }
+          if (b.stateDiff != null) {
+            bytes -= b.getSize();
+            b.setStateDiff(null, null);
+            bytes += b.getSize();
+          }
+        }
+      }
+
+      logger.error("khaosDB holds {} bytes over its budget of {} bytes with no recorded writes "
+              + "left, the blocks are all above the solidified height {}",
+          bytes - maxBytes, maxBytes, head == null ? 0 : Long.max(0L, head.num - maxCapcity));
+    }
+
+    /**
+     * keep the writes of a block, counted in the bytes of the store holding it.
+     */
+    public void setStateDiff(KhaosBlock block, Sha256Hash parentHash, StateDiff diff) {
+      boolean held = hashKblkMap.get(block.id) == block;
+      if (held) {
+        bytes -= block.getSize();
+      }
+      block.setStateDiff(parentHash, diff);
+      if (held) {
+        bytes += block.getSize();
+        evictOverBudget();
+      }
     }
 
     public boolean remove(Sha256Hash hash) {
       KhaosBlock block = this.hashKblkMap.get(hash);
-      // Sha256Hash parentHash = Sha256Hash.ZERO_HASH;
       if (block != null) {
         long num = block.num;
-        // parentHash = block.getParentHash();
         ArrayList<KhaosBlock> listBlk = numKblkMap.get(num);
         if (listBlk != null) {
           listBlk.removeIf(b -> b.id.equals(hash));
@@ -125,6 +243,7 @@ public class KhaosDatabase extends khcDatabase {
         }
 
         this.hashKblkMap.remove(hash);
+        bytes -= block.getSize();
         return true;
       }
       return false;
@@ -189,11 +308,10 @@ public class KhaosDatabase extends khcDatabase {
       miniUnlinkedStore.remove(hash);
     }
 
-    head = miniStore.numKblkMap.entrySet().stream()
-        .max(Comparator.comparingLong(Map.Entry::getKey))
-        .map(Map.Entry::getValue)
-        .map(list -> list.get(0))
-        .orElseThrow(() -> new RuntimeException("khaosDB head should not be null."));
+    if (miniStore.numKblkMap.isEmpty()) {
+      throw new RuntimeException("khaosDB head should not be null.");
+    }
+    head = miniStore.numKblkMap.lastEntry().getValue().get(0);
   }
 
   /**
@@ -280,32 +398,54 @@ public class KhaosDatabase extends khcDatabase {
     KhaosBlock kblk2 = miniStore.getByHash(block2);
     checkNull(kblk2);
 
-    while (kblk1.num > kblk2.num) {
-      list1.add(kblk1);
-      kblk1 = kblk1.getParent();
-      checkNull(kblk1);
-      checkNull(miniStore.getByHash(kblk1.id));
-    }
+    KhaosBlock ancestor = getCommonAncestor(kblk1, kblk2);
+    collectBranch(kblk1, ancestor, list1);
+    collectBranch(kblk2, ancestor, list2);
 
-    while (kblk2.num > kblk1.num) {
-      list2.add(kblk2);
-      kblk2 = kblk2.getParent();
-      checkNull(kblk2);
-      checkNull(miniStore.getByHash(kblk2.id));
+    return new Pair<>(list1, list2);
+  }
+
+  /**
+   * the most recent common ancestor of two blocks, jumping along the skip pointers.
+   */
+  private KhaosBlock getCommonAncestor(KhaosBlock kblk1, KhaosBlock kblk2)
+      throws NonCommonBlockException {
+    if (kblk1.num > kblk2.num) {
+      kblk1 = kblk1.getAncestor(kblk2.num);
+    } else if (kblk2.num > kblk1.num) {
+      kblk2 = kblk2.getAncestor(kblk1.num);
     }
+    checkNull(kblk1);
+    checkNull(kblk2);
 
     while (!Objects.equals(kblk1, kblk2)) {
-      list1.add(kblk1);
-      list2.add(kblk2);
-      kblk1 = kblk1.getParent();
+      KhaosBlock skip1 = kblk1.getSkip();
+      KhaosBlock skip2 = kblk2.getSkip();
+      // the skips of two blocks with the same number point to the same number
+      if (skip1 != null && skip2 != null && !Objects.equals(skip1, skip2)) {
+        kblk1 = skip1;
+        kblk2 = skip2;
+      } else {
+        kblk1 = kblk1.getParent();
+        kblk2 = kblk2.getParent();
+      }
       checkNull(kblk1);
-      checkNull(miniStore.getByHash(kblk1.id));
-      kblk2 = kblk2.getParent();
       checkNull(kblk2);
-      checkNull(miniStore.getByHash(kblk2.id));
     }
 
-    return new Pair<>(list1, list2);
+    checkNull(miniStore.getByHash(kblk1.id));
+    return kblk1;
+  }
+
+  private void collectBranch(KhaosBlock from, KhaosBlock ancestor, LinkedList<KhaosBlock> list)
+      throws NonCommonBlockException {
+    KhaosBlock kblk = from;
+    while (!Objects.equals(kblk, ancestor)) {
+      list.add(kblk);
+      kblk = kblk.getParent();
+      checkNull(kblk);
+      checkNull(miniStore.getByHash(kblk.id));
+    }
   }
 
   private void checkNull(Object o) throws NonCommonBlockException {
@@ -14,19 +14,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -34,7 +29,6 @@ import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import io.fortest.common.logsfilter.capsule.*;
-import io.fortest.core.config.Parameter;
 import javafx.util.Pair;
 import javax.annotation.PostConstruct;
 import lombok.Getter;
@@ -45,12 +39,13 @@ import org.joda.time.DateTime;
 import org.spongycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import io.fortest.common.crypto.SignatureVerifier;
+import io.fortest.common.crypto.SignatureVerifier.Lane;
 import io.fortest.common.logsfilter.EventPluginLoader;
 import io.fortest.common.logsfilter.FilterQuery;
 import io.fortest.common.logsfilter.trigger.ContractTrigger;
 import io.fortest.common.overlay.discover.node.Node;
 import io.fortest.common.overlay.message.Message;
-import io.fortest.common.runtime.config.VMConfig;
 import io.fortest.common.utils.ByteArray;
 import io.fortest.common.utils.ForkController;
 import io.fortest.common.utils.SessionOptional;
@@ -67,15 +62,18 @@ import io.fortest.core.capsule.TransactionRetCapsule;
 import io.fortest.core.capsule.WitnessCapsule;
 import io.fortest.core.capsule.utils.BlockUtil;
 import io.fortest.core.config.Parameter.ChainConstant;
+import io.fortest.core.config.Parameter.NodeConstant;
 import io.fortest.core.config.args.Args;
 import io.fortest.core.config.args.GenesisBlock;
 import io.fortest.core.db.KhaosDatabase.KhaosBlock;
 import io.fortest.core.db.api.AssetUpdateHelper;
 import io.fortest.core.db.accountstate.TrieService;
 import io.fortest.core.db.accountstate.callback.AccountStateCallBack;
+import io.fortest.core.db2.common.Key;
 import io.fortest.core.db2.core.ISession;
 import io.fortest.core.db2.core.IkhcChainBase;
 import io.fortest.core.db2.core.SnapshotManager;
+import io.fortest.core.db2.core.StateDiff;
 import io.fortest.core.exception.AccountResourceInsufficientException;
 import io.fortest.core.exception.BadBlockException;
 import io.fortest.core.exception.BadItemException;
@@ -147,6 +145,8 @@ public class Manager {
   @Autowired
   private VotesStore votesStore;
   @Autowired
+  private VoteTallyStore voteTallyStore;
+  @Autowired
   private ProposalStore proposalStore;
   @Autowired
   private ExchangeStore exchangeStore;
@@ -159,6 +159,8 @@ public class Manager {
   @Autowired
   private ContractStore contractStore;
   @Autowired
+  private AbiStore abiStore;
+  @Autowired
   private DelegatedResourceStore delegatedResourceStore;
   @Autowired
   private DelegatedResourceAccountIndexStore delegatedResourceAccountIndexStore;
@@ -205,7 +207,16 @@ public class Manager {
   @Setter
   private ProposalController proposalController;
 
-  private ExecutorService validateSignService;
+
+  // writes of the block applied by the running pushBlock, null if the pending transactions
+  // can not be rebased onto the new head and have to be re-executed
+  private StateDiff appliedBlockDiff;
+
+  // the block the local witness produces next, filled ahead of its slot
+  private volatile BlockTemplate blockTemplate;
+
+  // the chain parameters resolved for the current head
+  private volatile BlockExecutionContext executionContext;
 
   private boolean isRunRepushThread = true;
 
@@ -270,6 +281,10 @@ public class Manager {
     return codeStore;
   }
 
+  public AbiStore getAbiStore() {
+    return this.abiStore;
+  }
+
   public ContractStore getContractStore() {
     return contractStore;
   }
@@ -278,6 +293,10 @@ public class Manager {
     return this.votesStore;
   }
 
+  public VoteTallyStore getVoteTallyStore() {
+    return this.voteTallyStore;
+  }
+
   public ProposalStore getProposalStore() {
     return this.proposalStore;
   }
@@ -309,7 +328,7 @@ public class Manager {
     }
   }
 
-  public List<TransactionCapsule> getPendingTransactions() {
+  public TransactionPool getPendingTransactions() {
     return this.pendingTransactions;
   }
 
@@ -317,19 +336,19 @@ public class Manager {
     return this.popedTransactions;
   }
 
-  public BlockingQueue<TransactionCapsule> getRepushTransactions() {
+  public TransactionPool getRepushTransactions() {
     return repushTransactions;
   }
 
-  // transactions cache
-  private List<TransactionCapsule> pendingTransactions;
+  // transactions applied on the pending session
+  private TransactionPool pendingTransactions;
 
   // transactions popped
   private List<TransactionCapsule> popedTransactions =
       Collections.synchronizedList(Lists.newArrayList());
 
-  // the capacity is equal to Integer.MAX_VALUE default
-  private BlockingQueue<TransactionCapsule> repushTransactions;
+  // transactions waiting to be applied on the pending session again
+  private TransactionPool repushTransactions;
 
   private BlockingQueue<TriggerCapsule> triggerCapsuleQueue;
 
@@ -386,7 +405,7 @@ public class Manager {
         while (isRunRepushThread) {
           TransactionCapsule tx = null;
           try {
-            if (isGeneratingBlock()) {
+            if (isGeneratingBlock() || isBlockTemplateFull()) {
               TimeUnit.MILLISECONDS.sleep(10L);
               continue;
             }
@@ -444,8 +463,10 @@ public class Manager {
     revokingStore.check();
     this.setWitnessController(WitnessController.createInstance(this));
     this.setProposalController(ProposalController.createInstance(this));
-    this.pendingTransactions = Collections.synchronizedList(Lists.newArrayList());
-    this.repushTransactions = new LinkedBlockingQueue<>();
+    this.pendingTransactions = new TransactionPool(NodeConstant.MAX_PENDING_BYTES,
+        NodeConstant.MAX_PENDING_BYTES_PER_ACCOUNT);
+    this.repushTransactions = new TransactionPool(NodeConstant.MAX_PENDING_BYTES,
+        NodeConstant.MAX_PENDING_BYTES_PER_ACCOUNT);
     this.triggerCapsuleQueue = new LinkedBlockingQueue<>();
 
     this.initGenesis();
@@ -469,6 +490,11 @@ public class Manager {
       System.exit(1);
     }
     forkController.init(this);
+    witnessController.initVoteTally();
+    if (getDynamicPropertiesStore().getAbiMoveDone() == 0L) {
+      logger.info("move abi to the abi store, count:{}", contractStore.moveAbi());
+      getDynamicPropertiesStore().saveAbiMoveDone(1);
+    }
 
     if (Args.getInstance().isNeedToUpdateAsset() && needToUpdateAsset()) {
       new AssetUpdateHelper(this).doWork();
@@ -479,8 +505,6 @@ public class Manager {
 
     initCacheTxs();
     revokingStore.enable();
-    validateSignService = Executors
-        .newFixedThreadPool(Args.getInstance().getValidateSignThreadNum());
     Thread repushThread = new Thread(repushLoop);
     repushThread.start();
     // add contract event listener for subscribing
@@ -776,13 +800,20 @@ public class Manager {
       }
 
       synchronized (this) {
+        if (blockTemplate != null) {
+          return pushTransactionToTemplate(kht);
+        }
+
         if (!session.valid()) {
           session.setValue(revokingStore.buildSession());
         }
 
         try (ISession tmpSession = revokingStore.buildSession()) {
-          processTransaction(kht, null);
-          pendingTransactions.add(kht);
+          processPendingTransaction(kht, null);
+          if (!pendingTransactions.add(kht)) {
+            logger.info("pending pool is full, drop transaction {}", kht.getTransactionId());
+            return false;
+          }
           tmpSession.merge();
         }
       }
@@ -792,6 +823,119 @@ public class Manager {
     return true;
   }
 
+  /**
+   * apply a transaction into the block template, a transaction that does not fit waits in the
+   * repush pool for the next block.
+   */
+  private boolean pushTransactionToTemplate(final TransactionCapsule kht)
+      throws ValidateSignatureException, ContractValidateException, ContractExeException,
+      AccountResourceInsufficientException, DupTransactionException, TaposException,
+      TooBigTransactionException, TransactionExpirationException,
+      ReceiptCheckErrException, VMIllegalException, TooBigTransactionResultException {
+    if (!blockTemplate.fits(kht)) {
+      repushTransactions.add(kht);
+      return true;
+    }
+
+    Protocol.Transaction.Contract contract = kht.getInstance().getRawData().getContract(0);
+    String ownerAddress = ByteArray.toHexString(TransactionCapsule.getOwner(contract));
+    if (blockTemplate.getAccountSet().contains(ownerAddress)) {
+      logger.debug("block template already has a multi-sign transaction of {}", ownerAddress);
+      return false;
+    }
+    if (ownerAddressSet.contains(ownerAddress)) {
+      kht.setVerified(false);
+    }
+    if (!pendingTransactions.canAccept(kht)) {
+      logger.info("pending pool is full, drop transaction {}", kht.getTransactionId());
+      return false;
+    }
+
+    try (ISession tmpSession = revokingStore.buildSession()) {
+      accountStateCallBack.preExeTrans();
+      Protocol.TransactionInfo result = processPendingTransaction(kht, blockTemplate.getBlock());
+      accountStateCallBack.exeTransFinish();
+      tmpSession.merge();
+      if (isMultSignTransaction(kht.getInstance())) {
+        blockTemplate.getAccountSet().add(ownerAddress);
+      }
+      blockTemplate.addTransaction(kht, result);
+      // kept as pending too, so it is repushed if the template is dropped
+      pendingTransactions.add(kht);
+    }
+    return true;
+  }
+
+  /**
+   * process a transaction into the pending state, keeping the keys it read and wrote so it can be
+   * rebased onto the next head.
+   */
+  private Protocol.TransactionInfo processPendingTransaction(TransactionCapsule kht,
+      BlockCapsule block)
+      throws ValidateSignatureException, ContractValidateException, ContractExeException,
+      AccountResourceInsufficientException, TransactionExpirationException,
+      TooBigTransactionException, TooBigTransactionResultException, DupTransactionException,
+      TaposException, ReceiptCheckErrException, VMIllegalException {
+    StateDiff reads = new StateDiff();
+    revokingStore.recordReads(reads);
+    Protocol.TransactionInfo result;
+    try {
+      result = processTransaction(kht, block);
+    } finally {
+      revokingStore.recordReads(null);
+    }
+
+    StateDiff diff = revokingStore.getHeadDiff();
+    if (diff != null) {
+      diff.addReads(reads);
+    }
+    kht.setPendingDiff(diff);
+    return result;
+  }
+
+  /**
+   * Start filling the block the local witness produces at the given slot time. The pending
+   * transactions are moved to the repush pool, the repush thread applies them into the template.
+   */
+  public synchronized void prepareBlockTemplate(final WitnessCapsule witnessCapsule,
+      final long when) {
+    final Sha256Hash preHash = this.dynamicPropertiesStore.getLatestBlockHeaderHash();
+    if (blockTemplate != null && blockTemplate.matches(preHash, when, witnessCapsule.getAddress())) {
+      return;
+    }
+    if (when <= this.dynamicPropertiesStore.getLatestBlockHeaderTimestamp()) {
+      return;
+    }
+
+    final long number = this.dynamicPropertiesStore.getLatestBlockHeaderNumber();
+    List<TransactionCapsule> pending = pendingTransactions.getAll();
+    pendingTransactions.clear();
+    session.reset();
+    session.setValue(revokingStore.buildSession());
+
+    blockTemplate = new BlockTemplate(
+        new BlockCapsule(number + 1, preHash, when, witnessCapsule.getAddress()));
+    accountStateCallBack.preExecute(blockTemplate.getBlock());
+    pending.forEach(repushTransactions::add);
+    logger.info("prepare block template, num:{}, when:{}, repush kht count:{}",
+        number + 1, when, repushTransactions.size());
+  }
+
+  /**
+   * drop the block template, its transactions stay pending.
+   */
+  synchronized void discardBlockTemplate() {
+    if (blockTemplate != null) {
+      blockTemplate = null;
+      accountStateCallBack.exceptionFinish();
+    }
+  }
+
+  public boolean isBlockTemplateFull() {
+    BlockTemplate template = blockTemplate;
+    return template != null && template.isFull();
+  }
+
   public void consumeMultiSignFee(TransactionCapsule kht, TransactionTrace trace)
       throws AccountResourceInsufficientException {
     if (kht.getInstance().getSignatureCount() > 1) {
@@ -816,8 +960,20 @@ public class Manager {
 
   public void consumeBandwidth(TransactionCapsule kht, TransactionTrace trace)
       throws ContractValidateException, AccountResourceInsufficientException, TooBigTransactionResultException {
-    BandwidthProcessor processor = new BandwidthProcessor(this);
-    processor.consume(kht, trace);
+    getExecutionContext().getBandwidthProcessor().consume(kht, trace);
+  }
+
+  /**
+   * the execution context of the transactions on top of the current head.
+   */
+  public BlockExecutionContext getExecutionContext() {
+    BlockExecutionContext context = executionContext;
+    if (context == null || !Objects.equals(context.getParentHash(),
+        dynamicPropertiesStore.getLatestBlockHeaderHash())) {
+      context = new BlockExecutionContext(this);
+      executionContext = context;
+    }
+    return context;
   }
 
 
@@ -825,6 +981,7 @@ public class Manager {
    * when switch fork need erase blocks on fork branch.
    */
   public synchronized void eraseBlock() {
+    discardBlockTemplate();
     session.reset();
     try {
       BlockCapsule oldHeadBlock = getBlockById(
@@ -856,7 +1013,12 @@ public class Manager {
         block.getTransactions().size());
   }
 
-  private void applyBlock(BlockCapsule block) throws ContractValidateException,
+  /**
+   * apply a block on the head, the writes of a non maintenance block are kept in the khaos db.
+   *
+   * @return the writes of the block, null for a maintenance block.
+   */
+  private StateDiff applyBlock(BlockCapsule block) throws ContractValidateException,
       ContractExeException, ValidateSignatureException, AccountResourceInsufficientException,
       TransactionExpirationException, TooBigTransactionException, DupTransactionException,
       TaposException, ValidateScheduleException, ReceiptCheckErrException,
@@ -868,7 +1030,72 @@ public class Manager {
       this.transactionRetStore.put(ByteArray.fromLong(block.getNum()), block.getResult());
     }
 
+    finishApplyBlock(block);
+
+    // maintenance also changes the in memory witness schedule, it is always executed again
+    StateDiff diff = lastHeadBlockIsMaintenance() ? null : revokingStore.getHeadDiff();
+    KhaosBlock item = khaosDb.getMiniStore().getByHash(block.getBlockId());
+    if (item != null) {
+      khaosDb.getMiniStore().setStateDiff(item, block.getParentHash(), diff);
+    }
+    return diff;
+  }
+
+  /**
+   * apply a block executed before on the current head by replaying its writes.
+   *
+   * @return false if the block has no writes recorded for this parent.
+   */
+  private boolean reapplyBlock(KhaosBlock item) {
+    BlockCapsule block = item.getBlk();
+    StateDiff diff = item.getStateDiff(getDynamicPropertiesStore().getLatestBlockHeaderHash());
+    if (diff == null) {
+      return false;
+    }
+
+    revokingStore.applyDiff(diff);
+
+    // the in memory state processBlock keeps next to the stores
+    WitnessCapsule witnessCapsule = witnessStore.getUnchecked(
+        block.getWitnessAddress().toByteArray());
+    WitnessCapsule wit = witnessController.getWitnesseByAddress(block.getWitnessAddress());
+    if (witnessCapsule != null && wit != null) {
+      wit.setTotalProduced(witnessCapsule.getTotalProduced());
+      wit.setLatestBlockNum(witnessCapsule.getLatestBlockNum());
+      wit.setLatestSlotNum(witnessCapsule.getLatestSlotNum());
+    }
+    this.latestSolidifiedBlockNumber = getDynamicPropertiesStore().getLatestSolidifiedBlockNum();
+    updateTransHashCache(block);
+    for (TransactionCapsule kht : block.getTransactions()) {
+      if (kht.getkhtTrace() != null) {
+        postContractTrigger(kht.getkhtTrace(), false);
+      }
+      if (isMultSignTransaction(kht.getInstance())) {
+        ownerAddressSet.add(ByteArray.toHexString(
+            TransactionCapsule.getOwner(kht.getInstance().getRawData().getContract(0))));
+      }
+    }
+
+    finishApplyBlock(block);
+    logger.info("reapply block {} from its recorded writes, {} keys", block.getBlockId(),
+        diff.size());
+    return true;
+  }
+
+  /**
+   * the steps after the writes of a block are in place, executed by applyBlock or replayed by
+   * reapplyBlock.
+   */
+  private void finishApplyBlock(BlockCapsule block) {
+    int maxSize = (int) (getDynamicPropertiesStore().getLatestBlockHeaderNumber()
+        - getDynamicPropertiesStore().getLatestSolidifiedBlockNum() + 1);
+    revokingStore.setMaxSize(maxSize);
+    khaosDb.setMaxSize(maxSize);
     updateFork(block);
+    updateMaxFlushCount(block);
+  }
+
+  private void updateMaxFlushCount(BlockCapsule block) {
     if (System.currentTimeMillis() - block.getTimeStamp() >= 60_000) {
       revokingStore.setMaxFlushCount(SnapshotManager.DEFAULT_MAX_FLUSH_COUNT);
     } else {
@@ -915,7 +1142,9 @@ public class Manager {
         Exception exception = null;
         // todo  process the exception carefully later
         try (ISession tmpSession = revokingStore.buildSession()) {
-          applyBlock(item.getBlk());
+          if (!reapplyBlock(item)) {
+            applyBlock(item.getBlk());
+          }
           tmpSession.commit();
         } catch (AccountResourceInsufficientException
             | ValidateSignatureException
@@ -952,7 +1181,9 @@ public class Manager {
             for (KhaosBlock khaosBlock : second) {
               // todo  process the exception carefully later
               try (ISession tmpSession = revokingStore.buildSession()) {
-                applyBlock(khaosBlock.getBlk());
+                if (!reapplyBlock(khaosBlock)) {
+                  applyBlock(khaosBlock.getBlk());
+                }
                 tmpSession.commit();
               } catch (AccountResourceInsufficientException
                   | ValidateSignatureException
@@ -982,6 +1213,7 @@ public class Manager {
       BadNumberBlockException, BadBlockException, NonCommonBlockException,
       ReceiptCheckErrException, VMIllegalException {
     long start = System.currentTimeMillis();
+    appliedBlockDiff = null;
     try (PendingManager pm = new PendingManager(this)) {
 
       if (!block.generatedByMyself) {
@@ -1068,7 +1300,7 @@ public class Manager {
         }
         try (ISession tmpSession = revokingStore.buildSession()) {
 
-          applyBlock(newBlock);
+          appliedBlockDiff = applyBlock(newBlock);
           tmpSession.commit();
           // if event subscribe is enabled, post solidity trigger to queue
           postSolidityTrigger(getDynamicPropertiesStore().getLatestSolidifiedBlockNum());
@@ -1086,7 +1318,7 @@ public class Manager {
     synchronized (pushTransactionQueue) {
       if (CollectionUtils.isNotEmpty(ownerAddressSet)) {
         Set<String> result = new HashSet<>();
-        for (TransactionCapsule transactionCapsule : repushTransactions) {
+        for (TransactionCapsule transactionCapsule : repushTransactions.getAll()) {
           filterOwnerAddress(transactionCapsule, result);
         }
         for (TransactionCapsule transactionCapsule : pushTransactionQueue) {
@@ -1100,6 +1332,9 @@ public class Manager {
         block.getNum(),
         System.currentTimeMillis() - start,
         block.getTransactions().size());
+    logger.debug("code cache: {}, contract cache: {}, storage cache: {}",
+        codeStore.getCacheStats(), contractStore.getCacheStats(),
+        storageRowStore.getCacheStats());
   }
 
   public void updateDynamicProperties(BlockCapsule block) {
@@ -1238,16 +1473,14 @@ public class Manager {
       throw new ValidateSignatureException("trans sig validate failed");
     }
 
-    TransactionTrace trace = new TransactionTrace(khtCap, this);
+    BlockExecutionContext context = getExecutionContext();
+    TransactionTrace trace = new TransactionTrace(khtCap, this, context);
     khtCap.setkhtTrace(trace);
 
-    consumeBandwidth(khtCap, trace);
+    context.getBandwidthProcessor().consume(khtCap, trace);
     consumeMultiSignFee(khtCap, trace);
 
-    VMConfig.initVmHardFork();
-    VMConfig.initAllowMultiSign(dynamicPropertiesStore.getAllowMultiSign());
-    VMConfig.initAllowTvmTransferTrc10(dynamicPropertiesStore.getAllowTvmTransferTrc10());
-    VMConfig.initAllowTvmConstantinople(dynamicPropertiesStore.getAllowTvmConstantinople());
+    context.applyVmConfig();
     trace.init(blockCap, eventPluginLoaded);
     trace.checkIsConstant();
     trace.exec();
@@ -1270,7 +1503,7 @@ public class Manager {
     }
 
     trace.finalization();
-    if (Objects.nonNull(blockCap) && getDynamicPropertiesStore().supportVM()) {
+    if (Objects.nonNull(blockCap) && context.isSupportVM()) {
       khtCap.setResult(trace.getRuntime());
     }
     transactionStore.put(khtCap.getTransactionId().getBytes(), khtCap);
@@ -1337,32 +1570,41 @@ public class Manager {
 
     long postponedkhtCount = 0;
 
-    final BlockCapsule blockCapsule =
-        new BlockCapsule(number + 1, preHash, when, witnessCapsule.getAddress());
-    blockCapsule.generatedByMyself = true;
-    session.reset();
-    session.setValue(revokingStore.buildSession());
-    //
-    accountStateCallBack.preExecute(blockCapsule);
+    BlockTemplate template = blockTemplate;
+    blockTemplate = null;
+    if (template != null && !template.matches(preHash, when, witnessCapsule.getAddress())) {
+      logger.info("drop stale block template, num:{}, when:{}",
+          template.getBlock().getNum(), template.getBlock().getTimeStamp());
+      template = null;
+    }
+    if (template == null) {
+      template = new BlockTemplate(
+          new BlockCapsule(number + 1, preHash, when, witnessCapsule.getAddress()));
+      session.reset();
+      session.setValue(revokingStore.buildSession());
+      //
+      accountStateCallBack.preExecute(template.getBlock());
+    } else {
+      logger.info("use block template, kht count:{}", template.size());
+    }
+    final BlockCapsule blockCapsule = template.getBlock();
 
     if (needCheckWitnessPermission && !witnessService.
         validateWitnessPermission(witnessCapsule.getAddress())) {
       logger.warn("Witness permission is wrong");
       return null;
     }
-    TransactionRetCapsule transationRetCapsule =
-        new TransactionRetCapsule(blockCapsule);
-
-    Set<String> accountSet = new HashSet<>();
-    Iterator<TransactionCapsule> iterator = pendingTransactions.iterator();
-    while (iterator.hasNext() || repushTransactions.size() > 0) {
-      boolean fromPending = false;
-      TransactionCapsule kht;
-      if (iterator.hasNext()) {
-        fromPending = true;
-        kht = (TransactionCapsule) iterator.next();
-      } else {
-        kht = repushTransactions.poll();
+    TransactionRetCapsule transationRetCapsule = template.getResult();
+
+    Set<String> accountSet = template.getAccountSet();
+    // owners whose oldest transaction did not fit, their later ones have to wait too
+    Set<String> postponedOwnerSet = new HashSet<>();
+    List<TransactionCapsule> candidates = pendingTransactions.getAll();
+    candidates.addAll(repushTransactions.getAll());
+    for (TransactionCapsule kht : candidates) {
+      if (template.contains(kht)) {
+        pendingTransactions.remove(kht);
+        continue;
       }
 
       if (DateTime.now().getMillis() - when
@@ -1373,17 +1615,23 @@ public class Manager {
         break;
       }
 
+      Protocol.Transaction.Contract contract = kht.getInstance().getRawData().getContract(0);
+      byte[] owner = TransactionCapsule.getOwner(contract);
+      String ownerAddress = ByteArray.toHexString(owner);
+
       // check the block size
-      if ((blockCapsule.getInstance().getSerializedSize() + kht.getSerializedSize() + 3)
+      if (postponedOwnerSet.contains(ownerAddress)
+          || (blockCapsule.getInstance().getSerializedSize() + kht.getSerializedSize() + 3)
           > ChainConstant.BLOCK_SIZE) {
+        postponedOwnerSet.add(ownerAddress);
         postponedkhtCount++;
         continue;
       }
 
-      //
-      Protocol.Transaction.Contract contract = kht.getInstance().getRawData().getContract(0);
-      byte[] owner = TransactionCapsule.getOwner(contract);
-      String ownerAddress = ByteArray.toHexString(owner);
+      boolean fromPending = pendingTransactions.contains(kht.getTransactionId());
+      if (!fromPending) {
+        repushTransactions.remove(kht);
+      }
       if (accountSet.contains(ownerAddress)) {
         continue;
       } else {
@@ -1401,13 +1649,9 @@ public class Manager {
         accountStateCallBack.exeTransFinish();
         tmpSeesion.merge();
         // push into block
-        blockCapsule.addTransaction(kht);
-
-        if (Objects.nonNull(result)) {
-          transationRetCapsule.addTransactionInfo(result);
-        }
+        template.addTransaction(kht, result);
         if (fromPending) {
-          iterator.remove();
+          pendingTransactions.remove(kht);
         }
       } catch (ContractExeException e) {
         logger.info("contract not processed during execute");
@@ -1501,6 +1745,62 @@ public class Manager {
     }
   }
 
+  /**
+   * Keep a pending transaction across the block just applied by replaying its writes, if the
+   * block did not write any key the transaction read or wrote. The writes are the values the
+   * transaction left on top of the pending transactions before it, so the caller replays the
+   * pending transactions in their order and stops at the first one that is not replayed.
+   *
+   * @return false if the transaction has to be re-executed through the repush queue.
+   */
+  boolean rebasePendingTransaction(TransactionCapsule kht) {
+    StateDiff diff = kht.getPendingDiff();
+    if (appliedBlockDiff == null || diff == null || isVmTransaction(kht.getInstance())
+        || diff.dependsOn(appliedBlockDiff, this::isLatestBlockHeaderRead)) {
+      return false;
+    }
+
+    try {
+      validateTapos(kht);
+      validateCommon(kht);
+    } catch (TaposException | TransactionExpirationException | TooBigTransactionException e) {
+      // the repush queue drops it
+      logger.debug("pending manager: do not rebase transaction, {}", e.getMessage());
+      return false;
+    }
+
+    if (!pendingTransactions.add(kht)) {
+      logger.debug("pending manager: pending pool is full, do not rebase transaction");
+      return false;
+    }
+    if (!session.valid()) {
+      session.setValue(revokingStore.buildSession());
+    }
+    revokingStore.applyDiff(diff);
+    return true;
+  }
+
+  // every transaction reads the head slot for its bandwidth and every block writes its header.
+  // The slot only moves the usage windows of the pending state, the transaction is executed again
+  // when it is packed into a block.
+  private boolean isLatestBlockHeaderRead(String dbName, Key key) {
+    return dbName.equals(dynamicPropertiesStore.getDbName())
+        && DynamicPropertiesStore.isLatestBlockHeaderKey(key.getBytes());
+  }
+
+  // the storage a contract reads is not part of its writes, so its dependencies are unknown
+  private boolean isVmTransaction(Transaction transaction) {
+    Contract contract = transaction.getRawData().getContract(0);
+    switch (contract.getType()) {
+      case TriggerSmartContract:
+      case CreateSmartContract: {
+        return true;
+      }
+      default:
+    }
+    return false;
+  }
+
   private boolean isMultSignTransaction(Transaction transaction) {
     Contract contract = transaction.getRawData().getContract(0);
     switch (contract.getType()) {
@@ -1793,6 +2093,7 @@ public class Manager {
     closeOneStore(transactionStore);
     closeOneStore(codeStore);
     closeOneStore(contractStore);
+    closeOneStore(abiStore);
     closeOneStore(storageRowStore);
     closeOneStore(exchangeStore);
     closeOneStore(peersStore);
@@ -1800,6 +2101,7 @@ public class Manager {
     closeOneStore(recentBlockStore);
     closeOneStore(transactionHistoryStore);
     closeOneStore(votesStore);
+    closeOneStore(voteTallyStore);
     closeOneStore(delegatedResourceStore);
     closeOneStore(delegatedResourceAccountIndexStore);
     closeOneStore(assetIssueV2Store);
@@ -1819,9 +2121,8 @@ public class Manager {
     }
   }
 
-  public boolean isTooManyPending() {
-    return getPendingTransactions().size() + getRepushTransactions().size()
-        > Parameter.NodeConstant.MAX_TRANSACTION_PENDING;
+  public boolean isTooManyPending(TransactionCapsule kht) {
+    return !getPendingTransactions().canAccept(kht);
   }
 
   public boolean isGeneratingBlock() {
@@ -1831,32 +2132,6 @@ public class Manager {
     return false;
   }
 
-  private static class ValidateSignTask implements Callable<Boolean> {
-
-    private TransactionCapsule kht;
-    private CountDownLatch countDownLatch;
-    private Manager manager;
-
-    ValidateSignTask(TransactionCapsule kht, CountDownLatch countDownLatch,
-        Manager manager) {
-      this.kht = kht;
-      this.countDownLatch = countDownLatch;
-      this.manager = manager;
-    }
-
-    @Override
-    public Boolean call() throws ValidateSignatureException {
-      try {
-        kht.validateSignature(manager);
-      } catch (ValidateSignatureException e) {
-        throw e;
-      } finally {
-        countDownLatch.countDown();
-      }
-      return true;
-    }
-  }
-
   public void preValidateTransactionSign(BlockCapsule block)
       throws InterruptedException, ValidateSignatureException {
     logger.info("PreValidate Transaction Sign, size:" + block.getTransactions().size()
@@ -1865,22 +2140,13 @@ public class Manager {
     if (transSize <= 0) {
       return;
     }
-    CountDownLatch countDownLatch = new CountDownLatch(transSize);
-    List<Future<Boolean>> futures = new ArrayList<>(transSize);
-
-    for (TransactionCapsule transaction : block.getTransactions()) {
-      Future<Boolean> future = validateSignService
-          .submit(new ValidateSignTask(transaction, countDownLatch, this));
-      futures.add(future);
-    }
-    countDownLatch.await();
-
-    for (Future<Boolean> future : futures) {
-      try {
-        future.get();
-      } catch (ExecutionException e) {
-        throw new ValidateSignatureException(e.getCause().getMessage());
-      }
+    try {
+      SignatureVerifier.instance().submit(Lane.BLOCK, block.getTransactions(), kht -> {
+        kht.validateSignature(this);
+        return true;
+      }).get();
+    } catch (ExecutionException e) {
+      throw new ValidateSignatureException(e.getCause().getMessage());
     }
   }
 
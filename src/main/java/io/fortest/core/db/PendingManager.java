@@ -18,7 +18,8 @@ public class PendingManager implements AutoCloseable {
   public PendingManager(Manager db) {
 
     this.dbManager = db;
-    tmpTransactions.addAll(db.getPendingTransactions());
+    db.discardBlockTemplate();
+    tmpTransactions.addAll(db.getPendingTransactions().getAll());
     db.getPendingTransactions().clear();
     db.getSession().reset();
   }
@@ -26,30 +27,39 @@ public class PendingManager implements AutoCloseable {
   @Override
   public void close() {
 
+    // the writes of a transaction were made on top of the ones before it, once one is not
+    // replayed as it was the rest are executed again
+    int rebased = 0;
+    boolean rebasing = true;
     for (TransactionCapsule tx : tmpTransactions) {
-      try {
-        if (tx.getkhtTrace() != null &&
-            tx.getkhtTrace().getTimeResultType().equals(TimeResultType.NORMAL)) {
-          dbManager.getRepushTransactions().put(tx);
+      if (tx.getkhtTrace() != null &&
+          tx.getkhtTrace().getTimeResultType().equals(TimeResultType.NORMAL)) {
+        if (rebasing && dbManager.rebasePendingTransaction(tx)) {
+          rebased++;
+        } else {
+          rebasing = false;
+          dbManager.getRepushTransactions().add(tx);
         }
-      } catch (InterruptedException e) {
-        logger.error(e.getMessage());
-        Thread.currentThread().interrupt();
+      } else {
+        rebasing = false;
       }
     }
+    logger.debug("pending manager: rebased {} of {} pending transactions", rebased,
+        tmpTransactions.size());
     tmpTransactions.clear();
 
     for (TransactionCapsule tx : dbManager.getPoppedTransactions()) {
-      try {
-        if (tx.getkhtTrace() != null &&
-            tx.getkhtTrace().getTimeResultType().equals(TimeResultType.NORMAL)) {
-          dbManager.getRepushTransactions().put(tx);
-        }
-      } catch (InterruptedException e) {
-        logger.error(e.getMessage());
-        Thread.currentThread().interrupt();
+      if (tx.getkhtTrace() != null &&
+          tx.getkhtTrace().getTimeResultType().equals(TimeResultType.NORMAL)) {
+        dbManager.getRepushTransactions().add(tx);
       }
     }
     dbManager.getPoppedTransactions().clear();
+
+    int expired = dbManager.getRepushTransactions()
+        .removeExpired(dbManager.getHeadBlockTimeStamp());
+    if (expired > 0) {
+      logger.debug("pending manager: drop {} expired transactions", expired);
+    }
   }
 }
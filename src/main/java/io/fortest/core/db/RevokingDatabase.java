@@ -3,6 +3,7 @@ package io.fortest.core.db;
 import io.fortest.core.exception.RevokingStoreIllegalStateException;
 import io.fortest.core.db2.common.IRevokingDB;
 import io.fortest.core.db2.core.ISession;
+import io.fortest.core.db2.core.StateDiff;
 
 public interface RevokingDatabase {
 
@@ -38,4 +39,25 @@ public interface RevokingDatabase {
 
   void shutdown();
 
+  /**
+   * the writes of the newest layer, or null if this database can not provide them.
+   */
+  StateDiff getHeadDiff();
+
+  /**
+   * replay the writes of a layer into the newest layer.
+   */
+  void applyDiff(StateDiff diff);
+
+  /**
+   * record the keys the calling thread reads into the diff, stops recording on null.
+   */
+  void recordReads(StateDiff reads);
+
+  /**
+   * a number that changes with every change of the state the newest layer shows, -1 if this
+   * database does not track it.
+   */
+  long getStateVersion();
+
 }
@@ -1,6 +1,8 @@
 package io.fortest.core.db;
 
+import com.google.common.cache.CacheStats;
 import io.fortest.core.capsule.StorageRowCapsule;
+import io.fortest.core.config.Parameter.NodeConstant;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +12,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class StorageRowStore extends khcStoreWithRevoking<StorageRowCapsule> {
 
+  // hot slots are read by many transactions of a block and across blocks, empty slots included
+  private final StoreCache<byte[]> cache = new StoreCache<>(revokingDB,
+      NodeConstant.MAX_STORAGE_CACHE_BYTES, value -> value.length);
+
   @Autowired
   private StorageRowStore(@Value("storage-row") String dbName) {
     super(dbName);
@@ -17,8 +23,13 @@ public class StorageRowStore extends khcStoreWithRevoking<StorageRowCapsule> {
 
   @Override
   public StorageRowCapsule get(byte[] key) {
-    StorageRowCapsule row = getUnchecked(key);
+    byte[] value = cache.get(key, revokingDB::getUnchecked);
+    StorageRowCapsule row = new StorageRowCapsule(value == null ? null : value.clone());
     row.setRowKey(key);
     return row;
   }
+
+  public CacheStats getCacheStats() {
+    return cache.stats();
+  }
 }
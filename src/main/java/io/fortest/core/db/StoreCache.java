@@ -0,0 +1,91 @@
+package io.fortest.core.db;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.function.Function;
+
+import io.fortest.core.db.common.WrappedByteArray;
+import io.fortest.core.db2.common.IRevokingDB;
+import io.fortest.core.db2.core.RevokingDBWithCachingNewValue;
+
+/**
+ * A read-through cache of decoded values over a revoking store, shared by every session, thread
+ * and block. The store tells the cache every key it changes, a write, a revoked layer or an applied
+ * diff, so an entry is served until its key changes. Keys without a value are cached as well. A
+ * hit is recorded as a read of the store, like a miss.
+ */
+public class StoreCache<V> {
+
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private final RevokingDBWithCachingNewValue revokingDB;
+  private final Cache<WrappedByteArray, Entry<V>> cache;
+
+  /**
+   * @param weigher the bytes of a value, never called with null.
+   */
+  public StoreCache(IRevokingDB revokingDB, long maxBytes, Function<V, Integer> weigher) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((WrappedByteArray k, Entry<V> v) -> ENTRY_OVERHEAD + k.getBytes().length
+            + (v.value == null ? 0 : weigher.apply(v.value)))
+        .recordStats()
+        .build();
+    if (revokingDB instanceof RevokingDBWithCachingNewValue) {
+      this.revokingDB = (RevokingDBWithCachingNewValue) revokingDB;
+      this.revokingDB.setChangeListener(this::invalidate);
+    } else {
+      this.revokingDB = null;
+    }
+  }
+
+  /**
+   * the value of the key, read from the store and decoded on a miss.
+   *
+   * @param loader reads and decodes the value, null if there is none.
+   */
+  public V get(byte[] key, Function<byte[], V> loader) {
+    if (revokingDB == null || revokingDB.isSolidity()) {
+      return loader.apply(key);
+    }
+
+    Entry<V> entry = cache.getIfPresent(WrappedByteArray.of(key));
+    if (entry != null) {
+      // the store does not see the read, a pending transaction still depends on the key
+      revokingDB.recordRead(key);
+      return entry.value;
+    }
+
+    // a value read while the store changed may already be stale, it is not kept
+    long version = revokingDB.getVersion();
+    V value = loader.apply(key);
+    synchronized (this) {
+      if (revokingDB.getVersion() == version) {
+        cache.put(WrappedByteArray.copyOf(key), new Entry<>(value));
+      }
+    }
+    return value;
+  }
+
+  private synchronized void invalidate(byte[] key) {
+    if (key == null) {
+      cache.invalidateAll();
+    } else {
+      cache.invalidate(WrappedByteArray.of(key));
+    }
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static class Entry<V> {
+
+    private final V value;
+
+    private Entry(V value) {
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package io.fortest.core.db;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import io.fortest.common.utils.Sha256Hash;
+import io.fortest.core.capsule.TransactionCapsule;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of not yet packed transactions, indexed by id, owner and expiration.
+ *
+ * <p>Transactions are kept in arrival order. The pool enforces a byte budget per owner and in
+ * total and turns away new transactions once either is exhausted. It never evicts: a fee limit is
+ * only a cap on what a transaction may pay, ranking by it would let a sender buy the place of
+ * transactions already waiting, and a pool applied to the pending state would keep the writes of
+ * an evicted transaction while the transaction is gone.
+ */
+@Slf4j(topic = "DB")
+public class TransactionPool {
+
+  private static final Comparator<Entry> EXPIRATION = Comparator
+      .comparingLong((Entry e) -> e.expiration)
+      .thenComparingLong(e -> e.sequence);
+
+  private final long maxBytes;
+  private final long maxOwnerBytes;
+
+  private final Map<Sha256Hash, Entry> byId = new LinkedHashMap<>();
+  private final Map<ByteString, Long> ownerBytes = new HashMap<>();
+  private final TreeSet<Entry> byExpiration = new TreeSet<>(EXPIRATION);
+
+  private long sequence = 0;
+  @Getter
+  private long totalBytes = 0;
+
+  public TransactionPool(long maxBytes, long maxOwnerBytes) {
+    this.maxBytes = maxBytes;
+    this.maxOwnerBytes = maxOwnerBytes;
+  }
+
+  /**
+   * whether the transaction would be admitted.
+   */
+  public synchronized boolean canAccept(TransactionCapsule kht) {
+    if (byId.containsKey(kht.getTransactionId())) {
+      return false;
+    }
+
+    long size = kht.getSerializedSize();
+    return ownerBytes.getOrDefault(getOwner(kht), 0L) + size <= maxOwnerBytes
+        && totalBytes + size <= maxBytes;
+  }
+
+  /**
+   * add a transaction behind the ones already in the pool.
+   *
+   * @return false if the transaction was not admitted.
+   */
+  public synchronized boolean add(TransactionCapsule kht) {
+    Sha256Hash id = kht.getTransactionId();
+    if (byId.containsKey(id)) {
+      return false;
+    }
+
+    ByteString owner = getOwner(kht);
+    Entry entry = new Entry(kht, id, owner, sequence++);
+    long bytes = ownerBytes.getOrDefault(owner, 0L);
+    if (bytes + entry.size > maxOwnerBytes) {
+      logger.debug("pending pool: owner budget exceeded, {}", id);
+      return false;
+    }
+    if (totalBytes + entry.size > maxBytes) {
+      logger.debug("pending pool: total budget exceeded, {}", id);
+      return false;
+    }
+
+    ownerBytes.put(owner, bytes + entry.size);
+    byId.put(id, entry);
+    byExpiration.add(entry);
+    totalBytes += entry.size;
+    return true;
+  }
+
+  public synchronized boolean remove(TransactionCapsule kht) {
+    Entry entry = byId.get(kht.getTransactionId());
+    if (entry == null) {
+      return false;
+    }
+
+    remove(entry);
+    return true;
+  }
+
+  private void remove(Entry entry) {
+    byId.remove(entry.id);
+    byExpiration.remove(entry);
+    totalBytes -= entry.size;
+
+    long bytes = ownerBytes.get(entry.owner) - entry.size;
+    if (bytes == 0) {
+      ownerBytes.remove(entry.owner);
+    } else {
+      ownerBytes.put(entry.owner, bytes);
+    }
+  }
+
+  public synchronized boolean contains(Sha256Hash id) {
+    return byId.containsKey(id);
+  }
+
+  /**
+   * the oldest transaction.
+   */
+  public synchronized TransactionCapsule peek() {
+    return byId.isEmpty() ? null : byId.values().iterator().next().kht;
+  }
+
+  public synchronized TransactionCapsule poll() {
+    if (byId.isEmpty()) {
+      return null;
+    }
+
+    Entry entry = byId.values().iterator().next();
+    remove(entry);
+    return entry.kht;
+  }
+
+  /**
+   * drop the transactions expiring at or before the time.
+   *
+   * @return the number of dropped transactions.
+   */
+  public synchronized int removeExpired(long time) {
+    int count = 0;
+    while (!byExpiration.isEmpty() && byExpiration.first().expiration <= time) {
+      remove(byExpiration.first());
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * all transactions in arrival order.
+   */
+  public synchronized List<TransactionCapsule> getAll() {
+    List<TransactionCapsule> result = new ArrayList<>(byId.size());
+    byId.values().forEach(e -> result.add(e.kht));
+    return result;
+  }
+
+  public synchronized int size() {
+    return byId.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return byId.isEmpty();
+  }
+
+  public synchronized boolean isFull() {
+    return totalBytes >= maxBytes;
+  }
+
+  public synchronized void clear() {
+    byId.clear();
+    ownerBytes.clear();
+    byExpiration.clear();
+    totalBytes = 0;
+  }
+
+  private static ByteString getOwner(TransactionCapsule kht) {
+    byte[] owner = TransactionCapsule.getOwner(kht.getInstance().getRawData().getContract(0));
+    return owner == null ? ByteString.EMPTY : ByteString.copyFrom(owner);
+  }
+
+  private static class Entry {
+
+    private final TransactionCapsule kht;
+    private final Sha256Hash id;
+    private final ByteString owner;
+    private final long sequence;
+    private final long size;
+    private final long expiration;
+
+    private Entry(TransactionCapsule kht, Sha256Hash id, ByteString owner, long sequence) {
+      this.kht = kht;
+      this.id = id;
+      this.owner = owner;
+      this.sequence = sequence;
+      this.size = kht.getSerializedSize();
+      this.expiration = kht.getExpiration();
+    }
+  }
+}
@@ -43,6 +43,7 @@ public class TransactionTrace {
 
   private Runtime runtime;
 
+  @Getter
   private EnergyProcessor energyProcessor;
 
   private InternalTransaction.khtType khtType;
@@ -64,6 +65,11 @@ public class TransactionTrace {
   private TimeResultType timeResultType = TimeResultType.NORMAL;
 
   public TransactionTrace(TransactionCapsule kht, Manager dbManager) {
+    this(kht, dbManager, dbManager.getExecutionContext());
+  }
+
+  public TransactionTrace(TransactionCapsule kht, Manager dbManager,
+      BlockExecutionContext context) {
     this.kht = kht;
     Protocol.Transaction.Contract.ContractType contractType = this.kht.getInstance().getRawData()
         .getContract(0).getType();
@@ -81,7 +87,7 @@ public class TransactionTrace {
     this.dbManager = dbManager;
     this.receipt = new ReceiptCapsule(Sha256Hash.ZERO_HASH);
 
-    this.energyProcessor = new EnergyProcessor(this.dbManager);
+    this.energyProcessor = context.getEnergyProcessor();
   }
 
   private boolean needVM() {
@@ -101,27 +107,27 @@ public class TransactionTrace {
   }
 
   public void checkIsConstant() throws ContractValidateException, VMIllegalException {
-    if (VMConfig.allowTvmConstantinople()) {
+    if (VMConfig.allowTvmConstantinople()
+        || InternalTransaction.khtType.kht_CONTRACT_CALL_TYPE != this.khtType) {
       return;
     }
 
     Contract.TriggerSmartContract triggerContractFromTransaction = ContractCapsule
         .getTriggerContractFromTransaction(this.getkht().getInstance());
-    if (InternalTransaction.khtType.kht_CONTRACT_CALL_TYPE == this.khtType) {
-      DepositImpl deposit = DepositImpl.createRoot(dbManager);
-      ContractCapsule contract = deposit
-          .getContract(triggerContractFromTransaction.getContractAddress().toByteArray());
-      if (contract == null) {
-        logger.info("contract: {} is not in contract store", Wallet
-            .encode58Check(triggerContractFromTransaction.getContractAddress().toByteArray()));
-        throw new ContractValidateException("contract: " + Wallet
-            .encode58Check(triggerContractFromTransaction.getContractAddress().toByteArray())
-            + " is not in contract store");
-      }
-      Protocol.SmartContract.ABI abi = contract.getInstance().getAbi();
-      if (Wallet.isConstant(abi, triggerContractFromTransaction)) {
-        throw new VMIllegalException("cannot call constant method");
-      }
+    DepositImpl deposit = DepositImpl.createRoot(dbManager);
+    ContractCapsule contract = deposit
+        .getContract(triggerContractFromTransaction.getContractAddress().toByteArray());
+    if (contract == null) {
+      logger.info("contract: {} is not in contract store", Wallet
+          .encode58Check(triggerContractFromTransaction.getContractAddress().toByteArray()));
+      throw new ContractValidateException("contract: " + Wallet
+          .encode58Check(triggerContractFromTransaction.getContractAddress().toByteArray())
+          + " is not in contract store");
+    }
+    Protocol.SmartContract.ABI abi = dbManager.getContractStore()
+        .getABI(triggerContractFromTransaction.getContractAddress().toByteArray());
+    if (Wallet.isConstant(abi, triggerContractFromTransaction)) {
+      throw new VMIllegalException("cannot call constant method");
     }
   }
 
@@ -0,0 +1,68 @@
+package io.fortest.core.db;
+
+import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.fortest.common.utils.ByteArray;
+import io.fortest.core.capsule.BytesCapsule;
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The vote change of every witness in the current maintenance period, kept up to date on every
+ * write of the votes store, so the maintenance does not have to aggregate the votes store.
+ */
+@Component
+public class VoteTallyStore extends khcStoreWithRevoking<BytesCapsule> {
+
+  @Autowired
+  private VoteTallyStore(@Value("vote-tally") String dbName) {
+    super(dbName);
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = revokingDB.getUnchecked(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  public long getTally(byte[] address) {
+    BytesCapsule value = get(address);
+    return value == null ? 0 : ByteArray.toLong(value.getData());
+  }
+
+  public void addTally(byte[] address, long delta) {
+    if (delta == 0) {
+      return;
+    }
+
+    long tally = getTally(address) + delta;
+    if (tally == 0) {
+      delete(address);
+    } else {
+      put(address, new BytesCapsule(ByteArray.fromLong(tally)));
+    }
+  }
+
+  public Map<ByteString, Long> getAllTallies() {
+    Map<ByteString, Long> tallies = Maps.newHashMap();
+    Iterator<Map.Entry<byte[], byte[]>> iterator = revokingDB.iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<byte[], byte[]> entry = iterator.next();
+      tallies.put(ByteString.copyFrom(entry.getKey()), ByteArray.toLong(entry.getValue()));
+    }
+    return tallies;
+  }
+
+  public void clear() {
+    List<byte[]> keys = new ArrayList<>();
+    revokingDB.iterator().forEachRemaining(e -> keys.add(e.getKey()));
+    keys.forEach(this::delete);
+  }
+}
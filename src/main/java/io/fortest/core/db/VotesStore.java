@@ -1,5 +1,11 @@
 package io.fortest.core.db;
 
+import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import io.fortest.core.capsule.VotesCapsule;
 import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +15,9 @@ import org.springframework.stereotype.Component;
 @Component
 public class VotesStore extends khcStoreWithRevoking<VotesCapsule> {
 
+  @Autowired
+  private VoteTallyStore voteTallyStore;
+
   @Autowired
   public VotesStore(@Value("votes") String dbName) {
     super(dbName);
@@ -19,4 +28,43 @@ public class VotesStore extends khcStoreWithRevoking<VotesCapsule> {
     byte[] value = revokingDB.getUnchecked(key);
     return ArrayUtils.isEmpty(value) ? null : new VotesCapsule(value);
   }
-}
\ No newline at end of file
+
+  /**
+   * put the votes and move the vote tally by the difference to the replaced votes.
+   */
+  @Override
+  public void put(byte[] key, VotesCapsule item) {
+    Map<ByteString, Long> delta = getVoteChange(item);
+    VotesCapsule previous = get(key);
+    if (previous != null) {
+      getVoteChange(previous).forEach((address, count) -> delta.merge(address, -count, Long::sum));
+    }
+
+    super.put(key, item);
+    delta.forEach((address, count) -> voteTallyStore.addTally(address.toByteArray(), count));
+  }
+
+  /**
+   * delete all votes without touching the vote tally, at the end of a maintenance period.
+   *
+   * @return the number of deleted votes.
+   */
+  public int deleteAll() {
+    List<byte[]> keys = new ArrayList<>();
+    revokingDB.iterator().forEachRemaining(e -> keys.add(e.getKey()));
+    keys.forEach(this::delete);
+    return keys.size();
+  }
+
+  /**
+   * the vote change of every witness in the votes, new votes minus old votes.
+   */
+  public static Map<ByteString, Long> getVoteChange(VotesCapsule votes) {
+    Map<ByteString, Long> change = Maps.newHashMap();
+    votes.getOldVotes().forEach(vote ->
+        change.merge(vote.getVoteAddress(), -vote.getVoteCount(), Long::sum));
+    votes.getNewVotes().forEach(vote ->
+        change.merge(vote.getVoteAddress(), vote.getVoteCount(), Long::sum));
+    return change;
+  }
+}
@@ -83,4 +83,9 @@ public final class Value {
 
     return Arrays.copyOf(value, value.length);
   }
+
+  public int length() {
+    byte[] value = data.getBytes();
+    return value == null ? 0 : value.length;
+  }
 }
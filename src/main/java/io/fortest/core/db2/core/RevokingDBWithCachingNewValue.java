@@ -9,6 +9,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import io.fortest.common.utils.ByteUtil;
@@ -16,6 +17,7 @@ import io.fortest.core.config.args.Args;
 import io.fortest.core.db.common.WrappedByteArray;
 import io.fortest.core.exception.ItemNotFoundException;
 import lombok.Getter;
+import lombok.Setter;
 import io.fortest.core.db2.common.DB;
 import io.fortest.core.db2.common.IRevokingDB;
 import io.fortest.core.db2.common.LevelDB;
@@ -30,6 +32,14 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
   @Getter
   private String dbName;
   private Class<? extends DB> clz;
+  @Setter
+  private SnapshotManager snapshotManager;
+  // bumped after every change of the values the head shows, for caches over this store
+  @Getter
+  private volatile long version = 0;
+  // told the key of every change after the version is bumped, null if all keys may have changed
+  @Setter
+  private Consumer<byte[]> changeListener;
 
   public RevokingDBWithCachingNewValue(String dbName, Class<? extends DB> clz) {
     this.dbName = dbName;
@@ -43,6 +53,27 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
     this.mode.set(mode);
   }
 
+  public boolean isSolidity() {
+    return mode.get() != null && !mode.get();
+  }
+
+  /**
+   * mark the values of the keys as changed, for layers that are dropped or written directly.
+   */
+  public synchronized void touch(Iterable<byte[]> keys) {
+    ++version;
+    if (changeListener != null) {
+      keys.forEach(changeListener);
+    }
+  }
+
+  private void changed(byte[] key) {
+    ++version;
+    if (changeListener != null) {
+      changeListener.accept(key);
+    }
+  }
+
   private Snapshot head() {
     if (mode.get() == null || mode.get()) {
       return head;
@@ -59,6 +90,22 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
     this.head = head;
   }
 
+  /**
+   * the head to write to. The layer of the current session level is created on the first write,
+   * stores a session does not write to get no layer for it.
+   */
+  public synchronized Snapshot getWritableHead() {
+    if (snapshotManager != null && snapshotManager.size() > 0
+        && (mode.get() == null || mode.get())) {
+      long level = snapshotManager.getHeadLevel();
+      if (!Snapshot.isImpl(head) || ((SnapshotImpl) head).getLevel() < level) {
+        head = new SnapshotImpl(head, level);
+        snapshotManager.markDirty(this, level);
+      }
+    }
+    return head();
+  }
+
   /**
    * close the database.
    */
@@ -72,16 +119,19 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
     head().reset();
     head().close();
     head = new SnapshotRoot(Args.getInstance().getOutputDirectoryByDbName(dbName), dbName, clz);
+    changed(null);
   }
 
   @Override
   public synchronized void put(byte[] key, byte[] value) {
-    head().put(key, value);
+    getWritableHead().put(key, value);
+    changed(key);
   }
 
   @Override
   public synchronized void delete(byte[] key) {
-    head().remove(key);
+    getWritableHead().remove(key);
+    changed(key);
   }
 
   @Override
@@ -96,9 +146,25 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
 
   @Override
   public synchronized byte[] getUnchecked(byte[] key) {
+    recordRead(key);
     return head().get(key);
   }
 
+  /**
+   * record a read of the key served without the store, by a cache over it.
+   */
+  public void recordRead(byte[] key) {
+    if (snapshotManager != null) {
+      snapshotManager.recordRead(dbName, key);
+    }
+  }
+
+  private void unboundedRead() {
+    if (snapshotManager != null) {
+      snapshotManager.recordUnboundedRead();
+    }
+  }
+
   @Override
   public synchronized boolean has(byte[] key) {
     return getUnchecked(key) != null;
@@ -106,12 +172,14 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
 
   @Override
   public synchronized Iterator<Map.Entry<byte[], byte[]>> iterator() {
+    unboundedRead();
     return head().iterator();
   }
 
   //for blockstore
   @Override
   public Set<byte[]> getlatestValues(long limit) {
+    unboundedRead();
     return getlatestValues(head(), limit);
   }
 
@@ -185,11 +253,13 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
 
   @Override
   public Set<byte[]> getValuesNext(byte[] key, long limit) {
+    unboundedRead();
     return getValuesNext(head(), key, limit);
   }
 
   @Override
   public Set<byte[]> getValuesPrevious(byte[] key, long limit) {
+    unboundedRead();
     Map<WrappedByteArray, WrappedByteArray> collection = new HashMap<>();
     if (head.getPrevious() != null) {
       ((SnapshotImpl) head).collect(collection);
@@ -221,6 +291,7 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
   }
 
   public Map<WrappedByteArray, WrappedByteArray> getAllValues() {
+    unboundedRead();
     Map<WrappedByteArray, WrappedByteArray> collection = new HashMap<>();
     if (head.getPrevious() != null) {
       ((SnapshotImpl) head).collect(collection);
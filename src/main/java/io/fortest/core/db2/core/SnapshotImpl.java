@@ -6,6 +6,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import io.fortest.core.db.common.WrappedByteArray;
 import lombok.Getter;
+import lombok.Setter;
 import io.fortest.core.db2.common.HashDB;
 import io.fortest.core.db2.common.Key;
 import io.fortest.core.db2.common.Value;
@@ -21,7 +22,17 @@ public class SnapshotImpl extends AbstractSnapshot<Key, Value> {
   @Getter
   protected Snapshot root;
 
+  // the session level of the snapshot manager the layer belongs to
+  @Getter
+  @Setter
+  private long level;
+
   SnapshotImpl(Snapshot snapshot) {
+    this(snapshot, Snapshot.isImpl(snapshot) ? ((SnapshotImpl) snapshot).level + 1 : 1);
+  }
+
+  SnapshotImpl(Snapshot snapshot, long level) {
+    this.level = level;
     root = snapshot.getRoot();
     previous = snapshot;
     snapshot.setNext(this);
@@ -1,5 +1,6 @@
 package io.fortest.core.db2.core;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Ints;
@@ -13,6 +14,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -44,7 +47,12 @@ public class SnapshotManager implements RevokingDatabase {
   @Getter
   private List<RevokingDBWithCachingNewValue> dbs = new ArrayList<>();
   @Getter
-  private int size = 0;
+  private volatile int size = 0;
+  // levels flushed to the roots so far, the levels of the layers keep counting from there
+  private volatile long rootLevel = 0;
+  // the stores with a layer of the level, a store gets a layer on its first write in a level
+  private final Map<Long, Set<RevokingDBWithCachingNewValue>> dirtyDbs =
+      new ConcurrentHashMap<>();
   private AtomicInteger maxSize = new AtomicInteger(DEFAULT_STACK_MAX_SIZE);
 
   private boolean disabled = true;
@@ -57,6 +65,9 @@ public class SnapshotManager implements RevokingDatabase {
 
   private volatile int flushCount = 0;
 
+  // the reads of the pending transaction the thread executes, if any
+  private final ThreadLocal<StateDiff> readRecorder = new ThreadLocal<>();
+
   private Map<String, ListeningExecutorService> flushServices = new HashMap<>();
 
   @Autowired
@@ -83,8 +94,8 @@ public class SnapshotManager implements RevokingDatabase {
 
     if (size > maxSize.get()) {
       flushCount = flushCount + (size - maxSize.get());
-      updateSolidity(size - maxSize.get());
       size = maxSize.get();
+      updateSolidity();
       flush();
     }
 
@@ -101,6 +112,7 @@ public class SnapshotManager implements RevokingDatabase {
   @Override
   public void add(IRevokingDB db) {
     RevokingDBWithCachingNewValue revokingDB = (RevokingDBWithCachingNewValue) db;
+    revokingDB.setSnapshotManager(this);
     dbs.add(revokingDB);
     flushServices.put(revokingDB.getDbName(), MoreExecutors.listeningDecorator(
         Executors.newSingleThreadExecutor(
@@ -108,13 +120,33 @@ public class SnapshotManager implements RevokingDatabase {
         )));
   }
 
+  /**
+   * the level writes go to: the levels waiting for the flush, then the session levels.
+   */
+  long getHeadLevel() {
+    return rootLevel + flushCount + size;
+  }
+
+  void markDirty(RevokingDBWithCachingNewValue db, long level) {
+    dirtyDbs.computeIfAbsent(level, k -> ConcurrentHashMap.newKeySet()).add(db);
+  }
+
   private void advance() {
-    dbs.forEach(db -> db.setHead(db.getHead().advance()));
     ++size;
   }
 
   private void retreat() {
-    dbs.forEach(db -> db.setHead(db.getHead().retreat()));
+    Set<RevokingDBWithCachingNewValue> dirty = dirtyDbs.remove(getHeadLevel());
+    if (dirty != null) {
+      dirty.forEach(db -> {
+        List<byte[]> keys = new ArrayList<>();
+        ((SnapshotImpl) db.getHead()).getDb().forEach(e -> keys.add(e.getKey().getBytes()));
+        Snapshot previous = db.getHead().retreat();
+        previous.setNext(null);
+        db.setHead(previous);
+        db.touch(keys);
+      });
+    }
     --size;
   }
 
@@ -127,8 +159,24 @@ public class SnapshotManager implements RevokingDatabase {
       return;
     }
 
-    dbs.forEach(db -> db.getHead().getPrevious().merge(db.getHead()));
-    retreat();
+    long level = getHeadLevel();
+    Set<RevokingDBWithCachingNewValue> dirty = dirtyDbs.remove(level);
+    if (dirty != null) {
+      for (RevokingDBWithCachingNewValue db : dirty) {
+        SnapshotImpl head = (SnapshotImpl) db.getHead();
+        Snapshot previous = head.getPrevious();
+        if (Snapshot.isImpl(previous) && ((SnapshotImpl) previous).getLevel() == level - 1) {
+          previous.merge(head);
+          previous.setNext(null);
+          db.setHead(previous);
+        } else {
+          // the store has no layer below, the layer just moves down a level
+          head.setLevel(level - 1);
+          markDirty(db, level - 1);
+        }
+      }
+    }
+    --size;
     --activeSession;
   }
 
@@ -190,6 +238,71 @@ public class SnapshotManager implements RevokingDatabase {
     disabled = false;
   }
 
+  @Override
+  public synchronized StateDiff getHeadDiff() {
+    if (disabled || size == 0) {
+      return null;
+    }
+
+    StateDiff diff = new StateDiff();
+    Set<RevokingDBWithCachingNewValue> dirty = dirtyDbs.get(getHeadLevel());
+    if (dirty != null) {
+      for (RevokingDBWithCachingNewValue db : dirty) {
+        for (Map.Entry<Key, Value> e : ((SnapshotImpl) db.getHead()).getDb()) {
+          diff.record(db.getDbName(), e.getKey(), e.getValue());
+        }
+      }
+    }
+    return diff;
+  }
+
+  @Override
+  public synchronized void applyDiff(StateDiff diff) {
+    if (size == 0) {
+      throw new RevokingStoreIllegalStateException("state diff can not be applied to root");
+    }
+
+    for (RevokingDBWithCachingNewValue db : dbs) {
+      Map<Key, Value> writes = diff.getWrites(db.getDbName());
+      if (writes.isEmpty()) {
+        continue;
+      }
+
+      DB<Key, Value> layer = ((SnapshotImpl) db.getWritableHead()).getDb();
+      writes.forEach(layer::put);
+      db.touch(Iterables.transform(writes.keySet(), Key::getBytes));
+    }
+  }
+
+  @Override
+  public void recordReads(StateDiff reads) {
+    if (reads == null) {
+      readRecorder.remove();
+    } else {
+      readRecorder.set(reads);
+    }
+  }
+
+  void recordRead(String dbName, byte[] key) {
+    StateDiff reads = readRecorder.get();
+    if (reads != null) {
+      reads.recordRead(dbName, Key.copyOf(key));
+    }
+  }
+
+  void recordUnboundedRead() {
+    StateDiff reads = readRecorder.get();
+    if (reads != null) {
+      reads.recordUnboundedRead();
+    }
+  }
+
+  @Override
+  public long getStateVersion() {
+    // every version only grows, the sum changes with any of them
+    return dbs.stream().mapToLong(RevokingDBWithCachingNewValue::getVersion).sum();
+  }
+
   @Override
   public int size() {
     return size;
@@ -225,11 +338,14 @@ public class SnapshotManager implements RevokingDatabase {
     System.err.println("******** end to pop revokingDb ********");
   }
 
-  public void updateSolidity(int hops) {
-    for (int i = 0; i < hops; i++) {
-      for (RevokingDBWithCachingNewValue db : dbs) {
-        db.getHead().updateSolidity();
-      }
+  /**
+   * the solidity of every store is its last layer waiting for the flush.
+   */
+  public void updateSolidity() {
+    long level = rootLevel + flushCount;
+    for (RevokingDBWithCachingNewValue db : dbs) {
+      Snapshot head = db.getHead();
+      ((SnapshotRoot) head.getRoot()).updateSolidity(level, head);
     }
   }
 
@@ -238,9 +354,10 @@ public class SnapshotManager implements RevokingDatabase {
   }
 
   private void refresh() {
+    long level = rootLevel + flushCount;
     List<ListenableFuture<?>> futures = new ArrayList<>(dbs.size());
     for (RevokingDBWithCachingNewValue db : dbs) {
-      futures.add(flushServices.get(db.getDbName()).submit(() -> refreshOne(db)));
+      futures.add(flushServices.get(db.getDbName()).submit(() -> refreshOne(db, level)));
     }
     Future<?> future = Futures.allAsList(futures);
     try {
@@ -252,24 +369,23 @@ public class SnapshotManager implements RevokingDatabase {
     }
   }
 
-  private void refreshOne(RevokingDBWithCachingNewValue db) {
-    if (Snapshot.isRoot(db.getHead())) {
+  private void refreshOne(RevokingDBWithCachingNewValue db, long level) {
+    Snapshot head = db.getHead();
+    if (Snapshot.isRoot(head)) {
       return;
     }
 
-    List<Snapshot> snapshots = new ArrayList<>();
-
-    SnapshotRoot root = (SnapshotRoot) db.getHead().getRoot();
-    Snapshot next = root;
-    for (int i = 0; i < flushCount; ++i) {
-      next = next.getNext();
-      snapshots.add(next);
+    List<Snapshot> snapshots = getLayers(head, level);
+    if (snapshots.isEmpty()) {
+      return;
     }
 
+    SnapshotRoot root = (SnapshotRoot) head.getRoot();
+    Snapshot next = snapshots.get(snapshots.size() - 1);
     root.merge(snapshots);
 
     root.resetSolidity();
-    if (db.getHead() == next) {
+    if (head == next) {
       db.setHead(root);
     } else {
       next.getNext().setPrevious(root);
@@ -288,6 +404,9 @@ public class SnapshotManager implements RevokingDatabase {
       createCheckPoint();
       long checkPointEnd = System.currentTimeMillis();
       refresh();
+      long level = rootLevel + flushCount;
+      dirtyDbs.keySet().removeIf(l -> l <= level);
+      rootLevel = level;
       flushCount = 0;
       logger.info("flush cost:{}, create checkpoint cost:{}, refresh cost:{}",
           System.currentTimeMillis() - start,
@@ -299,16 +418,15 @@ public class SnapshotManager implements RevokingDatabase {
 
   private void createCheckPoint() {
     Map<WrappedByteArray, WrappedByteArray> batch = new HashMap<>();
+    long level = rootLevel + flushCount;
     for (RevokingDBWithCachingNewValue db : dbs) {
       Snapshot head = db.getHead();
       if (Snapshot.isRoot(head)) {
-        return;
+        continue;
       }
 
       String dbName = db.getDbName();
-      Snapshot next = head.getRoot();
-      for (int i = 0; i < flushCount; ++i) {
-        next = next.getNext();
+      for (Snapshot next : getLayers(head, level)) {
         SnapshotImpl snapshot = (SnapshotImpl) next;
         DB<Key, Value> keyValueDB = snapshot.getDb();
         for (Map.Entry<Key, Value> e : keyValueDB) {
@@ -326,6 +444,22 @@ public class SnapshotManager implements RevokingDatabase {
         WriteOptionsWrapper.getInstance().sync(Args.getInstance().getStorage().isDbSync()));
   }
 
+  /**
+   * the layers of a store from the root up to the level, never above the head.
+   */
+  private List<Snapshot> getLayers(Snapshot head, long level) {
+    List<Snapshot> snapshots = new ArrayList<>();
+    Snapshot next = head.getRoot();
+    while (next != head) {
+      next = next.getNext();
+      if (next == null || ((SnapshotImpl) next).getLevel() > level) {
+        break;
+      }
+      snapshots.add(next);
+    }
+    return snapshots;
+  }
+
   private void deleteCheckPoint() {
     Map<byte[], byte[]> hmap = new HashMap<byte[], byte[]>();
     if (!checkTmpStore.getDbSource().allKeys().isEmpty()) {
@@ -363,14 +497,17 @@ public class SnapshotManager implements RevokingDatabase {
 
         byte[] realValue = value.length == 1 ? null : Arrays.copyOfRange(value, 1, value.length);
         if (realValue != null) {
-          dbMap.get(db).getHead().put(realKey, realValue);
+          dbMap.get(db).getWritableHead().put(realKey, realValue);
         } else {
-          dbMap.get(db).getHead().remove(realKey);
+          dbMap.get(db).getWritableHead().remove(realKey);
         }
 
       }
 
-      dbs.forEach(db -> db.getHead().getRoot().merge(db.getHead()));
+      Set<RevokingDBWithCachingNewValue> dirty = dirtyDbs.get(getHeadLevel());
+      if (dirty != null) {
+        dirty.forEach(db -> db.getHead().getRoot().merge(db.getHead()));
+      }
       retreat();
     }
 
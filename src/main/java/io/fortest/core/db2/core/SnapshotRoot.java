@@ -117,4 +117,17 @@ public class SnapshotRoot extends AbstractSnapshot<byte[], byte[]> {
   public void updateSolidity() {
     solidity = solidity.getNext();
   }
+
+  /**
+   * move the solidity to the last layer at or below the level.
+   */
+  public void updateSolidity(long level, Snapshot head) {
+    while (solidity != head) {
+      Snapshot next = solidity.getNext();
+      if (next == null || ((SnapshotImpl) next).getLevel() > level) {
+        return;
+      }
+      solidity = next;
+    }
+  }
 }
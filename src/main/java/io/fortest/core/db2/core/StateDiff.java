@@ -0,0 +1,98 @@
+package io.fortest.core.db2.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import io.fortest.core.db2.common.Key;
+import io.fortest.core.db2.common.Value;
+
+/**
+ * The writes of one snapshot layer, grouped by db name. Used to replay a layer on top of another
+ * head without executing the transactions (or the block) that produced it again.
+ *
+ * <p>A layer of a pending transaction also keeps the keys the transaction read, a replay is only
+ * sound if nothing the transaction read or wrote has changed under it.
+ */
+public class StateDiff {
+
+  private final Map<String, Map<Key, Value>> stores = new HashMap<>();
+  private final Map<String, Set<Key>> reads = new HashMap<>();
+  // a range or a whole store was read, the keys read are not known
+  private boolean unboundedRead;
+
+  public void record(String dbName, Key key, Value value) {
+    stores.computeIfAbsent(dbName, k -> new HashMap<>()).put(key, value);
+  }
+
+  public void recordRead(String dbName, Key key) {
+    reads.computeIfAbsent(dbName, k -> new HashSet<>()).add(key);
+  }
+
+  public void recordUnboundedRead() {
+    unboundedRead = true;
+  }
+
+  /**
+   * take over the reads recorded in the other diff.
+   */
+  public void addReads(StateDiff other) {
+    other.reads.forEach((dbName, keys) ->
+        reads.computeIfAbsent(dbName, k -> new HashSet<>()).addAll(keys));
+    unboundedRead |= other.unboundedRead;
+  }
+
+  public Set<String> getDbNames() {
+    return Collections.unmodifiableSet(stores.keySet());
+  }
+
+  public Map<Key, Value> getWrites(String dbName) {
+    return stores.getOrDefault(dbName, Collections.emptyMap());
+  }
+
+  public boolean isEmpty() {
+    return stores.isEmpty();
+  }
+
+  public long size() {
+    return stores.values().stream().mapToLong(Map::size).sum();
+  }
+
+  /**
+   * the bytes of the keys and values written.
+   */
+  public long getBytes() {
+    long bytes = 0;
+    for (Map<Key, Value> writes : stores.values()) {
+      for (Map.Entry<Key, Value> write : writes.entrySet()) {
+        bytes += write.getKey().length() + write.getValue().length();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * whether this layer wrote a key the other layer wrote, or read one the filter does not let
+   * pass.
+   */
+  public boolean dependsOn(StateDiff writer, BiPredicate<String, Key> ignored) {
+    if (unboundedRead) {
+      return true;
+    }
+    for (Map.Entry<String, Map<Key, Value>> e : writer.stores.entrySet()) {
+      String dbName = e.getKey();
+      Map<Key, Value> writes = stores.getOrDefault(dbName, Collections.emptyMap());
+      Set<Key> read = reads.getOrDefault(dbName, Collections.emptySet());
+      for (Key key : e.getValue().keySet()) {
+        if (writes.containsKey(key) || (read.contains(key) && !ignored.test(dbName, key))) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+}
@@ -2,9 +2,13 @@ package io.fortest.core.net;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import io.fortest.common.crypto.SignatureVerifier;
+import io.fortest.common.crypto.SignatureVerifier.Lane;
 import io.fortest.common.overlay.message.Message;
 import io.fortest.common.overlay.server.ChannelManager;
 import io.fortest.common.overlay.server.SyncPool;
@@ -208,6 +212,20 @@ public class khcNetDelegate {
     }
   }
 
+  /**
+   * checks the signatures of gossiped transactions ahead of pushing them, a bad signature is
+   * reported when its transaction is pushed.
+   */
+  public CompletableFuture<List<Boolean>> preValidateSignatures(List<TransactionCapsule> khts) {
+    return SignatureVerifier.instance().submit(Lane.GOSSIP, khts, kht -> {
+      try {
+        return kht.validateSignature(dbManager);
+      } catch (ValidateSignatureException e) {
+        return false;
+      }
+    });
+  }
+
   public void pushTransaction(TransactionCapsule kht) throws P2pException {
     try {
       dbManager.pushTransaction(kht);
@@ -1,5 +1,7 @@
 package io.fortest.core.net.messagehandler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -7,11 +9,12 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import io.fortest.core.config.args.Args;
 import io.fortest.core.exception.P2pException;
 import io.fortest.core.exception.P2pException.TypeEnum;
 import io.fortest.core.net.khcNetDelegate;
@@ -46,8 +49,9 @@ public class TransactionsMsgHandler implements khcMsgHandler {
 
   private BlockingQueue<Runnable> queue = new LinkedBlockingQueue();
 
-  private int threadNum = Args.getInstance().getValidateSignThreadNum();
-  private ExecutorService khtHandlePool = new ThreadPoolExecutor(threadNum, threadNum, 0L,
+  // transactions whose signatures are being checked, the pool then pushes them one at a time
+  private AtomicInteger verifying = new AtomicInteger();
+  private ExecutorService khtHandlePool = new ThreadPoolExecutor(1, 1, 0L,
       TimeUnit.MILLISECONDS, queue);
 
   private ScheduledExecutorService smartContractExecutor = Executors
@@ -78,13 +82,14 @@ public class TransactionsMsgHandler implements khcMsgHandler {
   }
 
   public boolean isBusy() {
-    return queue.size() + smartContractQueue.size() > MAX_kht_SIZE;
+    return queue.size() + verifying.get() + smartContractQueue.size() > MAX_kht_SIZE;
   }
 
   @Override
   public void processMessage(PeerConnection peer, khcMessage msg) throws P2pException {
     TransactionsMessage transactionsMessage = (TransactionsMessage) msg;
     check(peer, transactionsMessage);
+    List<khtEvent> events = new ArrayList<>();
     for (Transaction kht : transactionsMessage.getTransactions().getTransactionsList()) {
       int type = kht.getRawData().getContract(0).getType().getNumber();
       if (type == ContractType.TriggerSmartContract_VALUE
@@ -94,9 +99,10 @@ public class TransactionsMsgHandler implements khcMsgHandler {
               queue.size());
         }
       } else {
-        khtHandlePool.submit(() -> handleTransaction(peer, new TransactionMessage(kht)));
+        events.add(new khtEvent(peer, new TransactionMessage(kht)));
       }
     }
+    handleTransactions(events);
   }
 
   private void check(PeerConnection peer, TransactionsMessage msg) throws P2pException {
@@ -113,9 +119,12 @@ public class TransactionsMsgHandler implements khcMsgHandler {
   private void handleSmartContract() {
     smartContractExecutor.scheduleWithFixedDelay(() -> {
       try {
-        while (queue.size() < MAX_SMART_CONTRACT_SUBMIT_SIZE) {
-          khtEvent event = smartContractQueue.take();
-          khtHandlePool.submit(() -> handleTransaction(event.getPeer(), event.getMsg()));
+        while (queue.size() + verifying.get() < MAX_SMART_CONTRACT_SUBMIT_SIZE) {
+          List<khtEvent> events = new ArrayList<>();
+          events.add(smartContractQueue.take());
+          smartContractQueue.drainTo(events,
+              MAX_SMART_CONTRACT_SUBMIT_SIZE - queue.size() - verifying.get() - 1);
+          handleTransactions(events);
         }
       } catch (Exception e) {
         logger.error("Handle smart contract exception.", e);
@@ -123,6 +132,21 @@ public class TransactionsMsgHandler implements khcMsgHandler {
     }, 1000, 20, TimeUnit.MILLISECONDS);
   }
 
+  private void handleTransactions(List<khtEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    verifying.addAndGet(events.size());
+    khcNetDelegate.preValidateSignatures(events.stream()
+        .map(event -> event.getMsg().getTransactionCapsule())
+        .collect(Collectors.toList()))
+        .whenComplete((verified, e) -> {
+          events.forEach(event -> khtHandlePool
+              .submit(() -> handleTransaction(event.getPeer(), event.getMsg())));
+          verifying.addAndGet(-events.size());
+        });
+  }
+
   private void handleTransaction(PeerConnection peer, TransactionMessage kht) {
     if (peer.isDisconnect()) {
       logger.warn("Drop kht {} from {}, peer is disconnect.", kht.getMessageId(),
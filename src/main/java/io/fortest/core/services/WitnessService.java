@@ -46,6 +46,7 @@ public class WitnessService implements Service {
   private static final int MIN_PARTICIPATION_RATE = Args.getInstance()
       .getMinParticipationRate(); // MIN_PARTICIPATION_RATE * 1%
   private static final int PRODUCE_TIME_OUT = 500; // ms
+  private static final long BLOCK_TEMPLATE_INTERVAL = 500; // ms
   @Getter
   private static volatile boolean needSyncCheck = Args.getInstance().isNeedSyncCheck();
 
@@ -54,6 +55,7 @@ public class WitnessService implements Service {
   protected Map<ByteString, WitnessCapsule> localWitnessStateMap = Maps
       .newHashMap(); //  <witnessAccountAddress,WitnessCapsule>
   private Thread generateThread;
+  private Thread blockTemplateThread;
 
   @Getter
   private volatile boolean isRunning = false;
@@ -90,6 +92,7 @@ public class WitnessService implements Service {
     backupServer = context.getBean(BackupServer.class);
     khcNetService = context.getBean(khcNetService.class);
     generateThread = new Thread(scheduleProductionLoop);
+    blockTemplateThread = new Thread(blockTemplateLoop);
     manager = khcApp.getDbManager();
     manager.setWitnessService(this);
     controller = manager.getWitnessController();
@@ -138,6 +141,41 @@ public class WitnessService implements Service {
         }
       };
 
+  /**
+   * Cycle thread to fill the next block of a local witness ahead of its slot
+   */
+  private Runnable blockTemplateLoop =
+      () -> {
+        while (isRunning) {
+          try {
+            Thread.sleep(BLOCK_TEMPLATE_INTERVAL);
+            this.prepareBlockTemplate();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          } catch (Throwable throwable) {
+            logger.error("unknown throwable happened in block template loop", throwable);
+          }
+        }
+      };
+
+  private void prepareBlockTemplate() {
+    if (needSyncCheck || controller.isGeneratingBlock()
+        || !backupManager.getStatus().equals(BackupStatusEnum.MASTER)) {
+      return;
+    }
+
+    long slot = controller.getSlotAtTime(DateTime.now().getMillis()) + 1;
+    final ByteString scheduledWitness = controller.getScheduledWitness(slot);
+    if (!this.getLocalWitnessStateMap().containsKey(scheduledWitness)
+        || !privateKeyMap.containsKey(scheduledWitness)) {
+      return;
+    }
+
+    manager.prepareBlockTemplate(this.localWitnessStateMap.get(scheduledWitness),
+        controller.getSlotTime(slot));
+  }
+
   /**
    * Loop to generate blocks
    */
@@ -415,6 +453,9 @@ public class WitnessService implements Service {
   public void start() {
     isRunning = true;
     generateThread.start();
+    if (Args.getInstance().isBlockTemplateEnable()) {
+      blockTemplateThread.start();
+    }
 
   }
 
@@ -422,5 +463,6 @@ public class WitnessService implements Service {
   public void stop() {
     isRunning = false;
     generateThread.interrupt();
+    blockTemplateThread.interrupt();
   }
 }
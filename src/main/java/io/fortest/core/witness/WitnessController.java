@@ -8,7 +8,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -28,6 +27,7 @@ import io.fortest.common.utils.StringUtil;
 import io.fortest.common.utils.Time;
 import io.fortest.core.db.AccountStore;
 import io.fortest.core.db.Manager;
+import io.fortest.core.db.VoteTallyStore;
 import io.fortest.core.db.VotesStore;
 import io.fortest.core.db.WitnessStore;
 import io.fortest.core.exception.HeaderNotFound;
@@ -256,51 +256,57 @@ public class WitnessController {
 //    }
   }
 
+  /**
+   * the vote change of every witness in this maintenance period, from the running vote tally.
+   * The votes of the period are dropped, a new period starts from the current account votes.
+   */
   private Map<ByteString, Long> countVote(VotesStore votesStore) {
+    VoteTallyStore voteTallyStore = manager.getVoteTallyStore();
+    Map<ByteString, Long> countWitness = voteTallyStore.getAllTallies();
+
+    if (Args.getInstance().isVoteTallyVerify()) {
+      Map<ByteString, Long> scanned = scanVote(votesStore);
+      if (!scanned.equals(countWitness)) {
+        logger.error("vote tally mismatch, tally: {}, scan: {}", countWitness, scanned);
+        countWitness = scanned;
+      }
+    }
+
+    int sizeCount = votesStore.deleteAll();
+    voteTallyStore.clear();
+    logger.info("there is {} new votes in this epoch", sizeCount);
+
+    return countWitness;
+  }
+
+  /**
+   * aggregate the vote change of every witness from the whole votes store.
+   */
+  private Map<ByteString, Long> scanVote(VotesStore votesStore) {
     final Map<ByteString, Long> countWitness = Maps.newHashMap();
     Iterator<Map.Entry<byte[], VotesCapsule>> dbIterator = votesStore.iterator();
-
-    long sizeCount = 0;
     while (dbIterator.hasNext()) {
-      Entry<byte[], VotesCapsule> next = dbIterator.next();
-      VotesCapsule votes = next.getValue();
-
-//      logger.info("there is account ,account address is {}",
-//          account.createReadableString());
-
-      // TODO add vote reward
-      // long reward = Math.round(sum.get() * this.manager.getDynamicPropertiesStore()
-      //    .getVoteRewardRate());
-      //account.setBalance(account.getBalance() + reward);
-      //accountStore.put(account.createDbKey(), account);
-
-      votes.getOldVotes().forEach(vote -> {
-        //TODO validate witness //active_witness
-        ByteString voteAddress = vote.getVoteAddress();
-        long voteCount = vote.getVoteCount();
-        if (countWitness.containsKey(voteAddress)) {
-          countWitness.put(voteAddress, countWitness.get(voteAddress) - voteCount);
-        } else {
-          countWitness.put(voteAddress, -voteCount);
-        }
-      });
-      votes.getNewVotes().forEach(vote -> {
-        //TODO validate witness //active_witness
-        ByteString voteAddress = vote.getVoteAddress();
-        long voteCount = vote.getVoteCount();
-        if (countWitness.containsKey(voteAddress)) {
-          countWitness.put(voteAddress, countWitness.get(voteAddress) + voteCount);
-        } else {
-          countWitness.put(voteAddress, voteCount);
-        }
-      });
+      VotesStore.getVoteChange(dbIterator.next().getValue())
+          .forEach((address, count) -> countWitness.merge(address, count, Long::sum));
+    }
+    countWitness.values().removeIf(count -> count == 0);
+    return countWitness;
+  }
 
-      sizeCount++;
-      votesStore.delete(next.getKey());
+  /**
+   * build the vote tally from the votes store if it was never kept, e.g. after an upgrade in the
+   * middle of a maintenance period.
+   */
+  public void initVoteTally() {
+    VoteTallyStore voteTallyStore = manager.getVoteTallyStore();
+    VotesStore votesStore = manager.getVotesStore();
+    if (voteTallyStore.iterator().hasNext() || !votesStore.iterator().hasNext()) {
+      return;
     }
-    logger.info("there is {} new votes in this epoch", sizeCount);
 
-    return countWitness;
+    Map<ByteString, Long> countWitness = scanVote(votesStore);
+    countWitness.forEach((address, count) -> voteTallyStore.addTally(address.toByteArray(), count));
+    logger.info("init vote tally of {} witnesses", countWitness.size());
   }
 
   /**
@@ -322,8 +328,10 @@ public class WitnessController {
       List<ByteString> currentWits = getActiveWitnesses();
 
       List<ByteString> newWitnessAddressList = new ArrayList<>();
+      Map<ByteString, Long> voteCounts = Maps.newHashMap();
       witnessStore.getAllWitnesses().forEach(witnessCapsule -> {
         newWitnessAddressList.add(witnessCapsule.getAddress());
+        voteCounts.put(witnessCapsule.getAddress(), witnessCapsule.getVoteCount());
       });
 
       countWitness.forEach((address, voteCount) -> {
@@ -343,12 +351,13 @@ public class WitnessController {
         } else {
           witnessCapsule.setVoteCount(witnessCapsule.getVoteCount() + voteCount);
           witnessStore.put(witnessCapsule.createDbKey(), witnessCapsule);
+          voteCounts.put(address, witnessCapsule.getVoteCount());
           logger.info("address is {}  ,countVote is {}", witnessCapsule.createReadableString(),
               witnessCapsule.getVoteCount());
         }
       });
 
-      sortWitness(newWitnessAddressList);
+      sortWitness(newWitnessAddressList, voteCounts);
       if (newWitnessAddressList.size() > Args.getInstance().getMaxActiveWitnessNum()) {
         setActiveWitnesses(newWitnessAddressList.subList(0, Args.getInstance().getMaxActiveWitnessNum()));
       } else {
@@ -434,6 +443,12 @@ public class WitnessController {
         .thenComparing(Comparator.comparingInt(ByteString::hashCode).reversed()));
   }
 
+  private void sortWitness(List<ByteString> list, Map<ByteString, Long> voteCounts) {
+    list.sort(Comparator.comparingLong((ByteString b) -> voteCounts.getOrDefault(b, 0L))
+        .reversed()
+        .thenComparing(Comparator.comparingInt(ByteString::hashCode).reversed()));
+  }
+
   private void payStandbyWitness(List<ByteString> list) {
     long voteSum = 0;
     long totalPay = manager.getDynamicPropertiesStore().getWitnessStandbyAllowance();
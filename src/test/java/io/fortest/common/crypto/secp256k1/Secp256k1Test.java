@@ -0,0 +1,263 @@
+package io.fortest.common.crypto.secp256k1;
+
+import io.fortest.common.crypto.ECKey;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.asn1.sec.SECNamedCurves;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.asn1.x9.X9IntegerConverter;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.util.encoders.Hex;
+
+/**
+ * The public key recovery of ECKey against the BigInteger point arithmetic it used before, and the
+ * limb field arithmetic against BigInteger.
+ */
+public class Secp256k1Test {
+
+  private static final X9ECParameters PARAMS = SECNamedCurves.getByName("secp256k1");
+  private static final ECDomainParameters CURVE = new ECDomainParameters(PARAMS.getCurve(),
+      PARAMS.getG(), PARAMS.getN(), PARAMS.getH());
+  private static final BigInteger P = Secp256k1.P;
+  private static final BigInteger N = Secp256k1.N;
+
+  private final Random random = new Random(0x5ec9);
+
+  /**
+   * ECKey.recoverPubBytesFromSignature as it was before the dedicated implementation.
+   */
+  private static byte[] previousRecovery(int recId, BigInteger r, BigInteger s, byte[] hash) {
+    BigInteger x = r.add(BigInteger.valueOf(recId / 2).multiply(N));
+    if (x.compareTo(P) >= 0) {
+      return null;
+    }
+    X9IntegerConverter x9 = new X9IntegerConverter();
+    byte[] compEnc = x9.integerToBytes(x, 1 + x9.getByteLength(CURVE.getCurve()));
+    compEnc[0] = (byte) ((recId & 1) == 1 ? 0x03 : 0x02);
+    ECPoint point = CURVE.getCurve().decodePoint(compEnc);
+    if (!point.multiply(N).isInfinity()) {
+      return null;
+    }
+    BigInteger eInv = BigInteger.ZERO.subtract(new BigInteger(1, hash)).mod(N);
+    BigInteger rInv = r.modInverse(N);
+    BigInteger srInv = rInv.multiply(s).mod(N);
+    BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+    return ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, point, srInv)
+        .getEncoded(false);
+  }
+
+  private static byte[] recovery(int recId, BigInteger r, BigInteger s, byte[] hash) {
+    return ECKey.recoverPubBytesFromSignature(recId, new ECKey.ECDSASignature(r, s), hash);
+  }
+
+  /**
+   * the encoded key, "null", or the class of the exception thrown.
+   */
+  private static String outcome(boolean previous, int recId, BigInteger r, BigInteger s,
+      byte[] hash) {
+    try {
+      byte[] key = previous ? previousRecovery(recId, r, s, hash) : recovery(recId, r, s, hash);
+      return key == null ? "null" : Hex.toHexString(key);
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      return e.getClass().getSimpleName();
+    }
+  }
+
+  private static void compare(BigInteger r, BigInteger s, byte[] hash) {
+    for (int recId = 0; recId < 4; recId++) {
+      String message = recId + " " + r.toString(16) + " " + s.toString(16) + " "
+          + Hex.toHexString(hash);
+      Assert.assertEquals(message, outcome(true, recId, r, s, hash),
+          outcome(false, recId, r, s, hash));
+    }
+  }
+
+  private byte[] hash() {
+    byte[] hash = new byte[32];
+    random.nextBytes(hash);
+    return hash;
+  }
+
+  private BigInteger scalar() {
+    BigInteger k;
+    do {
+      k = new BigInteger(256, random);
+    } while (k.signum() == 0 || k.compareTo(N) >= 0);
+    return k;
+  }
+
+  /**
+   * r, s and the recovery id of a signature of the hash, s left as it comes out.
+   */
+  private BigInteger[] sign(BigInteger key, byte[] hash) {
+    BigInteger k = scalar();
+    ECPoint point = CURVE.getG().multiply(k).normalize();
+    BigInteger x = point.getAffineXCoord().toBigInteger();
+    BigInteger r = x.mod(N);
+    BigInteger s = k.modInverse(N).multiply(new BigInteger(1, hash).add(r.multiply(key))).mod(N);
+    int recId = (point.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(N) >= 0 ? 2 : 0);
+    return new BigInteger[]{r, s, BigInteger.valueOf(recId)};
+  }
+
+  private static boolean verify(byte[] publicKey, BigInteger r, BigInteger s, byte[] hash) {
+    ECDSASigner signer = new ECDSASigner();
+    signer.init(false, new ECPublicKeyParameters(CURVE.getCurve().decodePoint(publicKey), CURVE));
+    return signer.verifySignature(hash, r, s);
+  }
+
+  @Test
+  public void genuineSignatures() {
+    for (int i = 0; i < 32; i++) {
+      BigInteger key = scalar();
+      byte[] publicKey = CURVE.getG().multiply(key).getEncoded(false);
+      byte[] hash = hash();
+      BigInteger[] signature = sign(key, hash);
+      BigInteger r = signature[0];
+      BigInteger s = signature[1];
+      int recId = signature[2].intValue();
+      compare(r, s, hash);
+
+      byte[] recovered = recovery(recId, r, s, hash);
+      Assert.assertArrayEquals(publicKey, recovered);
+      Assert.assertTrue(verify(recovered, r, s, hash));
+      // the other point with the same x gives another key
+      Assert.assertFalse(Arrays.equals(publicKey, recovery(recId ^ 1, r, s, hash)));
+
+      // the high s form of the same signature recovers the same key with the other parity
+      BigInteger highS = N.subtract(s);
+      compare(r, highS, hash);
+      Assert.assertArrayEquals(publicKey, recovery(recId ^ 1, r, highS, hash));
+      Assert.assertTrue(verify(publicKey, r, highS, hash));
+
+      // another message recovers another key, which the signer's key does not verify
+      byte[] other = hash();
+      compare(r, s, other);
+      Assert.assertFalse(Arrays.equals(publicKey, recovery(recId, r, s, other)));
+      Assert.assertFalse(verify(publicKey, r, s, other));
+    }
+  }
+
+  @Test
+  public void zeroS() {
+    for (int i = 0; i < 8; i++) {
+      compare(scalar(), BigInteger.ZERO, hash());
+    }
+    compare(BigInteger.ONE, BigInteger.ZERO, new byte[32]);
+  }
+
+  @Test
+  public void rAtOrAboveN() {
+    byte[] hash = hash();
+    BigInteger s = scalar();
+    // r = n is zero modulo n, the ones above give x coordinates above n
+    for (BigInteger r : new BigInteger[]{N, N.add(BigInteger.ONE), N.add(BigInteger.valueOf(2)),
+        P.subtract(BigInteger.ONE), P, P.add(BigInteger.ONE)}) {
+      compare(r, s, hash);
+    }
+    // r below p - n, for which recovery ids 2 and 3 have an x coordinate r + n below p
+    BigInteger room = P.subtract(N);
+    for (int i = 0; i < 16; i++) {
+      compare(new BigInteger(room.bitLength(), random).mod(room), s, hash);
+    }
+    compare(BigInteger.ZERO, s, hash);
+  }
+
+  @Test
+  public void xNotOnCurve() {
+    int found = 0;
+    for (BigInteger x = BigInteger.ONE; found < 8; x = x.add(BigInteger.ONE)) {
+      BigInteger rhs = x.pow(3).add(BigInteger.valueOf(7)).mod(P);
+      if (rhs.modPow(P.subtract(BigInteger.ONE).shiftRight(1), P).equals(BigInteger.ONE)) {
+        continue;
+      }
+      found++;
+      byte[] hash = hash();
+      BigInteger s = scalar();
+      compare(x, s, hash);
+      try {
+        recovery(0, x, s, hash);
+        Assert.fail("recovered from " + x);
+      } catch (IllegalArgumentException e) {
+        // no point has the x coordinate
+      }
+    }
+  }
+
+  @Test
+  public void randomInputs() {
+    for (int i = 0; i < 64; i++) {
+      BigInteger r = new BigInteger(256, random);
+      BigInteger s = new BigInteger(256, random);
+      compare(r, s, hash());
+    }
+  }
+
+  private static BigInteger value(long[] a) {
+    byte[] bytes = new byte[32];
+    Field.write(a, bytes, 0);
+    return new BigInteger(1, bytes);
+  }
+
+  private static long[] element(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] word = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, word, 32 - length, length);
+    return Field.of(word);
+  }
+
+  @Test
+  public void fieldArithmetic() {
+    List<BigInteger> values = new ArrayList<>();
+    for (long v : new long[]{0, 1, 2, 3, 7, 977, 0x3ffffffL, 0x4000000L, 0xffffffffL}) {
+      values.add(BigInteger.valueOf(v));
+    }
+    for (int bits : new int[]{26, 52, 64, 128, 234, 255}) {
+      values.add(BigInteger.ONE.shiftLeft(bits));
+      values.add(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+    }
+    values.add(P.subtract(BigInteger.ONE));
+    values.add(P.subtract(BigInteger.valueOf(2)));
+    values.add(N);
+    for (int i = 0; i < 24; i++) {
+      values.add(new BigInteger(256, random).mod(P));
+    }
+
+    for (BigInteger a : values) {
+      long[] fa = element(a);
+      Assert.assertEquals(a, value(fa));
+      Assert.assertEquals(a.signum() == 0, Field.isZero(fa));
+      Assert.assertEquals(a.testBit(0), Field.isOdd(fa));
+      Assert.assertEquals(a.negate().mod(P), value(Field.negate(fa)));
+      Assert.assertEquals(a.multiply(a).mod(P), value(Field.sqr(fa)));
+      Assert.assertEquals(a.multiply(BigInteger.valueOf(8)).mod(P), value(Field.mul(fa, 8)));
+      if (a.signum() != 0) {
+        Assert.assertEquals(a.modInverse(P), value(Field.inv(fa)));
+      }
+      long[] root = Field.sqrt(fa);
+      boolean square = a.signum() == 0
+          || a.modPow(P.subtract(BigInteger.ONE).shiftRight(1), P).equals(BigInteger.ONE);
+      Assert.assertEquals(a.toString(16), square, root != null);
+      if (root != null) {
+        Assert.assertEquals(a, value(root).pow(2).mod(P));
+      }
+
+      for (BigInteger b : values) {
+        long[] fb = element(b);
+        Assert.assertEquals(a.add(b).mod(P), value(Field.add(fa, fb)));
+        Assert.assertEquals(a.subtract(b).mod(P), value(Field.sub(fa, fb)));
+        Assert.assertEquals(a.multiply(b).mod(P), value(Field.mul(fa, fb)));
+        Assert.assertEquals(a.equals(b), Field.equal(fa, fb));
+      }
+    }
+  }
+}
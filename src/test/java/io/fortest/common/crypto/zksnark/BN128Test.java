@@ -0,0 +1,351 @@
+package io.fortest.common.crypto.zksnark;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The Montgomery field arithmetic against BigInteger, and the curve groups and the pairing against
+ * results of the BigInteger implementation it replaced.
+ */
+public class BN128Test {
+
+  private static final BigInteger P = Params.P;
+
+  // the generator of G2 as the pairing precompile passes it: x real, x imaginary, y real, y imaginary
+  private static final String[] G2 = {
+      "10857046999023057135944570762232829481370756359578518086990519993285655852781",
+      "11559732032986387107991004021392285783925812861821192530917403151452391805634",
+      "8495653923123431417604973247489272438418190587263600148770280649306958101930",
+      "4082367875863433681332203403145435568316851327593401208105741076214120093531"};
+
+  // the scalar and the affine k * g2 of the previous implementation, each Fp2 real part first
+  private static final String[][] G2_MULTIPLES = {
+      {
+          "2",
+          "27dc7234fd11d3e8c36c59277c3e6f149d5cd3cfa9a62aee49f8130962b4b3b9",
+          "203e205db4f19b37b60121b83a7333706db86431c6d835849957ed8c3928ad79",
+          "4bb53b8977e5f92a0bc372742c4830944a59b4fe6b1c0466e2a6dad122b5d2e",
+          "195e8aa5b7827463722b8c153931579d3505566b4edf48d498e185f0509de152"},
+      {
+          "3039",
+          "70f2ac0bc3263aafb2cae9c281d492b5dfe1573aa83198f8befac6fa375181d",
+          "fde667faf46ac5c419be1d6f28ff535a43c9efe5600584162084d55d8b508a",
+          "1e089b71af82470ee99b660d89dcfbdfccc7108e12215ad0fca5d627ebf0bc8c",
+          "6be0ca53e55034aa6719b194db361c07fee1ef3dfdff59c44b80788770c08f2"},
+      {
+          "9f2c3a7d41b8e6055c1d2e3f4a5b6c7d8e9fa0b1c2d3e4f5061728394a5b6c7d",
+          "24b68738f242f87f47e5baa3a99327a8a279f16cde613ba48b209a636c4a485f",
+          "1e86f35dc3b61123ea7a2efca8e0b36d7c01fc495a29372694947a9e2091ab81",
+          "106a47708ae64aba8ee884a37be5b4702ada9abb0df8cb4bbca127596ec13723",
+          "25919d43124be39493b1292a1e3973230e6529cefa612634331c69a5f1720416"},
+      {
+          "30644e72e131a029b85045b68181585d2833e84879b9709143e1f593f0000000",
+          "1800deef121f1e76426a00665e5c4479674322d4f75edadd46debd5cd992f6ed",
+          "198e9393920d483a7260bfb731fb5d25f1aa493335a9e71297e485b7aef312c2",
+          "1d9befcd05a5323e6da4d435f3b617cdb3af83285c2df711ef39c01571827f9d",
+          "275dc4a288d1afb3cbb1ac09187524c7db36395df7be3b99e673b13a075a65ec"}};
+
+  // g2 + 2 * g2
+  private static final String[] G2_SUM = {
+      "6064e784db10e9051e52826e192715e8d7e478cb09a5e0012defa0694fbc7f5",
+      "1014772f57bb9742735191cd5dcfe4ebbc04156b6878a0a7c9824f32ffb66e85",
+      "58e1d5681b5b9e0074b0f9c8d2c68a069b920d74521e79765036d57666c5597",
+      "21e2335f3354bb7922ffcc2f38d3323dd9453ac49b55441452aeaca147711b2"};
+
+  // the scalars of g1 and g2 and the pairing of the multiples, after the final exponentiation
+  private static final String[][] PAIRINGS = {
+      {
+          "1",
+          "1",
+          "262b253feda94cfe0da01bde280a3ed6f87e5feb898578b55e1f63739d870e95",
+          "2e02d2cc795a2000a1b1f823879abbd397c4dea0918ed66b49d34b48efb8a4a",
+          "13a9f2d6e29b128da5b1ad44b31977935fd2957387ecb1fc4e135402fdbd1de0",
+          "40ba9fa500f1a5c4b31984a74e68659c4b420bd699ce630b130b08a6ea1162b",
+          "afc2f3fd870678fbe359d7f9873f052478f590b211ce30bf5e3eeaef89eafdb",
+          "1c54a530398c9064bdc662d929e645cadda9a712cc5a8243f9cddbd2d98dd1f0",
+          "95c0fbf5d5a1ac023794a0d856f92591ba990ecfd4b7aef5c0d58c5dc2429fe",
+          "14d3d6ca72d8a950a31dc10f7b4053c9e9ad9ebb590cb4a60f8215d4b99f2b4a",
+          "1dc0e7bbc3d70e6689dc206b4b91c85759dc1a23043c585fdfaf545838ca7429",
+          "b53320e5a6488cb98a855ffc837d2a75ab90d61ac16cc1b7ab2cd3ed5e22b97",
+          "13a8afd3085dae4c6c91476ef36cd1d318ce07bac42a9c0f9bd7fddaf5ebd723",
+          "f97b5221474526b601f3730a3afa965ceee1b343940c383e5314859e762c97"},
+      {
+          "5",
+          "7",
+          "af421e3891802b240f7d8f1b93fd8f971b90282e0147cf89bbd55a66728d2e",
+          "21bdb6f2643c63e8f2302b29992e506f88d3b6be9020b5e691f264ad2e57bdeb",
+          "148612bec6c12201b65737a3399f351a2816557d23955724642cbb74239e0d7f",
+          "1f2f173f43e2fe3b378818a8510cb6eb9a76164d155bdddeb363c107fcf8a14e",
+          "2a4395e00429076260614d126b2b17b215b3741c038202df911a51e66366eeb3",
+          "2cffe9cab83d5d1cc0f76835b601d8bb5135c14696d64d360135030e22128837",
+          "2f98dd475051a3563594ede63cb940e894ab1b44516de5b3d3bf4bf2e8f9dff5",
+          "bc20286cdce218af6840366d60065df172563689c20cfa8a1f59b7b37f8a0ae",
+          "171fbb25ec0da4782796ccd2120c8738e3595e047de58d8c01efa2be2e50392f",
+          "dcda3958451077b600547b9dffab748b4087f740d436df79ec6d27f80a5842a",
+          "10b2f290e76be44bd2ac765f1e7f205afa906017da48af3f522347bd646d2dbe",
+          "127b161e116229cc32ec822dbd674ddd0b6bbb869564741c885cf7e28e92e92b"}};
+
+  // the final exponentiation of the element with the coefficients 1 to 12
+  private static final String[] FINAL_EXPONENTIATION = {
+      "28b180e278ec852f2399772b8e4cc1e6dfc75dbabb0f59ccbc73394761237306",
+      "a0cafe3a5b0a235244558b59ff276b011668e2e7765a893e427070383dc707a",
+      "2e6ce88e187b31bb0a3e1edb25f32db29519e8930cd7df4df55ef6227d9dde3c",
+      "6d85521375dd58cc48a1a1e75f4dc9d08202a85f70629861a7c5a5579100873",
+      "2630bd780a949660aadb51fd671d873c2548e43fbe0efd746eb7f54625e13953",
+      "10815c8df0b0c53bf520670f5a9b828b6001e0396e644f889ea00fc2761af2d4",
+      "30593713675abc272dbba010455afeed0e93bf28bcb8d57ba0c4218bc3ebdbe5",
+      "8d1a38ddcb0c340355bf8188e12afca50a05849266ac3f167f6a6e62ca07756",
+      "2982f633fa3a364d54937faf322a50b0e4da54a4eddc4578ced25caf05a8fd78",
+      "f60089179fb3542e8ba3d16748883e22b7e0ad95e75b0cd2918b8e40424854a",
+      "a24498b24a5cd43fd9226fbb777aa3d83693288d920a60a9aea2024b611105e",
+      "2f268eba71cba8a84c38eab1c431dc33951f156330462a7519f55cf3a2aa3436"};
+
+  // the inverse of the element with the coefficients 1 to 12
+  private static final String[] INVERSE = {
+      "125226679dc081dc1506b07a700b3952206e710f34750f9f614d4eb252eb0b6c",
+      "27c0a917e8efaa8cfbafe22386be9f32651dad735696b7a8279bdd0537b474e0",
+      "1b93577faa8749e183babbf022d876b23c82ba4ac180fb055648f9d4cb540be6",
+      "94c7bc8c25ac32b605eebfc5a6c14825bc0e555692109774a10f5d39a5d05ea",
+      "65648179f3dc27661185acb26b727d24f656e72a66c246bce1b9207a6fd4a5c",
+      "2c260d9e5648a4aebf97258f58be3245f6dd702e576e3198aae28c76a284ff1e",
+      "15f18264031af68ba5060e27f8d87fc4d31cdcf9142c596666486819ecae92b8",
+      "19d678cbc6a10f9c657e0bdd7beaa6c7f2a9e344327962045b980f7766ecf60",
+      "12065cd6b2e668eed7575606ba7e245f52fa25e7068efd79990a943b85453fa5",
+      "235b3eefb75c0f70a1f7820ef8cc3d57026bb8ad21304123958d16092a537b43",
+      "f5805eec09c2fbe62bb4403055554e622416402009defffbde6a4ba18107742",
+      "113442093ba979fd894e30ee1376a6139871917e619999dfb7cfe37681413a53"};
+
+  private static byte[] word(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] word = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, word, 32 - length, length);
+    return word;
+  }
+
+  private static byte[] word(String decimal) {
+    return word(new BigInteger(decimal));
+  }
+
+  private static BigInteger value(Fp fp) {
+    return new BigInteger(1, fp.bytes());
+  }
+
+  private static List<String> hex(Fp2 fp2) {
+    List<String> result = new ArrayList<>();
+    result.add(value(fp2.a).toString(16));
+    result.add(value(fp2.b).toString(16));
+    return result;
+  }
+
+  private static List<String> hex(Fp12 fp12) {
+    List<String> result = new ArrayList<>();
+    for (Fp6 fp6 : new Fp6[]{fp12.a, fp12.b}) {
+      result.addAll(hex(fp6.a));
+      result.addAll(hex(fp6.b));
+      result.addAll(hex(fp6.c));
+    }
+    return result;
+  }
+
+  private static List<String> list(String[] values, int from) {
+    List<String> result = new ArrayList<>();
+    for (int i = from; i < values.length; i++) {
+      result.add(values[i]);
+    }
+    return result;
+  }
+
+  private static BN128G1 g1() {
+    return BN128G1.create(word("1"), word("2"));
+  }
+
+  private static BN128G2 g2() {
+    return BN128G2.create(word(G2[0]), word(G2[1]), word(G2[2]), word(G2[3]));
+  }
+
+  private static Fp12 sample() {
+    Fp2[] c = new Fp2[6];
+    for (int i = 0; i < 6; i++) {
+      c[i] = new Fp2(BigInteger.valueOf(2 * i + 1), BigInteger.valueOf(2 * i + 2));
+    }
+    return new Fp12(new Fp6(c[0], c[1], c[2]), new Fp6(c[3], c[4], c[5]));
+  }
+
+  @Test
+  public void fieldArithmetic() {
+    List<BigInteger> values = new ArrayList<>();
+    for (long v : new long[]{0, 1, 2, 3, 0xffffffffL, 0x100000000L}) {
+      values.add(BigInteger.valueOf(v));
+    }
+    values.add(P.subtract(BigInteger.ONE));
+    values.add(P.subtract(BigInteger.valueOf(2)));
+    values.add(P.shiftRight(1));
+    values.add(P.shiftRight(1).add(BigInteger.ONE));
+    values.add(BigInteger.ONE.shiftLeft(253));
+    Random random = new Random(0xb128);
+    for (int i = 0; i < 32; i++) {
+      values.add(new BigInteger(254, random).mod(P));
+    }
+
+    for (BigInteger a : values) {
+      Fp fa = Fp.create(word(a));
+      Assert.assertTrue(fa.isValid());
+      Assert.assertEquals(a, value(fa));
+      Assert.assertEquals(a.signum() == 0, fa.isZero());
+      Assert.assertEquals(a.negate().mod(P), value(fa.negate()));
+      Assert.assertEquals(a.shiftLeft(1).mod(P), value(fa.dbl()));
+      Assert.assertEquals(a.multiply(a).mod(P), value(fa.squared()));
+      if (a.signum() != 0) {
+        Assert.assertEquals(a.modInverse(P), value(fa.inverse()));
+      }
+
+      for (BigInteger b : values) {
+        Fp fb = Fp.create(word(b));
+        Assert.assertEquals(a.add(b).mod(P), value(fa.add(fb)));
+        Assert.assertEquals(a.subtract(b).mod(P), value(fa.sub(fb)));
+        Assert.assertEquals(a.multiply(b).mod(P), value(fa.mul(fb)));
+        Assert.assertEquals(a.equals(b), fa.equals(fb));
+      }
+    }
+  }
+
+  @Test
+  public void invalidFieldElements() {
+    BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+    for (BigInteger v : new BigInteger[]{P, P.add(BigInteger.ONE), P.shiftLeft(1), max}) {
+      Assert.assertFalse(v.toString(16), Fp.create(word(v)).isValid());
+    }
+  }
+
+  @Test
+  public void g1Arithmetic() {
+    // affine double and add over BigInteger, y^2 = x^3 + 3
+    BN128G1 g1 = g1();
+    BigInteger[] reference = {BigInteger.ONE, BigInteger.valueOf(2)};
+    BN128<Fp> point = g1;
+    for (int k = 2; k <= 40; k++) {
+      reference = affineAdd(reference, new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(2)});
+      point = point.add(g1);
+      BN128<Fp> affine = point.toAffine();
+      Assert.assertEquals("x of " + k, reference[0], value(affine.x()));
+      Assert.assertEquals("y of " + k, reference[1], value(affine.y()));
+
+      BN128<Fp> multiple = g1.mul(BigInteger.valueOf(k)).toAffine();
+      Assert.assertEquals("mul x of " + k, reference[0], value(multiple.x()));
+      Assert.assertEquals("mul y of " + k, reference[1], value(multiple.y()));
+    }
+
+    // the order of the group
+    Assert.assertTrue(g1.mul(Params.R).isZero());
+    Assert.assertTrue(g1.add(g1.mul(Params.R.subtract(BigInteger.ONE))).isZero());
+  }
+
+  private static BigInteger[] affineAdd(BigInteger[] p, BigInteger[] q) {
+    BigInteger lambda;
+    if (p[0].equals(q[0])) {
+      lambda = p[0].pow(2).multiply(BigInteger.valueOf(3))
+          .multiply(p[1].shiftLeft(1).modInverse(P)).mod(P);
+    } else {
+      lambda = q[1].subtract(p[1]).multiply(q[0].subtract(p[0]).modInverse(P)).mod(P);
+    }
+    BigInteger x = lambda.pow(2).subtract(p[0]).subtract(q[0]).mod(P);
+    BigInteger y = lambda.multiply(p[0].subtract(x)).subtract(p[1]).mod(P);
+    return new BigInteger[]{x, y};
+  }
+
+  @Test
+  public void g2Arithmetic() {
+    BN128G2 g2 = g2();
+    Assert.assertNotNull(g2);
+    for (String[] vector : G2_MULTIPLES) {
+      BN128<Fp2> p = g2.mul(new BigInteger(vector[0], 16)).toAffine();
+      List<String> actual = hex(p.x());
+      actual.addAll(hex(p.y()));
+      Assert.assertEquals(vector[0], list(vector, 1), actual);
+    }
+
+    BN128<Fp2> sum = g2.add(g2.mul(BigInteger.valueOf(2))).toAffine();
+    List<String> actual = hex(sum.x());
+    actual.addAll(hex(sum.y()));
+    Assert.assertEquals(list(G2_SUM, 0), actual);
+
+    Assert.assertTrue(g2.mul(Params.R).isZero());
+  }
+
+  @Test
+  public void invalidPoints() {
+    BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+    // not on the curve
+    Assert.assertNull(BN128G1.create(word("1"), word("3")));
+    // coordinates outside the field, the second one congruent to a point on the curve
+    Assert.assertNull(BN128G1.create(word(P.add(BigInteger.ONE)), word("2")));
+    Assert.assertNull(BN128G1.create(word("1"), word(P.add(BigInteger.valueOf(2)))));
+    Assert.assertNull(BN128G1.create(word(max), word(max)));
+    // the point at infinity
+    Assert.assertTrue(BN128G1.create(word("0"), word("0")).isZero());
+
+    Assert.assertNull(BN128G2.create(word(G2[0]), word(G2[1]), word(G2[2]), word("1")));
+    Assert.assertNull(BN128G2.create(word(P.add(new BigInteger(G2[0]))), word(G2[1]),
+        word(G2[2]), word(G2[3])));
+    Assert.assertNull(BN128G2.create(word(G2[1]), word(G2[0]), word(G2[3]), word(G2[2])));
+    Assert.assertTrue(BN128G2.create(word("0"), word("0"), word("0"), word("0")).isZero());
+  }
+
+  @Test
+  public void pairingValues() {
+    for (String[] vector : PAIRINGS) {
+      BN128G1 p = new BN128G1(g1().mul(new BigInteger(vector[0])));
+      BN128G2 q = new BN128G2(g2().mul(new BigInteger(vector[1])));
+      Fp12 pairing = PairingCheck.finalExponentiation(PairingCheck.Pair.of(p, q).millerLoop());
+      Assert.assertEquals(vector[0] + " " + vector[1], list(vector, 2), hex(pairing));
+    }
+
+    Assert.assertEquals(list(FINAL_EXPONENTIATION, 0),
+        hex(PairingCheck.finalExponentiation(sample())));
+    Assert.assertEquals(list(INVERSE, 0), hex(sample().inverse()));
+    Assert.assertEquals(Fp12._1, sample().mul(sample().inverse()));
+  }
+
+  @Test
+  public void pairingChecks() {
+    BigInteger a = BigInteger.valueOf(6);
+    BigInteger b = BigInteger.valueOf(11);
+
+    // e(a g1, b g2) e(-ab g1, g2) == 1
+    Assert.assertEquals(1, check(a, b, a.multiply(b).negate()));
+    Assert.assertEquals(0, check(a, b, a.multiply(b).add(BigInteger.ONE).negate()));
+    Assert.assertEquals(0, check(a, b, a.multiply(b)));
+
+    // e(g1, g2) e(-g1, g2) == 1, the pair of the pairing precompile benchmark
+    Assert.assertEquals(1, check(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE.negate()));
+    Assert.assertEquals(0, check(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE));
+
+    // no pairs, and pairs with the point at infinity, check as 1
+    PairingCheck empty = PairingCheck.create();
+    empty.run();
+    Assert.assertEquals(1, empty.result());
+    PairingCheck infinity = PairingCheck.create();
+    infinity.addPair(BN128G1.create(word("0"), word("0")), g2());
+    infinity.run();
+    Assert.assertEquals(1, infinity.result());
+
+    // a single pair of generators does not
+    PairingCheck single = PairingCheck.create();
+    single.addPair(g1(), g2());
+    single.run();
+    Assert.assertEquals(0, single.result());
+  }
+
+  private static int check(BigInteger a, BigInteger b, BigInteger c) {
+    PairingCheck check = PairingCheck.create();
+    check.addPair(new BN128G1(g1().mul(a)), new BN128G2(g2().mul(b)));
+    check.addPair(new BN128G1(g1().mul(c.mod(Params.R))), g2());
+    check.run();
+    return check.result();
+  }
+}
@@ -0,0 +1,224 @@
+package io.fortest.common.runtime.vm;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The limb arithmetic of DataWord against the BigInteger arithmetic it replaced, on the edges of
+ * the unsigned and signed ranges and on random words of every length.
+ */
+public class DataWordTest {
+
+  private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+  private static final BigInteger MAX = TWO_256.subtract(BigInteger.ONE);
+  private static final BigInteger MIN_SIGNED = BigInteger.ONE.shiftLeft(255);
+
+  private static final List<BigInteger> EDGES = new ArrayList<>();
+  private static final List<BigInteger> VALUES = new ArrayList<>();
+  // the shift amounts and exponents, many of them at or above 256
+  private static final List<BigInteger> COUNTS = new ArrayList<>();
+
+  static {
+    for (long v : new long[]{0, 1, 2, 3, 7, 31, 32, 255, 256, 257, 0xffff, 0x10000,
+        Integer.MAX_VALUE, 0xffffffffL, 0x100000000L, Long.MAX_VALUE}) {
+      EDGES.add(BigInteger.valueOf(v));
+    }
+    for (int bits : new int[]{63, 64, 65, 127, 128, 129, 192, 224, 248}) {
+      EDGES.add(BigInteger.ONE.shiftLeft(bits));
+      EDGES.add(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+    }
+    EDGES.add(MIN_SIGNED.subtract(BigInteger.ONE));
+    EDGES.add(MIN_SIGNED);
+    EDGES.add(MIN_SIGNED.add(BigInteger.ONE));
+    EDGES.add(MAX.subtract(BigInteger.valueOf(2)));
+    EDGES.add(MAX.subtract(BigInteger.ONE));
+    EDGES.add(MAX);
+    // the field orders the precompiles work in
+    EDGES.add(new BigInteger(
+        "21888242871839275222246405745257275088696311157297823662689037894645226208583"));
+    EDGES.add(new BigInteger(
+        "115792089237316195423570985008687907852837564279074904382605163141518161494337"));
+
+    VALUES.addAll(EDGES);
+    Random random = new Random(0x5eed);
+    for (int i = 0; i < 48; i++) {
+      // every length from one byte to a full word
+      VALUES.add(new BigInteger(8 * (i % 32 + 1), random));
+    }
+
+    for (long v : new long[]{0, 1, 2, 7, 8, 31, 32, 63, 64, 127, 128, 129, 191, 254, 255, 256,
+        257, 300, 512, 0xffffffffL, 0x100000000L, Long.MAX_VALUE}) {
+      COUNTS.add(BigInteger.valueOf(v));
+    }
+    COUNTS.add(MIN_SIGNED);
+    COUNTS.add(MAX);
+  }
+
+  private static DataWord word(BigInteger value) {
+    return new DataWord(toBytes(value));
+  }
+
+  private static byte[] toBytes(BigInteger value) {
+    byte[] bytes = value.and(MAX).toByteArray();
+    byte[] data = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, data, 32 - length, length);
+    return data;
+  }
+
+  private static BigInteger signed(BigInteger value) {
+    return value.testBit(255) ? value.subtract(TWO_256) : value;
+  }
+
+  private static void check(String op, BigInteger expected, DataWord actual, BigInteger... args) {
+    StringBuilder message = new StringBuilder(op);
+    for (BigInteger arg : args) {
+      message.append(' ').append(arg.toString(16));
+    }
+    Assert.assertEquals(message.toString(), new DataWord(toBytes(expected)), actual);
+  }
+
+  @Test
+  public void binaryOperations() {
+    for (BigInteger a : VALUES) {
+      for (BigInteger b : VALUES) {
+        DataWord word = word(a);
+        word.add(word(b));
+        check("add", a.add(b), word, a, b);
+
+        word = word(a);
+        word.sub(word(b));
+        check("sub", a.subtract(b), word, a, b);
+
+        word = word(a);
+        word.mul(word(b));
+        check("mul", a.multiply(b), word, a, b);
+
+        word = word(a);
+        word.div(word(b));
+        check("div", b.signum() == 0 ? BigInteger.ZERO : a.divide(b), word, a, b);
+
+        word = word(a);
+        word.mod(word(b));
+        check("mod", b.signum() == 0 ? BigInteger.ZERO : a.mod(b), word, a, b);
+
+        BigInteger sa = signed(a);
+        BigInteger sb = signed(b);
+        word = word(a);
+        word.sDiv(word(b));
+        check("sdiv", sb.signum() == 0 ? BigInteger.ZERO : sa.divide(sb), word, a, b);
+
+        BigInteger smod = sb.signum() == 0 ? BigInteger.ZERO : sa.abs().mod(sb.abs());
+        word = word(a);
+        word.sMod(word(b));
+        check("smod", sa.signum() < 0 ? smod.negate() : smod, word, a, b);
+
+        Assert.assertEquals("compare " + a + " " + b, a.compareTo(b),
+            word(a).compareTo(word(b)));
+      }
+    }
+  }
+
+  @Test
+  public void signedDivisionOverflow() {
+    // the one quotient that does not fit, it wraps to itself
+    DataWord word = word(MIN_SIGNED);
+    word.sDiv(word(MAX));
+    check("sdiv", MIN_SIGNED, word, MIN_SIGNED, MAX);
+
+    word = word(MIN_SIGNED);
+    word.sMod(word(MAX));
+    check("smod", BigInteger.ZERO, word, MIN_SIGNED, MAX);
+  }
+
+  @Test
+  public void modularOperations() {
+    for (BigInteger a : EDGES) {
+      for (BigInteger b : EDGES) {
+        for (BigInteger m : EDGES) {
+          DataWord word = word(a);
+          word.addmod(word(b), word(m));
+          check("addmod", m.signum() == 0 ? BigInteger.ZERO : a.add(b).mod(m), word, a, b, m);
+
+          word = word(a);
+          word.mulmod(word(b), word(m));
+          check("mulmod", m.signum() == 0 ? BigInteger.ZERO : a.multiply(b).mod(m), word,
+              a, b, m);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void exponentiation() {
+    List<BigInteger> exponents = new ArrayList<>(COUNTS);
+    exponents.addAll(VALUES);
+    for (BigInteger a : VALUES) {
+      for (BigInteger e : exponents) {
+        DataWord word = word(a);
+        word.exp(word(e));
+        check("exp", a.modPow(e, TWO_256), word, a, e);
+      }
+    }
+  }
+
+  @Test
+  public void shifts() {
+    for (BigInteger a : VALUES) {
+      for (BigInteger n : COUNTS) {
+        boolean outside = n.compareTo(BigInteger.valueOf(256)) >= 0;
+        int shift = n.intValue();
+
+        check("shl", outside ? BigInteger.ZERO : a.shiftLeft(shift),
+            word(a).shiftLeft(word(n)), a, n);
+        check("shr", outside ? BigInteger.ZERO : a.shiftRight(shift),
+            word(a).shiftRight(word(n)), a, n);
+
+        BigInteger sa = signed(a);
+        BigInteger sar = outside ? (sa.signum() < 0 ? MAX : BigInteger.ZERO)
+            : sa.shiftRight(shift);
+        check("sar", sar, word(a).shiftRightSigned(word(n)), a, n);
+      }
+    }
+  }
+
+  @Test
+  public void unaryOperations() {
+    for (BigInteger a : VALUES) {
+      DataWord word = word(a);
+      word.negate();
+      check("negate", a.negate(), word, a);
+
+      word = word(a);
+      word.bnot();
+      check("not", MAX.subtract(a), word, a);
+
+      for (byte k = 0; k < 32; k++) {
+        BigInteger low = a.and(BigInteger.ONE.shiftLeft(8 * k + 8).subtract(BigInteger.ONE));
+        BigInteger extended = low.testBit(8 * k + 7)
+            ? low.or(MAX.shiftLeft(8 * k + 8)) : low;
+        word = word(a);
+        word.signExtend(k);
+        check("signextend " + k, extended, word, a);
+      }
+    }
+  }
+
+  @Test
+  public void resultsDoNotAlias() {
+    // a word updated in place leaves the operand alone
+    DataWord a = word(MAX);
+    DataWord b = word(BigInteger.ONE);
+    a.add(b);
+    check("add", BigInteger.ZERO, a);
+    check("operand", BigInteger.ONE, b);
+
+    a = word(MIN_SIGNED);
+    a.mul(a);
+    check("square", BigInteger.ZERO, a);
+  }
+}
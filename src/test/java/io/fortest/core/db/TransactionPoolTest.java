@@ -0,0 +1,90 @@
+package io.fortest.core.db;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import io.fortest.core.capsule.TransactionCapsule;
+import io.fortest.protos.Contract.TransferContract;
+import io.fortest.protos.Protocol.Transaction;
+import io.fortest.protos.Protocol.Transaction.Contract.ContractType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionPoolTest {
+
+  private static final long OWNER_BYTES = 1024 * 1024;
+
+  private static TransactionCapsule transaction(int owner, long feeLimit) {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(new byte[]{0x41, (byte) owner}))
+        .setToAddress(ByteString.copyFrom(new byte[]{0x41, 0x7f}))
+        .setAmount(1)
+        .build();
+    Transaction.raw raw = Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(ContractType.TransferContract)
+            .setParameter(Any.pack(contract)))
+        .setFeeLimit(feeLimit)
+        .setExpiration(60_000L)
+        .build();
+    return new TransactionCapsule(Transaction.newBuilder().setRawData(raw).build());
+  }
+
+  // room for either transaction, not for both
+  private static long budget(TransactionCapsule first, TransactionCapsule second) {
+    return first.getSerializedSize() + second.getSerializedSize() - 1;
+  }
+
+  @Test
+  public void fullPoolDoesNotEvict() {
+    TransactionCapsule first = transaction(1, 0);
+    TransactionCapsule later = transaction(2, 1_000_000_000L);
+    TransactionPool pool = new TransactionPool(budget(first, later), OWNER_BYTES);
+
+    // a higher fee limit does not buy the place of a transaction already waiting
+    Assert.assertTrue(pool.add(first));
+    Assert.assertFalse(pool.canAccept(later));
+    Assert.assertFalse(pool.add(later));
+
+    Assert.assertTrue(pool.contains(first.getTransactionId()));
+    Assert.assertFalse(pool.contains(later.getTransactionId()));
+    Assert.assertEquals(first.getSerializedSize(), pool.getTotalBytes());
+  }
+
+  @Test
+  public void ownerBudget() {
+    TransactionCapsule first = transaction(1, 0);
+    TransactionCapsule second = transaction(1, 1);
+    TransactionCapsule other = transaction(2, 0);
+    TransactionPool pool = new TransactionPool(Long.MAX_VALUE, budget(first, second));
+
+    Assert.assertTrue(pool.add(first));
+    Assert.assertFalse(pool.canAccept(second));
+    Assert.assertFalse(pool.add(second));
+    Assert.assertTrue(pool.add(other));
+
+    // the budget of the owner is free again once its transaction leaves
+    Assert.assertTrue(pool.remove(first));
+    Assert.assertTrue(pool.add(second));
+    Assert.assertEquals(other.getSerializedSize() + second.getSerializedSize(),
+        pool.getTotalBytes());
+  }
+
+  @Test
+  public void arrivalOrder() {
+    TransactionCapsule first = transaction(1, 0);
+    TransactionCapsule second = transaction(2, 1_000_000_000L);
+    TransactionCapsule third = transaction(1, 1000);
+    TransactionPool pool = new TransactionPool(Long.MAX_VALUE, OWNER_BYTES);
+
+    pool.add(first);
+    pool.add(second);
+    pool.add(third);
+
+    Assert.assertEquals(first.getTransactionId(), pool.peek().getTransactionId());
+    Assert.assertEquals(first.getTransactionId(), pool.poll().getTransactionId());
+    Assert.assertEquals(second.getTransactionId(), pool.poll().getTransactionId());
+    Assert.assertEquals(third.getTransactionId(), pool.poll().getTransactionId());
+    Assert.assertTrue(pool.isEmpty());
+    Assert.assertEquals(0, pool.getTotalBytes());
+  }
+}